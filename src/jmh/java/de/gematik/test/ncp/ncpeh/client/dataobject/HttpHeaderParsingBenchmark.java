@@ -0,0 +1,149 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import de.gematik.ncpeh.api.response.SimulatorCommunicationData;
+import de.gematik.test.ncp.util.Utils;
+import de.gematik.test.ncp.utils.TestUtils;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of the HTTP headers, as recorded by the NCPeH simulator, by the former String and regex
+ * based implementation of {@code DataUtils.parseHttpHeaders} and by the {@link HttpHeaderParser}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpHeaderParsingBenchmark {
+
+  private static final String RESOURCE_PATH = "/de/gematik/test/ncp/ncpeh/client/dataobject/";
+
+  private static final List<String> RECORDED_COMMUNICATIONS =
+      List.of(
+          "identifyPatientResponse.json",
+          "findDocumentResponse.json",
+          "retrieveDocumentResponse.json",
+          "provideAndRegisterDocumentSetResponse.json");
+
+  /**
+   * recorded: the request and response headers of the recorded simulator communications<br>
+   * large: headers of a response with many, partly long headers, e.g. of a gateway in between
+   */
+  @Param({"recorded", "large"})
+  public String headers;
+
+  private List<byte[]> headerBlobs;
+
+  @Setup
+  public void setUp() {
+    final var recorded =
+        RECORDED_COMMUNICATIONS.stream()
+            .map(
+                name ->
+                    TestUtils.loadFromJsonResource(
+                        SimulatorCommunicationData.class, getClass(), RESOURCE_PATH + name))
+            .flatMap(
+                data ->
+                    Stream.of(
+                        data.requestSend().messageContent().httpHeader(),
+                        data.responseReceived().messageContent().httpHeader()))
+            .toList();
+    headerBlobs = "large".equals(headers) ? List.of(largeHeaders()) : recorded;
+  }
+
+  @Benchmark
+  public void legacy(final Blackhole blackhole) {
+    for (final var blob : headerBlobs) {
+      blackhole.consume(legacyParseHttpHeaders(blob));
+    }
+  }
+
+  @Benchmark
+  public void tokenizer(final Blackhole blackhole) {
+    for (final var blob : headerBlobs) {
+      blackhole.consume(HttpHeaderParser.parse(blob));
+    }
+  }
+
+  private static byte[] largeHeaders() {
+    final var result = new StringBuilder("[");
+    for (var i = 0; i < 40; i++) {
+      result
+          .append("X-Forwarded-Header-")
+          .append(i)
+          .append(":\"value-")
+          .append(i)
+          .append(", ")
+          .append("a".repeat(i * 10))
+          .append("\", ");
+    }
+    result.append("Content-Type:\"application/soap+xml;charset=UTF-8\"]");
+    return result.toString().getBytes(UTF_8);
+  }
+
+  /** The former implementation of {@code DataUtils.parseHttpHeaders} */
+  private static Map<String, String> legacyParseHttpHeaders(final byte[] httpHeader) {
+    var headersAsString = new String(httpHeader, UTF_8);
+    headersAsString = Utils.trimCharacters(headersAsString, "[", "]");
+
+    return headersAsString
+        .lines()
+        .flatMap(line -> Arrays.stream(Utils.splitConsideringQuotes(line, ",")))
+        .map(
+            headerLine -> {
+              final var colonIndex = headerLine.indexOf(":");
+              final var headerMap = new HashMap<String, String>();
+              headerMap.put(
+                  headerLine.substring(0, colonIndex).trim(),
+                  headerLine.substring(colonIndex).trim());
+              return headerMap;
+            })
+        .reduce(
+            (headersMap, headerMap) -> {
+              headersMap.putAll(headerMap);
+              return headersMap;
+            })
+        .orElse(new HashMap<>());
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import de.gematik.ncpeh.api.response.SimulatorCommunicationData;
+import de.gematik.test.ncp.utils.TestUtils;
+import jakarta.ws.rs.core.Response;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Conversion of recorded responses of the NCPeH simulator into the response DTOs by {@code
+ * DataUtils.convertResponseDataFor*}, with and without reading the echoed request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseConversionBenchmark {
+
+  private static final String RESOURCE_PATH = "/de/gematik/test/ncp/ncpeh/client/dataobject/";
+
+  /** Operations of the NCPeH FD with the recorded communication of the simulator */
+  public enum Operation {
+    IDENTIFY_PATIENT(
+        "identifyPatientResponse.json", DataUtils::convertResponseDataForIdentifyPatient),
+    FIND_DOCUMENTS("findDocumentResponse.json", DataUtils::convertResponseDataForFindDocuments),
+    RETRIEVE_DOCUMENTS(
+        "retrieveDocumentResponse.json", DataUtils::convertResponseDataForRetrieveDocuments),
+    PROVIDE_AND_REGISTER_DOCUMENT_SET(
+        "provideAndRegisterDocumentSetResponse.json",
+        DataUtils::convertResponseDataForProvideAndRegisterDocumentSet);
+
+    private final String recording;
+
+    private final Function<Response, NcpehInterfaceResponse<?, ?>> conversion;
+
+    Operation(
+        final String recording, final Function<Response, NcpehInterfaceResponse<?, ?>> conversion) {
+      this.recording = recording;
+      this.conversion = conversion;
+    }
+  }
+
+  @Param public Operation operation;
+
+  private SimulatorCommunicationData communicationData;
+
+  @Setup
+  public void setUp() {
+    communicationData =
+        TestUtils.loadFromJsonResource(
+            SimulatorCommunicationData.class, getClass(), RESOURCE_PATH + operation.recording);
+  }
+
+  /** The response content only, as most steps use it */
+  @Benchmark
+  public Object responseContent() {
+    final var converted = convert();
+    try {
+      return converted.ncpehFdResponseContent();
+    } finally {
+      close(converted);
+    }
+  }
+
+  /** Request and response with their headers, as the steps validating the request use it */
+  @Benchmark
+  public void requestAndResponse(final Blackhole blackhole) {
+    final var converted = convert();
+    blackhole.consume(converted.ncpehFdRequestContent());
+    blackhole.consume(converted.ncpehFdRequest().headers());
+    blackhole.consume(converted.ncpehFdResponseContent());
+    blackhole.consume(converted.ncpehFdResponse().headers());
+    close(converted);
+  }
+
+  /** A new response per invocation, the parse contexts are cached per response object */
+  private NcpehInterfaceResponse<?, ?> convert() {
+    return operation.conversion.apply(Response.ok(communicationData).build());
+  }
+
+  /** Delete the spooled documents of a retrieveDocuments response */
+  private static void close(final NcpehInterfaceResponse<?, ?> converted) {
+    if (converted instanceof final RetrieveDocumentsResponseDTO retrieved) {
+      retrieved.close();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import de.gematik.test.ncp.util.Utils;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.w3c.dom.Document;
+
+/**
+ * Unmarshalling of the SOAP body of RetrieveDocumentSet responses with a size of several MB, by
+ * SAAJ and DOM and by streaming with StAX, and the extraction of the SOAP body by SAAJ alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class SoapBodyParsingBenchmark {
+
+  private static final String RESPONSE_RESOURCE =
+      "/de/gematik/test/ncp/ncpeh/client/dataobject/RetrieveDocumentSetResponse.xml";
+
+  private static final String DOCUMENT_RESPONSE_START = "<ns3:DocumentResponse>";
+
+  private static final String DOCUMENT_RESPONSE_END = "</ns3:DocumentResponse>";
+
+  /** Approximate size of the SOAP message */
+  @Param({"1", "8", "32"})
+  public int megabytes;
+
+  private byte[] soapMessage;
+
+  @SneakyThrows
+  @Setup
+  public void setUp() {
+    final String response;
+    try (final var in = getClass().getResourceAsStream(RESPONSE_RESOURCE)) {
+      response =
+          new String(Objects.requireNonNull(in).readAllBytes(), UTF_8)
+              .replaceAll("(?s)<!--.*?-->", "");
+    }
+    // repeat the document responses with their base64 encoded documents up to the size
+    final var start = response.indexOf(DOCUMENT_RESPONSE_START);
+    final var end = response.lastIndexOf(DOCUMENT_RESPONSE_END) + DOCUMENT_RESPONSE_END.length();
+    final var documentResponses = response.substring(start, end);
+    final var body = new StringBuilder(response.substring(0, end));
+    while (body.length() < megabytes * 1024 * 1024) {
+      body.append(documentResponses);
+    }
+    body.append(response.substring(end));
+
+    soapMessage =
+        ("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                + "<soap:Header/><soap:Body>"
+                + body
+                + "</soap:Body></soap:Envelope>")
+            .getBytes(UTF_8);
+  }
+
+  @Benchmark
+  public Document extractBodyAsDocument() {
+    return SoapUtils.extractBodyAsDocument(soapMessage);
+  }
+
+  @Benchmark
+  public RetrieveDocumentSetResponseType saaj() {
+    return Utils.unmarshalXml(
+        RetrieveDocumentSetResponseType.class, SoapUtils.extractBodyAsDocument(soapMessage));
+  }
+
+  @Benchmark
+  public RetrieveDocumentSetResponseType streaming() {
+    return SoapUtils.unmarshalBodyContent(soapMessage, RetrieveDocumentSetResponseType.class)
+        .orElseThrow();
+  }
+}
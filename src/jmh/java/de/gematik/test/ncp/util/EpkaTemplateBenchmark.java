@@ -0,0 +1,85 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import de.gematik.test.ncp.data.PersonName;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.ResourceUtils;
+
+/** Creation of an ePKA by the {@link EpkaProcessor} (DOM and XPath) and the {@link EpkaTemplate} */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EpkaTemplateBenchmark {
+
+  @Param({"epka_mio_default.xml", "epka_defect_011.xml"})
+  public String template;
+
+  private final String kvnr = "X987654321";
+
+  private final LocalDate birthDate = LocalDate.of(1961, 2, 3);
+
+  private final PersonName name =
+      PersonName.fromString("Prof. Freifrau Sybille Gertrud von Oberammergau und Niederrheindings");
+
+  private URL templateUrl;
+
+  @SneakyThrows
+  @Setup
+  public void setUp() {
+    templateUrl = ResourceUtils.getURL("classpath:testdata/" + template);
+    EpkaTemplate.forUrl(templateUrl);
+  }
+
+  @Benchmark
+  public byte[] epkaProcessor() {
+    return new EpkaProcessor(templateUrl)
+        .updateBirthDate(birthDate)
+        .updateKvnr(kvnr)
+        .updateName(name)
+        .toXmlString()
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Benchmark
+  public byte[] epkaTemplate() {
+    return EpkaTemplate.forUrl(templateUrl).createEpka(kvnr, birthDate, name);
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import de.gematik.test.ncp.utils.TestUtils;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Extraction of the documentUniqueIds of an AdhocQueryResponse by {@link
+ * IheUtils#extractDocumentIdsFromAdhocQueryResponse(AdhocQueryResponse)}, for the recorded
+ * response and responses with many ExtrinsicObjects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IheUtilsBenchmark {
+
+  private static final String ADHOC_QUERY_RESPONSE_XML_FILE_NAME = "AdhocQueryResponse.xml";
+
+  /** Number of ExtrinsicObjects in the response, the recorded one contains 2 */
+  @Param({"2", "100", "1000"})
+  public int extrinsicObjects;
+
+  private AdhocQueryResponse adhocQueryResponse;
+
+  @Setup
+  public void setUp() {
+    adhocQueryResponse =
+        TestUtils.loadFromXMLResource(
+            AdhocQueryResponse.class, IheUtils.class, ADHOC_QUERY_RESPONSE_XML_FILE_NAME);
+    // repeat the recorded ExtrinsicObjects up to the requested number
+    final var identifiables = adhocQueryResponse.getRegistryObjectList().getIdentifiable();
+    final var recorded = new ArrayList<>(identifiables);
+    while (identifiables.size() < extrinsicObjects) {
+      identifiables.add(recorded.get(identifiables.size() % recorded.size()));
+    }
+  }
+
+  @Benchmark
+  public List<String> extractDocumentIds() {
+    return IheUtils.extractDocumentIdsFromAdhocQueryResponse(adhocQueryResponse);
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import static de.gematik.test.ncp.ncpeh.data.TestdataFactory.OID_AC_ERP_ASSIGNING_AUTHORITY;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parsing of the XDS document UIDs of prescriptions by the {@link PrescriptionUtils}, over the
+ * UIDs of a FindDocuments response with many prescriptions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PrescriptionUtilsBenchmark {
+
+  private static final int DOCUMENT_UIDS = 1000;
+
+  private static final List<String> FLOW_TYPES = List.of("160", "162", "169", "200", "209");
+
+  private List<String> documentUids;
+
+  @Setup
+  public void setUp() {
+    documentUids =
+        IntStream.range(0, DOCUMENT_UIDS)
+            .mapToObj(
+                i ->
+                    "%s^%s.000.000.%03d.%03d.%02d|eP.%s"
+                        .formatted(
+                            OID_AC_ERP_ASSIGNING_AUTHORITY,
+                            FLOW_TYPES.get(i % FLOW_TYPES.size()),
+                            i / 1000,
+                            i % 1000,
+                            i % 100,
+                            i % 2 == 0 ? "PDF" : "XML"))
+            .toList();
+  }
+
+  @Benchmark
+  public void extractPrescriptionId(final Blackhole blackhole) {
+    for (final var documentUid : documentUids) {
+      blackhole.consume(PrescriptionUtils.extractPrescriptionIdFromDocumentUid(documentUid));
+    }
+  }
+
+  @Benchmark
+  public void matchPrescriptionUid(final Blackhole blackhole) {
+    for (final var documentUid : documentUids) {
+      blackhole.consume(
+          PrescriptionUtils.XDS_DOCUMENT_ENTRY_UNIQUE_ID_EPED_PATTERN
+              .matcher(documentUid)
+              .matches());
+    }
+  }
+}
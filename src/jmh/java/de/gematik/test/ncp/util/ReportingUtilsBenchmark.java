@@ -0,0 +1,143 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import de.gematik.test.ncp.reporting.MatchingMode;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading of a performance log by {@link ReportingUtils#readPerformanceLogFile(Optional)} and
+ * matching of its entries with the entries of the DWH by {@link
+ * ReportingUtils#matchPerformanceReportEntries(NcpehPerformanceReport, NcpehPerformanceReport,
+ * int, MatchingMode)}. The log is built from the lines of a recorded performance log, as long as
+ * the log of a load test run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportingUtilsBenchmark {
+
+  private static final String RECORDED_PERFORMANCE_LOG = "1-Success-NCP1_IOP_PSA_UC3_030-perf.log";
+
+  /** Time between two entries of the log */
+  private static final long ENTRY_INTERVAL_MS = 250;
+
+  /** Time shift of the DWH entries against the entries of the log */
+  private static final long DWH_TIMESHIFT_MS = 40;
+
+  private static final int ACCEPTABLE_DELTA_MS = 100;
+
+  @Param({"1000", "10000"})
+  public int entries;
+
+  private Path performanceLogFile;
+
+  private NcpehPerformanceReport performanceReport;
+
+  private NcpehPerformanceReport dwhPerformanceReport;
+
+  @SneakyThrows
+  @Setup
+  public void setUp() {
+    final List<String> recordedLines;
+    try (final var in = getClass().getResourceAsStream(RECORDED_PERFORMANCE_LOG)) {
+      recordedLines =
+          new String(Objects.requireNonNull(in).readAllBytes(), UTF_8)
+              .lines()
+              .filter(line -> !line.isBlank())
+              .toList();
+    }
+    final var start =
+        Long.parseLong(recordedLines.getFirst().split(ReportingUtils.CSV_SEPARATOR)[0]);
+    final var log = new StringBuilder();
+    for (var i = 0; i < entries; i++) {
+      final var recorded = recordedLines.get(i % recordedLines.size());
+      log.append(start + i * ENTRY_INTERVAL_MS)
+          .append(recorded, recorded.indexOf(ReportingUtils.CSV_SEPARATOR), recorded.length())
+          .append('\n');
+    }
+    performanceLogFile = Files.createTempFile("benchmark-", "-perf.log");
+    Files.writeString(performanceLogFile, log, UTF_8);
+
+    performanceReport = ReportingUtils.readPerformanceLogFile(Optional.of(performanceLogFile));
+    dwhPerformanceReport = new NcpehPerformanceReport();
+    performanceReport.getEntries().stream()
+        .map(
+            entry ->
+                new NcpehPerformanceReportEntry()
+                    .timestamp(entry.timestamp() + DWH_TIMESHIFT_MS)
+                    .duration(entry.duration())
+                    .operation(entry.operation())
+                    .status(entry.status())
+                    .message(entry.message()))
+        .forEach(dwhPerformanceReport::addEntry);
+  }
+
+  @SneakyThrows
+  @TearDown
+  public void tearDown() {
+    Files.deleteIfExists(performanceLogFile);
+  }
+
+  @Benchmark
+  public NcpehPerformanceReport readPerformanceLogFile() {
+    return ReportingUtils.readPerformanceLogFile(Optional.of(performanceLogFile));
+  }
+
+  @Benchmark
+  public Object matchPerformanceReportEntries(final Matching matching) {
+    return ReportingUtils.matchPerformanceReportEntries(
+        performanceReport, dwhPerformanceReport, ACCEPTABLE_DELTA_MS, matching.matchingMode);
+  }
+
+  /** The matching mode as parameter of the matching only */
+  @State(Scope.Benchmark)
+  public static class Matching {
+
+    @Param public MatchingMode matchingMode;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import ihe.iti.xds_b._2007.ProvideAndRegisterDocumentSetRequestType;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+import org.hl7.v3.ClinicalDocument;
+import org.hl7.v3.PRPAIN201306UV02;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Unmarshalling of recorded messages and documents by {@link Utils#unmarshalXml(Class, byte[])} */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlUnmarshallingBenchmark {
+
+  private static final String DATAOBJECT_PATH = "/de/gematik/test/ncp/ncpeh/client/dataobject/";
+
+  /** Recorded XML fixtures with the JAXB type to unmarshal them into */
+  public enum Fixture {
+    PRPA_IN201306UV02(DATAOBJECT_PATH + "PRPA_IN201306UV02.xml", PRPAIN201306UV02.class),
+    ADHOC_QUERY_RESPONSE(DATAOBJECT_PATH + "AdhocQueryResponse.xml", AdhocQueryResponse.class),
+    RETRIEVE_DOCUMENT_SET_RESPONSE(
+        DATAOBJECT_PATH + "RetrieveDocumentSetResponse.xml", RetrieveDocumentSetResponseType.class),
+    PROVIDE_AND_REGISTER_DOCUMENT_SET_REQUEST(
+        DATAOBJECT_PATH + "ProvideAndRegisterDocumentSetRequest.xml",
+        ProvideAndRegisterDocumentSetRequestType.class),
+    CDA1_PRESCRIPTION("/de/gematik/test/ncp/util/Prescription_CDA1.xml", ClinicalDocument.class);
+
+    private final String resource;
+
+    private final Class<?> type;
+
+    Fixture(final String resource, final Class<?> type) {
+      this.resource = resource;
+      this.type = type;
+    }
+  }
+
+  @Param public Fixture fixture;
+
+  private byte[] xml;
+
+  @SneakyThrows
+  @Setup
+  public void setUp() {
+    try (final var in = getClass().getResourceAsStream(fixture.resource)) {
+      xml = Objects.requireNonNull(in).readAllBytes();
+    }
+  }
+
+  @Benchmark
+  public Object unmarshalXml() {
+    return Utils.unmarshalXml(fixture.type, xml);
+  }
+}
@@ -57,7 +57,9 @@ public class GeneralFactory {
       new JacksonJsonProvider(objectMapper);
 
   /**
-   * Creates a JAX-RS client proxy for the specified proxy class and server configuration.
+   * Creates a JAX-RS client proxy for the specified proxy class and server configuration.<br>
+   * The proxy is thread-safe: it keeps the state of a request per thread, so it can be shared by
+   * concurrent workers, like the ones of the {@link de.gematik.test.ncp.ps.AktenkontoSeeder}.
    *
    * @param <T> the type of the proxy class
    * @param proxyClass the class of the proxy to create
@@ -74,7 +76,8 @@ public class GeneralFactory {
             .build()
             .toUriString(),
         proxyClass,
-        List.of(JACKSON_JSON_PROVIDER));
+        List.of(JACKSON_JSON_PROVIDER),
+        true);
   }
 
   /**
@@ -24,12 +24,11 @@ package de.gematik.test.ncp.data;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import de.gematik.test.ncp.util.EpkaProcessor;
+import de.gematik.test.ncp.util.EpkaTemplate;
 import de.gematik.test.ncp.util.Utils;
 import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
 import java.io.File;
 import java.net.URL;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -191,12 +190,8 @@ public final class Testdata {
 
   private byte[] createEpkaFromTemplateFile(
       @NonNull final Patient patient, @NonNull final URL templateFile) {
-    return new EpkaProcessor(templateFile)
-        .updateBirthDate(patient.birthDate())
-        .updateKvnr(patient.kvnr())
-        .updateName(patient.name())
-        .toXmlString()
-        .getBytes(StandardCharsets.UTF_8);
+    return EpkaTemplate.forUrl(templateFile)
+        .createEpka(patient.kvnr(), patient.birthDate(), patient.name());
   }
 
   /**
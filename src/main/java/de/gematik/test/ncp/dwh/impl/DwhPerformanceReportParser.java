@@ -0,0 +1,105 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.dwh.impl;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Reads the performance report of the DWH, a JSON array of the fields of {@link
+ * de.gematik.test.ncp.reporting.model.NcpehPerformanceReportDWHResponseEntry}, token by token
+ * directly into {@link NcpehPerformanceReportEntry}s, without keeping the response body or the
+ * response entries in memory.
+ */
+@UtilityClass
+class DwhPerformanceReportParser {
+
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX").withZone(ZoneId.of("UTC"));
+
+  /**
+   * @param body the response body of the DWH, closed afterwards
+   * @return the entries of the report, in the order of the response
+   * @throws IOException if the body can't be read or is no JSON array of report entries
+   */
+  static List<NcpehPerformanceReportEntry> readEntries(final InputStream body)
+      throws IOException {
+    try (final var parser = TigerGlobalConfiguration.getObjectMapper().createParser(body)) {
+      final var entries = new ArrayList<NcpehPerformanceReportEntry>();
+      if (parser.nextToken() != JsonToken.START_ARRAY) {
+        throw new JsonParseException(parser, "DWH performance report is no JSON array");
+      }
+      while (parser.nextToken() == JsonToken.START_OBJECT) {
+        entries.add(readEntry(parser));
+      }
+      if (parser.currentToken() != JsonToken.END_ARRAY) {
+        throw new JsonParseException(parser, "DWH performance report contains no JSON object");
+      }
+      return entries;
+    }
+  }
+
+  private static NcpehPerformanceReportEntry readEntry(final JsonParser parser)
+      throws IOException {
+    final var entry = new NcpehPerformanceReportEntry();
+    String reqc = null;
+    String err = null;
+    long bkdur = 0;
+    String field;
+    while ((field = parser.nextFieldName()) != null) {
+      final var token = parser.nextToken();
+      if (token == JsonToken.VALUE_NULL) {
+        continue;
+      }
+      if (token.isStructStart()) {
+        // no known field holds an object or array, so the value is skipped as a whole
+        parser.skipChildren();
+        continue;
+      }
+      switch (field) {
+        case "timestamp" ->
+            entry.timestamp(Instant.from(TIMESTAMP_FORMAT.parse(parser.getText())).toEpochMilli());
+        case "duration" -> entry.duration(parser.getValueAsLong());
+        case "usecase" -> entry.operation(UseCase.fromValue(parser.getText()));
+        case "statuscode" -> entry.status(parser.getValueAsString());
+        case "reqc" -> reqc = parser.getValueAsString();
+        case "err" -> err = parser.getValueAsString();
+        case "bkdur" -> bkdur = parser.getValueAsLong();
+        default -> parser.skipChildren();
+      }
+    }
+    return entry.message(new NcpehPerformanceMessage(reqc, err, bkdur));
+  }
+}
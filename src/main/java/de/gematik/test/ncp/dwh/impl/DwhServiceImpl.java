@@ -24,29 +24,39 @@ package de.gematik.test.ncp.dwh.impl;
 import static de.gematik.test.ncp.reporting.Environment.PU;
 import static net.serenitybdd.rest.SerenityRest.given;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import de.gematik.test.ncp.ExternalServerConfig;
 import de.gematik.test.ncp.dwh.DwhService;
-import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
-import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportDWHResponseEntry;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
 import de.gematik.test.ncp.util.Utils;
 import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
 import io.restassured.http.ContentType;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collector;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
 import org.springframework.web.util.UriComponentsBuilder;
 
 @Slf4j
-public class DwhServiceImpl implements DwhService {
+public class DwhServiceImpl implements DwhService, AutoCloseable {
 
   private static final String DWH_CONFIG_KEY =
       ExternalServerConfig.EXTERNAL_SERVER_CONFIG_TIGER_KEY + ".dwh";
@@ -57,17 +67,52 @@ public class DwhServiceImpl implements DwhService {
 
   private static final String DWH_LOGIN_GRANT_TYPE_KEY = DWH_CONFIG_KEY + ".loginGrantType";
 
+  private static final String DWH_TOKEN_CONFIG_KEY = DWH_CONFIG_KEY + ".token";
+
+  static final String DWH_TOKEN_REFRESH_AHEAD_SECONDS_KEY =
+      DWH_TOKEN_CONFIG_KEY + ".refreshAheadSeconds";
+
+  static final String DWH_TOKEN_MAX_ATTEMPTS_KEY = DWH_TOKEN_CONFIG_KEY + ".maxAttempts";
+
+  static final String DWH_TOKEN_INITIAL_BACKOFF_MS_KEY = DWH_TOKEN_CONFIG_KEY + ".initialBackoffMs";
+
+  public static final int DEFAULT_TOKEN_REFRESH_AHEAD_SECONDS = 60;
+
+  public static final int DEFAULT_TOKEN_MAX_ATTEMPTS = 3;
+
+  public static final int DEFAULT_TOKEN_INITIAL_BACKOFF_MS = 500;
+
+  static final String DWH_REPORT_WINDOW_MINUTES_KEY = DWH_CONFIG_KEY + ".report.windowMinutes";
+
+  static final String DWH_REPORT_PARALLELISM_KEY = DWH_CONFIG_KEY + ".report.parallelism";
+
+  public static final int DEFAULT_REPORT_WINDOW_MINUTES = 60;
+
+  public static final int DEFAULT_REPORT_PARALLELISM = 4;
+
   public static final String DWH_URL_ACTIVE_KEY = "tiger.servers.dwhUrl.active";
 
   private static final DateTimeFormatter formatter =
       DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX").withZone(ZoneId.of("UTC"));
 
-  private String token;
-
   @Getter(lazy = true)
   private final ExternalServerConfig config =
       Utils.loadConfig(ExternalServerConfig.class, DWH_CONFIG_KEY);
 
+  @Getter(lazy = true)
+  private final DwhTokenManager tokenManager =
+      new DwhTokenManager(
+          this::fetchToken,
+          Clock.systemUTC(),
+          Duration.ofSeconds(
+              TigerGlobalConfiguration.readIntegerOptional(DWH_TOKEN_REFRESH_AHEAD_SECONDS_KEY)
+                  .orElse(DEFAULT_TOKEN_REFRESH_AHEAD_SECONDS)),
+          TigerGlobalConfiguration.readIntegerOptional(DWH_TOKEN_MAX_ATTEMPTS_KEY)
+              .orElse(DEFAULT_TOKEN_MAX_ATTEMPTS),
+          Duration.ofMillis(
+              TigerGlobalConfiguration.readIntegerOptional(DWH_TOKEN_INITIAL_BACKOFF_MS_KEY)
+                  .orElse(DEFAULT_TOKEN_INITIAL_BACKOFF_MS)));
+
   @Getter(lazy = true)
   private final String baseUrl =
       UriComponentsBuilder.newInstance()
@@ -97,8 +142,19 @@ public class DwhServiceImpl implements DwhService {
   @Getter(lazy = true)
   private final String clientSecret = System.getenv(DWH_MICROSOFT_CLIENT_SECRET_VARIABLE_NAME);
 
+  /** Fetches the performance report, the token is requested with REST Assured */
+  private final HttpClient httpClient;
+
   private static DwhService instance;
 
+  public DwhServiceImpl() {
+    this(HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build());
+  }
+
+  DwhServiceImpl(@NonNull final HttpClient httpClient) {
+    this.httpClient = httpClient;
+  }
+
   public static DwhService getInstance() {
     return Optional.ofNullable(instance)
         .orElseGet(
@@ -108,64 +164,155 @@ public class DwhServiceImpl implements DwhService {
             });
   }
 
+  /**
+   * Close the instance, if it was created, so the background refresh of its token stops. Meant to
+   * be called once after the test run.
+   */
+  public static void closeInstance() {
+    Optional.ofNullable(instance)
+        .ifPresent(
+            service -> {
+              instance = null;
+              ((DwhServiceImpl) service).close();
+            });
+  }
+
+  /** Stop the background refresh of the access token and close the HTTP client */
+  @Override
+  public void close() {
+    getTokenManager().close();
+    httpClient.close();
+  }
+
+  /**
+   * A part of the time range of a performance report, fetched with one request.
+   *
+   * @param from start of the window in milliseconds since epoch, inclusive
+   * @param until end of the window in milliseconds since epoch, inclusive
+   */
+  record TimeWindow(long from, long until) {}
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The time range is split into windows of {@code report.windowMinutes}, which are fetched
+   * concurrently by at most {@code report.parallelism} requests. The responses are parsed as they
+   * are received and merged in the order of the timestamps.
+   */
   @SneakyThrows
   @Override
   public NcpehPerformanceReport getPerformanceReport(final Long start, final Long end) {
-    final var response =
-        given()
-            .baseUri(getBaseUrl())
-            .basePath("/NCPeH")
-            .accept(ContentType.JSON)
-            .contentType(ContentType.JSON)
-            .header("Authorization", String.format("Bearer %s", getToken()))
-            .queryParams(
-                "from",
-                formatter.format(Instant.ofEpochMilli(start)),
-                "until",
-                formatter.format(Instant.ofEpochMilli(end)),
-                "bu",
-                PU)
-            .get()
-            .getBody()
-            .asString();
-    log.debug("DWH Performance report: {}", response);
-
-    return TigerGlobalConfiguration.getObjectMapper()
-        .readValue(response, new TypeReference<List<NcpehPerformanceReportDWHResponseEntry>>() {})
-        .stream()
-        .map(
-            entry ->
-                new NcpehPerformanceReportEntry()
-                    .timestamp(entry.getTimestamp().toEpochMilli())
-                    .duration(entry.getDuration())
-                    .operation(entry.getUsecase())
-                    .status(entry.getStatuscode())
-                    .message(
-                        new NcpehPerformanceMessage(
-                            entry.getReqc(), entry.getErr(), entry.getBkdur())))
-        .collect(
-            Collector.of(
-                NcpehPerformanceReport::new,
-                NcpehPerformanceReport::addEntry,
-                (left, right) -> {
-                  left.getEntries().addAll(right.getEntries());
-                  return left;
-                }));
+    final var windows =
+        splitIntoWindows(
+            start,
+            end,
+            TimeUnit.MINUTES.toMillis(
+                TigerGlobalConfiguration.readIntegerOptional(DWH_REPORT_WINDOW_MINUTES_KEY)
+                    .orElse(DEFAULT_REPORT_WINDOW_MINUTES)));
+    final var parallelism =
+        Math.min(
+            windows.size(),
+            TigerGlobalConfiguration.readIntegerOptional(DWH_REPORT_PARALLELISM_KEY)
+                .orElse(DEFAULT_REPORT_PARALLELISM));
+
+    final var entries = new ArrayList<NcpehPerformanceReportEntry>();
+    if (parallelism <= 1) {
+      for (final var window : windows) {
+        entries.addAll(fetchPerformanceReportEntries(window));
+      }
+    } else {
+      try (final var executor =
+          Executors.newFixedThreadPool(parallelism, Thread.ofVirtual().factory())) {
+        final var parts =
+            windows.stream()
+                .map(window -> executor.submit(() -> fetchPerformanceReportEntries(window)))
+                .toList();
+        for (final var part : parts) {
+          try {
+            entries.addAll(part.get());
+          } catch (final ExecutionException e) {
+            throw e.getCause();
+          }
+        }
+      }
+    }
+    // the windows are sorted already, the stable sort mostly merges their runs
+    entries.sort(
+        Comparator.comparing(
+            NcpehPerformanceReportEntry::timestamp,
+            Comparator.nullsFirst(Comparator.naturalOrder())));
+
+    final var report = new NcpehPerformanceReport();
+    report.getEntries().addAll(entries);
+    return report;
+  }
+
+  /**
+   * Split the time range into consecutive windows of the given size, the last one may be shorter.
+   *
+   * @param start start of the range in milliseconds since epoch
+   * @param end end of the range in milliseconds since epoch
+   * @param windowMillis size of the windows, the range isn't split if not positive
+   * @return the windows in the order of time, at least one
+   */
+  static List<TimeWindow> splitIntoWindows(
+      final long start, final long end, final long windowMillis) {
+    if (windowMillis <= 0 || end - start <= windowMillis) {
+      return List.of(new TimeWindow(start, end));
+    }
+    final var windows = new ArrayList<TimeWindow>();
+    for (var from = start; from <= end; from += windowMillis) {
+      windows.add(new TimeWindow(from, Math.min(from + windowMillis - 1, end)));
+    }
+    return windows;
+  }
+
+  /**
+   * Fetch the entries of one window of the performance report. The response body is parsed while
+   * it is received, so it is never kept in memory as a whole.
+   *
+   * @param window the time window
+   * @return the entries of the window, in the order of the response
+   */
+  @SneakyThrows
+  List<NcpehPerformanceReportEntry> fetchPerformanceReportEntries(final TimeWindow window) {
+    final var uri =
+        UriComponentsBuilder.fromUriString(getBaseUrl())
+            .path("/NCPeH")
+            .queryParam("from", formatter.format(Instant.ofEpochMilli(window.from())))
+            .queryParam("until", formatter.format(Instant.ofEpochMilli(window.until())))
+            .queryParam("bu", PU)
+            .encode()
+            .build()
+            .toUri();
+    final var request =
+        HttpRequest.newBuilder(uri)
+            .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+            .header(HttpHeaders.AUTHORIZATION, String.format("Bearer %s", getToken()))
+            .GET()
+            .build();
+    final var response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    if (!HttpStatusCode.valueOf(response.statusCode()).is2xxSuccessful()) {
+      response.body().close();
+      throw new IllegalStateException(
+          String.format(
+              "DWH performance report request for %s failed with status %d",
+              window, response.statusCode()));
+    }
+    final var entries = DwhPerformanceReportParser.readEntries(response.body());
+    log.debug("DWH Performance report {}: {} entries", window, entries.size());
+    return entries;
   }
 
-  private String getToken() {
+  String getToken() {
     return TigerGlobalConfiguration.readBoolean(DWH_URL_ACTIVE_KEY)
-        ? Optional.ofNullable(token)
-            .orElseGet(
-                () -> {
-                  token = fetchToken();
-                  return token;
-                })
+        ? getTokenManager().getToken()
         : "";
   }
 
   @SneakyThrows
-  String fetchToken() {
+  DwhToken fetchToken() {
+    final var requestedAt = Instant.now();
     final var response =
         given()
             .baseUri(getLoginUrl())
@@ -185,9 +332,7 @@ public class DwhServiceImpl implements DwhService {
             .getBody()
             .asString();
     log.debug("DWH Token response: {}", response);
-    return TigerGlobalConfiguration.getObjectMapper()
-        .readTree(response)
-        .get("access_token")
-        .asText();
+    return DwhToken.fromResponse(
+        TigerGlobalConfiguration.getObjectMapper().readTree(response), requestedAt);
   }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.dwh.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * OAuth access token of the DWH.
+ *
+ * @param accessToken the token to send as bearer token
+ * @param expiresAt the time the token expires
+ */
+record DwhToken(String accessToken, Instant expiresAt) {
+
+  /** Lifetime assumed, if the token response doesn't contain {@code expires_in} */
+  static final Duration DEFAULT_LIFETIME = Duration.ofMinutes(5);
+
+  /**
+   * Read the token from the response of the token endpoint.
+   *
+   * @param response the parsed token response
+   * @param requestedAt time the token was requested; the lifetime is counted from there, so the
+   *     token is considered expired rather too early than too late
+   * @return the token
+   * @throws IllegalArgumentException if the response contains no access token
+   */
+  static DwhToken fromResponse(final JsonNode response, final Instant requestedAt) {
+    final var accessToken =
+        Optional.ofNullable(response.get("access_token"))
+            .map(JsonNode::asText)
+            .filter(token -> !token.isBlank())
+            .orElseThrow(
+                () -> new IllegalArgumentException("Token response contains no access token"));
+    final var lifetime =
+        Optional.ofNullable(response.get("expires_in"))
+            .map(JsonNode::asLong)
+            .filter(seconds -> seconds > 0)
+            .map(Duration::ofSeconds)
+            .orElse(DEFAULT_LIFETIME);
+    return new DwhToken(accessToken, requestedAt.plus(lifetime));
+  }
+
+  /**
+   * @return true, if the token isn't expired at the given time
+   */
+  boolean isValidAt(final Instant instant) {
+    return instant.isBefore(expiresAt);
+  }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.dwh.impl;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the access token of the DWH and renews it before it expires.<br>
+ * A new token is fetched in the background {@code refreshAhead} before the current one expires,
+ * but not before half of its lifetime passed.
+ * Callers only wait for a token, if there is none yet or it is expired already. Concurrent
+ * refreshes are coalesced into one request to the token endpoint; failed requests are retried with
+ * exponential backoff.
+ */
+@Slf4j
+class DwhTokenManager implements AutoCloseable {
+
+  static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+  private final Supplier<DwhToken> fetcher;
+
+  private final Clock clock;
+
+  private final Duration refreshAhead;
+
+  private final int maxAttempts;
+
+  private final Duration initialBackoff;
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("dwh-token-refresh").daemon().factory());
+
+  private volatile DwhToken token;
+
+  // guarded by this
+  private CompletableFuture<DwhToken> pendingRefresh;
+
+  // guarded by this
+  private ScheduledFuture<?> scheduledRefresh;
+
+  /**
+   * @param fetcher requests a new token from the token endpoint
+   * @param clock clock to check the expiry of the tokens against
+   * @param refreshAhead how long before its expiry a token is renewed
+   * @param maxAttempts how often a token is requested, before the refresh fails
+   * @param initialBackoff time to wait after the first failed request, doubled after every further
+   *     failed request
+   */
+  DwhTokenManager(
+      @NonNull final Supplier<DwhToken> fetcher,
+      @NonNull final Clock clock,
+      @NonNull final Duration refreshAhead,
+      final int maxAttempts,
+      @NonNull final Duration initialBackoff) {
+    if (maxAttempts < 1) {
+      throw new IllegalArgumentException("At least one attempt is needed to fetch a token");
+    }
+    this.fetcher = fetcher;
+    this.clock = clock;
+    this.refreshAhead = refreshAhead;
+    this.maxAttempts = maxAttempts;
+    this.initialBackoff = initialBackoff;
+  }
+
+  /**
+   * Get a valid access token. If there is no valid token, waits until a new one is fetched; if the
+   * token expires soon, a refresh is started in the background and the current token returned.
+   *
+   * @return the access token
+   */
+  String getToken() {
+    final var current = token;
+    final var now = clock.instant();
+    if (current != null && current.isValidAt(now)) {
+      if (!current.isValidAt(now.plus(refreshAhead))) {
+        refresh();
+      }
+      return current.accessToken();
+    }
+    try {
+      return refresh().join().accessToken();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof final RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Could not fetch the DWH token", e.getCause());
+    }
+  }
+
+  /**
+   * Start fetching a new token, unless a refresh is running already.
+   *
+   * @return the running refresh
+   */
+  synchronized CompletableFuture<DwhToken> refresh() {
+    if (pendingRefresh != null) {
+      return pendingRefresh;
+    }
+    final var refresh = CompletableFuture.supplyAsync(this::fetchWithRetry, scheduler);
+    pendingRefresh = refresh;
+    refresh.whenComplete((fetched, error) -> refreshed(fetched, error));
+    return refresh;
+  }
+
+  /** Stop the background refresh; the scheduler thread is a daemon, so it doesn't block the exit */
+  @Override
+  public void close() {
+    scheduler.shutdownNow();
+  }
+
+  private synchronized void refreshed(final DwhToken fetched, final Throwable error) {
+    pendingRefresh = null;
+    if (error != null) {
+      log.warn("Refreshing the DWH token failed", error);
+      return;
+    }
+    token = fetched;
+    scheduleRefresh(fetched);
+  }
+
+  private void scheduleRefresh(final DwhToken fetched) {
+    if (scheduledRefresh != null) {
+      scheduledRefresh.cancel(false);
+    }
+    final var lifetime = Duration.between(clock.instant(), fetched.expiresAt());
+    // refreshAhead before the expiry, but at the earliest halfway through the lifetime, so tokens
+    // living shorter than twice refreshAhead are renewed halfway, not immediately again
+    final var untilRefresh = lifetime.minus(refreshAhead);
+    final var halfLifetime = lifetime.dividedBy(2);
+    final var delay = untilRefresh.compareTo(halfLifetime) > 0 ? untilRefresh : halfLifetime;
+    log.debug("DWH token expires at {}, refreshing in {}", fetched.expiresAt(), delay);
+    scheduledRefresh =
+        scheduler.schedule(this::refresh, Math.max(0, delay.toMillis()), TimeUnit.MILLISECONDS);
+  }
+
+  private DwhToken fetchWithRetry() {
+    var backoff = initialBackoff;
+    for (var attempt = 1; ; attempt++) {
+      try {
+        return fetcher.get();
+      } catch (final Exception e) {
+        if (attempt >= maxAttempts) {
+          throw e;
+        }
+        log.warn(
+            "Fetching the DWH token failed (attempt {} of {}), retrying in {}",
+            attempt,
+            maxAttempts,
+            backoff,
+            e);
+        sleep(backoff);
+        final var doubled = backoff.multipliedBy(2);
+        backoff = doubled.compareTo(MAX_BACKOFF) < 0 ? doubled : MAX_BACKOFF;
+      }
+    }
+  }
+
+  private static void sleep(final Duration duration) {
+    try {
+      Thread.sleep(duration);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to fetch the DWH token", e);
+    }
+  }
+}
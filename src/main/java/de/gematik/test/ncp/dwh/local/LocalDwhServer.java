@@ -0,0 +1,405 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.dwh.local;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.gematik.test.ncp.reporting.Environment;
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportDWHResponseEntry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local stand-in for the DWH, serving a token endpoint ({@value #TOKEN_PATH}) and the performance
+ * report endpoint ({@value #REPORT_PATH}) on localhost.<br>
+ * The report contains the entries of a {@link NcpehPerformanceReport}, as the NCPeH FD would have
+ * reported them: shifted by a clock skew and with jittered durations. Besides them, the report can
+ * contain any number of synthetic entries of other test participants, spread evenly over the time
+ * range of the report. The synthetic entries are computed for every request from their index, so
+ * millions of them don't take any memory.
+ */
+@Slf4j
+public class LocalDwhServer implements AutoCloseable {
+
+  public static final String TOKEN_PATH = "/token";
+
+  public static final String REPORT_PATH = "/NCPeH";
+
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX").withZone(ZoneId.of("UTC"));
+
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+  private static final UseCase[] USE_CASES = UseCase.values();
+
+  private static final String[] FOREIGN_COUNTRIES = {"AT", "BE", "FR", "LU", "NL", "PT", "SE"};
+
+  /** Behavior of the stand-in */
+  @Value
+  @Builder
+  public static class Settings {
+
+    /** Offset of the DWH timestamps to the timestamps of the report */
+    @Builder.Default Duration clockSkew = Duration.ZERO;
+
+    /** The durations of the report are changed randomly by at most this many milliseconds */
+    @Builder.Default long durationJitterMillis = 0;
+
+    /** Number of synthetic entries of other participants per entry of the report */
+    @Builder.Default int volumeMultiplier = 0;
+
+    /** Time to wait before a report is answered */
+    @Builder.Default Duration responseLatency = Duration.ZERO;
+
+    /** Reports are cut after this many entries, to simulate partial data */
+    @Builder.Default int maxEntriesPerResponse = Integer.MAX_VALUE;
+
+    /** Lifetime of the issued tokens */
+    @Builder.Default Duration tokenLifetime = Duration.ofHours(1);
+
+    /** If set, reports are only answered for tokens issued by the token endpoint */
+    @Builder.Default boolean tokenRequired = false;
+
+    /** Seed of the random values, the same seed gives the same reports */
+    @Builder.Default long seed = 42;
+  }
+
+  private final Settings settings;
+
+  /** Entries derived from the report, sorted by timestamp */
+  private final List<NcpehPerformanceReportDWHResponseEntry> reportEntries;
+
+  private final long[] reportTimestamps;
+
+  private final long syntheticStart;
+
+  private final long syntheticSpan;
+
+  private final long syntheticCount;
+
+  private final Map<String, Instant> issuedTokens = new ConcurrentHashMap<>();
+
+  @Getter private final AtomicLong tokenRequests = new AtomicLong();
+
+  @Getter private final AtomicLong reportRequests = new AtomicLong();
+
+  private final HttpServer server;
+
+  /**
+   * Start a stand-in serving the given report.
+   *
+   * @param report the entries the DWH shall contain
+   * @param settings behavior of the stand-in
+   */
+  public LocalDwhServer(
+      @NonNull final NcpehPerformanceReport report, @NonNull final Settings settings) {
+    this.settings = settings;
+    final var random = new Random(settings.getSeed());
+    this.reportEntries =
+        report.getEntries().stream()
+            .map(
+                entry ->
+                    NcpehPerformanceReportDWHResponseEntry.builder()
+                        .bu(Environment.PU)
+                        .timestamp(
+                            Instant.ofEpochMilli(entry.timestamp()).plus(settings.getClockSkew()))
+                        .duration(Math.max(0, entry.duration() + jitter(random)))
+                        .usecase(entry.operation())
+                        .statuscode(entry.status())
+                        .reqc(entry.message().reqc())
+                        .err(entry.message().err())
+                        .bkdur(Math.max(0, entry.message().bkdur() + jitter(random)))
+                        .build())
+            .sorted(Comparator.comparing(NcpehPerformanceReportDWHResponseEntry::getTimestamp))
+            .toList();
+    this.reportTimestamps =
+        reportEntries.stream().mapToLong(entry -> entry.getTimestamp().toEpochMilli()).toArray();
+
+    // the synthetic entries cover the time range of the report plus a margin on both sides
+    final var margin = Duration.ofMinutes(5).toMillis();
+    this.syntheticCount = (long) reportEntries.size() * settings.getVolumeMultiplier();
+    this.syntheticStart = reportTimestamps.length > 0 ? reportTimestamps[0] - margin : 0;
+    this.syntheticSpan =
+        reportTimestamps.length > 0
+            ? reportTimestamps[reportTimestamps.length - 1] + margin - syntheticStart
+            : 0;
+
+    try {
+      this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    } catch (final IOException e) {
+      throw new UncheckedIOException("Could not start the local DWH", e);
+    }
+    server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    server.createContext(TOKEN_PATH, this::handleTokenRequest);
+    server.createContext(REPORT_PATH, this::handleReportRequest);
+    server.start();
+    log.info(
+        "Local DWH started at {} with {} report and {} synthetic entries",
+        getBaseUrl(),
+        reportEntries.size(),
+        syntheticCount);
+  }
+
+  /**
+   * @return base URL of the report endpoint, without {@value #REPORT_PATH}
+   */
+  public String getBaseUrl() {
+    return "http://localhost:" + server.getAddress().getPort();
+  }
+
+  /**
+   * @return URL of the token endpoint
+   */
+  public String getTokenUrl() {
+    return getBaseUrl() + TOKEN_PATH;
+  }
+
+  /**
+   * @return number of entries of the DWH, including the synthetic ones
+   */
+  public long getEntryCount() {
+    return reportEntries.size() + syntheticCount;
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private long jitter(final Random random) {
+    final var jitter = settings.getDurationJitterMillis();
+    return jitter > 0 ? random.nextLong(-jitter, jitter + 1) : 0;
+  }
+
+  private void handleTokenRequest(final HttpExchange exchange) throws IOException {
+    tokenRequests.incrementAndGet();
+    final var token = UUID.randomUUID().toString();
+    issuedTokens.put(token, Instant.now().plus(settings.getTokenLifetime()));
+    final var body =
+        String.format(
+            "{\"token_type\":\"Bearer\",\"access_token\":\"%s\",\"expires_in\":%d}",
+            token, settings.getTokenLifetime().toSeconds());
+    respond(exchange, 200, body);
+  }
+
+  private void handleReportRequest(final HttpExchange exchange) throws IOException {
+    reportRequests.incrementAndGet();
+    if (settings.isTokenRequired() && !hasValidToken(exchange)) {
+      respond(exchange, 401, "{\"error\":\"invalid_token\"}");
+      return;
+    }
+    final long from;
+    final long until;
+    try {
+      final var query = queryParameters(exchange.getRequestURI());
+      from = Instant.from(TIMESTAMP_FORMAT.parse(query.get("from"))).toEpochMilli();
+      until = Instant.from(TIMESTAMP_FORMAT.parse(query.get("until"))).toEpochMilli();
+    } catch (final RuntimeException e) {
+      respond(exchange, 400, "{\"error\":\"from and until are required\"}");
+      return;
+    }
+    sleep(settings.getResponseLatency());
+
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(200, 0);
+    try (final var generator = JSON_FACTORY.createGenerator(exchange.getResponseBody())) {
+      writeEntries(generator, from, until);
+    }
+  }
+
+  /** Write the report entries and the synthetic entries of the range, in timestamp order */
+  private void writeEntries(final JsonGenerator generator, final long from, final long until)
+      throws IOException {
+    generator.writeStartArray();
+    var reportIndex = firstReportIndexAtOrAfter(from);
+    var syntheticIndex = firstSyntheticIndexAtOrAfter(from);
+    var written = 0;
+    while (written < settings.getMaxEntriesPerResponse()) {
+      final var reportTimestamp =
+          reportIndex < reportTimestamps.length ? reportTimestamps[reportIndex] : Long.MAX_VALUE;
+      final var syntheticTimestamp =
+          syntheticIndex < syntheticCount ? syntheticTimestamp(syntheticIndex) : Long.MAX_VALUE;
+      if (Math.min(reportTimestamp, syntheticTimestamp) > until) {
+        break;
+      }
+      if (reportTimestamp <= syntheticTimestamp) {
+        writeEntry(generator, reportEntries.get(reportIndex++));
+      } else {
+        writeSyntheticEntry(generator, syntheticIndex++);
+      }
+      written++;
+    }
+    generator.writeEndArray();
+  }
+
+  private int firstReportIndexAtOrAfter(final long timestamp) {
+    var index = Arrays.binarySearch(reportTimestamps, timestamp);
+    if (index < 0) {
+      return -index - 1;
+    }
+    // step back to the first of equal timestamps
+    while (index > 0 && reportTimestamps[index - 1] == timestamp) {
+      index--;
+    }
+    return index;
+  }
+
+  private long firstSyntheticIndexAtOrAfter(final long timestamp) {
+    var low = 0L;
+    var high = syntheticCount;
+    while (low < high) {
+      final var middle = (low + high) >>> 1;
+      if (syntheticTimestamp(middle) < timestamp) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** Timestamps of the synthetic entries are evenly spread and ascending with the index */
+  private long syntheticTimestamp(final long index) {
+    return syntheticStart + index * syntheticSpan / syntheticCount;
+  }
+
+  private void writeSyntheticEntry(final JsonGenerator generator, final long index)
+      throws IOException {
+    final var hash = mix(settings.getSeed() ^ index);
+    final var duration = 5 + Math.floorMod(hash, 500L);
+    generator.writeStartObject();
+    generator.writeStringField("bu", Environment.PU.name());
+    generator.writeStringField(
+        "timestamp", TIMESTAMP_FORMAT.format(Instant.ofEpochMilli(syntheticTimestamp(index))));
+    generator.writeNumberField("duration", duration);
+    generator.writeStringField(
+        "usecase", USE_CASES[Math.floorMod(hash >>> 16, USE_CASES.length)].value());
+    final var failed = Math.floorMod(hash >>> 24, 100) == 0;
+    generator.writeStringField("statuscode", failed ? "500" : "200");
+    generator.writeStringField(
+        "reqc", FOREIGN_COUNTRIES[Math.floorMod(hash >>> 32, FOREIGN_COUNTRIES.length)]);
+    if (failed) {
+      generator.writeStringField("err", "ERROR_GENERIC");
+    } else {
+      generator.writeNullField("err");
+    }
+    generator.writeNumberField("bkdur", duration - 1 - Math.floorMod(hash >>> 40, 3));
+    generator.writeEndObject();
+  }
+
+  private static void writeEntry(
+      final JsonGenerator generator, final NcpehPerformanceReportDWHResponseEntry entry)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeStringField("bu", entry.getBu().name());
+    generator.writeStringField("timestamp", TIMESTAMP_FORMAT.format(entry.getTimestamp()));
+    generator.writeNumberField("duration", entry.getDuration());
+    generator.writeStringField("usecase", entry.getUsecase().value());
+    generator.writeStringField("statuscode", entry.getStatuscode());
+    generator.writeStringField("reqc", entry.getReqc());
+    generator.writeStringField("err", entry.getErr());
+    generator.writeNumberField("bkdur", entry.getBkdur());
+    generator.writeEndObject();
+  }
+
+  private boolean hasValidToken(final HttpExchange exchange) {
+    final var authorization = exchange.getRequestHeaders().getFirst("Authorization");
+    if (authorization == null || !authorization.startsWith("Bearer ")) {
+      return false;
+    }
+    final var expiresAt = issuedTokens.get(authorization.substring("Bearer ".length()));
+    return expiresAt != null && Instant.now().isBefore(expiresAt);
+  }
+
+  private static Map<String, String> queryParameters(final URI uri) {
+    final var parameters = new HashMap<String, String>();
+    final var query = uri.getRawQuery();
+    if (query == null) {
+      return parameters;
+    }
+    for (final var parameter : query.split("&")) {
+      final var separator = parameter.indexOf('=');
+      if (separator > 0) {
+        parameters.put(
+            URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+            URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return parameters;
+  }
+
+  private static void respond(final HttpExchange exchange, final int status, final String body)
+      throws IOException {
+    final var bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, bytes.length);
+    try (final var out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  private static void sleep(final Duration duration) {
+    if (duration.isZero() || duration.isNegative()) {
+      return;
+    }
+    try {
+      Thread.sleep(duration);
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Mixes the bits of the value, see SplitMix64 */
+  private static long mix(final long value) {
+    var z = value + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
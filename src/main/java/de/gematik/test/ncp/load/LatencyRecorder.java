@@ -0,0 +1,103 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.load;
+
+import de.gematik.test.ncp.reporting.LatencyHistogram;
+import de.gematik.test.ncp.reporting.UseCase;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the latencies of the calls made by the virtual users of a {@link LoadDriver} per {@link
+ * UseCase}. The latencies are recorded into a {@link LatencyHistogram} per use case, so the memory
+ * doesn't grow with the length of the run and the percentiles are known with a relative error below
+ * 1 %. Recording is safe from any number of threads; evaluation is meant to be done after the run.
+ */
+public class LatencyRecorder {
+
+  private final Map<UseCase, LatencyHistogram> latencies = new EnumMap<>(UseCase.class);
+
+  private final Map<UseCase, LongAdder> failures = new EnumMap<>(UseCase.class);
+
+  public LatencyRecorder() {
+    for (final var useCase : UseCase.values()) {
+      latencies.put(useCase, new LatencyHistogram());
+      failures.put(useCase, new LongAdder());
+    }
+  }
+
+  public void recordSuccess(final UseCase useCase, final long durationNanos) {
+    latencies.get(useCase).record(durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void recordFailure(final UseCase useCase) {
+    failures.get(useCase).increment();
+  }
+
+  public long successCount(final UseCase useCase) {
+    return latencies.get(useCase).count();
+  }
+
+  public long failureCount(final UseCase useCase) {
+    return failures.get(useCase).sum();
+  }
+
+  /**
+   * Determine a percentile of the latencies of the successful calls (nearest rank method).
+   *
+   * @param useCase the {@link UseCase}
+   * @param percentile percentile in the range (0, 100]
+   * @return the latency, or empty if no successful call was recorded
+   */
+  public Optional<Duration> percentile(final UseCase useCase, final double percentile) {
+    return percentile(latencies.get(useCase).copy(), percentile);
+  }
+
+  /**
+   * @param useCase the {@link UseCase}
+   * @return summary of the recorded calls of the use case
+   */
+  public LoadResult.UseCaseSummary summary(final UseCase useCase) {
+    final var histogram = latencies.get(useCase).copy();
+    return new LoadResult.UseCaseSummary(
+        useCase,
+        histogram.count(),
+        failureCount(useCase),
+        percentile(histogram, 50).orElse(null),
+        percentile(histogram, 90).orElse(null),
+        percentile(histogram, 99).orElse(null),
+        percentile(histogram, 100).orElse(null));
+  }
+
+  private static Optional<Duration> percentile(
+      final LatencyHistogram histogram, final double percentile) {
+    if (histogram.count() == 0) {
+      return Optional.empty();
+    }
+    return Optional.of(Duration.of(histogram.percentileMicros(percentile), ChronoUnit.MICROS));
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.load;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.gematik.test.ncp.data.Testdata;
+import de.gematik.test.ncp.util.Utils;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+
+/**
+ * Configuration of a load test run of the {@link LoadDriver}, loaded from the testdata
+ * configuration.
+ *
+ * <p>The load follows an open model: new virtual users arrive with the configured rate,
+ * independent of how fast the NCPeH answers. The rate rises linearly from 0 during the ramp-up,
+ * stays constant during the steady phase and falls linearly to 0 during the ramp-down.
+ */
+@Data
+public class LoadConfiguration {
+
+  public static final String LOAD_CONFIG_KEY = Testdata.TESTDATA_BASEKEY + ".load";
+
+  /** Arrivals of new virtual users per second in the steady phase */
+  @JsonProperty private double arrivalRatePerSecond = 1;
+
+  @JsonProperty private double rampUpSeconds = 10;
+
+  @JsonProperty private double steadySeconds = 60;
+
+  @JsonProperty private double rampDownSeconds = 10;
+
+  /** Upper bound of virtual users running at once, further arrivals are counted as rejected */
+  @JsonProperty private int maxConcurrentUsers = 500;
+
+  /** Access code sent for all patients, the NCPeH-Simulation-Mock doesn't check it */
+  @JsonProperty private String accessCode = "ABC123";
+
+  @JsonProperty private String accessCodeAssigningAuthority = "1.2.276.0.76.4.298";
+
+  /** Country of the practitioners, which don't have one configured */
+  @JsonProperty private String country = "NETHERLANDS";
+
+  /** Relative weight of each flow, not negative; flows without weight are not run */
+  @JsonProperty private Map<LoadFlow, Integer> flows = new EnumMap<>(LoadFlow.class);
+
+  @JsonProperty private List<SlaThreshold> sla = new ArrayList<>();
+
+  /**
+   * @param flows relative weight of each flow
+   * @throws IllegalArgumentException if a weight is negative
+   */
+  public void setFlows(final Map<LoadFlow, Integer> flows) {
+    flows.forEach(
+        (flow, weight) -> {
+          if (weight != null && weight < 0) {
+            throw new IllegalArgumentException(
+                "The weight of the load flow " + flow + " must not be negative: " + weight);
+          }
+        });
+    this.flows = flows;
+  }
+
+  /**
+   * @return sum of the weights of the flows, a missing weight counts as 0
+   */
+  public int totalFlowWeight() {
+    return flows.values().stream().mapToInt(LoadConfiguration::flowWeight).sum();
+  }
+
+  /**
+   * @param weight configured weight of a flow
+   * @return the weight, which is used to choose the flow
+   */
+  static int flowWeight(final Integer weight) {
+    return weight == null ? 0 : Math.max(weight, 0);
+  }
+
+  public double totalSeconds() {
+    return rampUpSeconds + steadySeconds + rampDownSeconds;
+  }
+
+  public static LoadConfiguration fromConfiguration() {
+    return Utils.loadConfig(LoadConfiguration.class, LOAD_CONFIG_KEY);
+  }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.load;
+
+import de.gematik.epa.conversion.ResponseUtils;
+import de.gematik.ncpeh.api.request.DocumentRequest;
+import de.gematik.test.ncp.data.Patient;
+import de.gematik.test.ncp.data.PatientAccessData;
+import de.gematik.test.ncp.data.Practitioner;
+import de.gematik.test.ncp.data.Testdata;
+import de.gematik.test.ncp.ncpeh.NcpehService;
+import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
+import de.gematik.test.ncp.reporting.UseCase;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+
+/**
+ * Generates load on the NCPeH by running the {@link LoadFlow}s with virtual users, according to a
+ * {@link LoadConfiguration}. Every virtual user runs one flow on a virtual thread of its own, for a
+ * patient and a practitioner taken in turns from the testdata. The calls are made with the given
+ * {@link NcpehService}, which has to be safe for concurrent use ({@link
+ * NcpehService#isConcurrent()}), so they are written to the performance log as usual. In addition,
+ * their latencies are recorded to check them against the configured SLA thresholds at the end of
+ * the run.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class LoadDriver {
+
+  /** Interval in which the arrival of new virtual users is checked */
+  private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  @NonNull private final NcpehService ncpehService;
+
+  @NonNull private final LoadConfiguration configuration;
+
+  @NonNull private final List<Patient> patients;
+
+  @NonNull private final List<Practitioner> practitioners;
+
+  @Getter private final LatencyRecorder recorder = new LatencyRecorder();
+
+  /**
+   * Create a {@link LoadDriver} using the load configuration and the patients and EU practitioners
+   * of the testdata.
+   *
+   * @param ncpehService {@link NcpehService} capable of concurrent calls
+   * @return the {@link LoadDriver}
+   */
+  public static LoadDriver fromConfiguration(final NcpehService ncpehService) {
+    return new LoadDriver(
+        ncpehService,
+        LoadConfiguration.fromConfiguration(),
+        Testdata.instance().getPatientsTestdata(),
+        Testdata.instance().getEuPractitioners());
+  }
+
+  /**
+   * Run the load profile. Returns after the ramp-down, when all started virtual users finished.
+   *
+   * @return {@link LoadResult} with the latencies and the SLA verdict
+   * @throws IllegalStateException if the {@link NcpehService} is not safe for concurrent use
+   */
+  public LoadResult run() {
+    if (!ncpehService.isConcurrent()) {
+      throw new IllegalStateException(
+          "The NCPeH service is not configured for concurrent use, load runs need the concurrent"
+              + " NCPeH client");
+    }
+    if (configuration.totalFlowWeight() <= 0) {
+      throw new IllegalArgumentException("No load flow with a positive weight is configured");
+    }
+    final var runningUsers = new Semaphore(configuration.getMaxConcurrentUsers());
+    final var totalNanos = secondsToNanos(configuration.totalSeconds());
+    var started = 0L;
+    var rejected = 0L;
+
+    log.info("Starting load run: {}", configuration);
+    final var start = System.nanoTime();
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      long elapsed;
+      while ((elapsed = System.nanoTime() - start) < totalNanos) {
+        final var due = (long) expectedArrivals(configuration, elapsed / 1e9);
+        while (started + rejected < due) {
+          if (runningUsers.tryAcquire()) {
+            final var userNo = started++;
+            executor.execute(
+                () -> {
+                  try {
+                    runVirtualUser(userNo);
+                  } finally {
+                    runningUsers.release();
+                  }
+                });
+          } else {
+            rejected++;
+          }
+        }
+        LockSupport.parkNanos(TICK_NANOS);
+      }
+      log.info("All {} virtual users started, waiting for them to finish", started);
+    }
+
+    final var result =
+        new LoadResult(
+            Duration.ofNanos(System.nanoTime() - start),
+            started,
+            rejected,
+            Arrays.stream(UseCase.values()).map(recorder::summary).toList(),
+            configuration.getSla().stream().map(this::verify).toList());
+    log.info(result.describe());
+    return result;
+  }
+
+  /**
+   * Number of virtual users, which should have arrived after the given time since the start. This
+   * is the integral of the arrival rate over the time, with the rate rising linearly during the
+   * ramp-up and falling linearly during the ramp-down.
+   *
+   * @param configuration the load configuration
+   * @param elapsedSeconds time since the start of the run
+   * @return expected arrivals
+   */
+  static double expectedArrivals(
+      final LoadConfiguration configuration, final double elapsedSeconds) {
+    final var rate = configuration.getArrivalRatePerSecond();
+    final var rampUp = configuration.getRampUpSeconds();
+    final var steady = configuration.getSteadySeconds();
+    final var rampDown = configuration.getRampDownSeconds();
+
+    final var inRampUp = Math.clamp(elapsedSeconds, 0, rampUp);
+    var arrivals = rampUp > 0 ? rate * inRampUp * inRampUp / (2 * rampUp) : 0;
+    arrivals += rate * Math.clamp(elapsedSeconds - rampUp, 0, steady);
+    final var inRampDown = Math.clamp(elapsedSeconds - rampUp - steady, 0, rampDown);
+    if (rampDown > 0) {
+      arrivals += rate * (inRampDown - inRampDown * inRampDown / (2 * rampDown));
+    }
+    return arrivals;
+  }
+
+  private void runVirtualUser(final long userNo) {
+    final var patient = patients.get((int) (userNo % patients.size()));
+    final var practitioner = practitioners.get((int) (userNo % practitioners.size()));
+    final var flow = chooseFlow();
+    final var country =
+        Optional.ofNullable(practitioner.country()).orElse(configuration.getCountry());
+    final var accessData = new LoadPatientAccessData(patient.kvnr(), configuration.getAccessCode());
+
+    try {
+      timed(
+          UseCase.NCPEH_UC_1,
+          () ->
+              ncpehService.identifyPatient(
+                  accessData,
+                  practitioner.profileName(),
+                  country,
+                  configuration.getAccessCodeAssigningAuthority(),
+                  null,
+                  patient));
+
+      final var found =
+          timed(
+              UseCase.NCPEH_UC_2,
+              () ->
+                  ncpehService.findDocuments(
+                      accessData,
+                      practitioner.profileName(),
+                      country,
+                      flow.xdsDocumentEntryClassCode(),
+                      null,
+                      null));
+      final var metadata = found.ncpehFdResponseContent();
+
+      if (flow.patientSummaryLevel().isPresent()) {
+        closeRetrieved(
+            timed(
+                flow.retrieveUseCase(),
+                () ->
+                    ncpehService.retrievePatientSummary(
+                        accessData,
+                        patient,
+                        practitioner.profileName(),
+                        country,
+                        metadata,
+                        null,
+                        flow.patientSummaryLevel().get())));
+        return;
+      }
+
+      final var documentRequests = documentRequests(metadata);
+      if (!documentRequests.isEmpty()) {
+        closeRetrieved(
+            timed(
+                flow.retrieveUseCase(),
+                () ->
+                    ncpehService.retrieveDocuments(
+                        accessData,
+                        patient,
+                        practitioner.profileName(),
+                        country,
+                        documentRequests,
+                        null,
+                        null)));
+      }
+    } catch (final RuntimeException e) {
+      // the failure is recorded, the virtual user ends here
+      log.debug("Virtual user {} running {} failed", userNo, flow, e);
+    }
+  }
+
+  /** The virtual users don't read the retrieved documents, their spooled content is deleted */
+  private static void closeRetrieved(final RetrieveDocumentsResponseDTO retrieved) {
+    if (retrieved != null) {
+      retrieved.close();
+    }
+  }
+
+  private <T> T timed(final UseCase useCase, final Supplier<T> call) {
+    final var start = System.nanoTime();
+    try {
+      final var result = call.get();
+      recorder.recordSuccess(useCase, System.nanoTime() - start);
+      return result;
+    } catch (final RuntimeException e) {
+      recorder.recordFailure(useCase);
+      throw e;
+    }
+  }
+
+  private LoadFlow chooseFlow() {
+    final var weights = configuration.getFlows();
+    var pick = ThreadLocalRandom.current().nextInt(configuration.totalFlowWeight());
+    for (final var weight : weights.entrySet()) {
+      pick -= LoadConfiguration.flowWeight(weight.getValue());
+      if (pick < 0) {
+        return weight.getKey();
+      }
+    }
+    throw new IllegalStateException("No load flow could be chosen from " + weights);
+  }
+
+  private LoadResult.SlaVerdict verify(final SlaThreshold threshold) {
+    final var measured =
+        recorder.percentile(threshold.getUseCase(), threshold.getPercentile()).orElse(null);
+    return new LoadResult.SlaVerdict(
+        threshold,
+        measured,
+        measured != null && measured.compareTo(threshold.maxDuration()) <= 0);
+  }
+
+  private static Set<DocumentRequest> documentRequests(final AdhocQueryResponse metadata) {
+    if (metadata == null || metadata.getRegistryObjectList() == null) {
+      return Set.of();
+    }
+    return ResponseUtils.toProxyFindResponse(metadata)
+        .registryObjectLists()
+        .documentsMetadata()
+        .stream()
+        .map(dm -> new DocumentRequest(dm.home(), dm.repositoryUniqueId(), dm.uniqueId()))
+        .collect(Collectors.toSet());
+  }
+
+  private static long secondsToNanos(final double seconds) {
+    return (long) (seconds * 1e9);
+  }
+
+  private record LoadPatientAccessData(String kvnr, String accessCode)
+      implements PatientAccessData {
+
+    @Override
+    public String getKvnr() {
+      return kvnr;
+    }
+
+    @Override
+    public String getAccessCode() {
+      return accessCode;
+    }
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.load;
+
+import de.gematik.test.ncp.ncpeh.PatientSummaryLevel;
+import de.gematik.test.ncp.reporting.UseCase;
+import java.util.Optional;
+
+/**
+ * The flows a virtual user of the {@link LoadDriver} runs. Each flow starts with identifyPatient
+ * (NCPeH.UC_1) and findDocuments (NCPeH.UC_2), followed by the retrieval of the found documents.
+ */
+public enum LoadFlow {
+
+  /** Patient Summary Country A, retrieval of the level 3 (CDA XML) patient summary */
+  PSA_LEVEL_3(LoadFlow.XDS_DOCUMENT_ENTRY_CLASS_CODE_PSA, PatientSummaryLevel.LEVEL_3),
+
+  /** Patient Summary Country A, retrieval of the level 1 (PDF) patient summary */
+  PSA_LEVEL_1(LoadFlow.XDS_DOCUMENT_ENTRY_CLASS_CODE_PSA, PatientSummaryLevel.LEVEL_1),
+
+  /** ePrescription / eDispensation, retrieval of all found prescriptions */
+  EPED(LoadFlow.XDS_DOCUMENT_ENTRY_CLASS_CODE_EPED, null);
+
+  static final String XDS_DOCUMENT_ENTRY_CLASS_CODE_PSA = "('60591-5^^2.16.840.1.113883.6.1')";
+
+  static final String XDS_DOCUMENT_ENTRY_CLASS_CODE_EPED = "('57833-6^^2.16.840.1.113883.6.1')";
+
+  private final String xdsDocumentEntryClassCode;
+
+  private final PatientSummaryLevel patientSummaryLevel;
+
+  LoadFlow(final String xdsDocumentEntryClassCode, final PatientSummaryLevel patientSummaryLevel) {
+    this.xdsDocumentEntryClassCode = xdsDocumentEntryClassCode;
+    this.patientSummaryLevel = patientSummaryLevel;
+  }
+
+  public String xdsDocumentEntryClassCode() {
+    return xdsDocumentEntryClassCode;
+  }
+
+  /**
+   * @return the level of the patient summary to retrieve, empty for the ePeD flow
+   */
+  public Optional<PatientSummaryLevel> patientSummaryLevel() {
+    return Optional.ofNullable(patientSummaryLevel);
+  }
+
+  /**
+   * The {@link UseCase} of the retrieval step. The retrieval of prescriptions is a
+   * Cross_Gateway_Retrieve of XML documents as well, thus it is counted as NCPeH.UC_3.
+   *
+   * @return {@link UseCase} of the last step of the flow
+   */
+  public UseCase retrieveUseCase() {
+    return patientSummaryLevel == PatientSummaryLevel.LEVEL_1
+        ? UseCase.NCPEH_UC_4
+        : UseCase.NCPEH_UC_3;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.load;
+
+import de.gematik.test.ncp.reporting.UseCase;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Result of a {@link LoadDriver} run
+ *
+ * @param runtime wall clock time of the whole run
+ * @param startedUsers number of virtual users, which were started
+ * @param rejectedArrivals number of arrivals, which were not started, because the maximum number of
+ *     concurrent users was reached
+ * @param summaries latency summary per {@link UseCase}
+ * @param verdicts the result of the check of each configured {@link SlaThreshold}
+ */
+public record LoadResult(
+    Duration runtime,
+    long startedUsers,
+    long rejectedArrivals,
+    List<UseCaseSummary> summaries,
+    List<SlaVerdict> verdicts) {
+
+  /**
+   * @return {@code true} if all SLA thresholds were met
+   */
+  public boolean passed() {
+    return verdicts.stream().allMatch(SlaVerdict::passed);
+  }
+
+  /**
+   * @return human readable description of the result, meant for logs and reports
+   */
+  public String describe() {
+    return String.format(
+        "Load run of %s: %d users started, %d arrivals rejected%n%s%n%s",
+        runtime,
+        startedUsers,
+        rejectedArrivals,
+        summaries.stream()
+            .filter(summary -> summary.successes() + summary.failures() > 0)
+            .map(UseCaseSummary::toString)
+            .collect(Collectors.joining(System.lineSeparator())),
+        verdicts.stream()
+            .map(SlaVerdict::toString)
+            .collect(Collectors.joining(System.lineSeparator())));
+  }
+
+  /** Latencies of the successful calls of a {@link UseCase}; null values if there were none */
+  public record UseCaseSummary(
+      UseCase useCase,
+      long successes,
+      long failures,
+      Duration p50,
+      Duration p90,
+      Duration p99,
+      Duration max) {}
+
+  /**
+   * @param threshold the checked threshold
+   * @param measured the measured latency of the percentile, null if no call succeeded
+   * @param passed {@code true} if the measured latency is within the threshold
+   */
+  public record SlaVerdict(SlaThreshold threshold, Duration measured, boolean passed) {}
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.load;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import de.gematik.test.ncp.reporting.UseCase;
+import java.time.Duration;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Latency target for one {@link UseCase}: the given percentile of all successful calls must not
+ * take longer than {@link #getMaxMillis()}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlaThreshold {
+
+  @JsonProperty(required = true)
+  private UseCase useCase;
+
+  /** Percentile in the range (0, 100], e.g. 99.9 */
+  @JsonProperty(required = true)
+  private double percentile;
+
+  @JsonProperty(required = true)
+  private long maxMillis;
+
+  public Duration maxDuration() {
+    return Duration.ofMillis(maxMillis);
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh;
+
+import de.gematik.ncpeh.api.common.PrescriptionDispenseData;
+import de.gematik.ncpeh.api.request.DocumentRequest;
+import de.gematik.ncpeh.api.request.IdentifyPatientRequest;
+import de.gematik.test.ncp.data.Medication;
+import de.gematik.test.ncp.data.Patient;
+import de.gematik.test.ncp.data.PatientAccessData;
+import de.gematik.test.ncp.ncpeh.client.dataobject.FindDocumentsResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.IdentifyPatientResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.NcpehInterfaceResponse;
+import de.gematik.test.ncp.ncpeh.client.dataobject.ProvideAndRegisterDocumentSetResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+
+/**
+ * Non-blocking variant of the {@link NcpehService}, meant for load and soak tests. Every operation
+ * returns immediately with a {@link CompletableFuture}, which completes with the same result the
+ * corresponding operation of the {@link NcpehService} returns, or exceptionally with the exception
+ * it throws. For the parameters see the {@link NcpehService}.
+ */
+public interface AsyncNcpehService {
+
+  /**
+   * @see NcpehService#identifyPatient(PatientAccessData, String, String, String, String, Patient)
+   */
+  CompletableFuture<IdentifyPatientResponseDTO> identifyPatient(
+      PatientAccessData patientAccessData,
+      String testdataProfileName,
+      String providerCountry,
+      String accessCodeAssigningAuthority,
+      String ncpehMockControlRequestHeader,
+      Patient patient);
+
+  /**
+   * @see NcpehService#identifyPatient(IdentifyPatientRequest, String, Patient)
+   */
+  CompletableFuture<IdentifyPatientResponseDTO> identifyPatient(
+      IdentifyPatientRequest identifyPatientRequest,
+      String ncpehMockControlRequestHeader,
+      Patient patient);
+
+  /**
+   * @see NcpehService#findDocuments(PatientAccessData, String, String, String, String, Map)
+   */
+  CompletableFuture<FindDocumentsResponseDTO> findDocuments(
+      PatientAccessData patientAccessData,
+      String testdataProfileName,
+      String providerCountry,
+      String xdsDocumentEntryClassCode,
+      String ncpehMockControlRequestHeader,
+      Map<String, Medication> medicationByPrescriptionId);
+
+  /**
+   * @see NcpehService#retrieveDocuments(PatientAccessData, Patient, String, String, Set, String,
+   *     Map)
+   */
+  CompletableFuture<RetrieveDocumentsResponseDTO> retrieveDocuments(
+      PatientAccessData patientAccessData,
+      Patient patient,
+      String testdataProfileName,
+      String providerCountry,
+      Set<DocumentRequest> documentRequestSet,
+      String ncpehMockControlRequestHeader,
+      Map<String, Medication> medicationByPrescriptionId);
+
+  /**
+   * @see NcpehService#retrievePatientSummary(PatientAccessData, Patient, String, String,
+   *     AdhocQueryResponse, String, PatientSummaryLevel...)
+   */
+  CompletableFuture<RetrieveDocumentsResponseDTO> retrievePatientSummary(
+      PatientAccessData patientAccessData,
+      Patient patient,
+      String testdataProfileName,
+      String leiCountry,
+      AdhocQueryResponse metadata,
+      String ncpehMockControlRequestHeader,
+      PatientSummaryLevel... patientSummaryLevels);
+
+  /**
+   * @see NcpehService#provideAndRegisterDocumentSet(PatientAccessData, String, String, List,
+   *     String, String, String, String)
+   */
+  CompletableFuture<ProvideAndRegisterDocumentSetResponseDTO> provideAndRegisterDocumentSet(
+      PatientAccessData patientAccessData,
+      String testdataProfileName,
+      String providerCountry,
+      List<PrescriptionDispenseData> dispensations,
+      String formatCode,
+      String typeCode,
+      String classCode,
+      String ncpehMockControlRequestHeader);
+
+  /**
+   * Run the typical patient summary chain for one patient: identifyPatient (UC_1), findDocuments
+   * (UC_2) and retrievePatientSummary (UC_3) with the metadata found in UC_2. Each step is started
+   * only after the previous one completed successfully, without blocking the calling thread. The
+   * default behaviour of the NCPeH-Simulation-Mock is used, as no control headers are sent.
+   *
+   * @param patientAccessData The health insurance identification number and access code
+   * @param patient The patient object containing patient details
+   * @param testdataProfileName Key of the testdata profile configured in the testdata.yaml to use
+   * @param country Name of the country, where the EU-Lei is situated
+   * @param accessCodeAssigningAuthority assigning authority OID for the access code
+   * @param xdsDocumentEntryClassCode Semantic signifier identifying the document class to be
+   *     searched for
+   * @param patientSummaryLevels Levels of the patient summary to retrieve
+   * @return {@link CompletableFuture} of the results of all three steps, to be closed by the caller
+   *     to delete the spooled documents of UC_3
+   */
+  default CompletableFuture<PatientSummaryChainResult> identifyFindAndRetrievePatientSummary(
+      final PatientAccessData patientAccessData,
+      final Patient patient,
+      final String testdataProfileName,
+      final String country,
+      final String accessCodeAssigningAuthority,
+      final String xdsDocumentEntryClassCode,
+      final PatientSummaryLevel... patientSummaryLevels) {
+    return identifyPatient(
+            patientAccessData,
+            testdataProfileName,
+            country,
+            accessCodeAssigningAuthority,
+            null,
+            patient)
+        .thenCompose(
+            identified ->
+                findDocuments(
+                        patientAccessData,
+                        testdataProfileName,
+                        country,
+                        xdsDocumentEntryClassCode,
+                        null,
+                        null)
+                    .thenCompose(
+                        found ->
+                            retrievePatientSummary(
+                                    patientAccessData,
+                                    patient,
+                                    testdataProfileName,
+                                    country,
+                                    found.ncpehFdResponseContent(),
+                                    null,
+                                    patientSummaryLevels)
+                                .thenApply(
+                                    retrieved ->
+                                        new PatientSummaryChainResult(
+                                            identified, found, retrieved))));
+  }
+
+  /**
+   * Results of the steps of {@link #identifyFindAndRetrievePatientSummary(PatientAccessData,
+   * Patient, String, String, String, String, PatientSummaryLevel...)}. Closing it closes the {@link
+   * RetrieveDocumentsResponseDTO}, which may hold spooled documents.
+   *
+   * @param identifyPatient result of UC_1
+   * @param findDocuments result of UC_2
+   * @param retrievePatientSummary result of UC_3
+   */
+  record PatientSummaryChainResult(
+      IdentifyPatientResponseDTO identifyPatient,
+      FindDocumentsResponseDTO findDocuments,
+      RetrieveDocumentsResponseDTO retrievePatientSummary)
+      implements AutoCloseable {
+
+    /**
+     * @return all responses of the chain in the order of the calls
+     */
+    public List<NcpehInterfaceResponse<?, ?>> responses() {
+      return List.of(identifyPatient, findDocuments, retrievePatientSummary);
+    }
+
+    @Override
+    public void close() {
+      if (retrievePatientSummary != null) {
+        retrievePatientSummary.close();
+      }
+    }
+  }
+}
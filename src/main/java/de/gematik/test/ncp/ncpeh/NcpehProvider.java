@@ -24,9 +24,11 @@ package de.gematik.test.ncp.ncpeh;
 import de.gematik.ncpeh.api.NcpehSimulatorApi;
 import de.gematik.test.ncp.ExternalServerConfig;
 import de.gematik.test.ncp.GeneralFactory;
+import de.gematik.test.ncp.ncpeh.client.AsyncNcpehClientImpl;
 import de.gematik.test.ncp.ncpeh.client.NcpehClientImpl;
 import de.gematik.test.ncp.reporting.NcpehContext;
 import de.gematik.test.ncp.util.Utils;
+import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
@@ -34,7 +36,8 @@ import org.apache.cxf.jaxrs.client.Client;
 
 /**
  * Singleton class to provide the instance of an {@link NcpehService} implementation. Currently,
- * quite trivial, as only one implementation exists ({@link NcpehClientImpl}).
+ * quite trivial, as only one implementation exists ({@link NcpehClientImpl}). The {@link
+ * AsyncNcpehService} is a non-blocking wrapper around an instance of it.
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class NcpehProvider {
@@ -42,21 +45,31 @@ public final class NcpehProvider {
   public static final String NCPEH_SIMULATION_CONFIG_KEY =
       ExternalServerConfig.EXTERNAL_SERVER_CONFIG_TIGER_KEY + ".ncpehSim";
 
+  /**
+   * If set to true, the {@link NcpehService} can be used from several threads at once, e.g. for
+   * running feature files in parallel. Every operation then uses a client proxy of its own.
+   */
+  public static final String NCPEH_CONCURRENT_CONFIG_KEY =
+      NCPEH_SIMULATION_CONFIG_KEY + "Concurrent";
+
   @Getter(lazy = true)
   private static final NcpehProvider instance = new NcpehProvider();
 
   @Getter(lazy = true)
-  private final NcpehService ncpehImpl =
+  private final NcpehService ncpehImpl = createNcpehImpl();
+
+  /** In the concurrency mode, for use from many threads at once (async calls, load tests) */
+  @Getter(lazy = true)
+  private final NcpehService concurrentNcpehImpl =
       NcpehClientImpl.builder()
           .config(getNcpehConfig())
-          .clientProxy(
-              GeneralFactory.createNcpehTimeLoggingProxy(
-                  GeneralFactory.createJAXRSClientProxy(NcpehSimulatorApi.class, getNcpehConfig()),
-                  getNcpehContext(),
-                  NcpehSimulatorApi.class,
-                  Client.class))
+          .clientProxyFactory(this::createClientProxy)
           .build();
 
+  @Getter(lazy = true)
+  private final AsyncNcpehService asyncNcpehImpl =
+      new AsyncNcpehClientImpl(getConcurrentNcpehImpl());
+
   @Getter(lazy = true)
   private final ExternalServerConfig ncpehConfig =
       Utils.loadConfig(ExternalServerConfig.class, NCPEH_SIMULATION_CONFIG_KEY);
@@ -67,4 +80,32 @@ public final class NcpehProvider {
   public static NcpehService getNcpehService() {
     return getInstance().getNcpehImpl();
   }
+
+  public static NcpehService getConcurrentNcpehService() {
+    return getInstance().getConcurrentNcpehImpl();
+  }
+
+  public static AsyncNcpehService getAsyncNcpehService() {
+    return getInstance().getAsyncNcpehImpl();
+  }
+
+  private NcpehService createNcpehImpl() {
+    final var concurrent =
+        TigerGlobalConfiguration.readString(NCPEH_CONCURRENT_CONFIG_KEY, Boolean.FALSE.toString());
+    if (Boolean.parseBoolean(concurrent)) {
+      return getConcurrentNcpehImpl();
+    }
+    return NcpehClientImpl.builder()
+        .config(getNcpehConfig())
+        .clientProxy(createClientProxy())
+        .build();
+  }
+
+  private NcpehSimulatorApi createClientProxy() {
+    return GeneralFactory.createNcpehTimeLoggingProxy(
+        GeneralFactory.createJAXRSClientProxy(NcpehSimulatorApi.class, getNcpehConfig()),
+        getNcpehContext(),
+        NcpehSimulatorApi.class,
+        Client.class);
+  }
 }
@@ -173,4 +173,11 @@ public interface NcpehService {
       String typeCode,
       String classCode,
       String ncpehMockControlRequestHeader);
+
+  /**
+   * @return {@code true} if the operations may be called from many threads at once
+   */
+  default boolean isConcurrent() {
+    return false;
+  }
 }
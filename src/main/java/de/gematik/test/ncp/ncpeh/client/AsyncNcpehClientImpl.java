@@ -0,0 +1,212 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client;
+
+import de.gematik.ncpeh.api.common.PrescriptionDispenseData;
+import de.gematik.ncpeh.api.request.DocumentRequest;
+import de.gematik.ncpeh.api.request.IdentifyPatientRequest;
+import de.gematik.test.ncp.data.Medication;
+import de.gematik.test.ncp.data.Patient;
+import de.gematik.test.ncp.data.PatientAccessData;
+import de.gematik.test.ncp.ncpeh.AsyncNcpehService;
+import de.gematik.test.ncp.ncpeh.NcpehService;
+import de.gematik.test.ncp.ncpeh.PatientSummaryLevel;
+import de.gematik.test.ncp.ncpeh.client.dataobject.FindDocumentsResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.IdentifyPatientResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.ProvideAndRegisterDocumentSetResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.NonNull;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+
+/**
+ * Implementation of the {@link AsyncNcpehService}, which runs the operations of an {@link
+ * NcpehService} on an {@link ExecutorService}, by default with a virtual thread per operation.
+ * Thus, waiting for the NCPeH doesn't block a platform thread.<br>
+ * As the operations of the delegate are used as they are, they are timed and written to the
+ * performance log exactly like synchronous calls. The delegate has to be safe for concurrent use,
+ * e.g. a {@link NcpehClientImpl} in its concurrency mode.
+ */
+public class AsyncNcpehClientImpl implements AsyncNcpehService, AutoCloseable {
+
+  private final NcpehService delegate;
+
+  private final ExecutorService executor;
+
+  /**
+   * Create an {@link AsyncNcpehService} running every operation of the delegate on a virtual
+   * thread of its own.
+   *
+   * @param delegate the {@link NcpehService} doing the actual work
+   * @throws IllegalStateException if the delegate is not safe for concurrent use
+   */
+  public AsyncNcpehClientImpl(final NcpehService delegate) {
+    this(delegate, Executors.newVirtualThreadPerTaskExecutor());
+  }
+
+  /**
+   * @param delegate the {@link NcpehService} doing the actual work
+   * @param executor the {@link ExecutorService} running the operations
+   * @throws IllegalStateException if the delegate is not safe for concurrent use
+   */
+  public AsyncNcpehClientImpl(
+      @NonNull final NcpehService delegate, @NonNull final ExecutorService executor) {
+    if (!delegate.isConcurrent()) {
+      throw new IllegalStateException(
+          "The NCPeH service is not configured for concurrent use, asynchronous calls need the"
+              + " concurrent NCPeH client");
+    }
+    this.delegate = delegate;
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletableFuture<IdentifyPatientResponseDTO> identifyPatient(
+      final PatientAccessData patientAccessData,
+      final String testdataProfileName,
+      final String providerCountry,
+      final String accessCodeAssigningAuthority,
+      final String ncpehMockControlRequestHeader,
+      final Patient patient) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            delegate.identifyPatient(
+                patientAccessData,
+                testdataProfileName,
+                providerCountry,
+                accessCodeAssigningAuthority,
+                ncpehMockControlRequestHeader,
+                patient),
+        executor);
+  }
+
+  @Override
+  public CompletableFuture<IdentifyPatientResponseDTO> identifyPatient(
+      final IdentifyPatientRequest identifyPatientRequest,
+      final String ncpehMockControlRequestHeader,
+      final Patient patient) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            delegate.identifyPatient(
+                identifyPatientRequest, ncpehMockControlRequestHeader, patient),
+        executor);
+  }
+
+  @Override
+  public CompletableFuture<FindDocumentsResponseDTO> findDocuments(
+      final PatientAccessData patientAccessData,
+      final String testdataProfileName,
+      final String providerCountry,
+      final String xdsDocumentEntryClassCode,
+      final String ncpehMockControlRequestHeader,
+      final Map<String, Medication> medicationByPrescriptionId) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            delegate.findDocuments(
+                patientAccessData,
+                testdataProfileName,
+                providerCountry,
+                xdsDocumentEntryClassCode,
+                ncpehMockControlRequestHeader,
+                medicationByPrescriptionId),
+        executor);
+  }
+
+  @Override
+  public CompletableFuture<RetrieveDocumentsResponseDTO> retrieveDocuments(
+      final PatientAccessData patientAccessData,
+      final Patient patient,
+      final String testdataProfileName,
+      final String providerCountry,
+      final Set<DocumentRequest> documentRequestSet,
+      final String ncpehMockControlRequestHeader,
+      final Map<String, Medication> medicationByPrescriptionId) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            delegate.retrieveDocuments(
+                patientAccessData,
+                patient,
+                testdataProfileName,
+                providerCountry,
+                documentRequestSet,
+                ncpehMockControlRequestHeader,
+                medicationByPrescriptionId),
+        executor);
+  }
+
+  @Override
+  public CompletableFuture<RetrieveDocumentsResponseDTO> retrievePatientSummary(
+      final PatientAccessData patientAccessData,
+      final Patient patient,
+      final String testdataProfileName,
+      final String leiCountry,
+      final AdhocQueryResponse metadata,
+      final String ncpehMockControlRequestHeader,
+      final PatientSummaryLevel... patientSummaryLevels) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            delegate.retrievePatientSummary(
+                patientAccessData,
+                patient,
+                testdataProfileName,
+                leiCountry,
+                metadata,
+                ncpehMockControlRequestHeader,
+                patientSummaryLevels),
+        executor);
+  }
+
+  @Override
+  public CompletableFuture<ProvideAndRegisterDocumentSetResponseDTO> provideAndRegisterDocumentSet(
+      final PatientAccessData patientAccessData,
+      final String testdataProfileName,
+      final String providerCountry,
+      final List<PrescriptionDispenseData> dispensations,
+      final String formatCode,
+      final String typeCode,
+      final String classCode,
+      final String ncpehMockControlRequestHeader) {
+    return CompletableFuture.supplyAsync(
+        () ->
+            delegate.provideAndRegisterDocumentSet(
+                patientAccessData,
+                testdataProfileName,
+                providerCountry,
+                dispensations,
+                formatCode,
+                typeCode,
+                classCode,
+                ncpehMockControlRequestHeader),
+        executor);
+  }
+
+  /** Waits for the running operations to finish and shuts the executor down. */
+  @Override
+  public void close() {
+    executor.close();
+  }
+}
@@ -42,12 +42,16 @@ import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
 import de.gematik.test.ncp.ncpeh.data.ProvideAndRegisterSetOfDocumentsRequestBuilder;
 import de.gematik.test.ncp.ncpeh.data.RetrieveSetOfDocumentsRequestBuilder;
 import de.gematik.test.ncp.ncpeh.data.TestdataFactory;
+import de.gematik.test.ncp.reporting.RequestBuildTimer;
+import de.gematik.test.ncp.util.ObjectPool;
 import de.gematik.test.ncp.util.Utils;
 import jakarta.ws.rs.core.MultivaluedHashMap;
 import jakarta.ws.rs.core.MultivaluedMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
@@ -62,6 +66,11 @@ import org.springframework.http.HttpStatus;
  * Implementation of the {@link NcpehService} using the NCPeH Trigger Interface ({@link
  * NcpehSimulatorApi}) to trigger operations at an NCPeH server implementing the NCPeH Trigger
  * Interface.<br>
+ * The NCPeH mock control headers are set on the client proxy before each operation. With a single
+ * {@link #clientProxy} that is only safe as long as the operations are called from one thread at a
+ * time. If a {@link #clientProxyFactory} is given instead, every operation borrows a client proxy
+ * of its own from a pool for the time of the call, so the operations can be called concurrently
+ * without the headers of one call ending up in the request of another.
  */
 @Slf4j
 @Builder
@@ -79,6 +88,20 @@ public class NcpehClientImpl implements NcpehService {
   @Getter
   private final NcpehSimulatorApi clientProxy;
 
+  /** Creates the client proxies of the pool, if the client is used concurrently */
+  private final Supplier<NcpehSimulatorApi> clientProxyFactory;
+
+  private final ObjectPool<NcpehSimulatorApi> clientProxies =
+      new ObjectPool<>(this::newClientProxy);
+
+  /**
+   * @return {@code true} if every operation uses a client proxy of its own
+   */
+  @Override
+  public boolean isConcurrent() {
+    return clientProxyFactory != null;
+  }
+
   @Override
   public IdentifyPatientResponseDTO identifyPatient(
       final PatientAccessData patientAccessData,
@@ -87,7 +110,7 @@ public class NcpehClientImpl implements NcpehService {
       final String accessCodeAssigningAuthority,
       final String ncpehMockControlRequestHeader,
       final Patient patient) {
-
+    final var buildStart = System.nanoTime();
     NcpehSimTestdataProfile testdata =
         Testdata.instance().getNcpehSimTestdataProfile(testdataProfileName);
     IdentifyPatientRequest request =
@@ -97,7 +120,7 @@ public class NcpehClientImpl implements NcpehService {
             accessCodeAssigningAuthority,
             testdata);
 
-    return identifyPatient(request, ncpehMockControlRequestHeader, patient);
+    return identifyPatient(buildStart, request, ncpehMockControlRequestHeader, patient);
   }
 
   @Override
@@ -105,17 +128,29 @@ public class NcpehClientImpl implements NcpehService {
       final IdentifyPatientRequest identifyPatientRequest,
       final String ncpehMockControlRequestHeader,
       final Patient patient) {
+    return identifyPatient(
+        System.nanoTime(), identifyPatientRequest, ncpehMockControlRequestHeader, patient);
+  }
 
-    setNcpehMockControlRequestHeader(ncpehMockControlRequestHeader, patient);
-
-    try (var response = clientProxy().identifyPatient(identifyPatientRequest)) {
-      if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
-        return DataUtils.convertResponseDataForIdentifyPatient(response);
-      }
+  private IdentifyPatientResponseDTO identifyPatient(
+      final long buildStart,
+      final IdentifyPatientRequest identifyPatientRequest,
+      final String ncpehMockControlRequestHeader,
+      final Patient patient) {
 
-      throw new NcpehException(
-          "identifyPatient operation did not return with a success status", response);
-    }
+    return invoke(
+        buildStart,
+        createNcpehMockControlRequestHeaders(ncpehMockControlRequestHeader, patient, null),
+        proxy -> {
+          try (var response = proxy.identifyPatient(identifyPatientRequest)) {
+            if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
+              return DataUtils.convertResponseDataForIdentifyPatient(response);
+            }
+
+            throw new NcpehException(
+                "identifyPatient operation did not return with a success status", response);
+          }
+        });
   }
 
   @Override
@@ -126,25 +161,30 @@ public class NcpehClientImpl implements NcpehService {
       final String xdsDocumentEntryClassCode,
       final String ncpehMockControlRequestHeader,
       final Map<String, Medication> medicationByPrescriptionId) {
+    final var buildStart = System.nanoTime();
     var testdata = Testdata.instance().getNcpehSimTestdataProfile(testdataProfileName);
 
-    setNcpehMockControlRequestHeader(ncpehMockControlRequestHeader, medicationByPrescriptionId);
+    var request =
+        TestdataFactory.buildStandardFindDocumentsRequest(
+            patientAccessData,
+            EuCountryCode.valueOf(providerCountry.toUpperCase()),
+            xdsDocumentEntryClassCode,
+            testdata);
 
-    try (final var response =
-        clientProxy()
-            .findDocuments(
-                TestdataFactory.buildStandardFindDocumentsRequest(
-                    patientAccessData,
-                    EuCountryCode.valueOf(providerCountry.toUpperCase()),
-                    xdsDocumentEntryClassCode,
-                    testdata))) {
+    return invoke(
+        buildStart,
+        createNcpehMockControlRequestHeaders(
+            ncpehMockControlRequestHeader, null, medicationByPrescriptionId),
+        proxy -> {
+          try (final var response = proxy.findDocuments(request)) {
 
-      if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
-        return DataUtils.convertResponseDataForFindDocuments(response);
-      }
+            if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
+              return DataUtils.convertResponseDataForFindDocuments(response);
+            }
 
-      throw new NcpehException("findDocuments operation did not run successfully", response);
-    }
+            throw new NcpehException("findDocuments operation did not run successfully", response);
+          }
+        });
   }
 
   @Override
@@ -156,9 +196,8 @@ public class NcpehClientImpl implements NcpehService {
       final Set<DocumentRequest> documentRequestSet,
       final String ncpehMockControlRequestHeader,
       final Map<String, Medication> medicationByPrescriptionId) {
+    final var buildStart = System.nanoTime();
     var testdata = Testdata.instance().getNcpehSimTestdataProfile(testdataProfileName);
-    setNcpehMockControlRequestHeader(
-        ncpehMockControlRequestHeader, patient, medicationByPrescriptionId);
 
     var request =
         RetrieveSetOfDocumentsRequestBuilder.newInstance()
@@ -170,14 +209,21 @@ public class NcpehClientImpl implements NcpehService {
             .idaAssertionProfileName(testdata.idaProfileName())
             .build();
 
-    try (var response = clientProxy().retrieveSetOfDocuments(request)) {
-
-      if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
-        return DataUtils.convertResponseDataForRetrieveDocuments(response);
-      }
-
-      throw new NcpehException("retrieveDocuments operation did not run successfully", response);
-    }
+    return invoke(
+        buildStart,
+        createNcpehMockControlRequestHeaders(
+            ncpehMockControlRequestHeader, patient, medicationByPrescriptionId),
+        proxy -> {
+          try (var response = proxy.retrieveSetOfDocuments(request)) {
+
+            if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
+              return DataUtils.convertResponseDataForRetrieveDocuments(response);
+            }
+
+            throw new NcpehException(
+                "retrieveDocuments operation did not run successfully", response);
+          }
+        });
   }
 
   @Override
@@ -189,27 +235,31 @@ public class NcpehClientImpl implements NcpehService {
       final AdhocQueryResponse metadata,
       final String ncpehMockControlRequestHeader,
       final PatientSummaryLevel... patientSummaryLevels) {
+    final var buildStart = System.nanoTime();
     var testdata = Testdata.instance().getNcpehSimTestdataProfile(testdataProfileName);
 
-    setNcpehMockControlRequestHeader(ncpehMockControlRequestHeader, patient);
-
-    try (final var response =
-        clientProxy()
-            .retrieveDocument(
-                TestdataFactory.buildStandardRetrieveDocumentRequest(
-                    patientAccessData,
-                    EuCountryCode.valueOf(leiCountry.toUpperCase()),
-                    testdata,
-                    metadata,
-                    patientSummaryLevels))) {
-
-      if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
-        return DataUtils.convertResponseDataForRetrieveDocuments(response);
-      }
-
-      throw new NcpehException(
-          "retrievePatientSummary operation did not run successfully", response);
-    }
+    var request =
+        TestdataFactory.buildStandardRetrieveDocumentRequest(
+            patientAccessData,
+            EuCountryCode.valueOf(leiCountry.toUpperCase()),
+            testdata,
+            metadata,
+            patientSummaryLevels);
+
+    return invoke(
+        buildStart,
+        createNcpehMockControlRequestHeaders(ncpehMockControlRequestHeader, patient, null),
+        proxy -> {
+          try (final var response = proxy.retrieveDocument(request)) {
+
+            if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
+              return DataUtils.convertResponseDataForRetrieveDocuments(response);
+            }
+
+            throw new NcpehException(
+                "retrievePatientSummary operation did not run successfully", response);
+          }
+        });
   }
 
   @Override
@@ -222,51 +272,86 @@ public class NcpehClientImpl implements NcpehService {
       final String typeCode,
       final String classCode,
       final String ncpehMockControlRequestHeader) {
+    final var buildStart = System.nanoTime();
     final var testdata = Testdata.instance().getNcpehSimTestdataProfile(testdataProfileName);
 
-    setNcpehMockControlRequestHeader(ncpehMockControlRequestHeader);
-
-    try (final var response =
-        clientProxy()
-            .provideAndRegisterSetOfDocuments(
-                ProvideAndRegisterSetOfDocumentsRequestBuilder.newInstance()
-                    .trcAssertionProfileName(testdata.trcProfileName())
-                    .formatCode(formatCode)
-                    .typeCode(typeCode)
-                    .classCode(classCode)
-                    .dispensations(dispensations)
-                    .kvnr(patientAccessData.getKvnr())
-                    .accessCode(patientAccessData.getAccessCode())
-                    .euCountryCode(EuCountryCode.valueOf(providerCountry.toUpperCase()))
-                    .idaAssertionProfileName(testdata.idaProfileName())
-                    .build())) {
-
-      if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
-        return DataUtils.convertResponseDataForProvideAndRegisterDocumentSet(response);
-      }
-
-      throw new NcpehException(
-          "provideAndRegisterDocumentSet operation did not run successfully", response);
-    }
+    final var request =
+        ProvideAndRegisterSetOfDocumentsRequestBuilder.newInstance()
+            .trcAssertionProfileName(testdata.trcProfileName())
+            .formatCode(formatCode)
+            .typeCode(typeCode)
+            .classCode(classCode)
+            .dispensations(dispensations)
+            .kvnr(patientAccessData.getKvnr())
+            .accessCode(patientAccessData.getAccessCode())
+            .euCountryCode(EuCountryCode.valueOf(providerCountry.toUpperCase()))
+            .idaAssertionProfileName(testdata.idaProfileName())
+            .build();
+
+    return invoke(
+        buildStart,
+        createNcpehMockControlRequestHeaders(ncpehMockControlRequestHeader, null, null),
+        proxy -> {
+          try (final var response = proxy.provideAndRegisterSetOfDocuments(request)) {
+
+            if (HttpStatus.valueOf(response.getStatus()).is2xxSuccessful()) {
+              return DataUtils.convertResponseDataForProvideAndRegisterDocumentSet(response);
+            }
+
+            throw new NcpehException(
+                "provideAndRegisterDocumentSet operation did not run successfully", response);
+          }
+        });
   }
 
-  private void setNcpehMockControlRequestHeader(final String ncpehMockControlRequestHeader) {
-    setNcpehMockControlRequestHeader(ncpehMockControlRequestHeader, null, null);
+  /**
+   * Run an operation on a client proxy, which carries the given headers. In the concurrency mode
+   * the client proxy is exclusively used by the operation and handed back to the bounded pool
+   * afterwards, unless the operation failed.
+   * The time since the given start is reported to the {@link RequestBuildTimer} as build time of
+   * the request. Taking the client proxy from the pool, or creating it, is not part of the build
+   * time, it is no work on the request.
+   *
+   * @param buildStart {@link System#nanoTime()} when building the request started
+   * @param headers the NCPeH mock control headers for the request
+   * @param operation the operation to run on the client proxy
+   * @return the result of the operation
+   */
+  private <R> R invoke(
+      final long buildStart,
+      final MultivaluedMap<String, String> headers,
+      final Function<NcpehSimulatorApi, R> operation) {
+    final var buildNanos = System.nanoTime() - buildStart;
+    if (!isConcurrent()) {
+      // cast to Client to modify headers
+      ((Client) clientProxy()).reset().headers(headers);
+      return applyTimed(buildNanos, operation, clientProxy());
+    }
+
+    return clientProxies.apply(
+        proxy -> {
+          ((Client) proxy).reset().headers(headers);
+          return applyTimed(buildNanos, operation, proxy);
+        });
   }
 
-  private void setNcpehMockControlRequestHeader(
-      final String ncpehMockControlRequestHeader, final Patient patient) {
-    setNcpehMockControlRequestHeader(ncpehMockControlRequestHeader, patient, null);
+  private NcpehSimulatorApi newClientProxy() {
+    return clientProxyFactory.get();
   }
 
-  private void setNcpehMockControlRequestHeader(
-      final String ncpehMockControlRequestHeader,
-      final Map<String, Medication> medicationByPrescriptionId) {
-    setNcpehMockControlRequestHeader(
-        ncpehMockControlRequestHeader, null, medicationByPrescriptionId);
+  private static <R> R applyTimed(
+      final long buildNanos,
+      final Function<NcpehSimulatorApi, R> operation,
+      final NcpehSimulatorApi proxy) {
+    RequestBuildTimer.recordRequestBuildNanos(buildNanos);
+    try {
+      return operation.apply(proxy);
+    } finally {
+      RequestBuildTimer.clear();
+    }
   }
 
-  private void setNcpehMockControlRequestHeader(
+  private static MultivaluedMap<String, String> createNcpehMockControlRequestHeaders(
       final String ncpehMockControlRequestHeader,
       final Patient patient,
       final Map<String, Medication> medicationByPrescriptionId) {
@@ -282,7 +367,6 @@ public class NcpehClientImpl implements NcpehService {
       headers.put(REQUEST_HEADER_MEDICATION, List.of(Utils.getB64Json(medicationByPrescriptionId)));
     }
 
-    // cast to Client to modify headers
-    ((Client) clientProxy()).reset().headers(headers);
+    return headers;
   }
 }
@@ -25,8 +25,6 @@ import static de.gematik.test.ncp.ncpeh.client.dataobject.SoapUtils.extractBodyA
 import static de.gematik.test.ncp.util.Utils.unmarshalXml;
 
 import de.gematik.ncpeh.api.common.WrappedHttpMessage;
-import de.gematik.ncpeh.api.common.WrappedHttpRequest;
-import de.gematik.ncpeh.api.common.WrappedHttpResponse;
 import de.gematik.ncpeh.api.response.SimulatorCommunicationData;
 import de.gematik.test.ncp.data.AcknowledgementDetail;
 import de.gematik.test.ncp.data.Patient;
@@ -35,27 +33,21 @@ import de.gematik.test.ncp.data.PatientImpl;
 import de.gematik.test.ncp.data.PersonName;
 import de.gematik.test.ncp.ncpeh.NcpehService;
 import de.gematik.test.ncp.ncpeh.PatientSummaryLevel;
-import de.gematik.test.ncp.util.Utils;
 import ihe.iti.xds_b._2007.ProvideAndRegisterDocumentSetRequestType;
 import ihe.iti.xds_b._2007.RetrieveDocumentSetRequestType;
 import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
-import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType.DocumentResponse;
 import jakarta.ws.rs.core.Response;
 import jakarta.xml.bind.JAXBElement;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.text.ParseException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatterBuilder;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import lombok.AccessLevel;
@@ -93,6 +85,7 @@ import org.jetbrains.annotations.NotNull;
 import org.openqa.selenium.Pdf;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.util.MultiValueMap;
 
 @UtilityClass
 @Accessors(fluent = true)
@@ -107,7 +100,7 @@ public class DataUtils {
   public static final List<String> CODE_SYSTEM_XCPD_ERRORS =
       List.of("1.3.6.1.4.1.19376.1.2.27.3", "1.3.6.1.4.1.12559.11.10.1.3.2.2.1");
 
-  @Getter(lazy = true, value = AccessLevel.PRIVATE)
+  @Getter(lazy = true, value = AccessLevel.PACKAGE)
   private final File testsuiteTempDir = getOrCreateTestsuiteTmpFolder();
 
   public static final String REPOSITORY_UNIQUE_ID_SLOT_NAME = "repositoryUniqueId";
@@ -180,19 +173,10 @@ public class DataUtils {
    * @return {@link ClinicalDocument} patient summary, or null if none was found
    */
   public static ClinicalDocument readPatientSummaryLvl3(
-      final RetrieveDocumentSetResponseType response) {
-    return readClinicalDocument(getPatientSummaryOfLevel(response, PatientSummaryLevel.LEVEL_3));
-  }
-
-  /**
-   * Unmarshal the given byte array into a {@link ClinicalDocument} object
-   *
-   * @param document byte array containing the XML representation of a ClinicalDocument
-   * @return {@link ClinicalDocument} object, or null if the input document was null
-   */
-  public static ClinicalDocument readClinicalDocument(final byte[] document) {
-    return Optional.ofNullable(document)
-        .map(d -> unmarshalXml(ClinicalDocument.class, d))
+      final RetrieveDocumentsResponseDTO response) {
+    return Optional.ofNullable(
+            readPatientSummaryDocument(response.documentResponses(), PatientSummaryLevel.LEVEL_3))
+        .map(SpooledDocument::readClinicalDocument)
         .orElse(null);
   }
 
@@ -204,8 +188,29 @@ public class DataUtils {
    *     AdhocQueryResponse, String, PatientSummaryLevel...)} operation
    * @return {@link Pdf} patient summary, or null if none was found
    */
-  public static byte[] readPatientSummaryLvl1(final RetrieveDocumentSetResponseType response) {
-    return getPatientSummaryOfLevel(response, PatientSummaryLevel.LEVEL_1);
+  public static byte[] readPatientSummaryLvl1(final RetrieveDocumentsResponseDTO response) {
+    return Optional.ofNullable(
+            readPatientSummaryDocument(response.documentResponses(), PatientSummaryLevel.LEVEL_1))
+        .map(SpooledDocument::toByteArray)
+        .orElse(null);
+  }
+
+  /**
+   * Find the patient summary of the given level among the spooled documents of an NCPeH
+   * retrieveDocument response, see {@link RetrieveDocumentsResponseDTO#documentResponses()}
+   *
+   * @param documentResponses the spooled DocumentResponses of the response
+   * @param level level of the requested patient summary
+   * @return {@link SpooledDocument} patient summary, or null if none was found
+   */
+  public static SpooledDocument readPatientSummaryDocument(
+      final List<SpooledDocumentResponse> documentResponses, final PatientSummaryLevel level) {
+    return Optional.ofNullable(documentResponses).stream()
+        .flatMap(Collection::stream)
+        .filter(dr -> level.documentIsOfLevel(dr.documentUniqueId()))
+        .map(SpooledDocumentResponse::document)
+        .findFirst()
+        .orElse(null);
   }
 
   /**
@@ -217,12 +222,12 @@ public class DataUtils {
    */
   public static IdentifyPatientResponseDTO convertResponseDataForIdentifyPatient(
       final Response response) {
-    final var simulatorComData = response.readEntity(SimulatorCommunicationData.class);
+    final var context = ResponseParseContext.of(response);
 
     return new IdentifyPatientResponseDTO(
-        HttpStatus.valueOf(response.getStatus()),
-        parseHttpRequest(simulatorComData.requestSend(), PRPAIN201305UV02.class),
-        parseHttpResponse(simulatorComData.responseReceived(), PRPAIN201306UV02.class));
+        context.status(),
+        parseHttpRequest(context, PRPAIN201305UV02.class),
+        parseHttpResponse(context, PRPAIN201306UV02.class));
   }
 
   /**
@@ -234,12 +239,12 @@ public class DataUtils {
    */
   public static FindDocumentsResponseDTO convertResponseDataForFindDocuments(
       final Response response) {
-    final var simulatorComData = response.readEntity(SimulatorCommunicationData.class);
+    final var context = ResponseParseContext.of(response);
 
     return new FindDocumentsResponseDTO(
-        HttpStatus.valueOf(response.getStatus()),
-        parseHttpRequest(simulatorComData.requestSend(), AdhocQueryRequest.class),
-        parseHttpResponse(simulatorComData.responseReceived(), AdhocQueryResponse.class));
+        context.status(),
+        parseHttpRequest(context, AdhocQueryRequest.class),
+        parseHttpResponse(context, AdhocQueryResponse.class));
   }
 
   /**
@@ -251,13 +256,13 @@ public class DataUtils {
    */
   public static RetrieveDocumentsResponseDTO convertResponseDataForRetrieveDocuments(
       final Response response) {
-    final var simulatorComData = response.readEntity(SimulatorCommunicationData.class);
+    final var context = ResponseParseContext.of(response);
 
     return new RetrieveDocumentsResponseDTO(
-        HttpStatus.valueOf(response.getStatus()),
-        parseHttpRequest(simulatorComData.requestSend(), RetrieveDocumentSetRequestType.class),
-        parseHttpResponse(
-            simulatorComData.responseReceived(), RetrieveDocumentSetResponseType.class));
+        context.status(),
+        parseHttpRequest(context, RetrieveDocumentSetRequestType.class),
+        parseHttpResponse(context, RetrieveDocumentSetResponseType.class),
+        context::retrieveDocumentSetResponse);
   }
 
   /**
@@ -270,13 +275,12 @@ public class DataUtils {
    */
   public static ProvideAndRegisterDocumentSetResponseDTO
       convertResponseDataForProvideAndRegisterDocumentSet(final Response response) {
-    var simulatorComData = response.readEntity(SimulatorCommunicationData.class);
+    final var context = ResponseParseContext.of(response);
 
     return new ProvideAndRegisterDocumentSetResponseDTO(
-        HttpStatus.valueOf(response.getStatus()),
-        parseHttpRequest(
-            simulatorComData.requestSend(), ProvideAndRegisterDocumentSetRequestType.class),
-        parseHttpResponse(simulatorComData.responseReceived(), RegistryResponseType.class));
+        context.status(),
+        parseHttpRequest(context, ProvideAndRegisterDocumentSetRequestType.class),
+        parseHttpResponse(context, RegistryResponseType.class));
   }
 
   @SuppressWarnings("unchecked")
@@ -471,69 +475,51 @@ public class DataUtils {
     return res;
   }
 
-  private static byte[] getPatientSummaryOfLevel(
-      final RetrieveDocumentSetResponseType response, final PatientSummaryLevel level) {
-    return Optional.ofNullable(response)
-        .map(RetrieveDocumentSetResponseType::getDocumentResponse)
-        .stream()
-        .flatMap(Collection::stream)
-        .filter(dr -> level.documentIsOfLevel(dr.getDocumentUniqueId()))
-        .map(DocumentResponse::getDocument)
-        .findFirst()
-        .orElse(null);
-  }
-
+  /**
+   * Create the request data of the NCPeH FD. Only the request line is parsed here, headers and
+   * content are parsed when they are first accessed.
+   */
   private static <T> HttpRequestData<T> parseHttpRequest(
-      final WrappedHttpRequest request, final Class<T> requestBodyType) {
-    final var requestContent = parseHttpBody(request.messageContent(), requestBodyType);
-    final var requestHeader = parseHttpHeaders(request.messageContent());
+      final ResponseParseContext context, final Class<T> requestBodyType) {
+    final var request = context.communicationData().requestSend();
     final var requestLineSeparatorPosition = request.requestLine().indexOf(" ");
-    return new HttpRequestDataRecord<>(
+    return new LazyHttpRequestData<>(
         HttpMethod.valueOf(request.requestLine().substring(0, requestLineSeparatorPosition).trim()),
         request.requestLine().substring(requestLineSeparatorPosition).trim(),
-        requestHeader,
-        requestContent);
+        () -> parseHttpHeaders(request.messageContent()),
+        () -> context.requestBody(requestBodyType));
   }
 
+  /**
+   * Create the response data of the NCPeH FD. Only the status line is parsed here, headers and
+   * content are parsed when they are first accessed.
+   */
   private static <T> HttpResponseData<T> parseHttpResponse(
-      final WrappedHttpResponse response, final Class<T> responseBodyType) {
-    final var responseContent = parseHttpBody(response.messageContent(), responseBodyType);
-    final var responseHeader = parseHttpHeaders(response.messageContent());
-
-    return new HttpResponseDataRecord<>(
+      final ResponseParseContext context, final Class<T> responseBodyType) {
+    final var response = context.communicationData().responseReceived();
+    return new LazyHttpResponseData<>(
         HttpStatus.valueOf(Integer.parseInt(response.statusLine().substring(0, 3))),
-        responseHeader,
-        responseContent);
+        () -> parseHttpHeaders(response.messageContent()),
+        () -> context.responseBody(responseBodyType));
   }
 
+  /**
+   * Unmarshal the content of the SOAP body of an HTTP message. Plain SOAP envelopes are streamed
+   * directly into the JAXB type, other messages (e.g. MTOM) are read using SAAJ.
+   *
+   * @param httpMessage the HTTP message with a SOAP message as body
+   * @param bodyType JAXB type of the SOAP body content
+   * @return the unmarshalled SOAP body content
+   */
   public static <T> T parseHttpBody(final WrappedHttpMessage httpMessage, final Class<T> bodyType) {
     final var soapMessage = httpMessage.httpBody();
-    final var doc = extractBodyAsDocument(soapMessage);
-    return unmarshalXml(bodyType, doc);
+    return SoapUtils.unmarshalBodyContent(soapMessage, bodyType)
+        .orElseGet(() -> unmarshalXml(bodyType, extractBodyAsDocument(soapMessage)));
   }
 
-  private static Map<String, String> parseHttpHeaders(final WrappedHttpMessage httpMessage) {
-    var headersAsString = new String(httpMessage.httpHeader(), StandardCharsets.UTF_8);
-    headersAsString = Utils.trimCharacters(headersAsString, "[", "]");
-
-    return headersAsString
-        .lines()
-        .flatMap(line -> Arrays.stream(Utils.splitConsideringQuotes(line, ",")))
-        .map(
-            headerLine -> {
-              final var colonIndex = headerLine.indexOf(":");
-              final var headerMap = new HashMap<String, String>();
-              headerMap.put(
-                  headerLine.substring(0, colonIndex).trim(),
-                  headerLine.substring(colonIndex).trim());
-              return headerMap;
-            })
-        .reduce(
-            (headersMap, headerMap) -> {
-              headersMap.putAll(headerMap);
-              return headersMap;
-            })
-        .orElse(new HashMap<>());
+  private static MultiValueMap<String, String> parseHttpHeaders(
+      final WrappedHttpMessage httpMessage) {
+    return HttpHeaderParser.parse(httpMessage.httpHeader());
   }
 
   // endregion private
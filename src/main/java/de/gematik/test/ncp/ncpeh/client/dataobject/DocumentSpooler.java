@@ -0,0 +1,335 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static de.gematik.test.ncp.ncpeh.client.dataobject.SoapUtils.extractBodyAsDocument;
+
+import de.gematik.test.ncp.util.JaxbContextRegistry;
+import de.gematik.test.ncp.util.Utils;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType.DocumentResponse;
+import jakarta.xml.bind.JAXBException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.function.Supplier;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryResponseType;
+
+/**
+ * Read RetrieveDocumentSet responses with their documents in {@link SpooledDocument}s, without
+ * holding the whole base64 encoded and the decoded content in memory at the same time.<br>
+ * The SOAP message is read once with a StAX reader: the base64 text of the documents is decoded
+ * chunk by chunk while it is read and written to the spooled document, the RegistryResponse is
+ * unmarshalled from the same reader. CDA documents are unmarshalled only when they are asked for,
+ * see {@link SpooledDocument#readClinicalDocument()}.
+ */
+@Slf4j
+@UtilityClass
+public class DocumentSpooler {
+
+  private static final String XDS_B_NS = "urn:ihe:iti:xds-b:2007";
+  private static final String HL7_V3_NS = "urn:hl7-org:v3";
+  private static final String REGREP_RS_NS = "urn:oasis:names:tc:ebxml-regrep:xsd:rs:3.0";
+
+  private static final String REGISTRY_RESPONSE = "RegistryResponse";
+
+  private static final String DOCUMENT_RESPONSE = "DocumentResponse";
+  private static final String HOME_COMMUNITY_ID = "HomeCommunityId";
+  private static final String REPOSITORY_UNIQUE_ID = "RepositoryUniqueId";
+  private static final String DOCUMENT_UNIQUE_ID = "DocumentUniqueId";
+  private static final String MIME_TYPE = "mimeType";
+  private static final String DOCUMENT = "Document";
+  private static final String NON_XML_BODY = "nonXMLBody";
+  private static final String TEXT = "text";
+
+  /** Base64 characters decoded at once, a multiple of 4 */
+  private static final int BASE64_CHUNK_SIZE = 16 * 1024;
+
+  /**
+   * Read the RetrieveDocumentSet response in the given SOAP message in one pass.<br>
+   * Messages, which are not plain SOAP envelopes or cannot be streamed, are unmarshalled like in
+   * {@link DataUtils#parseHttpBody} instead, and the content of their documents is moved into
+   * spooled documents.
+   *
+   * @param soapMessage HTTP body of the RetrieveDocumentSet response
+   * @return the response without the content of the documents, and the DocumentResponses with
+   *     their spooled documents
+   */
+  public static SpooledRetrieveDocumentSetResponse spoolRetrieveDocumentSetResponse(
+      @NonNull final byte[] soapMessage) {
+    return spoolRetrieveDocumentSetResponse(soapMessage, SpooledDocument::create);
+  }
+
+  @SneakyThrows
+  static SpooledRetrieveDocumentSetResponse spoolRetrieveDocumentSetResponse(
+      final byte[] soapMessage, final Supplier<SpooledDocument> documentFactory) {
+    if (!SoapUtils.isPlainXml(soapMessage)) {
+      log.debug("Not a plain SOAP message, reading the documents from the unmarshalled body");
+      return fromUnmarshalledBody(soapMessage, documentFactory);
+    }
+    try {
+      return streamRetrieveDocumentSetResponse(soapMessage, documentFactory);
+    } catch (final XMLStreamException | JAXBException e) {
+      log.debug("Streaming of the SOAP body failed, falling back to SAAJ: {}", e.getMessage());
+      return fromUnmarshalledBody(soapMessage, documentFactory);
+    }
+  }
+
+  /**
+   * Decode the base64 encoded nonXMLBody of a CDA document, e.g. the PDF of a CDA level 1 patient
+   * summary, into a spooled document of its own.
+   *
+   * @param cda spooled CDA document
+   * @return the decoded content of the nonXMLBody, empty if the document doesn't have one
+   */
+  public static Optional<SpooledDocument> spoolNonXmlBody(@NonNull final SpooledDocument cda) {
+    return spoolNonXmlBody(cda, SpooledDocument::create);
+  }
+
+  @SneakyThrows
+  static Optional<SpooledDocument> spoolNonXmlBody(
+      final SpooledDocument cda, final Supplier<SpooledDocument> documentFactory) {
+    try (final var in = cda.openStream()) {
+      final var reader = Utils.xmlInputFactory().createXMLStreamReader(in);
+      try {
+        var inNonXmlBody = false;
+        while (reader.hasNext()) {
+          final var event = reader.next();
+          if (event != XMLStreamConstants.START_ELEMENT
+              || !HL7_V3_NS.equals(reader.getNamespaceURI())) {
+            continue;
+          }
+          if (NON_XML_BODY.equals(reader.getLocalName())) {
+            inNonXmlBody = true;
+          } else if (inNonXmlBody && TEXT.equals(reader.getLocalName())) {
+            return Optional.of(decodeElementText(reader, documentFactory.get()));
+          }
+        }
+        return Optional.empty();
+      } finally {
+        reader.close();
+      }
+    }
+  }
+
+  private static SpooledRetrieveDocumentSetResponse streamRetrieveDocumentSetResponse(
+      final byte[] soapMessage, final Supplier<SpooledDocument> documentFactory)
+      throws XMLStreamException, JAXBException, IOException {
+    final var response = new RetrieveDocumentSetResponseType();
+    final var result = new ArrayList<SpooledDocumentResponse>();
+    final var reader =
+        Utils.xmlInputFactory().createXMLStreamReader(new ByteArrayInputStream(soapMessage));
+    DocumentResponseBuilder current = null;
+    try {
+      var event = reader.next();
+      while (event != XMLStreamConstants.END_DOCUMENT) {
+        if (event == XMLStreamConstants.START_ELEMENT
+            && current == null
+            && REGREP_RS_NS.equals(reader.getNamespaceURI())
+            && REGISTRY_RESPONSE.equals(reader.getLocalName())) {
+          response.setRegistryResponse(
+              JaxbContextRegistry.withUnmarshaller(
+                  RegistryResponseType.class,
+                  unmarshaller ->
+                      unmarshaller.unmarshal(reader, RegistryResponseType.class).getValue()));
+          // the unmarshaller leaves the reader on the event after the end of the element
+          event = reader.getEventType();
+          continue;
+        }
+        if (event == XMLStreamConstants.END_ELEMENT
+            && current != null
+            && DOCUMENT_RESPONSE.equals(reader.getLocalName())) {
+          result.add(current.build());
+          response.getDocumentResponse().add(current.metadata());
+          current = null;
+        } else if (event == XMLStreamConstants.START_ELEMENT
+            && XDS_B_NS.equals(reader.getNamespaceURI())
+            && (current != null || DOCUMENT_RESPONSE.equals(reader.getLocalName()))) {
+          switch (reader.getLocalName()) {
+            case DOCUMENT_RESPONSE -> current = new DocumentResponseBuilder();
+            case HOME_COMMUNITY_ID -> current.homeCommunityId = reader.getElementText().trim();
+            case REPOSITORY_UNIQUE_ID ->
+                current.repositoryUniqueId = reader.getElementText().trim();
+            case DOCUMENT_UNIQUE_ID -> current.documentUniqueId = reader.getElementText().trim();
+            case MIME_TYPE -> current.mimeType = reader.getElementText().trim();
+            case DOCUMENT -> current.document = decodeElementText(reader, documentFactory.get());
+            default -> {
+              // not needed for the spooled DocumentResponse
+            }
+          }
+        }
+        event = reader.next();
+      }
+    } catch (final XMLStreamException | JAXBException | IOException | RuntimeException e) {
+      result.forEach(SpooledDocumentResponse::close);
+      if (current != null && current.document != null) {
+        current.document.close();
+      }
+      throw e;
+    } finally {
+      reader.close();
+    }
+    return new SpooledRetrieveDocumentSetResponse(response, result);
+  }
+
+  private static SpooledRetrieveDocumentSetResponse fromUnmarshalledBody(
+      final byte[] soapMessage, final Supplier<SpooledDocument> documentFactory) {
+    final var body =
+        Utils.unmarshalXml(
+            RetrieveDocumentSetResponseType.class, extractBodyAsDocument(soapMessage));
+    final var result = new ArrayList<SpooledDocumentResponse>(body.getDocumentResponse().size());
+    for (final var dr : body.getDocumentResponse()) {
+      final var document = documentFactory.get();
+      write(document, dr.getDocument());
+      // the content is held by the spooled document only, like in the streamed response
+      dr.setDocument(null);
+      result.add(
+          new SpooledDocumentResponse(
+              dr.getHomeCommunityId(),
+              dr.getRepositoryUniqueId(),
+              dr.getDocumentUniqueId(),
+              dr.getMimeType(),
+              document));
+    }
+    return new SpooledRetrieveDocumentSetResponse(body, result);
+  }
+
+  @SneakyThrows
+  private static void write(final SpooledDocument document, final byte[] content) {
+    try (final var out = document.writer()) {
+      if (content != null) {
+        out.write(content);
+      }
+    }
+  }
+
+  /**
+   * Decode the base64 text of the element the reader is positioned on into the document. The
+   * reader is left on the end tag of the element. The document is closed, if the decoding fails.
+   */
+  private static SpooledDocument decodeElementText(
+      final XMLStreamReader reader, final SpooledDocument document)
+      throws XMLStreamException, IOException {
+    final var chars = new char[BASE64_CHUNK_SIZE];
+    try (final var out = new Base64DecodingStream(document.writer())) {
+      while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+        if (reader.isCharacters()) {
+          // copy the text in chunks, the reader doesn't need to build a String of it
+          var start = 0;
+          int length;
+          while ((length = reader.getTextCharacters(start, chars, 0, chars.length)) > 0) {
+            out.write(chars, length);
+            start += length;
+          }
+        } else if (reader.isStartElement()) {
+          throw new XMLStreamException(
+              "Unexpected element " + reader.getName() + " in base64 content",
+              reader.getLocation());
+        }
+      }
+    } catch (final XMLStreamException | IOException | RuntimeException e) {
+      document.close();
+      throw e;
+    }
+    return document;
+  }
+
+  /** Collects base64 characters, ignoring whitespace, and writes their decoded bytes chunkwise */
+  private static final class Base64DecodingStream implements AutoCloseable {
+
+    private final OutputStream out;
+
+    private final byte[] pending = new byte[BASE64_CHUNK_SIZE];
+
+    private int pendingLength;
+
+    private Base64DecodingStream(final OutputStream out) {
+      this.out = out;
+    }
+
+    private void write(final char[] chars, final int length) throws IOException {
+      for (var i = 0; i < length; i++) {
+        final var c = chars[i];
+        if (!Character.isWhitespace(c)) {
+          pending[pendingLength++] = (byte) c;
+          if (pendingLength == pending.length) {
+            flush();
+          }
+        }
+      }
+    }
+
+    private void flush() throws IOException {
+      if (pendingLength > 0) {
+        final var encoded =
+            pendingLength == pending.length ? pending : Arrays.copyOf(pending, pendingLength);
+        out.write(Base64.getDecoder().decode(encoded));
+        pendingLength = 0;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  private static final class DocumentResponseBuilder {
+    private String homeCommunityId;
+    private String repositoryUniqueId;
+    private String documentUniqueId;
+    private String mimeType;
+    private SpooledDocument document;
+
+    private SpooledDocumentResponse build() throws XMLStreamException {
+      if (document == null) {
+        throw new XMLStreamException("DocumentResponse without Document " + documentUniqueId);
+      }
+      return new SpooledDocumentResponse(
+          homeCommunityId, repositoryUniqueId, documentUniqueId, mimeType, document);
+    }
+
+    private DocumentResponse metadata() {
+      final var metadata = new DocumentResponse();
+      metadata.setHomeCommunityId(homeCommunityId);
+      metadata.setRepositoryUniqueId(repositoryUniqueId);
+      metadata.setDocumentUniqueId(documentUniqueId);
+      metadata.setMimeType(mimeType);
+      return metadata;
+    }
+  }
+}
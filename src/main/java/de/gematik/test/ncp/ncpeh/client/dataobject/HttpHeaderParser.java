@@ -0,0 +1,181 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Locale;
+import lombok.NonNull;
+import lombok.experimental.UtilityClass;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * Parse the HTTP headers, as the NCPeH simulator reports them, in a single pass over the bytes.
+ *
+ * <p>The simulator writes the headers in the format of Spring's {@code HttpHeaders.toString()},
+ * e.g. {@code [Accept:"text/xml, application/soap+xml", Content-Length:"626"]}, where a header with
+ * several values is written as {@code Name:"value1", "value2"}. Plain header lines ({@code Name:
+ * value}, one per line) are read as well.
+ *
+ * <p>The commas within quoted values don't split them, the quotes around the values are removed.
+ */
+@UtilityClass
+class HttpHeaderParser {
+
+  /**
+   * Parse the headers of a message.
+   *
+   * @param headers the headers as reported by the NCPeH simulator
+   * @return the headers, with case-insensitive names and all values per name in their order
+   */
+  static MultiValueMap<String, String> parse(@NonNull final byte[] headers) {
+    final MultiValueMap<String, String> result =
+        CollectionUtils.toMultiValueMap(new LinkedCaseInsensitiveMap<>(8, Locale.ROOT));
+    var end = trimEnd(headers, headers.length);
+    var pos = skipWhitespace(headers, 0, end);
+    if (pos < end && headers[pos] == '[' && headers[end - 1] == ']') {
+      pos++;
+      end--;
+    }
+
+    String name = null;
+    while (true) {
+      pos = skipSeparators(headers, pos, end);
+      if (pos >= end) {
+        return result;
+      }
+      // without a name, the token is a further value of the previous header
+      final var colon = headers[pos] == '"' ? -1 : nameEnd(headers, pos, end);
+      if (colon >= 0) {
+        name = new String(headers, pos, trimEnd(headers, colon) - pos, UTF_8);
+        pos = skipBlanks(headers, colon + 1, end);
+      }
+      final int valueStart;
+      final int valueEnd;
+      if (pos < end && headers[pos] == '"') {
+        valueStart = pos + 1;
+        valueEnd = closingQuote(headers, valueStart, end);
+        pos = valueEnd + 1;
+      } else {
+        valueStart = pos;
+        pos = lineEnd(headers, pos, end, colon < 0);
+        valueEnd = Math.max(valueStart, trimEnd(headers, pos));
+      }
+      if (name != null) {
+        result.add(name, new String(headers, valueStart, valueEnd - valueStart, UTF_8));
+      }
+    }
+  }
+
+  /**
+   * Position of the colon, if a header name starts at the position, otherwise -1. A name consists
+   * of token characters only, so a colon within a value (e.g. in a date) isn't taken for one.
+   */
+  private static int nameEnd(final byte[] data, final int start, final int end) {
+    var i = start;
+    while (i < end && isTokenChar(data[i])) {
+      i++;
+    }
+    final var colon = skipBlanks(data, i, end);
+    return i > start && colon < end && data[colon] == ':' ? colon : -1;
+  }
+
+  /**
+   * Position of the quote, which closes a quoted value. That is the next quote followed by a
+   * separator or the end, so quotes within the value (e.g. of an ETag) are kept.
+   */
+  private static int closingQuote(final byte[] data, final int start, final int end) {
+    for (var i = start; i < end; i++) {
+      if (data[i] == '"') {
+        final var next = skipBlanks(data, i + 1, end);
+        if (next >= end || data[next] == ',' || data[next] == '\r' || data[next] == '\n') {
+          return i;
+        }
+      }
+    }
+    return end;
+  }
+
+  /** End of an unquoted value, the end of the line or, for a further value, the next comma */
+  private static int lineEnd(
+      final byte[] data, final int start, final int end, final boolean stopAtComma) {
+    for (var i = start; i < end; i++) {
+      final var b = data[i];
+      if (b == '\r' || b == '\n' || (stopAtComma && b == ',')) {
+        return i;
+      }
+    }
+    return end;
+  }
+
+  private static int skipSeparators(final byte[] data, final int start, final int end) {
+    var i = start;
+    while (i < end && (data[i] == ',' || (data[i] >= 0 && data[i] <= ' '))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipWhitespace(final byte[] data, final int start, final int end) {
+    var i = start;
+    while (i < end && data[i] >= 0 && data[i] <= ' ') {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipBlanks(final byte[] data, final int start, final int end) {
+    var i = start;
+    while (i < end && isBlank(data[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int trimEnd(final byte[] data, final int end) {
+    var i = end;
+    while (i > 0 && data[i - 1] >= 0 && data[i - 1] <= ' ') {
+      i--;
+    }
+    return i;
+  }
+
+  /** Characters of a header name, non-ASCII bytes are negative and not part of a name */
+  private static boolean isTokenChar(final byte b) {
+    return b > ' '
+        && b != ':'
+        && b != '"'
+        && b != ','
+        && b != ';'
+        && b != '='
+        && b != '('
+        && b != ')'
+        && b != '['
+        && b != ']';
+  }
+
+  private static boolean isBlank(final byte b) {
+    return b == ' ' || b == '\t';
+  }
+}
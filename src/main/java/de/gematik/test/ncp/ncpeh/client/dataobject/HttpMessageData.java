@@ -21,11 +21,11 @@
 
 package de.gematik.test.ncp.ncpeh.client.dataobject;
 
-import java.util.Map;
+import org.springframework.util.MultiValueMap;
 
 public interface HttpMessageData<T> {
 
-  Map<String, String> headers();
+  MultiValueMap<String, String> headers();
 
   T content();
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import java.util.function.Supplier;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * {@link HttpMessageData}, whose headers and content are parsed from the raw message on first
+ * access only and then kept. Most steps only look at the content of the response, so the request
+ * of the NCPeH FD and the headers mostly don't need to be parsed at all.<br>
+ * Equality, hash code and string representation are based on the parsed headers and content, so
+ * they parse the message if it hasn't been parsed yet.
+ */
+@EqualsAndHashCode
+@ToString
+@Accessors(fluent = true)
+abstract class LazyHttpMessageData<T> implements HttpMessageData<T> {
+
+  @EqualsAndHashCode.Exclude @ToString.Exclude
+  private final Supplier<MultiValueMap<String, String>> headersParser;
+
+  @EqualsAndHashCode.Exclude @ToString.Exclude private final Supplier<T> contentParser;
+
+  @Getter(lazy = true)
+  private final MultiValueMap<String, String> headers = headersParser.get();
+
+  @Getter(lazy = true)
+  private final T content = contentParser.get();
+
+  LazyHttpMessageData(
+      @NonNull final Supplier<MultiValueMap<String, String>> headersParser,
+      @NonNull final Supplier<T> contentParser) {
+    this.headersParser = headersParser;
+    this.contentParser = contentParser;
+  }
+}
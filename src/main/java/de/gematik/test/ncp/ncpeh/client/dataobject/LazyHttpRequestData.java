@@ -0,0 +1,54 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import java.util.function.Supplier;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.experimental.Accessors;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.MultiValueMap;
+
+/**
+ * {@link HttpRequestData} with lazily parsed headers and content, see {@link LazyHttpMessageData}
+ */
+@Getter
+@EqualsAndHashCode(callSuper = true)
+@ToString(callSuper = true)
+@Accessors(fluent = true)
+final class LazyHttpRequestData<T> extends LazyHttpMessageData<T> implements HttpRequestData<T> {
+
+  private final HttpMethod method;
+
+  private final String address;
+
+  LazyHttpRequestData(
+      final HttpMethod method,
+      final String address,
+      final Supplier<MultiValueMap<String, String>> headersParser,
+      final Supplier<T> contentParser) {
+    super(headersParser, contentParser);
+    this.method = method;
+    this.address = address;
+  }
+}
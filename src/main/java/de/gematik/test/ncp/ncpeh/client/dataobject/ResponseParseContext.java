@@ -0,0 +1,199 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import de.gematik.ncpeh.api.common.WrappedHttpMessage;
+import de.gematik.ncpeh.api.common.WrappedHttpResponse;
+import de.gematik.ncpeh.api.response.SimulatorCommunicationData;
+import ihe.iti.xds_b._2007.ProvideAndRegisterDocumentSetRequestType;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetRequestType;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import jakarta.ws.rs.core.Response;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.namespace.QName;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryRequest;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+import oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryResponseType;
+import org.hl7.v3.PRPAIN201305UV02;
+import org.hl7.v3.PRPAIN201306UV02;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Holds everything that is parsed out of a {@link Response} of the NCPeH simulator, so that every
+ * consumer of the same response (the time logging proxy as well as the conversion into the
+ * response DTOs) works on the same, once parsed objects.
+ *
+ * <p>The {@link SimulatorCommunicationData} is read exactly once per response, the SOAP bodies are
+ * unmarshalled at most once per requested type, and the type of the received SOAP body is
+ * determined by looking at its root element only.
+ *
+ * <p>The contexts are kept weakly keyed by the response object and don't hold a reference to the
+ * response themselves, so they vanish together with the response.
+ */
+@Accessors(fluent = true)
+public final class ResponseParseContext {
+
+  private static final String HL7_V3_NS = "urn:hl7-org:v3";
+  private static final String XDS_B_NS = "urn:ihe:iti:xds-b:2007";
+  private static final String REGREP_QUERY_NS = "urn:oasis:names:tc:ebxml-regrep:xsd:query:3.0";
+  private static final String REGREP_RS_NS = "urn:oasis:names:tc:ebxml-regrep:xsd:rs:3.0";
+
+  /** Root elements of the SOAP bodies exchanged with the NCPeH FD and their JAXB types */
+  private static final Map<QName, Class<?>> BODY_TYPES =
+      Map.of(
+          new QName(HL7_V3_NS, "PRPA_IN201305UV02"),
+          PRPAIN201305UV02.class,
+          new QName(HL7_V3_NS, "PRPA_IN201306UV02"),
+          PRPAIN201306UV02.class,
+          new QName(REGREP_QUERY_NS, "AdhocQueryRequest"),
+          AdhocQueryRequest.class,
+          new QName(REGREP_QUERY_NS, "AdhocQueryResponse"),
+          AdhocQueryResponse.class,
+          new QName(XDS_B_NS, "RetrieveDocumentSetRequest"),
+          RetrieveDocumentSetRequestType.class,
+          new QName(XDS_B_NS, "RetrieveDocumentSetResponse"),
+          RetrieveDocumentSetResponseType.class,
+          new QName(XDS_B_NS, "ProvideAndRegisterDocumentSetRequest"),
+          ProvideAndRegisterDocumentSetRequestType.class,
+          new QName(REGREP_RS_NS, "RegistryResponse"),
+          RegistryResponseType.class);
+
+  private static final Map<Response, ResponseParseContext> CONTEXTS =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private final int status;
+
+  @Getter private final SimulatorCommunicationData communicationData;
+
+  private final Map<Class<?>, Object> requestBodies = new ConcurrentHashMap<>();
+
+  private final Map<Class<?>, Object> responseBodies = new ConcurrentHashMap<>();
+
+  @Getter(lazy = true)
+  private final Optional<QName> responseBodyRootElementName =
+      Optional.ofNullable(communicationData.responseReceived())
+          .map(WrappedHttpResponse::messageContent)
+          .map(WrappedHttpMessage::httpBody)
+          .flatMap(SoapUtils::readBodyRootElementName);
+
+  /**
+   * The RetrieveDocumentSet response with its documents spooled to temporary files if they are
+   * large. Read once, when it or the {@link RetrieveDocumentSetResponseType} body is first asked
+   * for, and to be closed by the holder of the {@link RetrieveDocumentsResponseDTO}.
+   */
+  @Getter(lazy = true)
+  private final SpooledRetrieveDocumentSetResponse retrieveDocumentSetResponse =
+      DocumentSpooler.spoolRetrieveDocumentSetResponse(
+          communicationData.responseReceived().messageContent().httpBody());
+
+  /**
+   * The first RegistryResponse of the response body, read on its own. Unlike {@link
+   * #retrieveDocumentSetResponse()} this doesn't decode the documents of a RetrieveDocumentSet
+   * response.
+   */
+  @Getter(lazy = true)
+  private final Optional<RegistryResponseType> registryResponse =
+      SoapUtils.readRegistryResponse(
+          communicationData.responseReceived().messageContent().httpBody());
+
+  private ResponseParseContext(final Response response) {
+    this.status = response.getStatus();
+    this.communicationData = response.readEntity(SimulatorCommunicationData.class);
+  }
+
+  /**
+   * Get the parse context of the given response. The entity of the response is read on the first
+   * call for a response only, all further calls return the same context.
+   *
+   * @param response {@link Response} as received from the NCPeH simulator
+   * @return the {@link ResponseParseContext} of the response
+   */
+  public static ResponseParseContext of(@NonNull final Response response) {
+    final var existing = CONTEXTS.get(response);
+    if (existing != null) {
+      return existing;
+    }
+    // read the entity outside the lock, a concurrent reader of the same response loses the race
+    final var created = new ResponseParseContext(response);
+    final var previous = CONTEXTS.putIfAbsent(response, created);
+    return previous != null ? previous : created;
+  }
+
+  /**
+   * @return the HTTP status of the response of the NCPeH simulator
+   */
+  public HttpStatus status() {
+    return HttpStatus.valueOf(status);
+  }
+
+  /**
+   * Get the body of the request, which was sent to the NCPeH FD, as object of the given type.
+   *
+   * @param bodyType JAXB type of the SOAP body content
+   * @return the unmarshalled body, parsed once per type
+   */
+  public <T> T requestBody(final Class<T> bodyType) {
+    return bodyType.cast(
+        requestBodies.computeIfAbsent(
+            bodyType,
+            type ->
+                DataUtils.parseHttpBody(communicationData.requestSend().messageContent(), type)));
+  }
+
+  /**
+   * Get the body of the response, which was received from the NCPeH FD, as object of the given
+   * type. A {@link RetrieveDocumentSetResponseType} is taken from the {@link
+   * #retrieveDocumentSetResponse()}, so its DocumentResponses carry the metadata of the documents
+   * only.
+   *
+   * @param bodyType JAXB type of the SOAP body content
+   * @return the unmarshalled body, parsed once per type
+   */
+  public <T> T responseBody(final Class<T> bodyType) {
+    if (RetrieveDocumentSetResponseType.class.equals(bodyType)) {
+      return bodyType.cast(retrieveDocumentSetResponse().response());
+    }
+    return bodyType.cast(
+        responseBodies.computeIfAbsent(
+            bodyType,
+            type ->
+                DataUtils.parseHttpBody(
+                    communicationData.responseReceived().messageContent(), type)));
+  }
+
+  /**
+   * Determine the JAXB type of the body of the response, which was received from the NCPeH FD, by
+   * its root element.
+   *
+   * @return the JAXB type, or empty if the root element is not one of the known ones
+   */
+  public Optional<Class<?>> responseBodyType() {
+    return responseBodyRootElementName().map(BODY_TYPES::get);
+  }
+}
@@ -23,11 +23,39 @@ package de.gematik.test.ncp.ncpeh.client.dataobject;
 
 import ihe.iti.xds_b._2007.RetrieveDocumentSetRequestType;
 import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import java.util.List;
+import java.util.function.Supplier;
 import org.springframework.http.HttpStatus;
 
+/**
+ * Response of the retrieveDocuments operation. The content of the retrieved documents is not part
+ * of the {@link #ncpehFdResponseContent()}, it is read from the {@link #documentResponses()}. The
+ * spooled documents are deleted, when the DTO is closed.
+ *
+ * @param ncpehResponseStatus HTTP status of the response of the NCPeH simulator
+ * @param ncpehFdRequest request sent to the NCPeH FD
+ * @param ncpehFdResponse response received from the NCPeH FD
+ * @param spooledResponse the response read by the {@link DocumentSpooler}, read on first access
+ */
 public record RetrieveDocumentsResponseDTO(
     HttpStatus ncpehResponseStatus,
     HttpRequestData<RetrieveDocumentSetRequestType> ncpehFdRequest,
-    HttpResponseData<RetrieveDocumentSetResponseType> ncpehFdResponse)
+    HttpResponseData<RetrieveDocumentSetResponseType> ncpehFdResponse,
+    Supplier<SpooledRetrieveDocumentSetResponse> spooledResponse)
     implements NcpehInterfaceResponse<
-        RetrieveDocumentSetRequestType, RetrieveDocumentSetResponseType> {}
+            RetrieveDocumentSetRequestType, RetrieveDocumentSetResponseType>,
+        AutoCloseable {
+
+  /**
+   * @return the retrieved DocumentResponses with their spooled documents
+   */
+  public List<SpooledDocumentResponse> documentResponses() {
+    return spooledResponse.get().documentResponses();
+  }
+
+  /** Delete the spooled documents of the response */
+  @Override
+  public void close() {
+    spooledResponse.get().close();
+  }
+}
@@ -21,17 +21,34 @@
 
 package de.gematik.test.ncp.ncpeh.client.dataobject;
 
+import de.gematik.test.ncp.util.JaxbContextRegistry;
+import de.gematik.test.ncp.util.Utils;
+import jakarta.xml.bind.JAXBException;
 import jakarta.xml.soap.MessageFactory;
 import jakarta.xml.soap.SOAPException;
 import jakarta.xml.soap.SOAPMessage;
 import java.io.ByteArrayInputStream;
+import java.util.Optional;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import lombok.SneakyThrows;
+import oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryResponseType;
 import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
 import org.w3c.dom.Document;
 
+@Slf4j
 @UtilityClass
 public class SoapUtils {
 
+  private static final String SOAP_BODY_LOCAL_NAME = "Body";
+
+  private static final String REGREP_RS_NS = "urn:oasis:names:tc:ebxml-regrep:xsd:rs:3.0";
+
+  private static final String REGISTRY_RESPONSE_LOCAL_NAME = "RegistryResponse";
+
   MessageFactory messageFactory;
 
   static {
@@ -48,4 +65,130 @@ public class SoapUtils {
         messageFactory.createMessage(null, new ByteArrayInputStream(data));
     return soapMessage.getSOAPBody().extractContentAsDocument();
   }
+
+  /**
+   * Unmarshal the content of the SOAP body directly from the stream of the message, without
+   * building a SAAJ message and a DOM of the body.<br>
+   * Only plain SOAP envelopes are read this way. MTOM / multipart messages, which may carry the
+   * content as attachments, and messages, which cannot be read this way, give an empty result, so
+   * the caller can fall back to {@link #extractBodyAsDocument(byte[])}.
+   *
+   * @param data the SOAP message
+   * @param bodyType JAXB type of the SOAP body content
+   * @return the unmarshalled SOAP body content, empty if the message isn't a plain SOAP envelope
+   */
+  public static <T> Optional<T> unmarshalBodyContent(final byte[] data, final Class<T> bodyType) {
+    if (!isPlainXml(data)) {
+      return Optional.empty();
+    }
+    try {
+      final var reader =
+          Utils.xmlInputFactory().createXMLStreamReader(new ByteArrayInputStream(data));
+      try {
+        if (!moveToBodyContent(reader)) {
+          return Optional.empty();
+        }
+        return Optional.ofNullable(
+            JaxbContextRegistry.withUnmarshaller(
+                bodyType, unmarshaller -> unmarshaller.unmarshal(reader, bodyType).getValue()));
+      } finally {
+        reader.close();
+      }
+    } catch (final XMLStreamException | JAXBException | RuntimeException e) {
+      log.debug("Streaming of the SOAP body failed, falling back to SAAJ: {}", e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /** Position the reader on the first child element of the SOAP body, false if there is none */
+  private static boolean moveToBodyContent(final XMLStreamReader reader)
+      throws XMLStreamException {
+    var depth = 0;
+    var inBody = false;
+    while (reader.hasNext()) {
+      final var event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+        if (inBody) {
+          return true;
+        }
+        inBody = depth == 2 && SOAP_BODY_LOCAL_NAME.equals(reader.getLocalName());
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        if (inBody) {
+          return false;
+        }
+        depth--;
+      }
+    }
+    return false;
+  }
+
+  /** A MIME multipart message starts with its boundary, an XML document with a '<' */
+  static boolean isPlainXml(final byte[] data) {
+    for (final var b : data) {
+      if (b == '<') {
+        return true;
+      }
+      // whitespace or the UTF-8 byte order mark
+      if (!Character.isWhitespace(b) && b != (byte) 0xEF && b != (byte) 0xBB && b != (byte) 0xBF) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determine the name of the root element of the SOAP body content, without building a tree of
+   * the message. Only the beginning of the message is read, until the element is found.
+   *
+   * @param data the SOAP message
+   * @return the name of the first child element of the SOAP body, empty if there is none or the
+   *     message cannot be read
+   */
+  public static Optional<QName> readBodyRootElementName(final byte[] data) {
+    try {
+      final var reader =
+          Utils.xmlInputFactory().createXMLStreamReader(new ByteArrayInputStream(data));
+      try {
+        if (moveToBodyContent(reader)) {
+          return Optional.of(reader.getName());
+        }
+      } finally {
+        reader.close();
+      }
+    } catch (final XMLStreamException e) {
+      // fall through, the caller has to deal with an unknown body
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Unmarshal the first RegistryResponse element of the SOAP message, without reading the rest of
+   * the message. In a RetrieveDocumentSetResponse it precedes the DocumentResponses, so the
+   * documents are neither decoded nor spooled.
+   *
+   * @param data the SOAP message
+   * @return the RegistryResponse, empty if the message contains none
+   */
+  @SneakyThrows
+  public static Optional<RegistryResponseType> readRegistryResponse(final byte[] data) {
+    final var reader =
+        Utils.xmlInputFactory().createXMLStreamReader(new ByteArrayInputStream(data));
+    try {
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT
+            && REGREP_RS_NS.equals(reader.getNamespaceURI())
+            && REGISTRY_RESPONSE_LOCAL_NAME.equals(reader.getLocalName())) {
+          return Optional.of(
+              JaxbContextRegistry.withUnmarshaller(
+                  RegistryResponseType.class,
+                  unmarshaller ->
+                      unmarshaller.unmarshal(reader, RegistryResponseType.class).getValue()));
+        }
+      }
+    } finally {
+      reader.close();
+    }
+    return Optional.empty();
+  }
 }
@@ -0,0 +1,266 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import de.gematik.test.ncp.util.Utils;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import org.hl7.v3.ClinicalDocument;
+
+/**
+ * Content of a document, e.g. of a DocumentResponse of a RetrieveDocumentSet response, which is
+ * kept in memory while small and spooled to a temporary file of the test suite once it gets large.
+ * The content is accessed as {@link InputStream} or read-only {@link ByteBuffer}, so large
+ * documents don't have to be held in memory as a whole.<br>
+ * A spooled document is written once with {@link #writer()} and then read any number of times,
+ * until it is closed. {@link #close()} deletes the temporary file. The file of a document, which is
+ * garbage collected without being closed, is deleted by a {@link Cleaner}, so the files don't pile
+ * up in the temporary folder until the JVM exits.
+ */
+@Slf4j
+public final class SpooledDocument implements AutoCloseable {
+
+  /** Documents larger than this are spooled to a temporary file */
+  public static final int DEFAULT_SPOOL_THRESHOLD = 1024 * 1024;
+
+  private static final String TEMP_FILE_PREFIX = "document-";
+
+  private static final Cleaner CLEANER = Cleaner.create();
+
+  private final int spoolThreshold;
+
+  private final Path directory;
+
+  private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+
+  private Path file;
+
+  private long size;
+
+  private boolean written;
+
+  private boolean closed;
+
+  /** Deletes the temporary file, at most once: on {@link #close()} or by the {@link #CLEANER} */
+  private Cleaner.Cleanable fileDeletion;
+
+  SpooledDocument(final int spoolThreshold, @NonNull final Path directory) {
+    this.spoolThreshold = spoolThreshold;
+    this.directory = directory;
+  }
+
+  /**
+   * Create an empty document, to be written with {@link #writer()}, which is spooled to the
+   * temporary folder of the test suite once it exceeds {@link #DEFAULT_SPOOL_THRESHOLD}.
+   *
+   * @return the empty document
+   */
+  public static SpooledDocument create() {
+    return new SpooledDocument(DEFAULT_SPOOL_THRESHOLD, DataUtils.testsuiteTempDir().toPath());
+  }
+
+  /**
+   * Create a document with the given content.
+   *
+   * @param content the content
+   * @return the document
+   */
+  public static SpooledDocument of(@NonNull final byte[] content) {
+    final var document = create();
+    try (final var out = document.writer()) {
+      out.write(content);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return document;
+  }
+
+  /**
+   * Get the stream to write the content of the document. The document is complete, once the stream
+   * is closed.
+   *
+   * @return the stream to write the content
+   */
+  public OutputStream writer() {
+    if (closed) {
+      throw new IllegalStateException("The document has been closed");
+    }
+    if (written) {
+      throw new IllegalStateException("The document has already been written");
+    }
+    return new OutputStream() {
+      private OutputStream fileOut;
+
+      @Override
+      public void write(final int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+      }
+
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        if (fileOut == null && memory.size() + len > spoolThreshold) {
+          file = Files.createTempFile(directory, TEMP_FILE_PREFIX, ".bin");
+          fileDeletion = CLEANER.register(SpooledDocument.this, new FileDeletion(file));
+          fileOut = Files.newOutputStream(file);
+          memory.writeTo(fileOut);
+          memory = null;
+          log.debug("Spooling document to {}", file);
+        }
+        if (fileOut != null) {
+          fileOut.write(b, off, len);
+        } else {
+          memory.write(b, off, len);
+        }
+        size += len;
+      }
+
+      @Override
+      public void close() throws IOException {
+        if (fileOut != null) {
+          fileOut.close();
+        }
+        written = true;
+      }
+    };
+  }
+
+  /**
+   * @return true, if the content is held in a temporary file
+   */
+  public boolean isSpooled() {
+    return file != null;
+  }
+
+  /**
+   * @return size of the content in bytes
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * Open a stream to read the content. Each call opens a new stream, starting at the beginning.
+   *
+   * @return stream of the content
+   */
+  public InputStream openStream() {
+    checkWritten();
+    try {
+      return file != null
+          ? Files.newInputStream(file)
+          : new ByteArrayInputStream(memory.toByteArray());
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Get a read-only view of the content. Spooled content is memory mapped, not read into the heap.
+   *
+   * @return the read-only view of the content
+   */
+  public ByteBuffer asByteBuffer() {
+    checkWritten();
+    if (file == null) {
+      return ByteBuffer.wrap(memory.toByteArray()).asReadOnlyBuffer();
+    }
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Read the whole content into memory, for the APIs working with byte arrays.
+   *
+   * @return the content
+   */
+  public byte[] toByteArray() {
+    try (final var in = openStream()) {
+      return in.readAllBytes();
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Unmarshal the content as {@link ClinicalDocument}. The document is read from the stream of the
+   * content and not cached, so it is only built when it is actually needed.
+   *
+   * @return the {@link ClinicalDocument}
+   */
+  @SneakyThrows
+  public ClinicalDocument readClinicalDocument() {
+    try (final var in = openStream()) {
+      return Utils.unmarshalXml(ClinicalDocument.class, in);
+    }
+  }
+
+  /**
+   * Delete the temporary file of the content, if there is one. The content can't be read anymore
+   * afterwards.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    memory = null;
+    if (fileDeletion != null) {
+      fileDeletion.clean();
+    }
+  }
+
+  private void checkWritten() {
+    if (closed) {
+      throw new IllegalStateException("The document has been closed");
+    }
+    if (!written) {
+      throw new IllegalStateException("The document has not been written completely");
+    }
+  }
+
+  /** Must not refer to the document, otherwise the document never becomes phantom reachable */
+  private record FileDeletion(Path file) implements Runnable {
+
+    @Override
+    public void run() {
+      try {
+        Files.deleteIfExists(file);
+      } catch (final IOException e) {
+        log.warn("Could not delete spooled document {}", file, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import lombok.NonNull;
+
+/**
+ * A DocumentResponse of a RetrieveDocumentSet response, whose document is held as {@link
+ * SpooledDocument} instead of a byte array.
+ *
+ * @param homeCommunityId the HomeCommunityId of the document
+ * @param repositoryUniqueId the RepositoryUniqueId of the document
+ * @param documentUniqueId the DocumentUniqueId of the document
+ * @param mimeType the mime type of the document
+ * @param document the content of the document
+ */
+public record SpooledDocumentResponse(
+    String homeCommunityId,
+    String repositoryUniqueId,
+    String documentUniqueId,
+    String mimeType,
+    @NonNull SpooledDocument document)
+    implements AutoCloseable {
+
+  @Override
+  public void close() {
+    document.close();
+  }
+}
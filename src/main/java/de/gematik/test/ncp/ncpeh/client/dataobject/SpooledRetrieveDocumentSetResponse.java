@@ -0,0 +1,47 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import java.util.List;
+import lombok.NonNull;
+
+/**
+ * A RetrieveDocumentSet response, read in one pass by the {@link DocumentSpooler}. The content of
+ * the documents is only held by the spooled DocumentResponses, the DocumentResponses of the {@link
+ * RetrieveDocumentSetResponseType} carry their metadata only.
+ *
+ * @param response the response without the content of the documents
+ * @param documentResponses the DocumentResponses with their spooled documents, in the order of the
+ *     message
+ */
+public record SpooledRetrieveDocumentSetResponse(
+    @NonNull RetrieveDocumentSetResponseType response,
+    @NonNull List<SpooledDocumentResponse> documentResponses)
+    implements AutoCloseable {
+
+  /** Close all spooled documents. */
+  @Override
+  public void close() {
+    documentResponses.forEach(SpooledDocumentResponse::close);
+  }
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ps;
+
+import static de.gematik.test.ncp.ps.SigningService.DEFAULT_SIGNATURE_ALGORITHM;
+
+import de.gematik.test.ncp.data.Patient;
+import de.gematik.test.ncp.data.Practice;
+import de.gematik.test.ncp.data.Testdata;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Seeds the Aktenkonten of many patients with ePKAs, e.g. to prepare the patient population of a
+ * load test.<br>
+ * Every Aktenkonto passes the stages {@link Stage#AUTHORIZE}, {@link Stage#CLEAN_UP}, {@link
+ * Stage#CREATE}, {@link Stage#SIGN} and {@link Stage#UPLOAD} on its own virtual thread. The number
+ * of Aktenkonten being in a stage at the same time is bounded per stage, so the stages work in
+ * parallel like a pipeline: while the documents of one patient are uploaded, the documents of the
+ * next ones are signed. The signatures are created by a {@link SigningService}, whose workers bound
+ * the number of signatures at the same time. All documents of a patient are uploaded with one
+ * {@link PrimarySystemService#putDocuments} call.<br>
+ * The {@link PrimarySystemService} is shared by the workers, so it has to be thread-safe, like the
+ * {@link de.gematik.test.ncp.ps.epaps.EpaPrimarySystemServiceImpl} with its thread-safe
+ * proxies.<br>
+ * The seeding works with every {@link PrimarySystemService}, including the {@link
+ * de.gematik.test.ncp.ps.epaps.PrimarySystemServiceMockImpl}.
+ */
+@Slf4j
+@Builder
+public class AktenkontoSeeder {
+
+  /** Stages every Aktenkonto passes, in this order */
+  public enum Stage {
+    /** Login and entitlement of the LE for the KVNR */
+    AUTHORIZE,
+    /** Deletion of the ePKAs present in the Aktenkonto */
+    CLEAN_UP,
+    /** Creation of the documents, only for {@link #seedPatients} */
+    CREATE,
+    /** Signature of the documents by a {@link SigningService}, one operation per document */
+    SIGN,
+    /** Upload of all documents of the patient */
+    UPLOAD
+  }
+
+  /**
+   * Aktenkonto to seed
+   *
+   * @param kvnr KVNR of the patient
+   * @param documents the documents (ePKAs) to upload
+   */
+  public record Account(String kvnr, List<byte[]> documents) {}
+
+  /**
+   * Statistics of one stage
+   *
+   * @param stage the stage
+   * @param succeeded number of successful operations
+   * @param failed number of failed operations
+   * @param busyTime summed up duration of all operations
+   * @param elapsed duration of the whole seeding
+   */
+  public record StageStatistics(
+      Stage stage, long succeeded, long failed, Duration busyTime, Duration elapsed) {
+
+    /** Successful operations per second of the whole seeding */
+    public double throughput() {
+      return elapsed.isZero() ? 0 : succeeded * 1_000_000_000.0 / elapsed.toNanos();
+    }
+
+    /** Average duration of an operation */
+    public Duration averageDuration() {
+      final var operations = succeeded + failed;
+      return operations == 0 ? Duration.ZERO : busyTime.dividedBy(operations);
+    }
+  }
+
+  /**
+   * Failed seeding of an Aktenkonto, which isn't processed further
+   *
+   * @param kvnr KVNR of the patient
+   * @param stage the stage, which failed
+   * @param cause the cause of the failure
+   */
+  public record Failure(String kvnr, Stage stage, Exception cause) {}
+
+  /**
+   * Result of a seeding
+   *
+   * @param documentTitles titles of the uploaded documents per KVNR
+   * @param failures the Aktenkonten, which could not be seeded
+   * @param statistics statistics per stage
+   */
+  public record Report(
+      Map<String, List<String>> documentTitles,
+      List<Failure> failures,
+      Map<Stage, StageStatistics> statistics) {}
+
+  @NonNull private final PrimarySystemService primarySystem;
+
+  @NonNull private final String telematikId;
+
+  private final Practice practice;
+
+  /** Delete the ePKAs present in the Aktenkonten before the upload */
+  @Builder.Default private final boolean replaceExisting = true;
+
+  /** Sign the documents before the upload, using a {@link SigningService} */
+  @Builder.Default private final boolean sign = true;
+
+  @Builder.Default private final int authorizeConcurrency = 4;
+
+  @Builder.Default private final int cleanUpConcurrency = 4;
+
+  @Builder.Default
+  private final int createConcurrency = Runtime.getRuntime().availableProcessors();
+
+  /** Number of workers of the {@link SigningService} */
+  @Builder.Default private final int signConcurrency = 8;
+
+  @Builder.Default private final int uploadConcurrency = 4;
+
+  /**
+   * Seed the Aktenkonten of the given patients with an ePKA created from the default template.<br>
+   * The ePKA of a patient is created in the stage {@link Stage#CREATE} of the patient, so only the
+   * ePKAs of the Aktenkonten being seeded at the moment are held in memory.
+   *
+   * @param patients the patients
+   * @return the {@link Report} of the seeding
+   */
+  public Report seedPatients(@NonNull final Collection<? extends Patient> patients) {
+    final var testdata = Testdata.instance();
+    return seedTasks(
+        patients.stream()
+            .map(
+                patient ->
+                    new Task(
+                        patient.kvnr(),
+                        () -> List.of(testdata.createEpkaFromTemplate(patient, null)),
+                        true))
+            .toList());
+  }
+
+  /**
+   * Seed the given Aktenkonten.
+   *
+   * @param accounts the Aktenkonten and their documents
+   * @return the {@link Report} of the seeding
+   */
+  public Report seed(@NonNull final Collection<Account> accounts) {
+    return seedTasks(
+        accounts.stream()
+            .map(account -> new Task(account.kvnr(), account::documents, false))
+            .toList());
+  }
+
+  private Report seedTasks(final Collection<Task> tasks) {
+    final var permits = new EnumMap<Stage, Semaphore>(Stage.class);
+    permits.put(Stage.AUTHORIZE, new Semaphore(authorizeConcurrency));
+    permits.put(Stage.CLEAN_UP, new Semaphore(cleanUpConcurrency));
+    permits.put(Stage.CREATE, new Semaphore(createConcurrency));
+    permits.put(Stage.UPLOAD, new Semaphore(uploadConcurrency));
+    final var counters = new EnumMap<Stage, StageCounter>(Stage.class);
+    for (final var stage : Stage.values()) {
+      counters.put(stage, new StageCounter());
+    }
+    final var titles = new ConcurrentHashMap<String, List<String>>();
+    final var failures = Collections.synchronizedList(new ArrayList<Failure>());
+    final var stages = new Stages(permits, counters);
+
+    log.info("Seeding {} Aktenkonten", tasks.size());
+    final var start = System.nanoTime();
+    try (final var signing = new SigningService(primarySystem, signConcurrency);
+        final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (final var task : tasks) {
+        executor.execute(
+            () -> {
+              try {
+                titles.put(task.kvnr(), seedAccount(task, stages, signing));
+              } catch (final StageFailedException e) {
+                failures.add(new Failure(task.kvnr(), e.stage, e.failure));
+              }
+            });
+      }
+    }
+    final var elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    final var statistics = new EnumMap<Stage, StageStatistics>(Stage.class);
+    counters.forEach(
+        (stage, counter) -> statistics.put(stage, counter.toStatistics(stage, elapsed)));
+    statistics
+        .values()
+        .forEach(
+            stats ->
+                log.info(
+                    "Seeding stage {}: {} succeeded, {} failed, {} per second, average {} ms",
+                    stats.stage(),
+                    stats.succeeded(),
+                    stats.failed(),
+                    String.format("%.1f", stats.throughput()),
+                    stats.averageDuration().toMillis()));
+    failures.forEach(
+        failure ->
+            log.warn(
+                "Seeding of Aktenkonto {} failed in stage {}",
+                failure.kvnr(),
+                failure.stage(),
+                failure.cause()));
+
+    return new Report(Map.copyOf(titles), List.copyOf(failures), statistics);
+  }
+
+  private List<String> seedAccount(
+      final Task task, final Stages stages, final SigningService signing) {
+    final var kvnr = task.kvnr();
+    stages.run(Stage.AUTHORIZE, () -> primarySystem.authorizeLeForKvnr(telematikId, kvnr));
+
+    if (replaceExisting) {
+      stages.run(
+          Stage.CLEAN_UP,
+          () -> {
+            final var epkas = primarySystem.findEpka(kvnr);
+            if (!epkas.isEmpty()) {
+              primarySystem.deleteExistingDocuments(kvnr, epkas);
+            }
+          });
+    }
+
+    final var created =
+        task.create() ? stages.call(Stage.CREATE, task.documents()) : task.documents().get();
+    final var documents = new ArrayList<byte[]>(created.size());
+    if (sign) {
+      // all documents of the patient are given to the signing workers at once
+      for (final var signature : signing.signAll(created, true, DEFAULT_SIGNATURE_ALGORITHM)) {
+        documents.add(stages.call(Stage.SIGN, () -> await(signature)));
+      }
+    } else {
+      documents.addAll(created);
+    }
+
+    if (documents.isEmpty()) {
+      return List.of();
+    }
+    return stages.call(Stage.UPLOAD, () -> primarySystem.putDocuments(kvnr, practice, documents));
+  }
+
+  private static byte[] await(final CompletableFuture<byte[]> signature) {
+    try {
+      return signature.join();
+    } catch (final CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Aktenkonto to seed, whose documents are supplied when they are needed
+   *
+   * @param kvnr KVNR of the patient
+   * @param documents supplier of the documents
+   * @param create true, if the documents are created by the supplier in the stage {@link
+   *     Stage#CREATE}
+   */
+  private record Task(String kvnr, Supplier<List<byte[]>> documents, boolean create) {}
+
+  /**
+   * Runs operations within the concurrency bounds of the stages and counts them. A stage without
+   * permits, like {@link Stage#SIGN} bounded by the {@link SigningService}, isn't bounded here.
+   */
+  private record Stages(Map<Stage, Semaphore> permits, Map<Stage, StageCounter> counters) {
+
+    void run(final Stage stage, final Runnable operation) {
+      call(
+          stage,
+          () -> {
+            operation.run();
+            return null;
+          });
+    }
+
+    <R> R call(final Stage stage, final Supplier<R> operation) {
+      final var semaphore = permits.get(stage);
+      if (semaphore != null) {
+        semaphore.acquireUninterruptibly();
+      }
+      final var start = System.nanoTime();
+      try {
+        final var result = operation.get();
+        counters.get(stage).succeeded(System.nanoTime() - start);
+        return result;
+      } catch (final RuntimeException e) {
+        counters.get(stage).failed(System.nanoTime() - start);
+        throw new StageFailedException(stage, e);
+      } finally {
+        if (semaphore != null) {
+          semaphore.release();
+        }
+      }
+    }
+  }
+
+  private static class StageCounter {
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+
+    void succeeded(final long nanos) {
+      succeeded.increment();
+      busyNanos.add(nanos);
+    }
+
+    void failed(final long nanos) {
+      failed.increment();
+      busyNanos.add(nanos);
+    }
+
+    StageStatistics toStatistics(final Stage stage, final Duration elapsed) {
+      return new StageStatistics(
+          stage, succeeded.sum(), failed.sum(), Duration.ofNanos(busyNanos.sum()), elapsed);
+    }
+  }
+
+  private static class StageFailedException extends RuntimeException {
+    private final Stage stage;
+    private final transient Exception failure;
+
+    StageFailedException(final Stage stage, final Exception failure) {
+      super(failure);
+      this.stage = stage;
+      this.failure = failure;
+    }
+  }
+}
@@ -41,6 +41,34 @@ public interface PrimarySystemService {
    */
   void authorizeLeForKvnr(String telematikId, String kvnr);
 
+  /**
+   * Forget a previous authorization of the LE for the patient, so the next {@link
+   * #authorizeLeForKvnr(String, String)} does the login and entitlement again. Only needed for
+   * implementations, which reuse authorizations.
+   *
+   * @param telematikId the telematikId of the LE
+   * @param kvnr the patient identification number, a.k.a. KVNR
+   */
+  default void evictAuthorization(final String telematikId, final String kvnr) {
+    // Nothing to do, if authorizations aren't reused
+  }
+
+  /**
+   * Forget the previous authorizations of all LEs for the patient, e.g. after the access to the
+   * Aktenkonto of the patient was changed or revoked. See {@link #evictAuthorization(String,
+   * String)}.
+   *
+   * @param kvnr the patient identification number, a.k.a. KVNR
+   */
+  default void evictAuthorizations(final String kvnr) {
+    // Nothing to do, if authorizations aren't reused
+  }
+
+  /** Forget all previous authorizations, see {@link #evictAuthorization(String, String)}. */
+  default void evictAuthorizations() {
+    // Nothing to do, if authorizations aren't reused
+  }
+
   /**
    * Upload an ePKA document for the patient, identified by the given KVNR.
    *
@@ -51,6 +79,20 @@ public interface PrimarySystemService {
    */
   String putDocument(String kvnr, final Practice practice, byte[] epka);
 
+  /**
+   * Upload several ePKA documents for the patient, identified by the given KVNR. Implementations
+   * supporting it upload all documents with one request, the default uploads them one by one.
+   *
+   * @param kvnr the patient identification number, a.k.a. KVNR
+   * @param practice the german practice
+   * @param epkas documents (ePKAs) to upload
+   * @return the titles of the uploaded documents, in the order of the documents
+   */
+  default List<String> putDocuments(
+      final String kvnr, final Practice practice, final List<byte[]> epkas) {
+    return epkas.stream().map(epka -> putDocument(kvnr, practice, epka)).toList();
+  }
+
   /**
    * Replace an ePKA document for the patient, identified by the given KVNR.
    *
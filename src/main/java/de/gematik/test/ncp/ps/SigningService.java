@@ -0,0 +1,244 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ps;
+
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Signs many documents in parallel, using {@link PrimarySystemService#signDocument(byte[], boolean,
+ * String)}.<br>
+ * The signatures are created by a bounded number of workers, so the Konnektor behind the PS isn't
+ * flooded. The workers share the {@link PrimarySystemService}, so it has to be thread-safe. An
+ * identical document, which shall be signed the same way while its signature is in progress, is
+ * signed only once: its SHA-256 hash maps to the same future. Completed signatures are not kept, so
+ * the memory doesn't grow with the number of signed documents. The signature API of the PS takes
+ * one document per request, so there is no batching of documents.<br>
+ * The duration of the signatures is measured per signature algorithm.
+ */
+@Slf4j
+public class SigningService implements AutoCloseable {
+
+  /** Signature algorithm used by {@link PrimarySystemService#signDocument(byte[])} */
+  public static final String DEFAULT_SIGNATURE_ALGORITHM = "RSA_ECC";
+
+  /**
+   * Statistics of the signatures with one signature algorithm
+   *
+   * @param signatureAlgorithm the signature algorithm
+   * @param signed number of created signatures
+   * @param failed number of failed signatures
+   * @param deduplicated number of documents, for which an existing signature was used
+   * @param total summed up duration of the signatures, successful or failed
+   * @param max longest duration of a signature
+   */
+  public record AlgorithmStatistics(
+      String signatureAlgorithm,
+      long signed,
+      long failed,
+      long deduplicated,
+      Duration total,
+      Duration max) {
+
+    /** Average duration of a signature */
+    public Duration average() {
+      final var signatures = signed + failed;
+      return signatures == 0 ? Duration.ZERO : total.dividedBy(signatures);
+    }
+  }
+
+  private record Key(String hash, boolean asQES, String signatureAlgorithm) {}
+
+  private final PrimarySystemService primarySystem;
+
+  private final ExecutorService workers;
+
+  private final Map<Key, CompletableFuture<byte[]>> signatures = new ConcurrentHashMap<>();
+
+  private final Map<String, AlgorithmCounter> counters = new ConcurrentHashMap<>();
+
+  /**
+   * @param primarySystem the PS creating the signatures
+   * @param workerCount maximum number of signatures created at the same time
+   */
+  public SigningService(@NonNull final PrimarySystemService primarySystem, final int workerCount) {
+    if (workerCount < 1) {
+      throw new IllegalArgumentException("At least one worker is needed, not " + workerCount);
+    }
+    this.primarySystem = primarySystem;
+    this.workers = Executors.newFixedThreadPool(workerCount, Thread.ofVirtual().factory());
+  }
+
+  /**
+   * Sign a document as QES with the {@link #DEFAULT_SIGNATURE_ALGORITHM}, like {@link
+   * PrimarySystemService#signDocument(byte[])}.
+   *
+   * @param document the document to sign
+   * @return future of the signature including the signed document
+   */
+  public CompletableFuture<byte[]> sign(@NonNull final byte[] document) {
+    return sign(document, true, DEFAULT_SIGNATURE_ALGORITHM);
+  }
+
+  /**
+   * Sign a document. If the same document is being signed the same way already, the future of that
+   * signature is returned.
+   *
+   * @param document the document to sign
+   * @param asQES true, to create a QES
+   * @param signatureAlgorithm the signature algorithm, e.g. RSA_ECC
+   * @return future of the signature including the signed document, failed with a {@link
+   *     RejectedExecutionException} if the service is closed
+   */
+  public CompletableFuture<byte[]> sign(
+      @NonNull final byte[] document,
+      final boolean asQES,
+      @NonNull final String signatureAlgorithm) {
+    final var key = new Key(sha256(document), asQES, signatureAlgorithm);
+    final var counter = counters.computeIfAbsent(signatureAlgorithm, a -> new AlgorithmCounter());
+    final var created = new CompletableFuture<byte[]>();
+    final var existing = signatures.putIfAbsent(key, created);
+    if (existing != null) {
+      counter.deduplicated.increment();
+      return existing;
+    }
+
+    // only signatures in progress are deduplicated: the entry is removed before the future is
+    // completed, so a document given again after its signature completed is signed anew
+    try {
+      workers.execute(
+          () -> {
+            final var start = System.nanoTime();
+            try {
+              final var signature = primarySystem.signDocument(document, asQES, signatureAlgorithm);
+              counter.signed(System.nanoTime() - start);
+              signatures.remove(key, created);
+              created.complete(signature);
+            } catch (final Throwable e) {
+              counter.failed(System.nanoTime() - start);
+              signatures.remove(key, created);
+              created.completeExceptionally(e);
+            }
+          });
+    } catch (final RejectedExecutionException e) {
+      signatures.remove(key, created);
+      created.completeExceptionally(e);
+    }
+    return created;
+  }
+
+  /**
+   * Sign several documents the same way.
+   *
+   * @param documents the documents to sign
+   * @param asQES true, to create a QES
+   * @param signatureAlgorithm the signature algorithm, e.g. RSA_ECC
+   * @return futures of the signatures, in the order of the documents
+   */
+  public List<CompletableFuture<byte[]>> signAll(
+      @NonNull final Collection<byte[]> documents,
+      final boolean asQES,
+      @NonNull final String signatureAlgorithm) {
+    return documents.stream().map(document -> sign(document, asQES, signatureAlgorithm)).toList();
+  }
+
+  /**
+   * @return the statistics of the signatures so far, per signature algorithm
+   */
+  public Map<String, AlgorithmStatistics> statistics() {
+    final var statistics = new TreeMap<String, AlgorithmStatistics>();
+    counters.forEach(
+        (algorithm, counter) -> statistics.put(algorithm, counter.toStatistics(algorithm)));
+    return statistics;
+  }
+
+  /** Wait for the pending signatures, then stop the workers and log the statistics. */
+  @Override
+  public void close() {
+    workers.close();
+    statistics()
+        .values()
+        .forEach(
+            stats ->
+                log.info(
+                    "{} signatures: {} signed, {} failed, {} deduplicated, avg {} ms, max {} ms",
+                    stats.signatureAlgorithm(),
+                    stats.signed(),
+                    stats.failed(),
+                    stats.deduplicated(),
+                    stats.average().toMillis(),
+                    stats.max().toMillis()));
+  }
+
+  @SneakyThrows
+  private static String sha256(final byte[] document) {
+    return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(document));
+  }
+
+  private static class AlgorithmCounter {
+    private final LongAdder signed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void signed(final long nanos) {
+      signed.increment();
+      measured(nanos);
+    }
+
+    void failed(final long nanos) {
+      failed.increment();
+      measured(nanos);
+    }
+
+    private void measured(final long nanos) {
+      totalNanos.add(nanos);
+      maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    AlgorithmStatistics toStatistics(final String algorithm) {
+      return new AlgorithmStatistics(
+          algorithm,
+          signed.sum(),
+          failed.sum(),
+          deduplicated.sum(),
+          Duration.ofNanos(totalNanos.sum()),
+          Duration.ofNanos(maxNanos.get()));
+    }
+  }
+}
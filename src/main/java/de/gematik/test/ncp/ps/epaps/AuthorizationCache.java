@@ -0,0 +1,90 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ps.epaps;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of the (telematikId, KVNR) pairs, for which the login and the entitlement of the LE were
+ * done successfully at the PS. An entry is valid for the configured time to live, a time to live of
+ * zero disables the cache.
+ */
+@Slf4j
+class AuthorizationCache {
+
+  private record Key(String telematikId, String kvnr) {}
+
+  private final Map<Key, Instant> authorizedUntil = new ConcurrentHashMap<>();
+
+  private final Duration timeToLive;
+
+  private final Clock clock;
+
+  AuthorizationCache(@NonNull final Duration timeToLive, @NonNull final Clock clock) {
+    this.timeToLive = timeToLive;
+    this.clock = clock;
+  }
+
+  /**
+   * @return true, if the LE with the telematikId was authorized for the KVNR within the time to
+   *     live
+   */
+  boolean isAuthorized(@NonNull final String telematikId, @NonNull final String kvnr) {
+    final var key = new Key(telematikId, kvnr);
+    final var until = authorizedUntil.get(key);
+    if (until == null) {
+      return false;
+    }
+    if (!clock.instant().isBefore(until)) {
+      authorizedUntil.remove(key, until);
+      return false;
+    }
+    return true;
+  }
+
+  void authorized(@NonNull final String telematikId, @NonNull final String kvnr) {
+    if (!timeToLive.isZero() && !timeToLive.isNegative()) {
+      authorizedUntil.put(new Key(telematikId, kvnr), clock.instant().plus(timeToLive));
+    }
+  }
+
+  void evict(@NonNull final String telematikId, @NonNull final String kvnr) {
+    authorizedUntil.remove(new Key(telematikId, kvnr));
+  }
+
+  /** Evict the entries of all LEs for the KVNR, e.g. after an error of the PS for it */
+  void evictKvnr(@NonNull final String kvnr) {
+    if (authorizedUntil.keySet().removeIf(key -> key.kvnr().equals(kvnr))) {
+      log.debug("Evicted cached authorizations for KVNR {}", kvnr);
+    }
+  }
+
+  void clear() {
+    authorizedUntil.clear();
+  }
+}
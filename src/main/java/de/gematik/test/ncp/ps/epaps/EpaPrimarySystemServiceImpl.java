@@ -35,7 +35,9 @@ import de.gematik.test.ncp.gen.epa.api.documents.dto.DeleteObjectsRequestDTO;
 import de.gematik.test.ncp.gen.epa.api.documents.dto.DocumentMetadata;
 import de.gematik.test.ncp.gen.epa.api.documents.dto.FindObjectsResponseDTO;
 import de.gematik.test.ncp.gen.epa.api.documents.dto.FindRequestDTO;
+import de.gematik.test.ncp.gen.epa.api.documents.dto.PutDocumentsRequestDTO;
 import de.gematik.test.ncp.gen.epa.api.documents.dto.RegistryObjectLists;
+import de.gematik.test.ncp.gen.epa.api.documents.dto.ResponseDTO;
 import de.gematik.test.ncp.gen.epa.api.entitlement.EntitlementApi;
 import de.gematik.test.ncp.gen.epa.api.entitlement.dto.PostEntitlementRequestDTO;
 import de.gematik.test.ncp.gen.epa.api.information.InformationApi;
@@ -45,7 +47,12 @@ import de.gematik.test.ncp.ps.PrimarySystemService;
 import de.gematik.test.ncp.ps.PsException;
 import de.gematik.test.ncp.ps.epaps.data.FindDocumentQueryBuilder;
 import de.gematik.test.ncp.ps.epaps.data.PsTestdata;
+import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
+import java.time.Clock;
+import java.time.Duration;
 import java.util.*;
+import java.util.function.Supplier;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NonNull;
@@ -63,6 +70,13 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class EpaPrimarySystemServiceImpl implements PrimarySystemService {
 
+  /** Seconds an authorization of an LE for a KVNR is reused, 0 to authorize every time */
+  public static final String AUTHORIZATION_CACHE_SECONDS_KEY =
+      ExternalServerConfig.EXTERNAL_SERVER_CONFIG_TIGER_KEY + ".epapsAuthorizationCacheSeconds";
+
+  /** Authorizations aren't reused by default */
+  public static final int DEFAULT_AUTHORIZATION_CACHE_SECONDS = 0;
+
   @NonNull private final ExternalServerConfig config;
 
   @Accessors(fluent = true)
@@ -93,34 +107,77 @@ public class EpaPrimarySystemServiceImpl implements PrimarySystemService {
   @Getter
   private final CardApi cardApiProxy;
 
+  @Accessors(fluent = true)
+  @Getter(value = AccessLevel.PACKAGE, lazy = true)
+  private final AuthorizationCache authorizationCache =
+      new AuthorizationCache(
+          Duration.ofSeconds(
+              TigerGlobalConfiguration.readIntegerOptional(AUTHORIZATION_CACHE_SECONDS_KEY)
+                  .orElse(DEFAULT_AUTHORIZATION_CACHE_SECONDS)),
+          Clock.systemUTC());
+
   @Override
   public void authorizeLeForKvnr(@NonNull final String telematikId, @NonNull final String kvnr) {
+    if (authorizationCache().isAuthorized(telematikId, kvnr)) {
+      log.info("LE with TelematikId {} is already authorized for KVNR {}", telematikId, kvnr);
+      return;
+    }
     log.info("authorizeLeForKvnr for TelematikId: {} KVNR: {}", telematikId, kvnr);
 
-    final var loginResponse = loginLogoutProxy.login(telematikId, kvnr, null);
-    if (Boolean.FALSE.equals(loginResponse.getSuccess())) {
-      throw new PsException(loginResponse.getStatusMessage(), "login");
-    }
+    withSessionOf(
+        kvnr,
+        () -> {
+          final var loginResponse = loginLogoutProxy.login(telematikId, kvnr, null);
+          if (Boolean.FALSE.equals(loginResponse.getSuccess())) {
+            throw new PsException(loginResponse.getStatusMessage(), "login");
+          }
+
+          final var request = new PostEntitlementRequestDTO().telematikId(telematikId).kvnr(kvnr);
+          final var response = entitlementProxy.postEntitlement(kvnr, request);
+          if (Boolean.FALSE.equals(response.getSuccess())) {
+            throw new PsException(response.getStatusMessage(), "postEntitlement");
+          }
+          return response;
+        });
+    authorizationCache().authorized(telematikId, kvnr);
+  }
 
-    final var request = new PostEntitlementRequestDTO().telematikId(telematikId).kvnr(kvnr);
-    final var response = entitlementProxy.postEntitlement(kvnr, request);
-    if (Boolean.FALSE.equals(response.getSuccess())) {
-      throw new PsException(response.getStatusMessage(), "postEntitlement");
-    }
+  @Override
+  public void evictAuthorization(@NonNull final String telematikId, @NonNull final String kvnr) {
+    authorizationCache().evict(telematikId, kvnr);
+  }
+
+  @Override
+  public void evictAuthorizations(@NonNull final String kvnr) {
+    authorizationCache().evictKvnr(kvnr);
+  }
+
+  @Override
+  public void evictAuthorizations() {
+    authorizationCache().clear();
   }
 
   @Override
   public String putDocument(
       @NonNull final String kvnr, final Practice practice, final byte[] epka) {
     final var request = PsTestdata.createPutDocumentRequestForEPKA(kvnr, practice, epka);
-    final var response = documentsProxy().putDocuments(kvnr, request);
-    if (!response.getSuccess()) throw new PsException(response.getStatusMessage(), "putDocuments");
+    withSessionOf(kvnr, () -> sendPutDocuments(request));
     return request.getDocumentSets().stream()
         .findFirst()
         .map(doc -> doc.getDocumentMetadata().getTitle())
         .orElse(null);
   }
 
+  @Override
+  public List<String> putDocuments(
+      @NonNull final String kvnr, final Practice practice, @NonNull final List<byte[]> epkas) {
+    final var request = PsTestdata.createPutDocumentsRequestForEPKAs(kvnr, practice, epkas);
+    withSessionOf(kvnr, () -> sendPutDocuments(request));
+    return request.getDocumentSets().stream()
+        .map(doc -> doc.getDocumentMetadata().getTitle())
+        .toList();
+  }
+
   @Override
   public String replaceDocument(
       @NonNull final String kvnr, final Practice practice, final byte[] epka) {
@@ -173,11 +230,16 @@ public class EpaPrimarySystemServiceImpl implements PrimarySystemService {
   public void deleteExistingDocuments(final String kvnr, final List<String> documentEntryUUIDs) {
     final var request = new DeleteObjectsRequestDTO().kvnr(kvnr).entryUUIDs(documentEntryUUIDs);
 
-    final var response = documentsProxy().deleteObjects(kvnr, request);
+    withSessionOf(
+        kvnr,
+        () -> {
+          final var response = documentsProxy().deleteObjects(kvnr, request);
 
-    if (!response.getSuccess()) {
-      throw new PsException(response.getStatusMessage(), "deleteObjects");
-    }
+          if (!response.getSuccess()) {
+            throw new PsException(response.getStatusMessage(), "deleteObjects");
+          }
+          return response;
+        });
   }
 
   @SneakyThrows
@@ -230,7 +292,27 @@ public class EpaPrimarySystemServiceImpl implements PrimarySystemService {
             .queryData(queryMetadata)
             .returnType(FindRequestDTO.ReturnTypeEnum.LEAF_CLASS);
 
-    return documentsProxy().find(kvnr, findRequest);
+    return withSessionOf(kvnr, () -> documentsProxy().find(kvnr, findRequest));
+  }
+
+  private ResponseDTO sendPutDocuments(final PutDocumentsRequestDTO request) {
+    final var response = documentsProxy().putDocuments(request.getKvnr(), request);
+    if (!response.getSuccess()) throw new PsException(response.getStatusMessage(), "putDocuments");
+    return response;
+  }
+
+  /**
+   * Run an operation of the PS for the KVNR. If it fails, the session at the PS may be gone, so
+   * the cached authorizations for the KVNR are evicted and the next authorizeLeForKvnr is done
+   * again.
+   */
+  private <R> R withSessionOf(final String kvnr, final Supplier<R> operation) {
+    try {
+      return operation.get();
+    } catch (final RuntimeException e) {
+      authorizationCache().evictKvnr(kvnr);
+      throw e;
+    }
   }
 
   @SneakyThrows
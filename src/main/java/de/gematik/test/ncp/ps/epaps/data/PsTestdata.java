@@ -51,13 +51,30 @@ public final class PsTestdata {
    */
   public static PutDocumentsRequestDTO createPutDocumentRequestForEPKA(
       final String kvnr, final Practice practice, final byte[] epka) {
+    return createPutDocumentsRequestForEPKAs(kvnr, practice, List.of(epka));
+  }
+
+  /**
+   * Create a PutDocumentsRequestDTO with one document set per given epka, to upload all of them
+   * with one request
+   *
+   * @param kvnr {@link String} kvnr of the patient
+   * @param practice {@link Practice} german practice
+   * @param epkas epkas to be put into the request
+   * @return the created PutDocumentsRequestDTO
+   */
+  public static PutDocumentsRequestDTO createPutDocumentsRequestForEPKAs(
+      final String kvnr, final Practice practice, final List<byte[]> epkas) {
     return new PutDocumentsRequestDTO()
         .kvnr(kvnr)
         .documentSets(
-            List.of(
-                new Document()
-                    .documentData(epka)
-                    .documentMetadata(createDocumentMetadata(practice))));
+            epkas.stream()
+                .map(
+                    epka ->
+                        new Document()
+                            .documentData(epka)
+                            .documentMetadata(createDocumentMetadata(practice)))
+                .toList());
   }
 
   /**
@@ -0,0 +1,172 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies with microsecond resolution and log-linear buckets, in the
+ * manner of an HDR histogram.
+ *
+ * <p>Values below 128 µs have a bucket each. Above, every power of two is divided into 128 equally
+ * wide buckets, so a value is known with a relative error below 1 %. Values above {@link
+ * #MAX_TRACKABLE_MICROS} (about 71 minutes) are counted in the highest bucket. The memory is fixed,
+ * independent of the number of recorded values.
+ *
+ * <p>Recording is wait-free and may happen concurrently with reading, merging and copying. A reader
+ * might see a value in the count, but not yet in its bucket; the percentiles are therefore
+ * calculated from the buckets alone.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 7;
+
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+  private static final int MAX_MAGNITUDE = 32;
+
+  public static final long MAX_TRACKABLE_MICROS = (1L << MAX_MAGNITUDE) - 1;
+
+  private static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_MICROS) + 1;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+  private final LongAdder totalCount = new LongAdder();
+
+  private final LongAdder totalMicros = new LongAdder();
+
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  /**
+   * Record a latency.
+   *
+   * @param duration the latency
+   * @param unit unit of the latency
+   */
+  public void record(final long duration, final TimeUnit unit) {
+    recordMicros(unit.toMicros(duration));
+  }
+
+  /**
+   * Record a latency.
+   *
+   * @param micros the latency in microseconds, negative values are counted as 0
+   */
+  public void recordMicros(final long micros) {
+    final var value = Math.clamp(micros, 0, MAX_TRACKABLE_MICROS);
+    counts.incrementAndGet(bucketIndex(value));
+    totalCount.increment();
+    totalMicros.add(value);
+    maxMicros.accumulateAndGet(value, Math::max);
+  }
+
+  /**
+   * Add all values recorded in the other histogram to this one.
+   *
+   * @param other histogram to merge into this one
+   * @return this histogram
+   */
+  public LatencyHistogram add(final LatencyHistogram other) {
+    for (var i = 0; i < BUCKET_COUNT; i++) {
+      final var count = other.counts.get(i);
+      if (count > 0) {
+        counts.addAndGet(i, count);
+      }
+    }
+    totalCount.add(other.totalCount.sum());
+    totalMicros.add(other.totalMicros.sum());
+    maxMicros.accumulateAndGet(other.maxMicros.get(), Math::max);
+    return this;
+  }
+
+  /**
+   * @return a copy of the current state, which isn't affected by further recordings
+   */
+  public LatencyHistogram copy() {
+    return new LatencyHistogram().add(this);
+  }
+
+  public long count() {
+    return totalCount.sum();
+  }
+
+  public long maxMicros() {
+    return maxMicros.get();
+  }
+
+  public double meanMicros() {
+    final var count = count();
+    return count == 0 ? 0 : (double) totalMicros.sum() / count;
+  }
+
+  /**
+   * Get the value at the given percentile, using the nearest rank. The value is the upper bound of
+   * the bucket the rank falls into, but never more than the maximum recorded value.
+   *
+   * @param percentile percentile in the range [0, 100]
+   * @return value at the percentile in microseconds, 0 if nothing was recorded
+   */
+  public long percentileMicros(final double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile out of range [0, 100]: " + percentile);
+    }
+    final var snapshot = new long[BUCKET_COUNT];
+    var total = 0L;
+    for (var i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    final var rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    var seen = 0L;
+    for (var i = 0; i < BUCKET_COUNT; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(bucketUpperBound(i), maxMicros());
+      }
+    }
+    return maxMicros();
+  }
+
+  static int bucketIndex(final long micros) {
+    if (micros < SUB_BUCKET_COUNT) {
+      return (int) micros;
+    }
+    final var shift = (63 - Long.numberOfLeadingZeros(micros)) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKET_COUNT + (int) (micros >>> shift) - SUB_BUCKET_COUNT;
+  }
+
+  static long bucketUpperBound(final int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    final var shift = index / SUB_BUCKET_COUNT - 1;
+    final var lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import de.gematik.ncpeh.api.common.EuCountryCode;
+import de.gematik.test.ncp.reporting.model.LatencyPercentiles;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Latency histograms of the calls to the NCPeH, one per {@link LatencyKey}. The histograms are
+ * created on first use; recording is lock-free.
+ */
+@Slf4j
+public class LatencyHistograms {
+
+  private final Map<LatencyKey, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+  /**
+   * Record the latency of a call.
+   *
+   * @param key use case, country and status family of the call
+   * @param duration the latency
+   * @param unit unit of the latency
+   */
+  public void record(final LatencyKey key, final long duration, final TimeUnit unit) {
+    histograms.computeIfAbsent(key, k -> new LatencyHistogram()).record(duration, unit);
+  }
+
+  /**
+   * @return copies of all histograms, which aren't affected by further recordings
+   */
+  public Map<LatencyKey, LatencyHistogram> snapshot() {
+    return histograms.entrySet().stream()
+        .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().copy()));
+  }
+
+  /**
+   * Merge the histograms of all keys, which match the given use case.
+   *
+   * @param useCase the use case
+   * @return merged histogram of all countries and status families of the use case
+   */
+  public LatencyHistogram merged(final UseCase useCase) {
+    final var merged = new LatencyHistogram();
+    histograms.forEach(
+        (key, histogram) -> {
+          if (key.useCase() == useCase) {
+            merged.add(histogram);
+          }
+        });
+    return merged;
+  }
+
+  /**
+   * @return p50, p90, p99, p99.9 and max of every histogram, ordered by use case, country and
+   *     status family
+   */
+  public List<LatencyPercentiles> percentiles() {
+    return snapshot().entrySet().stream()
+        .sorted(
+            Map.Entry.comparingByKey(
+                Comparator.comparing(LatencyKey::useCase)
+                    .thenComparing(key -> countryCode(key.country()))
+                    .thenComparing(LatencyKey::statusFamily)))
+        .map(entry -> toPercentiles(entry.getKey(), entry.getValue()))
+        .toList();
+  }
+
+  public boolean isEmpty() {
+    return histograms.isEmpty();
+  }
+
+  /**
+   * Write the {@link #percentiles()} as CSV file. Failures are logged only, as the export must not
+   * fail the test run.
+   *
+   * @param path path of the CSV file, which is overwritten if it exists
+   */
+  public void writePercentiles(final Path path) {
+    final var lines = new ArrayList<String>();
+    lines.add(LatencyPercentiles.CSV_HEADER);
+    percentiles().stream().map(LatencyPercentiles::toCsv).forEach(lines::add);
+    try {
+      Files.write(path, lines);
+    } catch (final IOException e) {
+      log.warn("Failed to write the latency percentiles to {}", path, e);
+    }
+  }
+
+  public void reset() {
+    histograms.clear();
+  }
+
+  private static LatencyPercentiles toPercentiles(
+      final LatencyKey key, final LatencyHistogram histogram) {
+    return new LatencyPercentiles(
+        key.useCase().value(),
+        countryCode(key.country()),
+        key.statusFamily().name(),
+        histogram.count(),
+        histogram.percentileMicros(50),
+        histogram.percentileMicros(90),
+        histogram.percentileMicros(99),
+        histogram.percentileMicros(99.9),
+        histogram.maxMicros());
+  }
+
+  private static String countryCode(final EuCountryCode country) {
+    return Optional.ofNullable(country).map(EuCountryCode::getCountryCode).orElse("");
+  }
+}
@@ -19,10 +19,17 @@
  * by gematik, find details in the "Readme" file.
  */
 
-package de.gematik.test.ncp.ncpeh.client.dataobject;
+package de.gematik.test.ncp.reporting;
 
-import java.util.Map;
-import org.springframework.http.HttpStatus;
+import de.gematik.ncpeh.api.common.EuCountryCode;
+import jakarta.ws.rs.core.Response.Status.Family;
 
-public record HttpResponseDataRecord<T>(HttpStatus status, Map<String, String> headers, T content)
-    implements HttpResponseData<T> {}
+/**
+ * Key of a {@link LatencyHistogram} in the {@link LatencyHistograms}.
+ *
+ * @param useCase the use case of the call
+ * @param country country of the requesting practitioner, null if not known
+ * @param statusFamily family of the HTTP status the NCPeH FD answered with, {@link Family#OTHER}
+ *     if there was no answer
+ */
+public record LatencyKey(UseCase useCase, EuCountryCode country, Family statusFamily) {}
@@ -0,0 +1,39 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+/**
+ * How the entries of the performance log of the test suite are matched with the entries of the
+ * DWH. Only entries of the same operation, status and requesting country within the acceptable
+ * delta of their timestamps are candidates for a match.
+ */
+public enum MatchingMode {
+
+  /** Every entry is matched with the earliest candidate, which isn't matched yet */
+  FIRST_FIT,
+
+  /**
+   * The entries are matched such that the sum of the differences of their timestamps is minimal.
+   * Finds a match for every entry, whenever one exists, even where first fit fails.
+   */
+  OPTIMAL
+}
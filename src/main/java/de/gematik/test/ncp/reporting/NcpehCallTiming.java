@@ -0,0 +1,51 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timing of one call to the NCPeH simulator. The phases are measured with {@link System#nanoTime()}
+ * and thus not affected by adjustments of the wall clock; only the start is taken from the wall
+ * clock, to match the call with the entries the NCPeH FD reports to the DWH.
+ *
+ * @param startEpochMillis wall clock time the call was started at
+ * @param requestBuildNanos time to build the request and its headers in the client
+ * @param networkNanos round-trip time of the call to the NCPeH simulator, which includes the call
+ *     of the NCPeH FD
+ * @param entityBufferNanos time to buffer the entity of the response
+ * @param parseNanos time to parse the buffered entity and the SOAP body it contains
+ */
+public record NcpehCallTiming(
+    long startEpochMillis,
+    long requestBuildNanos,
+    long networkNanos,
+    long entityBufferNanos,
+    long parseNanos) {
+
+  /**
+   * @return the round-trip time in milliseconds, as reported in the performance log
+   */
+  public long durationMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(networkNanos);
+  }
+}
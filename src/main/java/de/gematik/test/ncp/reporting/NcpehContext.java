@@ -21,23 +21,234 @@
 
 package de.gematik.test.ncp.reporting;
 
+import static de.gematik.test.ncp.util.ReportingUtils.convertToBinaryPerformanceLog;
 import static de.gematik.test.ncp.util.ReportingUtils.generateFileName;
 import static de.gematik.test.ncp.util.ReportingUtils.getPerformanceLogFileName;
+import static de.gematik.test.ncp.util.ReportingUtils.isBinaryPerformanceLogEnabled;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Reporting state of the NCPeH calls: the performance log files, the latency histograms and the
+ * manifest entries of the scenario logs.<br>
+ * Scenarios may run in parallel, e.g. the feature files run by parallel Cucumber threads. Each
+ * scenario has its own {@link Scenario} state, which is bound to the thread that started it and
+ * taken over by the threads created by it, e.g. the virtual threads of the concurrent NCPeH
+ * client. Threads of a pool created before the scenario was started don't see its state.
+ */
+@Slf4j
 public class NcpehContext {
 
+  private static final String PERFORMANCE_LOG_SUFFIX = "-perf.log";
+
+  private static final String LATENCY_PERCENTILES_SUFFIX = "-latency.csv";
+
   @Getter(lazy = true)
   private final String fileName = getPerformanceLogFileName();
 
-  @Getter private Optional<String> scenarioFileName = Optional.empty();
+  @Getter(lazy = true)
+  private final PerformanceLogWriter performanceLogWriter = PerformanceLogWriter.getInstance();
+
+  /** Latencies of all calls of the test run */
+  @Getter private final LatencyHistograms latencyHistograms = new LatencyHistograms();
+
+  /** Scenario of the current thread, a scenario without log if none was started */
+  private final ThreadLocal<Scenario> currentScenario =
+      new InheritableThreadLocal<>() {
+        @Override
+        protected Scenario initialValue() {
+          return new Scenario(null, null);
+        }
+      };
+
+  /**
+   * Reporting state of a single scenario: the name and path of its performance log, the summary
+   * of the log for the manifest and the latencies of the calls of the scenario.
+   */
+  public static class Scenario {
+
+    @Getter private final Optional<String> fileName;
+
+    @Getter private final Optional<Path> filePath;
 
+    private final Optional<PerformanceLogManifest.Summary> logSummary;
+
+    @Getter private final LatencyHistograms latencyHistograms = new LatencyHistograms();
+
+    Scenario(final String fileName, final Path filePath) {
+      this.fileName = Optional.ofNullable(fileName);
+      this.filePath = Optional.ofNullable(filePath);
+      this.logSummary = this.fileName.map(PerformanceLogManifest.Summary::new);
+    }
+
+    /**
+     * Count a call written to the performance log of the scenario, for its entry in the manifest.
+     *
+     * @param timestamp start time of the call
+     * @param useCase use case of the call
+     */
+    public void recordLogEntry(final long timestamp, final UseCase useCase) {
+      logSummary.ifPresent(summary -> summary.record(timestamp, useCase));
+    }
+  }
+
+  /**
+   * Start a scenario on the current thread. The performance log of a previous scenario of the
+   * thread is completed before. The performance log of the new scenario is added to the {@link
+   * PerformanceLogManifest} of the reporting folder right away, so it can be found while the
+   * scenario is running.
+   *
+   * @param scenarioName name of the scenario, null or blank if no scenario log shall be written
+   */
   public void setScenarioName(final String scenarioName) {
-    this.scenarioFileName =
-        scenarioName == null || scenarioName.isBlank()
-            ? Optional.empty()
-            : Optional.of(generateFileName(scenarioName));
+    endScenario();
+    if (scenarioName == null || scenarioName.isBlank()) {
+      return;
+    }
+    final var scenarioFileName = generateFileName(scenarioName);
+    final Path directoryPath = Paths.get(getFileName()).getParent();
+    final var scenario =
+        new Scenario(
+            scenarioFileName,
+            null != directoryPath
+                ? directoryPath.resolve(scenarioFileName)
+                : Paths.get(scenarioFileName));
+    scenario.logSummary.ifPresent(summary -> getManifest().put(summary.toEntry()));
+    currentScenario.set(scenario);
+  }
+
+  /**
+   * Get the scenario of the current thread. Calls made on the thread are reported for it.
+   *
+   * @return the scenario started on the current thread or the thread that created it, a scenario
+   *     without performance log if there is none
+   */
+  public Scenario getScenario() {
+    return currentScenario.get();
+  }
+
+  /**
+   * @return the file name of the performance log of the scenario of the current thread, empty if
+   *     no scenario is set
+   */
+  public Optional<String> getScenarioFileName() {
+    return getScenario().getFileName();
+  }
+
+  /**
+   * @return the latencies of the calls of the scenario of the current thread
+   */
+  public LatencyHistograms getScenarioLatencyHistograms() {
+    return getScenario().getLatencyHistograms();
+  }
+
+  /**
+   * Get the manifest of the folder the performance logs are written to.
+   *
+   * @return the manifest of the reporting folder
+   */
+  public PerformanceLogManifest getManifest() {
+    final Path directoryPath = Paths.get(getFileName()).getParent();
+    return PerformanceLogManifest.forFolder(
+        null != directoryPath ? directoryPath : Paths.get("."));
+  }
+
+  /**
+   * Get the path of the performance log file of the scenario of the current thread, which is
+   * placed in the same folder as the overall performance log file.
+   *
+   * @return the path of the scenario performance log, empty if no scenario is set
+   */
+  public Optional<Path> getScenarioFilePath() {
+    return getScenario().getFilePath();
+  }
+
+  /**
+   * Record the latency of a call for the test run as well as for the scenario of the current
+   * thread.
+   *
+   * @param key use case, country and status family of the call
+   * @param durationNanos the latency in nanoseconds
+   */
+  public void recordLatency(final LatencyKey key, final long durationNanos) {
+    recordLatency(getScenario(), key, durationNanos);
+  }
+
+  /**
+   * Record the latency of a call for the test run as well as for the given scenario.
+   *
+   * @param scenario scenario the call was made in
+   * @param key use case, country and status family of the call
+   * @param durationNanos the latency in nanoseconds
+   */
+  public void recordLatency(
+      final Scenario scenario, final LatencyKey key, final long durationNanos) {
+    latencyHistograms.record(key, durationNanos, TimeUnit.NANOSECONDS);
+    scenario.getLatencyHistograms().record(key, durationNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Count a call written to the performance log of the scenario of the current thread, for its
+   * entry in the manifest.
+   *
+   * @param timestamp start time of the call
+   * @param useCase use case of the call
+   */
+  public void recordScenarioLogEntry(final long timestamp, final UseCase useCase) {
+    getScenario().recordLogEntry(timestamp, useCase);
+  }
+
+  /**
+   * Wait until all performance data of the scenario of the current thread are written and close
+   * its performance log file. The latency percentiles of the scenario are written next to it and
+   * the manifest entry of the log is completed. The thread has no scenario afterwards.
+   */
+  public void endScenario() {
+    final var scenario = getScenario();
+    scenario
+        .getFilePath()
+        .ifPresent(
+            path -> {
+              getPerformanceLogWriter().release(path);
+              writeLatencyPercentiles(scenario.getLatencyHistograms(), path);
+            });
+    scenario.logSummary.ifPresent(summary -> getManifest().put(summary.toEntry()));
+    currentScenario.remove();
+  }
+
+  /**
+   * Write the latency percentiles of the whole test run next to the overall performance log file.
+   * If configured, the overall performance log is converted into the binary format as well.
+   */
+  public void endTestRun() {
+    final var performanceLogPath = Paths.get(getFileName());
+    writeLatencyPercentiles(latencyHistograms, performanceLogPath);
+    if (isBinaryPerformanceLogEnabled()) {
+      getPerformanceLogWriter().flush();
+      if (Files.isRegularFile(performanceLogPath)) {
+        convertToBinaryPerformanceLog(performanceLogPath);
+      }
+    }
+  }
+
+  private static void writeLatencyPercentiles(
+      final LatencyHistograms histograms, final Path performanceLogPath) {
+    if (histograms.isEmpty()) {
+      return;
+    }
+    final var logFileName = performanceLogPath.getFileName().toString();
+    final var baseName =
+        logFileName.endsWith(PERFORMANCE_LOG_SUFFIX)
+            ? logFileName.substring(0, logFileName.length() - PERFORMANCE_LOG_SUFFIX.length())
+            : logFileName.replaceFirst("\\.[^.]*$", "");
+    final var path = performanceLogPath.resolveSibling(baseName + LATENCY_PERCENTILES_SUFFIX);
+    log.debug("Writing latency percentiles to {}", path);
+    histograms.writePercentiles(path);
   }
 }
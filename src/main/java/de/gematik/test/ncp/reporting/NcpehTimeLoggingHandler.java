@@ -21,11 +21,10 @@
 
 package de.gematik.test.ncp.reporting;
 
-import static de.gematik.test.ncp.ncpeh.client.dataobject.DataUtils.parseHttpBody;
 import static de.gematik.test.ncp.ncpeh.client.dataobject.DataUtils.readAcknowledgementDetailFromIdentifyPatientResponse;
 
 import de.gematik.ncpeh.api.NcpehSimulatorApi;
-import de.gematik.ncpeh.api.common.WrappedHttpMessage;
+import de.gematik.ncpeh.api.common.EuCountryCode;
 import de.gematik.ncpeh.api.common.WrappedHttpResponse;
 import de.gematik.ncpeh.api.request.FindDocumentsRequest;
 import de.gematik.ncpeh.api.request.IdentifyPatientRequest;
@@ -34,21 +33,21 @@ import de.gematik.ncpeh.api.response.SimulatorCommunicationData;
 import de.gematik.test.ncp.data.AcknowledgementDetail;
 import de.gematik.test.ncp.ncpeh.PatientSummaryLevel;
 import de.gematik.test.ncp.ncpeh.client.dataobject.DataUtils;
+import de.gematik.test.ncp.ncpeh.client.dataobject.ResponseParseContext;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
 import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
 import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
 import jakarta.ws.rs.core.Response;
-import java.io.IOException;
+import jakarta.ws.rs.core.Response.Status.Family;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import lombok.AllArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -79,7 +78,9 @@ public class NcpehTimeLoggingHandler implements InvocationHandler {
   private final NcpehContext ncpehContext;
 
   /**
-   * Intercepts method calls on the proxy instance and logs the execution time.
+   * Intercepts method calls on the proxy instance and logs the execution time. The time it took
+   * to build the request is taken over from the {@link RequestBuildTimer}; after the call, the
+   * entity of the response is buffered and parsed, with both phases timed separately.
    *
    * @param proxy the proxy instance that the method was invoked on
    * @param method the {@code Method} instance corresponding to the interface method invoked on the
@@ -92,103 +93,155 @@ public class NcpehTimeLoggingHandler implements InvocationHandler {
   @Override
   public Object invoke(final Object proxy, final Method method, final Object[] args)
       throws Throwable {
+    final long requestBuildNanos = RequestBuildTimer.takeRequestBuildNanos();
     final long startTime = System.currentTimeMillis();
+    final long startNanos = System.nanoTime();
     Object response = null;
     try {
       response = method.invoke(target, args);
       return response;
     } finally {
-      final long endTime = System.currentTimeMillis();
-      final long duration = endTime - startTime;
-      log.info("Method {} took {} ms", method.getName(), duration);
-      writePerformanceFiles(duration, method.getName(), args, response);
+      final var timing =
+          measureResponseHandling(
+              startTime, requestBuildNanos, System.nanoTime() - startNanos, response);
+      log.info("Method {} took {} ms", method.getName(), timing.durationMillis());
+      writePerformanceFiles(timing, method.getName(), args, response);
+      recordLatency(timing.networkNanos(), method.getName(), args, response);
     }
   }
 
   /**
-   * Writes performance data to an overall performance file and to a per-scenario log file.
+   * Buffers and parses the response and completes the timing of the call with the time both took.
+   * The parsed response is kept by its {@link ResponseParseContext}, so the client and the
+   * performance log don't parse it again.
    *
-   * @param duration the duration of the method execution
+   * @param startTime wall clock time the call was started at
+   * @param requestBuildNanos time to build the request
+   * @param networkNanos round-trip time of the call
+   * @param response the response returned by the method
+   * @return the timing of the call
+   */
+  NcpehCallTiming measureResponseHandling(
+      final long startTime,
+      final long requestBuildNanos,
+      final long networkNanos,
+      final Object response) {
+    var entityBufferNanos = 0L;
+    var parseNanos = 0L;
+    if (response instanceof final Response simulatorResponse) {
+      final var bufferStart = System.nanoTime();
+      try {
+        final var buffered = simulatorResponse.bufferEntity();
+        final var parseStart = System.nanoTime();
+        entityBufferNanos = parseStart - bufferStart;
+        if (buffered) {
+          getErrorCode(ResponseParseContext.of(simulatorResponse));
+          parseNanos = System.nanoTime() - parseStart;
+        }
+      } catch (final RuntimeException e) {
+        log.debug("Response could not be buffered and parsed", e);
+      }
+    }
+    return new NcpehCallTiming(
+        startTime, requestBuildNanos, networkNanos, entityBufferNanos, parseNanos);
+  }
+
+  /**
+   * Writes performance data to an overall performance file and to a per-scenario log file. The
+   * files are written asynchronously by the {@link PerformanceLogWriter} of the context. If the
+   * writer accepted the line, the call is counted for the manifest entry of the scenario log right
+   * away.
+   *
+   * @param timing the timing of the method execution
    * @param methodName the name of the method
    * @param args the arguments passed to the method
    * @param response the response returned by the method
    */
   void writePerformanceFiles(
-      final long duration, final String methodName, final Object[] args, final Object response) {
+      final NcpehCallTiming timing,
+      final String methodName,
+      final Object[] args,
+      final Object response) {
 
-    final var data =
-        getPerformanceData(System.currentTimeMillis(), duration, methodName, args, response);
+    final var data = getPerformanceData(timing, methodName, args, response);
     if (data.isEmpty()) {
       log.warn("No performance data found for method {}", methodName);
       return;
     }
 
-    // Create the path object for the target file
-    final Path filePath = Paths.get(ncpehContext.getFileName());
-
-    final Path directoryPath = filePath.getParent();
-
-    try {
-
-      // Create the directory if it does not exist
-      if (null != directoryPath) {
-        Files.createDirectories(directoryPath);
-      }
+    // the scenario of the calling thread, parallel scenarios write their own logs
+    final var scenario = ncpehContext.getScenario();
+    final var targets = new ArrayList<Path>();
+    targets.add(Paths.get(ncpehContext.getFileName()));
+    // write the scenario file if present
+    scenario.getFilePath().ifPresent(targets::add);
 
-      // Write the content to the file
-      Files.write(
-          filePath,
-          List.of(data.get()),
-          StandardCharsets.UTF_8,
-          StandardOpenOption.CREATE,
-          StandardOpenOption.APPEND);
-
-      log.debug("File written successfully to {}", filePath.toAbsolutePath());
-
-      // write the scenario file if present
-      writeScenarioPerformanceLog(directoryPath, data.get());
-
-    } catch (final IOException e) {
-      log.error("An error occurred while writing the file: {}", e.getMessage());
+    if (!ncpehContext.getPerformanceLogWriter().write(data.get(), targets)) {
+      // the line is not in the log, so it isn't counted for the manifest either
+      return;
     }
+    getOperationName(methodName, args)
+        .ifPresent(useCase -> scenario.recordLogEntry(timing.startEpochMillis(), useCase));
   }
 
-  private void writeScenarioPerformanceLog(final Path directoryPath, final String data) {
-    ncpehContext
-        .getScenarioFileName()
+  /**
+   * Records the latency of the call in the latency histograms of the context and of the scenario
+   * of the calling thread, keyed by use case, country and the family of the status the NCPeH FD
+   * answered with. Like the performance log,
+   * only calls answered by the NCPeH simulator are recorded.
+   *
+   * @param durationNanos the duration of the method execution in nanoseconds
+   * @param methodName the name of the method
+   * @param args the arguments passed to the method
+   * @param response the response returned by the method
+   */
+  void recordLatency(
+      final long durationNanos,
+      final String methodName,
+      final Object[] args,
+      final Object response) {
+    if (!(response instanceof final Response simulatorResponse)) {
+      return;
+    }
+    final var scenario = ncpehContext.getScenario();
+    getOperationName(methodName, args)
         .ifPresent(
-            scenarioFileName -> {
-              final Path scenarioFilePath =
-                  null != directoryPath
-                      ? directoryPath.resolve(scenarioFileName)
-                      : Paths.get(scenarioFileName);
-              try {
-                Files.write(
-                    scenarioFilePath,
-                    List.of(data),
-                    StandardCharsets.UTF_8,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.APPEND);
-                log.debug("File written successfully to {}", scenarioFilePath.toAbsolutePath());
-              } catch (final IOException e) {
-                log.error("An error occurred while writing the file: {}", e.getMessage());
-              }
-            });
+            useCase ->
+                ncpehContext.recordLatency(
+                    scenario,
+                    new LatencyKey(
+                        useCase, getEuCountryCode(args), getStatusFamily(simulatorResponse)),
+                    durationNanos));
   }
 
   /**
-   * Retrieves the performance data as a formatted string.
+   * Determines the family of the status the NCPeH FD answered with.
    *
-   * @param timestamp the current timestamp
-   * @param duration the duration of the method execution
+   * @param response the response returned by the method
+   * @return the status family, {@link Family#OTHER} if the status is not known
+   */
+  private Family getStatusFamily(final Response response) {
+    return Optional.of(response)
+        .filter(Response::bufferEntity)
+        .map(ResponseParseContext::of)
+        .map(this::getStatus)
+        .filter(status -> status.matches("\\d{3}"))
+        .map(status -> Family.familyOf(Integer.parseInt(status)))
+        .orElse(Family.OTHER);
+  }
+
+  /**
+   * Retrieves the performance data as a formatted string. The timestamp of the line is the wall
+   * clock time the call was started at, its duration the round-trip time.
+   *
+   * @param timing the timing of the method execution
    * @param methodName the name of the method
    * @param args the arguments passed to the method
    * @param response the response returned by the method
    * @return an optional containing the performance data as a formatted string
    */
   Optional<String> getPerformanceData(
-      final long timestamp,
-      final long duration,
+      final NcpehCallTiming timing,
       final String methodName,
       final Object[] args,
       final Object response) {
@@ -200,27 +253,28 @@ public class NcpehTimeLoggingHandler implements InvocationHandler {
 
     return Optional.ofNullable(response)
         .filter(Response.class::isInstance)
-        .filter(res -> ((Response) res).bufferEntity())
+        .map(Response.class::cast)
+        .filter(Response::bufferEntity)
+        .map(ResponseParseContext::of)
         .map(
-            res ->
+            context ->
                 String.format(
                     "%d;%d;%s;%s;%s",
-                    timestamp,
-                    duration,
+                    timing.startEpochMillis(),
+                    timing.durationMillis(),
                     operationName.get().value(),
-                    getStatus(((Response) res)),
-                    getMessage(duration, args, ((Response) res))));
+                    getStatus(context),
+                    getMessage(timing, args, context)));
   }
 
   /**
    * Retrieves the status from responseReceived.statusLine of the response.
    *
-   * @param response the response returned by the method
+   * @param context the parse context of the response returned by the method
    * @return the status as a string, or an empty string if not present
    */
-  private String getStatus(final Response response) {
-    return Optional.ofNullable(response)
-        .map(res -> res.readEntity(SimulatorCommunicationData.class))
+  private String getStatus(final ResponseParseContext context) {
+    return Optional.ofNullable(context.communicationData())
         .map(SimulatorCommunicationData::responseReceived)
         .map(WrappedHttpResponse::statusLine)
         .map(NcpehTimeLoggingHandler::parseStatusLine)
@@ -274,16 +328,24 @@ public class NcpehTimeLoggingHandler implements InvocationHandler {
   /**
    * Retrieves the performance message as a JSON string.
    *
-   * @param duration the duration of the method execution
+   * @param timing the timing of the method execution
    * @param args the arguments passed to the method
-   * @param response the response returned by the method
+   * @param context the parse context of the response returned by the method
    * @return the performance message as a JSON string
    */
   @SneakyThrows
-  private String getMessage(final long duration, final Object[] args, final Response response) {
+  private String getMessage(
+      final NcpehCallTiming timing, final Object[] args, final ResponseParseContext context) {
     return TigerGlobalConfiguration.getObjectMapper()
         .writeValueAsString(
-            new NcpehPerformanceMessage(getCountryCode(args), getErrorCode(response), duration));
+            new NcpehPerformanceMessage(
+                getCountryCode(args),
+                getErrorCode(context),
+                timing.durationMillis(),
+                TimeUnit.NANOSECONDS.toMicros(timing.requestBuildNanos()),
+                TimeUnit.NANOSECONDS.toMicros(timing.networkNanos()),
+                TimeUnit.NANOSECONDS.toMicros(timing.entityBufferNanos()),
+                TimeUnit.NANOSECONDS.toMicros(timing.parseNanos())));
   }
 
   /**
@@ -293,70 +355,82 @@ public class NcpehTimeLoggingHandler implements InvocationHandler {
    * @return the country code
    */
   private String getCountryCode(final Object[] args) {
-    if (args.length == 1 && args[0] instanceof final IdentifyPatientRequest request) {
-      return request.baseParameter().euCountryCode().getCountryCode();
+    return Optional.ofNullable(getEuCountryCode(args))
+        .map(EuCountryCode::getCountryCode)
+        .orElse(null);
+  }
+
+  /**
+   * Retrieves the country from the request.
+   *
+   * @param args the arguments passed to the method
+   * @return the country, or null if the request doesn't contain one
+   */
+  private EuCountryCode getEuCountryCode(final Object[] args) {
+    if (args == null || args.length != 1) {
+      return null;
     }
-    if (args.length == 1 && args[0] instanceof final FindDocumentsRequest request) {
-      return request.baseParameter().euCountryCode().getCountryCode();
+    if (args[0] instanceof final IdentifyPatientRequest request) {
+      return request.baseParameter().euCountryCode();
     }
-    if (args.length == 1 && args[0] instanceof final RetrieveDocumentRequest request) {
-      return request.baseParameter().euCountryCode().getCountryCode();
+    if (args[0] instanceof final FindDocumentsRequest request) {
+      return request.baseParameter().euCountryCode();
+    }
+    if (args[0] instanceof final RetrieveDocumentRequest request) {
+      return request.baseParameter().euCountryCode();
     }
     return null;
   }
 
   /**
-   * Retrieves the error code from the response.
+   * Retrieves the error code from the response. The body of the response is only unmarshalled into
+   * the type its root element denotes.
    *
-   * @param response the response returned by the method
+   * @param context the parse context of the response returned by the method
    * @return the error code
    */
-  private String getErrorCode(final Response response) {
-    return Optional.ofNullable(response)
-        .map(res -> res.readEntity(SimulatorCommunicationData.class))
-        .map(SimulatorCommunicationData::responseReceived)
-        .map(WrappedHttpResponse::messageContent)
-        .map(
-            message -> {
-              try {
-                return Optional.ofNullable(
-                        readAcknowledgementDetailFromIdentifyPatientResponse(
-                            parseHttpBody(message, PRPAIN201306UV02.class)))
-                    .map(AcknowledgementDetail::code)
-                    .orElseGet(
-                        () ->
-                            DataUtils.readRegistryErrorCodesFromAdhocQueryResponse(
-                                    parseHttpBody(message, AdhocQueryResponse.class))
-                                .stream()
-                                .findFirst()
-                                .orElseGet(
-                                    () ->
-                                        this
-                                            .readRegistryErrorCodesFromRetrieveDocumentSetResponseType(
-                                                message)));
-              } catch (final Exception e) {
-                // nothing to do
-              }
+  private String getErrorCode(final ResponseParseContext context) {
+    try {
+      return context.responseBodyType().map(type -> readErrorCode(context, type)).orElse(null);
+    } catch (final Exception e) {
+      // nothing to do
+    }
 
-              return null;
-            })
-        .orElse(null);
+    return null;
   }
 
   /**
-   * Reads the registry error codes from the RetrieveDocumentSetResponseType.
+   * Reads the error code from the response body of the given type.
    *
-   * @param message the wrapped HTTP message
-   * @return the error code
+   * @param context the parse context of the response returned by the method
+   * @param bodyType the type of the response body
+   * @return the error code, or null if the body doesn't contain one or is of another type
    */
-  private String readRegistryErrorCodesFromRetrieveDocumentSetResponseType(
-      final WrappedHttpMessage message) {
-    return Optional.ofNullable(parseHttpBody(message, RetrieveDocumentSetResponseType.class))
-        .map(RetrieveDocumentSetResponseType::getRegistryResponse)
-        .map(DataUtils::readRegistryErrorCodesFromRegistryResponse)
-        .orElseGet(List::of)
-        .stream()
-        .findFirst()
-        .orElse(null);
+  private static String readErrorCode(final ResponseParseContext context, final Class<?> bodyType) {
+    if (PRPAIN201306UV02.class.equals(bodyType)) {
+      return Optional.ofNullable(
+              readAcknowledgementDetailFromIdentifyPatientResponse(
+                  context.responseBody(PRPAIN201306UV02.class)))
+          .map(AcknowledgementDetail::code)
+          .orElse(null);
+    }
+    if (AdhocQueryResponse.class.equals(bodyType)) {
+      return DataUtils.readRegistryErrorCodesFromAdhocQueryResponse(
+              context.responseBody(AdhocQueryResponse.class))
+          .stream()
+          .findFirst()
+          .orElse(null);
+    }
+    if (RetrieveDocumentSetResponseType.class.equals(bodyType)) {
+      // only the RegistryResponse, the documents are read by the conversion into the DTO
+      return context
+          .registryResponse()
+          .map(DataUtils::readRegistryErrorCodesFromRegistryResponse)
+          .orElseGet(List::of)
+          .stream()
+          .findFirst()
+          .orElse(null);
+    }
+    return null;
   }
 }
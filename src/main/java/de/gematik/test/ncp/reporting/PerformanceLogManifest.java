@@ -0,0 +1,246 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index of the scenario performance logs of a reporting folder: for every log file its first and
+ * last timestamp and the number of entries per {@link UseCase}. The index is kept in memory and
+ * appended as JSON line to the file {@value #MANIFEST_FILE_NAME} in the reporting folder, whenever
+ * an entry is added or updated, so lookups neither list the folder nor read the log files.<br>
+ * Later lines of the manifest file replace earlier ones of the same log file. Lines appended by
+ * other processes are picked up on the next lookup.
+ */
+@Slf4j
+public class PerformanceLogManifest {
+
+  public static final String MANIFEST_FILE_NAME = "performance-manifest.jsonl";
+
+  private static final Map<Path, PerformanceLogManifest> MANIFESTS = new ConcurrentHashMap<>();
+
+  // use cases are written with their value, as in the performance logs, also as map keys
+  private static final ObjectMapper MAPPER =
+      new ObjectMapper()
+          .enable(SerializationFeature.WRITE_ENUMS_USING_TO_STRING)
+          .enable(DeserializationFeature.READ_ENUMS_USING_TO_STRING)
+          .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  /**
+   * Summary of a performance log file.
+   *
+   * @param fileName name of the log file, relative to the reporting folder
+   * @param firstTimestamp earliest start time of the logged calls, 0 if no call was logged
+   * @param lastTimestamp latest start time of the logged calls, 0 if no call was logged
+   * @param entryCounts number of logged calls per use case
+   */
+  public record Entry(
+      String fileName, long firstTimestamp, long lastTimestamp, Map<UseCase, Long> entryCounts) {
+
+    public Entry {
+      entryCounts = entryCounts == null ? Map.of() : Map.copyOf(entryCounts);
+    }
+
+    /**
+     * @return number of logged calls of all use cases
+     */
+    public long entryCount() {
+      return entryCounts.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * @return true, if calls were logged, which started in the given time range
+     */
+    public boolean overlaps(final long fromMillis, final long toMillis) {
+      return entryCount() > 0 && firstTimestamp <= toMillis && lastTimestamp >= fromMillis;
+    }
+  }
+
+  /** Collects the summary of the log file of a running scenario, calls may be logged in parallel */
+  public static final class Summary {
+
+    private final String fileName;
+
+    private final Map<UseCase, Long> entryCounts = new EnumMap<>(UseCase.class);
+
+    private long firstTimestamp = Long.MAX_VALUE;
+
+    private long lastTimestamp = Long.MIN_VALUE;
+
+    public Summary(final String fileName) {
+      this.fileName = fileName;
+    }
+
+    public synchronized void record(final long timestamp, final UseCase useCase) {
+      firstTimestamp = Math.min(firstTimestamp, timestamp);
+      lastTimestamp = Math.max(lastTimestamp, timestamp);
+      entryCounts.merge(useCase, 1L, Long::sum);
+    }
+
+    public synchronized Entry toEntry() {
+      return entryCounts.isEmpty()
+          ? new Entry(fileName, 0, 0, Map.of())
+          : new Entry(fileName, firstTimestamp, lastTimestamp, entryCounts);
+    }
+  }
+
+  private final Path folder;
+
+  private final Path manifestFile;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  // number of bytes of the manifest file, which are read already
+  private long readPosition;
+
+  PerformanceLogManifest(final Path folder) {
+    this.folder = folder;
+    this.manifestFile = folder.resolve(MANIFEST_FILE_NAME);
+  }
+
+  /**
+   * Get the manifest of the given reporting folder. There is one instance per folder.
+   *
+   * @param folder the reporting folder
+   * @return the manifest of the folder
+   */
+  public static PerformanceLogManifest forFolder(final Path folder) {
+    return MANIFESTS.computeIfAbsent(
+        folder.toAbsolutePath().normalize(), PerformanceLogManifest::new);
+  }
+
+  /**
+   * Add or replace the entry of a log file and append it to the manifest file.
+   *
+   * @param entry the summary of the log file
+   */
+  public synchronized void put(final Entry entry) {
+    entries.put(entry.fileName(), entry);
+    try {
+      Files.createDirectories(folder);
+      Files.writeString(
+          manifestFile,
+          MAPPER.writeValueAsString(entry) + "\n",
+          StandardCharsets.UTF_8,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.APPEND);
+    } catch (final IOException e) {
+      log.warn("Could not update performance log manifest {}", manifestFile, e);
+    }
+  }
+
+  /**
+   * @param fileName name of the log file
+   * @return the entry of the log file, empty if it is not indexed
+   */
+  public Optional<Entry> get(final String fileName) {
+    refresh();
+    return Optional.ofNullable(entries.get(fileName));
+  }
+
+  /**
+   * Find the latest indexed log file containing the test case id in its name, in the way {@link
+   * de.gematik.test.ncp.util.ReportingUtils#getPerformanceLogFile(String)} does on the folder.
+   *
+   * @param testCaseId the test case id
+   * @return path of the log file, empty if no existing log file is indexed for the test case
+   */
+  public Optional<Path> find(final String testCaseId) {
+    refresh();
+    return entries.keySet().stream()
+        .filter(fileName -> fileName.contains(testCaseId))
+        .max(Comparator.naturalOrder())
+        .map(folder::resolve)
+        .filter(Files::isRegularFile);
+  }
+
+  /**
+   * @param fromMillis start of the time range, inclusive
+   * @param toMillis end of the time range, inclusive
+   * @return the entries of the log files with calls started in the time range, ordered by their
+   *     first timestamp
+   */
+  public List<Entry> overlapping(final long fromMillis, final long toMillis) {
+    refresh();
+    return entries.values().stream()
+        .filter(entry -> entry.overlaps(fromMillis, toMillis))
+        .sorted(Comparator.comparingLong(Entry::firstTimestamp))
+        .toList();
+  }
+
+  /** Read the lines appended to the manifest file since the last call */
+  private synchronized void refresh() {
+    try (final var channel = FileChannel.open(manifestFile, StandardOpenOption.READ)) {
+      final var size = channel.size();
+      if (size < readPosition) {
+        // the file was replaced, e.g. by a clean build
+        entries.clear();
+        readPosition = 0;
+      }
+      if (size == readPosition) {
+        return;
+      }
+      final var buffer = ByteBuffer.allocate(Math.toIntExact(size - readPosition));
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, readPosition + buffer.position()) < 0) {
+          break;
+        }
+      }
+      final var text = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+      // an incomplete last line is read again next time
+      final var complete = text.substring(0, text.lastIndexOf('\n') + 1);
+      complete.lines().filter(line -> !line.isBlank()).forEach(this::readLine);
+      readPosition += complete.getBytes(StandardCharsets.UTF_8).length;
+    } catch (final NoSuchFileException e) {
+      entries.clear();
+      readPosition = 0;
+    } catch (final IOException e) {
+      log.warn("Could not read performance log manifest {}", manifestFile, e);
+    }
+  }
+
+  private void readLine(final String line) {
+    try {
+      final var entry = MAPPER.readValue(line, Entry.class);
+      entries.put(entry.fileName(), entry);
+    } catch (final IOException e) {
+      log.warn("Skipping malformed line of performance log manifest: {}", line, e);
+    }
+  }
+}
@@ -0,0 +1,419 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import static de.gematik.test.ncp.data.Testdata.TESTDATA_BASEKEY;
+
+import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the lines of the performance logs asynchronously, so that the file system access does not
+ * add up to the measured durations.<br>
+ * The lines are put into a bounded queue and written by a single background thread, which keeps
+ * the {@link FileChannel}s of the log files open. Lines are written in batches, either when {@code
+ * batchSize} lines are collected or when {@code flushInterval} has passed since the first line of
+ * the batch.
+ */
+@Slf4j
+public class PerformanceLogWriter implements AutoCloseable {
+
+  private static final String WRITER_CONFIG_KEY = TESTDATA_BASEKEY + ".reporting.writer";
+  static final String CAPACITY_KEY = WRITER_CONFIG_KEY + ".capacity";
+  static final String BATCH_SIZE_KEY = WRITER_CONFIG_KEY + ".batchSize";
+  static final String FLUSH_INTERVAL_MS_KEY = WRITER_CONFIG_KEY + ".flushIntervalMs";
+  static final String BACK_PRESSURE_POLICY_KEY = WRITER_CONFIG_KEY + ".backPressurePolicy";
+
+  public static final int DEFAULT_CAPACITY = 8192;
+  public static final int DEFAULT_BATCH_SIZE = 256;
+  public static final long DEFAULT_FLUSH_INTERVAL_MS = 200;
+
+  /** Interval, in which a thread waiting for a barrier checks whether the flusher is still alive */
+  private static final long BARRIER_CHECK_INTERVAL_MS = 100;
+
+  /** What to do, if a line shall be written, but the queue is full. */
+  public enum BackPressurePolicy {
+    /** Wait until the queue has space again */
+    BLOCK,
+    /** Discard the line and log a warning */
+    DROP,
+    /** Discard the line silently, only the number of dropped lines is counted */
+    COUNT_DROPS
+  }
+
+  private sealed interface Task permits LineTask, BarrierTask {}
+
+  private record LineTask(String line, List<Path> targets) implements Task {}
+
+  /**
+   * Completes all tasks enqueued before. The last barrier is enqueued by {@link #close()}, the
+   * flusher stops after it.
+   */
+  private record BarrierTask(CountDownLatch done, Path release, boolean last) implements Task {}
+
+  @Getter(lazy = true)
+  private static final PerformanceLogWriter instance = createInstance();
+
+  private final BlockingQueue<Task> queue;
+
+  private final int batchSize;
+
+  private final long flushIntervalNanos;
+
+  @Getter private final BackPressurePolicy backPressurePolicy;
+
+  private final AtomicLong droppedLines = new AtomicLong();
+
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  /**
+   * Writers enqueue under the read lock, {@link #close()} marks the writer closed and enqueues the
+   * last barrier under the write lock. So no line can be enqueued after the last barrier.
+   */
+  private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+  // only accessed by the flusher thread
+  private final Map<Path, FileChannel> channels = new HashMap<>();
+
+  private final Thread flusher;
+
+  public PerformanceLogWriter(
+      final int capacity,
+      final int batchSize,
+      @NonNull final Duration flushInterval,
+      @NonNull final BackPressurePolicy backPressurePolicy) {
+    if (capacity < 1 || batchSize < 1) {
+      throw new IllegalArgumentException("Capacity and batch size must be positive");
+    }
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.batchSize = batchSize;
+    this.flushIntervalNanos = flushInterval.toNanos();
+    this.backPressurePolicy = backPressurePolicy;
+    this.flusher = Thread.ofPlatform().name("performance-log-writer").daemon().start(this::run);
+  }
+
+  /**
+   * Create a writer configured by the tiger configuration, using the defaults for missing values.
+   *
+   * @return the new writer
+   */
+  public static PerformanceLogWriter fromConfiguration() {
+    return new PerformanceLogWriter(
+        Integer.parseInt(
+            TigerGlobalConfiguration.readString(CAPACITY_KEY, String.valueOf(DEFAULT_CAPACITY))),
+        Integer.parseInt(
+            TigerGlobalConfiguration.readString(
+                BATCH_SIZE_KEY, String.valueOf(DEFAULT_BATCH_SIZE))),
+        Duration.ofMillis(
+            Long.parseLong(
+                TigerGlobalConfiguration.readString(
+                    FLUSH_INTERVAL_MS_KEY, String.valueOf(DEFAULT_FLUSH_INTERVAL_MS)))),
+        BackPressurePolicy.valueOf(
+            TigerGlobalConfiguration.readString(
+                    BACK_PRESSURE_POLICY_KEY, BackPressurePolicy.BLOCK.name())
+                .toUpperCase()));
+  }
+
+  private static PerformanceLogWriter createInstance() {
+    final var writer = fromConfiguration();
+    Runtime.getRuntime()
+        .addShutdownHook(new Thread(writer::close, "performance-log-writer-shutdown"));
+    return writer;
+  }
+
+  /**
+   * Enqueue a line to be appended to all given files. A line separator is added.
+   *
+   * @param line the line to write
+   * @param targets the files to which the line shall be appended
+   * @return true, if the line was accepted, false if it was dropped, also if the writer is closed
+   */
+  public boolean write(@NonNull final String line, @NonNull final List<Path> targets) {
+    final var task = new LineTask(line + System.lineSeparator(), List.copyOf(targets));
+    closeLock.readLock().lock();
+    try {
+      if (closed.get()) {
+        droppedLines.incrementAndGet();
+        log.warn("Performance log writer is closed, dropped line: {}", line);
+        return false;
+      }
+      if (enqueue(task)) {
+        return true;
+      }
+    } finally {
+      closeLock.readLock().unlock();
+    }
+
+    droppedLines.incrementAndGet();
+    if (backPressurePolicy == BackPressurePolicy.DROP) {
+      log.warn("Performance log queue is full, dropped line: {}", line);
+    }
+    return false;
+  }
+
+  private boolean enqueue(final LineTask task) {
+    if (backPressurePolicy != BackPressurePolicy.BLOCK) {
+      return queue.offer(task);
+    }
+    try {
+      queue.put(task);
+      return true;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  /** Wait until all lines enqueued so far are written to their files. */
+  public void flush() {
+    await(enqueueBarrier(null, false));
+  }
+
+  /**
+   * Wait until all lines enqueued so far are written and close the file channel of the given
+   * file, e.g. at the end of a scenario. The file is opened again, if further lines are written to
+   * it.
+   *
+   * @param file the file to release
+   */
+  public void release(@NonNull final Path file) {
+    await(enqueueBarrier(file, false));
+  }
+
+  /**
+   * Get the number of lines, which were not written because of back pressure or because the writer
+   * was closed already.
+   *
+   * @return number of dropped lines
+   */
+  public long getDroppedLines() {
+    return droppedLines.get();
+  }
+
+  /** Write all pending lines, close all files and stop the background thread. */
+  @Override
+  public void close() {
+    final CountDownLatch done;
+    closeLock.writeLock().lock();
+    try {
+      if (!closed.compareAndSet(false, true)) {
+        return;
+      }
+      done = enqueueBarrier(null, true);
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+    await(done);
+    try {
+      flusher.join(TimeUnit.SECONDS.toMillis(10));
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    Optional.of(droppedLines.get())
+        .filter(count -> count > 0)
+        .ifPresent(count -> log.warn("{} performance log lines were dropped", count));
+  }
+
+  /**
+   * Enqueue a barrier for the flusher.
+   *
+   * @return the latch counted down by the flusher, null if the flusher has stopped already
+   */
+  private CountDownLatch enqueueBarrier(final Path release, final boolean last) {
+    if (!flusher.isAlive()) {
+      return null;
+    }
+    final var done = new CountDownLatch(1);
+    final var barrier = new BarrierTask(done, release, last);
+    try {
+      while (!queue.offer(barrier, BARRIER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+        if (!flusher.isAlive()) {
+          return null;
+        }
+      }
+      return done;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /**
+   * Wait until the flusher has passed the barrier. A barrier enqueued while the flusher stopped is
+   * never passed, so the waiting ends as well, when the flusher isn't alive anymore.
+   */
+  private void await(final CountDownLatch done) {
+    if (done == null) {
+      return;
+    }
+    try {
+      while (!done.await(BARRIER_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS)) {
+        if (!flusher.isAlive()) {
+          return;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    final var batch = new ArrayList<Task>(batchSize);
+    try {
+      var stopped = false;
+      while (!stopped) {
+        collectBatch(batch);
+        stopped = processBatch(batch);
+        batch.clear();
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      queue.drainTo(batch);
+      processBatch(batch);
+    } finally {
+      channels.keySet().stream().toList().forEach(this::closeChannel);
+      // barriers enqueued after the last one, their threads must not wait for the flusher
+      final var leftover = new ArrayList<Task>();
+      queue.drainTo(leftover);
+      leftover.stream()
+          .filter(BarrierTask.class::isInstance)
+          .map(BarrierTask.class::cast)
+          .forEach(barrier -> barrier.done().countDown());
+    }
+  }
+
+  private void collectBatch(final List<Task> batch) throws InterruptedException {
+    batch.add(queue.take());
+    final long deadline = System.nanoTime() + flushIntervalNanos;
+    while (batch.size() < batchSize && !(batch.getLast() instanceof BarrierTask)) {
+      final long remaining = deadline - System.nanoTime();
+      if (queue.drainTo(batch, batchSize - batch.size()) == 0) {
+        final var next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+        if (next == null) {
+          return;
+        }
+        batch.add(next);
+      }
+    }
+  }
+
+  /**
+   * Write the lines of the batch and pass its barriers.
+   *
+   * @return true, if the batch contained the last barrier
+   */
+  private boolean processBatch(final List<Task> batch) {
+    var last = false;
+    final var pending = new LinkedHashMap<Path, StringBuilder>();
+    for (final var task : batch) {
+      switch (task) {
+        case LineTask line ->
+            line.targets()
+                .forEach(
+                    target ->
+                        pending
+                            .computeIfAbsent(target, t -> new StringBuilder())
+                            .append(line.line()));
+        case BarrierTask barrier -> {
+          writePending(pending);
+          Optional.ofNullable(barrier.release()).ifPresent(this::closeChannel);
+          barrier.done().countDown();
+          last |= barrier.last();
+        }
+      }
+    }
+    writePending(pending);
+    return last;
+  }
+
+  private void writePending(final Map<Path, StringBuilder> pending) {
+    pending.forEach(
+        (target, content) -> {
+          try {
+            final var buffer = ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8));
+            final var channel = getChannel(target);
+            while (buffer.hasRemaining()) {
+              channel.write(buffer);
+            }
+            log.debug("Performance data written successfully to {}", target.toAbsolutePath());
+          } catch (final IOException e) {
+            log.error("An error occurred while writing the file: {}", e.getMessage());
+            closeChannel(target);
+          }
+        });
+    pending.clear();
+  }
+
+  private FileChannel getChannel(final Path target) throws IOException {
+    var channel = channels.get(target);
+    if (channel == null) {
+      final var directoryPath = target.toAbsolutePath().getParent();
+      if (null != directoryPath) {
+        Files.createDirectories(directoryPath);
+      }
+      channel =
+          FileChannel.open(
+              target,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.APPEND);
+      channels.put(target, channel);
+    }
+    return channel;
+  }
+
+  private void closeChannel(final Path target) {
+    Optional.ofNullable(channels.remove(target))
+        .ifPresent(
+            channel -> {
+              try {
+                channel.close();
+              } catch (final IOException e) {
+                log.error("Could not close performance log file {}", target, e);
+              }
+            });
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Hands the time it took to build a request over from the NCPeH client to the {@link
+ * NcpehTimeLoggingHandler}, which is called on the same thread right afterwards.
+ */
+@UtilityClass
+public class RequestBuildTimer {
+
+  private static final ThreadLocal<Long> REQUEST_BUILD_NANOS = new ThreadLocal<>();
+
+  /**
+   * Mark the request of the current thread as built.
+   *
+   * @param buildStartNanos {@link System#nanoTime()} when building the request started
+   */
+  public static void requestBuilt(final long buildStartNanos) {
+    recordRequestBuildNanos(System.nanoTime() - buildStartNanos);
+  }
+
+  /**
+   * Set the build time of the request of the current thread.
+   *
+   * @param buildNanos the build time in nanoseconds
+   */
+  public static void recordRequestBuildNanos(final long buildNanos) {
+    REQUEST_BUILD_NANOS.set(buildNanos);
+  }
+
+  /**
+   * Get the build time of the request of the current thread and forget it.
+   *
+   * @return the build time in nanoseconds, 0 if no request was marked as built
+   */
+  public static long takeRequestBuildNanos() {
+    final var nanos = REQUEST_BUILD_NANOS.get();
+    REQUEST_BUILD_NANOS.remove();
+    return nanos != null ? nanos : 0;
+  }
+
+  /** Forget the build time of the request of the current thread, if it wasn't taken. */
+  public static void clear() {
+    REQUEST_BUILD_NANOS.remove();
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.model;
+
+/**
+ * Percentiles of the latencies of one use case, country and status family, all values in
+ * microseconds.
+ */
+public record LatencyPercentiles(
+    String useCase,
+    String country,
+    String statusFamily,
+    long count,
+    long p50,
+    long p90,
+    long p99,
+    long p999,
+    long max) {
+
+  public static final String CSV_HEADER = "useCase;country;statusFamily;count;p50;p90;p99;p999;max";
+
+  public String toCsv() {
+    return String.join(
+        ";",
+        useCase,
+        country,
+        statusFamily,
+        String.valueOf(count),
+        String.valueOf(p50),
+        String.valueOf(p90),
+        String.valueOf(p99),
+        String.valueOf(p999),
+        String.valueOf(max));
+  }
+}
@@ -21,7 +21,23 @@
 
 package de.gematik.test.ncp.reporting.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
+/**
+ * Message of a performance log entry. Besides the fields reported to the DWH, the entries of the
+ * test suite carry the phases of the call in microseconds: building the request ({@code bld}), the
+ * round trip to the NCPeH simulator ({@code net}), buffering the response entity ({@code buf}) and
+ * parsing it ({@code prs}).
+ */
 @JsonInclude(JsonInclude.Include.NON_NULL)
-public record NcpehPerformanceMessage(String reqc, String err, long bkdur) {}
+public record NcpehPerformanceMessage(
+    String reqc, String err, long bkdur, Long bld, Long net, Long buf, Long prs) {
+
+  @JsonCreator
+  public NcpehPerformanceMessage {}
+
+  public NcpehPerformanceMessage(final String reqc, final String err, final long bkdur) {
+    this(reqc, err, bkdur, null, null, null, null);
+  }
+}
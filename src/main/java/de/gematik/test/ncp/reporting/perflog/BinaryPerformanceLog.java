@@ -0,0 +1,248 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.experimental.Accessors;
+
+/**
+ * Reader of performance logs in the binary format written by the {@link
+ * BinaryPerformanceLogWriter}.
+ *
+ * <p>The file starts with a header (magic, version, block size, record count and the dictionary of
+ * the text fields), followed by the records in the order of their timestamps. The records are
+ * grouped in blocks; within a block the timestamps are stored as difference to the previous
+ * record, numbers as variable-length integers and the text fields as codes of the dictionary. The
+ * file ends with an index of the blocks (first and last timestamp, offset and record count), so a
+ * time range can be read without decoding the blocks before it.
+ */
+@Accessors(fluent = true)
+public final class BinaryPerformanceLog implements AutoCloseable {
+
+  private static final UseCase[] USE_CASES = UseCase.values();
+
+  private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+  private static final int HEADER_PREFIX_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES;
+
+  private static final int INDEX_ENTRY_SIZE = 3 * Long.BYTES + Integer.BYTES;
+
+  private final FileChannel channel;
+
+  @Getter private final StringDictionary dictionary = new StringDictionary();
+
+  @Getter private final long recordCount;
+
+  private final long[] firstTimestamps;
+  private final long[] lastTimestamps;
+  private final long[] offsets;
+  private final int[] counts;
+  private final long indexOffset;
+
+  private BinaryPerformanceLog(final FileChannel channel) throws IOException {
+    this.channel = channel;
+
+    final var trailer = read(channel.size() - TRAILER_SIZE, TRAILER_SIZE);
+    this.indexOffset = trailer.getLong();
+    checkMagic(trailer.getInt());
+
+    final var headerPrefix = read(0, HEADER_PREFIX_SIZE);
+    checkMagic(headerPrefix.getInt());
+    final var version = headerPrefix.getShort();
+    if (version != BinaryPerformanceLogWriter.VERSION) {
+      throw new IllegalArgumentException("Unsupported binary performance log version " + version);
+    }
+
+    final var index = read(indexOffset, (int) (channel.size() - TRAILER_SIZE - indexOffset));
+    final var blockCount = index.getInt();
+    if (index.remaining() != blockCount * INDEX_ENTRY_SIZE) {
+      throw new IllegalArgumentException("Corrupt block index of binary performance log");
+    }
+    this.firstTimestamps = new long[blockCount];
+    this.lastTimestamps = new long[blockCount];
+    this.offsets = new long[blockCount];
+    this.counts = new int[blockCount];
+    for (var block = 0; block < blockCount; block++) {
+      firstTimestamps[block] = index.getLong();
+      lastTimestamps[block] = index.getLong();
+      offsets[block] = index.getLong();
+      counts[block] = index.getInt();
+    }
+
+    final var headerEnd = blockCount > 0 ? offsets[0] : indexOffset;
+    final var header = read(HEADER_PREFIX_SIZE, (int) (headerEnd - HEADER_PREFIX_SIZE));
+    this.recordCount = header.getLong();
+    final var dictionarySize = Varints.readUnsigned(header);
+    for (var code = 0; code < dictionarySize; code++) {
+      final var value = new byte[(int) Varints.readUnsigned(header)];
+      header.get(value);
+      dictionary.code(new String(value, StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Open a binary performance log. The header and the block index are read immediately, the
+   * records on demand.
+   *
+   * @param file the binary performance log
+   * @return the opened log, to be closed by the caller
+   */
+  @SneakyThrows
+  public static BinaryPerformanceLog open(final Path file) {
+    final var channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return new BinaryPerformanceLog(channel);
+    } catch (final IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Visit all records in the order of their timestamps.
+   *
+   * @param visitor receives the records; the line passed is reused for the next record
+   * @return number of visited records
+   */
+  public long forEach(final PerformanceLogVisitor visitor) {
+    return forEachInRange(Long.MIN_VALUE, Long.MAX_VALUE, visitor);
+  }
+
+  /**
+   * Visit the records with a timestamp in the given range, in the order of their timestamps. Only
+   * the blocks overlapping the range are read.
+   *
+   * @param fromMillis first timestamp of the range, inclusive
+   * @param toMillis last timestamp of the range, inclusive
+   * @param visitor receives the records; the line passed is reused for the next record
+   * @return number of visited records
+   */
+  @SneakyThrows
+  public long forEachInRange(
+      final long fromMillis, final long toMillis, final PerformanceLogVisitor visitor) {
+    final var line = new PerformanceLogLine(dictionary);
+    var visited = 0L;
+    for (var block = firstBlockEndingAtOrAfter(fromMillis);
+        block < offsets.length && firstTimestamps[block] <= toMillis;
+        block++) {
+      final var buffer = read(offsets[block], (int) (blockEnd(block) - offsets[block]));
+      var timestamp = firstTimestamps[block];
+      for (var i = 0; i < counts[block]; i++) {
+        timestamp += Varints.readSigned(buffer);
+        readRecord(buffer, timestamp, line);
+        if (timestamp > toMillis) {
+          return visited;
+        }
+        if (timestamp >= fromMillis) {
+          visitor.visit(line);
+          visited++;
+        }
+      }
+    }
+    return visited;
+  }
+
+  /**
+   * @param fromMillis first timestamp of the range, inclusive
+   * @param toMillis last timestamp of the range, inclusive
+   * @return the records with a timestamp in the given range as performance report
+   */
+  public NcpehPerformanceReport readRange(final long fromMillis, final long toMillis) {
+    final var report = new NcpehPerformanceReport();
+    forEachInRange(fromMillis, toMillis, line -> report.addEntry(line.toEntry()));
+    return report;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private static void readRecord(
+      final ByteBuffer buffer, final long timestamp, final PerformanceLogLine line) {
+    line.reset();
+    line.timestamp(timestamp);
+    line.duration(Varints.readSigned(buffer));
+    line.operation(USE_CASES[buffer.get()]);
+    line.statusCode((int) Varints.readUnsigned(buffer) - 1);
+    line.reqcCode((int) Varints.readUnsigned(buffer) - 1);
+    line.errCode((int) Varints.readUnsigned(buffer) - 1);
+    line.bkdur(Varints.readSigned(buffer));
+    final var flags = buffer.get();
+    if ((flags & 1) != 0) {
+      line.requestBuildMicros(Varints.readSigned(buffer));
+    }
+    if ((flags & 2) != 0) {
+      line.networkMicros(Varints.readSigned(buffer));
+    }
+    if ((flags & 4) != 0) {
+      line.entityBufferMicros(Varints.readSigned(buffer));
+    }
+    if ((flags & 8) != 0) {
+      line.parseMicros(Varints.readSigned(buffer));
+    }
+  }
+
+  /** Index of the first block whose last timestamp isn't before the given one */
+  private int firstBlockEndingAtOrAfter(final long timestamp) {
+    var low = 0;
+    var high = lastTimestamps.length;
+    while (low < high) {
+      final var middle = (low + high) >>> 1;
+      if (lastTimestamps[middle] < timestamp) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private long blockEnd(final int block) {
+    return block + 1 < offsets.length ? offsets[block + 1] : indexOffset;
+  }
+
+  private ByteBuffer read(final long position, final int length) throws IOException {
+    final var buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IllegalArgumentException("Binary performance log is truncated");
+      }
+    }
+    return buffer.flip();
+  }
+
+  private static void checkMagic(final int magic) {
+    if (magic != BinaryPerformanceLogWriter.MAGIC) {
+      throw new IllegalArgumentException("Not a binary performance log");
+    }
+  }
+}
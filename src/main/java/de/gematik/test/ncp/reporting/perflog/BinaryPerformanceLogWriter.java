@@ -0,0 +1,196 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Writes performance logs in the binary format read by the {@link BinaryPerformanceLog}. The
+ * records are written in the order of their timestamps, so the block index can be searched.
+ */
+@UtilityClass
+public class BinaryPerformanceLogWriter {
+
+  static final int MAGIC = 0x4E505246; // "NPRF"
+
+  static final short VERSION = 1;
+
+  static final int DEFAULT_BLOCK_SIZE = 4096;
+
+  /**
+   * Convert a performance log in the CSV format into the binary format.
+   *
+   * @param csvFile the performance log
+   * @param binaryFile the binary file to write, overwritten if it exists
+   * @return number of records written
+   */
+  public static int convert(final Path csvFile, final Path binaryFile) {
+    final var columns = new PerformanceLogParser().readColumns(csvFile);
+    write(columns, binaryFile, DEFAULT_BLOCK_SIZE);
+    return columns.size();
+  }
+
+  /**
+   * Write the lines of a performance log in the binary format.
+   *
+   * @param columns the lines
+   * @param binaryFile the binary file to write, overwritten if it exists
+   * @param blockSize number of records per block
+   */
+  @SneakyThrows
+  public static void write(
+      final PerformanceLogColumns columns, final Path binaryFile, final int blockSize) {
+    if (blockSize <= 0) {
+      throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+    }
+    final var order = timeOrder(columns);
+    final var blockCount = (columns.size() + blockSize - 1) / blockSize;
+    final var firstTimestamps = new long[blockCount];
+    final var lastTimestamps = new long[blockCount];
+    final var offsets = new long[blockCount];
+
+    try (final var channel =
+        FileChannel.open(
+            binaryFile,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+      final var bytes = new ByteArrayOutputStream(64 * 1024);
+      final var out = new DataOutputStream(bytes);
+
+      writeHeader(out, columns, blockSize);
+      flush(channel, bytes);
+
+      for (var block = 0; block < blockCount; block++) {
+        final var from = block * blockSize;
+        final var to = Math.min(from + blockSize, columns.size());
+        firstTimestamps[block] = columns.timestamp(order[from]);
+        lastTimestamps[block] = columns.timestamp(order[to - 1]);
+        offsets[block] = channel.position();
+        var previousTimestamp = firstTimestamps[block];
+        for (var i = from; i < to; i++) {
+          final var row = order[i];
+          writeRecord(out, columns, row, previousTimestamp);
+          previousTimestamp = columns.timestamp(row);
+        }
+        flush(channel, bytes);
+      }
+
+      final var indexOffset = channel.position();
+      out.writeInt(blockCount);
+      for (var block = 0; block < blockCount; block++) {
+        out.writeLong(firstTimestamps[block]);
+        out.writeLong(lastTimestamps[block]);
+        out.writeLong(offsets[block]);
+        out.writeInt(Math.min(blockSize, columns.size() - block * blockSize));
+      }
+      out.writeLong(indexOffset);
+      out.writeInt(MAGIC);
+      flush(channel, bytes);
+    }
+  }
+
+  private static void writeHeader(
+      final DataOutputStream out, final PerformanceLogColumns columns, final int blockSize)
+      throws IOException {
+    out.writeInt(MAGIC);
+    out.writeShort(VERSION);
+    out.writeInt(blockSize);
+    out.writeLong(columns.size());
+    final var dictionary = columns.dictionary();
+    Varints.writeUnsigned(out, dictionary.size());
+    for (var code = 0; code < dictionary.size(); code++) {
+      final var value = dictionary.value(code).getBytes(StandardCharsets.UTF_8);
+      Varints.writeUnsigned(out, value.length);
+      out.write(value);
+    }
+  }
+
+  private static void writeRecord(
+      final DataOutputStream out,
+      final PerformanceLogColumns columns,
+      final int row,
+      final long previousTimestamp)
+      throws IOException {
+    Varints.writeSigned(out, columns.timestamp(row) - previousTimestamp);
+    Varints.writeSigned(out, columns.duration(row));
+    out.writeByte(columns.operation(row).ordinal());
+    Varints.writeUnsigned(out, columns.statusCode(row) + 1L);
+    Varints.writeUnsigned(out, columns.reqcCode(row) + 1L);
+    Varints.writeUnsigned(out, columns.errCode(row) + 1L);
+    Varints.writeSigned(out, columns.bkdur(row));
+
+    final long[] phases = {
+      columns.requestBuildMicros(row),
+      columns.networkMicros(row),
+      columns.entityBufferMicros(row),
+      columns.parseMicros(row)
+    };
+    var flags = 0;
+    for (var phase = 0; phase < phases.length; phase++) {
+      if (phases[phase] != PerformanceLogLine.ABSENT) {
+        flags |= 1 << phase;
+      }
+    }
+    out.writeByte(flags);
+    for (final var phase : phases) {
+      if (phase != PerformanceLogLine.ABSENT) {
+        Varints.writeSigned(out, phase);
+      }
+    }
+  }
+
+  /** Rows in the order of their timestamps, keeping the order of rows with equal timestamps */
+  private static int[] timeOrder(final PerformanceLogColumns columns) {
+    final var sorted =
+        IntStream.range(1, columns.size())
+            .allMatch(row -> columns.timestamp(row - 1) <= columns.timestamp(row));
+    if (sorted) {
+      return IntStream.range(0, columns.size()).toArray();
+    }
+    return IntStream.range(0, columns.size())
+        .boxed()
+        .sorted(Comparator.comparingLong(columns::timestamp))
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  private static void flush(final FileChannel channel, final ByteArrayOutputStream bytes)
+      throws IOException {
+    final var buffer = ByteBuffer.wrap(bytes.toByteArray());
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    bytes.reset();
+  }
+}
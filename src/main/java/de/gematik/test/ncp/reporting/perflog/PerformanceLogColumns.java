@@ -0,0 +1,278 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * Column-wise, in-memory representation of a performance log. Numbers are kept in primitive
+ * arrays, the operation as ordinal of its {@link UseCase} and the text fields as codes of a {@link
+ * StringDictionary}. A line takes less than 80 bytes this way, independent of its text.
+ */
+@Accessors(fluent = true)
+public final class PerformanceLogColumns {
+
+  private static final UseCase[] USE_CASES = UseCase.values();
+
+  @Getter private final StringDictionary dictionary;
+
+  @Getter private final int size;
+
+  private final long[] timestamps;
+  private final long[] durations;
+  private final byte[] operations;
+  private final int[] statusCodes;
+  private final int[] reqcCodes;
+  private final int[] errCodes;
+  private final long[] bkdurs;
+  private final long[] requestBuildMicros;
+  private final long[] networkMicros;
+  private final long[] entityBufferMicros;
+  private final long[] parseMicros;
+
+  private PerformanceLogColumns(final StringDictionary dictionary, final List<Builder> parts) {
+    this.dictionary = dictionary;
+    this.size = parts.stream().mapToInt(part -> part.size).sum();
+    this.timestamps = new long[size];
+    this.durations = new long[size];
+    this.operations = new byte[size];
+    this.statusCodes = new int[size];
+    this.reqcCodes = new int[size];
+    this.errCodes = new int[size];
+    this.bkdurs = new long[size];
+    this.requestBuildMicros = new long[size];
+    this.networkMicros = new long[size];
+    this.entityBufferMicros = new long[size];
+    this.parseMicros = new long[size];
+
+    var offset = 0;
+    for (final var part : parts) {
+      final var length = part.size;
+      System.arraycopy(part.timestamps, 0, timestamps, offset, length);
+      System.arraycopy(part.durations, 0, durations, offset, length);
+      System.arraycopy(part.operations, 0, operations, offset, length);
+      System.arraycopy(part.statusCodes, 0, statusCodes, offset, length);
+      System.arraycopy(part.reqcCodes, 0, reqcCodes, offset, length);
+      System.arraycopy(part.errCodes, 0, errCodes, offset, length);
+      System.arraycopy(part.bkdurs, 0, bkdurs, offset, length);
+      System.arraycopy(part.requestBuildMicros, 0, requestBuildMicros, offset, length);
+      System.arraycopy(part.networkMicros, 0, networkMicros, offset, length);
+      System.arraycopy(part.entityBufferMicros, 0, entityBufferMicros, offset, length);
+      System.arraycopy(part.parseMicros, 0, parseMicros, offset, length);
+      offset += length;
+    }
+  }
+
+  /**
+   * Join the lines collected by the builders, in the order of the builders.
+   *
+   * @param dictionary dictionary the builders used
+   * @param parts the builders
+   * @return the columns of all lines
+   */
+  public static PerformanceLogColumns of(
+      final StringDictionary dictionary, final List<Builder> parts) {
+    return new PerformanceLogColumns(dictionary, parts);
+  }
+
+  public long timestamp(final int row) {
+    return timestamps[row];
+  }
+
+  public long duration(final int row) {
+    return durations[row];
+  }
+
+  public UseCase operation(final int row) {
+    return USE_CASES[operations[row]];
+  }
+
+  public int statusCode(final int row) {
+    return statusCodes[row];
+  }
+
+  public String status(final int row) {
+    return dictionary.value(statusCodes[row]);
+  }
+
+  public int reqcCode(final int row) {
+    return reqcCodes[row];
+  }
+
+  public String reqc(final int row) {
+    return dictionary.value(reqcCodes[row]);
+  }
+
+  public int errCode(final int row) {
+    return errCodes[row];
+  }
+
+  public String err(final int row) {
+    return dictionary.value(errCodes[row]);
+  }
+
+  public long bkdur(final int row) {
+    return bkdurs[row];
+  }
+
+  /**
+   * @return time to build the request in µs, {@link PerformanceLogLine#ABSENT} if not logged
+   */
+  public long requestBuildMicros(final int row) {
+    return requestBuildMicros[row];
+  }
+
+  /**
+   * @return round-trip time in µs, {@link PerformanceLogLine#ABSENT} if not logged
+   */
+  public long networkMicros(final int row) {
+    return networkMicros[row];
+  }
+
+  /**
+   * @return time to buffer the response entity in µs, {@link PerformanceLogLine#ABSENT} if not
+   *     logged
+   */
+  public long entityBufferMicros(final int row) {
+    return entityBufferMicros[row];
+  }
+
+  /**
+   * @return time to parse the response in µs, {@link PerformanceLogLine#ABSENT} if not logged
+   */
+  public long parseMicros(final int row) {
+    return parseMicros[row];
+  }
+
+  /**
+   * @return copy of the timestamp column
+   */
+  public long[] timestamps() {
+    return Arrays.copyOf(timestamps, size);
+  }
+
+  /**
+   * @return copy of the duration column
+   */
+  public long[] durations() {
+    return Arrays.copyOf(durations, size);
+  }
+
+  /**
+   * @return copy of the bkdur column
+   */
+  public long[] bkdurs() {
+    return Arrays.copyOf(bkdurs, size);
+  }
+
+  /**
+   * @param row index of the line
+   * @return the line as entry of a performance report
+   */
+  public NcpehPerformanceReportEntry entry(final int row) {
+    return new NcpehPerformanceReportEntry()
+        .timestamp(timestamps[row])
+        .duration(durations[row])
+        .operation(operation(row))
+        .status(status(row))
+        .message(
+            new NcpehPerformanceMessage(
+                reqc(row),
+                err(row),
+                bkdurs[row],
+                PerformanceLogLine.boxed(requestBuildMicros[row]),
+                PerformanceLogLine.boxed(networkMicros[row]),
+                PerformanceLogLine.boxed(entityBufferMicros[row]),
+                PerformanceLogLine.boxed(parseMicros[row])));
+  }
+
+  /**
+   * @return all lines as performance report
+   */
+  public NcpehPerformanceReport toReport() {
+    final var report = new NcpehPerformanceReport();
+    for (var row = 0; row < size; row++) {
+      report.addEntry(entry(row));
+    }
+    return report;
+  }
+
+  /** Collects the visited lines column-wise, growing its arrays as needed */
+  public static final class Builder implements PerformanceLogVisitor {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int size;
+    private long[] timestamps = new long[INITIAL_CAPACITY];
+    private long[] durations = new long[INITIAL_CAPACITY];
+    private byte[] operations = new byte[INITIAL_CAPACITY];
+    private int[] statusCodes = new int[INITIAL_CAPACITY];
+    private int[] reqcCodes = new int[INITIAL_CAPACITY];
+    private int[] errCodes = new int[INITIAL_CAPACITY];
+    private long[] bkdurs = new long[INITIAL_CAPACITY];
+    private long[] requestBuildMicros = new long[INITIAL_CAPACITY];
+    private long[] networkMicros = new long[INITIAL_CAPACITY];
+    private long[] entityBufferMicros = new long[INITIAL_CAPACITY];
+    private long[] parseMicros = new long[INITIAL_CAPACITY];
+
+    @Override
+    public void visit(final PerformanceLogLine line) {
+      if (size == timestamps.length) {
+        grow();
+      }
+      timestamps[size] = line.timestamp();
+      durations[size] = line.duration();
+      operations[size] = (byte) line.operation().ordinal();
+      statusCodes[size] = line.statusCode();
+      reqcCodes[size] = line.reqcCode();
+      errCodes[size] = line.errCode();
+      bkdurs[size] = line.bkdur();
+      requestBuildMicros[size] = line.requestBuildMicros();
+      networkMicros[size] = line.networkMicros();
+      entityBufferMicros[size] = line.entityBufferMicros();
+      parseMicros[size] = line.parseMicros();
+      size++;
+    }
+
+    private void grow() {
+      final var capacity = timestamps.length * 2;
+      timestamps = Arrays.copyOf(timestamps, capacity);
+      durations = Arrays.copyOf(durations, capacity);
+      operations = Arrays.copyOf(operations, capacity);
+      statusCodes = Arrays.copyOf(statusCodes, capacity);
+      reqcCodes = Arrays.copyOf(reqcCodes, capacity);
+      errCodes = Arrays.copyOf(errCodes, capacity);
+      bkdurs = Arrays.copyOf(bkdurs, capacity);
+      requestBuildMicros = Arrays.copyOf(requestBuildMicros, capacity);
+      networkMicros = Arrays.copyOf(networkMicros, capacity);
+      entityBufferMicros = Arrays.copyOf(entityBufferMicros, capacity);
+      parseMicros = Arrays.copyOf(parseMicros, capacity);
+    }
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+/**
+ * One line of a performance log, as handed to a {@link PerformanceLogVisitor}. The text fields
+ * are kept as codes of the {@link StringDictionary} of the parser, so visiting a line allocates
+ * nothing. The object is reused for all lines of a chunk.
+ */
+@Getter
+@Accessors(fluent = true)
+public final class PerformanceLogLine {
+
+  /** Value of the phases, if the line doesn't contain them */
+  public static final long ABSENT = -1;
+
+  @Getter(AccessLevel.NONE)
+  private final StringDictionary dictionary;
+
+  private long timestamp;
+
+  private long duration;
+
+  private UseCase operation;
+
+  private int statusCode;
+
+  private int reqcCode;
+
+  private int errCode;
+
+  private long bkdur;
+
+  private long requestBuildMicros;
+
+  private long networkMicros;
+
+  private long entityBufferMicros;
+
+  private long parseMicros;
+
+  PerformanceLogLine(final StringDictionary dictionary) {
+    this.dictionary = dictionary;
+  }
+
+  public String status() {
+    return dictionary.value(statusCode);
+  }
+
+  public String reqc() {
+    return dictionary.value(reqcCode);
+  }
+
+  public String err() {
+    return dictionary.value(errCode);
+  }
+
+  /**
+   * @return the line as entry of a performance report
+   */
+  public NcpehPerformanceReportEntry toEntry() {
+    return new NcpehPerformanceReportEntry()
+        .timestamp(timestamp)
+        .duration(duration)
+        .operation(operation)
+        .status(status())
+        .message(
+            new NcpehPerformanceMessage(
+                reqc(),
+                err(),
+                bkdur,
+                boxed(requestBuildMicros),
+                boxed(networkMicros),
+                boxed(entityBufferMicros),
+                boxed(parseMicros)));
+  }
+
+  static Long boxed(final long phase) {
+    return phase == ABSENT ? null : phase;
+  }
+
+  void reset() {
+    timestamp = 0;
+    duration = 0;
+    operation = null;
+    statusCode = StringDictionary.ABSENT;
+    reqcCode = StringDictionary.ABSENT;
+    errCode = StringDictionary.ABSENT;
+    bkdur = 0;
+    requestBuildMicros = ABSENT;
+    networkMicros = ABSENT;
+    entityBufferMicros = ABSENT;
+    parseMicros = ABSENT;
+  }
+
+  void timestamp(final long timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  void duration(final long duration) {
+    this.duration = duration;
+  }
+
+  void operation(final UseCase operation) {
+    this.operation = operation;
+  }
+
+  void statusCode(final int statusCode) {
+    this.statusCode = statusCode;
+  }
+
+  void reqcCode(final int reqcCode) {
+    this.reqcCode = reqcCode;
+  }
+
+  void errCode(final int errCode) {
+    this.errCode = errCode;
+  }
+
+  void bkdur(final long bkdur) {
+    this.bkdur = bkdur;
+  }
+
+  void requestBuildMicros(final long requestBuildMicros) {
+    this.requestBuildMicros = requestBuildMicros;
+  }
+
+  void networkMicros(final long networkMicros) {
+    this.networkMicros = networkMicros;
+  }
+
+  void entityBufferMicros(final long entityBufferMicros) {
+    this.entityBufferMicros = entityBufferMicros;
+  }
+
+  void parseMicros(final long parseMicros) {
+    this.parseMicros = parseMicros;
+  }
+}
@@ -0,0 +1,594 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import de.gematik.test.ncp.reporting.UseCase;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parser of the performance log written by the {@link
+ * de.gematik.test.ncp.reporting.NcpehTimeLoggingHandler}, for files of any size.
+ *
+ * <p>The file is split into chunks at line boundaries, every chunk is memory-mapped and scanned
+ * byte by byte for the fields of its lines {@code timestamp;duration;operation;status;message}.
+ * The message is a flat JSON object, which is scanned by hand for its known keys as well. Text
+ * fields are dictionary-encoded, so scanning a line allocates nothing once all distinct values are
+ * known. Lines, which can't be parsed, are skipped; their number is logged as warning per chunk.
+ */
+@Slf4j
+public class PerformanceLogParser {
+
+  static final int DEFAULT_CHUNK_SIZE = 64 << 20;
+
+  private static final int MAX_EXCERPT_LENGTH = 200;
+
+  private final int chunkSize;
+
+  public PerformanceLogParser() {
+    this(DEFAULT_CHUNK_SIZE);
+  }
+
+  PerformanceLogParser(final int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+    }
+    this.chunkSize = chunkSize;
+  }
+
+  /**
+   * Visit all lines of the file in their order, on the calling thread.
+   *
+   * @param file the performance log
+   * @param visitor visitor of the lines
+   * @return number of lines visited
+   */
+  @SneakyThrows
+  public long forEach(final Path file, final PerformanceLogVisitor visitor) {
+    final var dictionary = new StringDictionary();
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      var lines = 0L;
+      for (final var chunk : split(channel)) {
+        lines += parseChunk(channel, chunk, dictionary, visitor);
+      }
+      return lines;
+    }
+  }
+
+  /**
+   * Visit all lines of the file, with the chunks of the file parsed in parallel. Every chunk is
+   * visited by a visitor of its own, so the visitors don't need to be thread-safe.
+   *
+   * @param file the performance log
+   * @param visitorFactory creates the visitor of a chunk
+   * @return the visitors of the chunks, in the order of the chunks in the file
+   */
+  public <V extends PerformanceLogVisitor> List<V> forEachParallel(
+      final Path file, final Supplier<V> visitorFactory) {
+    return forEachParallel(file, new StringDictionary(), visitorFactory);
+  }
+
+  /**
+   * Read the file into a column-wise representation, with the chunks of the file parsed in
+   * parallel.
+   *
+   * @param file the performance log
+   * @return the lines of the file
+   */
+  public PerformanceLogColumns readColumns(final Path file) {
+    final var dictionary = new StringDictionary();
+    return PerformanceLogColumns.of(
+        dictionary, forEachParallel(file, dictionary, PerformanceLogColumns.Builder::new));
+  }
+
+  @SneakyThrows
+  private <V extends PerformanceLogVisitor> List<V> forEachParallel(
+      final Path file, final StringDictionary dictionary, final Supplier<V> visitorFactory) {
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return split(channel).parallelStream()
+          .map(
+              chunk -> {
+                final var visitor = visitorFactory.get();
+                parseChunk(channel, chunk, dictionary, visitor);
+                return visitor;
+              })
+          .toList();
+    }
+  }
+
+  /** Split the file into chunks of about the chunk size, each ending after a line break */
+  @SneakyThrows
+  List<Chunk> split(final FileChannel channel) {
+    final var size = channel.size();
+    final var chunks = new ArrayList<Chunk>();
+    final var probe = ByteBuffer.allocate(4096);
+    var start = 0L;
+    while (start < size) {
+      var end = Math.min(start + chunkSize, size);
+      // move the end behind the next line break
+      while (end < size) {
+        probe.clear();
+        final var read = channel.read(probe, end);
+        if (read <= 0) {
+          end = size;
+          break;
+        }
+        final var lineBreak = indexOf(probe, read, (byte) '\n');
+        if (lineBreak >= 0) {
+          end += lineBreak + 1;
+          break;
+        }
+        end = Math.min(end + read, size);
+      }
+      chunks.add(new Chunk(start, end));
+      start = end;
+    }
+    return chunks;
+  }
+
+  @SneakyThrows
+  private long parseChunk(
+      final FileChannel channel,
+      final Chunk chunk,
+      final StringDictionary dictionary,
+      final PerformanceLogVisitor visitor) {
+    final var buffer =
+        channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.end() - chunk.start());
+    final var scanner = new LineScanner(buffer, dictionary);
+    final var limit = buffer.limit();
+    var lines = 0L;
+    var skipped = 0L;
+    var firstSkippedStart = -1;
+    var firstSkippedEnd = -1;
+    var lineStart = 0;
+    for (var position = 0; position <= limit; position++) {
+      if (position == limit || buffer.get(position) == '\n') {
+        if (position > lineStart) {
+          if (scanner.scan(lineStart, position)) {
+            visitor.visit(scanner.line);
+            lines++;
+          } else if (skipped++ == 0) {
+            firstSkippedStart = lineStart;
+            firstSkippedEnd = position;
+          }
+        }
+        lineStart = position + 1;
+      }
+    }
+    if (skipped > 0) {
+      log.warn(
+          "Skipped {} malformed lines of chunk {}, the first at offset {}: {}",
+          skipped,
+          chunk,
+          chunk.start() + firstSkippedStart,
+          excerpt(buffer, firstSkippedStart, firstSkippedEnd));
+    }
+    return lines;
+  }
+
+  /** The beginning of a skipped line, for the log */
+  private static String excerpt(final ByteBuffer buffer, final int start, final int end) {
+    final var bytes = new byte[Math.min(end - start, MAX_EXCERPT_LENGTH)];
+    buffer.get(start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8).strip();
+  }
+
+  private static int indexOf(final ByteBuffer buffer, final int length, final byte value) {
+    for (var i = 0; i < length; i++) {
+      if (buffer.get(i) == value) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param start offset of the first byte in the file
+   * @param end offset after the last byte in the file
+   */
+  record Chunk(long start, long end) {}
+
+  /** Signals a line, which can't be parsed; thrown without stack trace */
+  private static final class MalformedLineException extends RuntimeException {
+
+    private static final MalformedLineException INSTANCE = new MalformedLineException();
+
+    private MalformedLineException() {
+      super("Malformed performance log line", null, false, false);
+    }
+  }
+
+  /** Scans the fields of the lines of one chunk */
+  private static final class LineScanner {
+
+    private static final byte SEPARATOR = ';';
+
+    private static final byte[] KEY_REQC = bytes("reqc");
+    private static final byte[] KEY_ERR = bytes("err");
+    private static final byte[] KEY_BKDUR = bytes("bkdur");
+    private static final byte[] KEY_BLD = bytes("bld");
+    private static final byte[] KEY_NET = bytes("net");
+    private static final byte[] KEY_BUF = bytes("buf");
+    private static final byte[] KEY_PRS = bytes("prs");
+    private static final byte[] NULL = bytes("null");
+
+    private final ByteBuffer buffer;
+
+    private final StringDictionary dictionary;
+
+    private final PerformanceLogLine line;
+
+    private final SliceCache sliceCache;
+
+    private int position;
+
+    private int end;
+
+    private LineScanner(final ByteBuffer buffer, final StringDictionary dictionary) {
+      this.buffer = buffer;
+      this.dictionary = dictionary;
+      this.line = new PerformanceLogLine(dictionary);
+      this.sliceCache = new SliceCache(buffer, dictionary);
+    }
+
+    private boolean scan(final int from, final int to) {
+      position = from;
+      end = to > from && buffer.get(to - 1) == '\r' ? to - 1 : to;
+      line.reset();
+      try {
+        line.timestamp(readLong());
+        expect(SEPARATOR);
+        line.duration(readLong());
+        expect(SEPARATOR);
+        line.operation(readOperation());
+        expect(SEPARATOR);
+        line.statusCode(sliceCache.code(position, skipTo(SEPARATOR)));
+        expect(SEPARATOR);
+        readMessage();
+        skipWhitespace();
+        return position == end;
+      } catch (final MalformedLineException
+          | IndexOutOfBoundsException
+          | ArithmeticException
+          | IllegalArgumentException e) {
+        // number overflow, broken escape sequence or line ends early
+        return false;
+      }
+    }
+
+    private UseCase readOperation() {
+      final var start = position;
+      final var operation = sliceCache.operation(start, skipTo(SEPARATOR));
+      if (operation == null) {
+        throw MalformedLineException.INSTANCE;
+      }
+      return operation;
+    }
+
+    private void readMessage() {
+      skipWhitespace();
+      expect((byte) '{');
+      skipWhitespace();
+      if (peek() == '}') {
+        position++;
+        return;
+      }
+      while (true) {
+        expect((byte) '"');
+        final var keyStart = position;
+        final var keyEnd = skipTo((byte) '"');
+        position++;
+        skipWhitespace();
+        expect((byte) ':');
+        skipWhitespace();
+        readValue(keyStart, keyEnd);
+        skipWhitespace();
+        final var next = next();
+        if (next == '}') {
+          return;
+        }
+        if (next != ',') {
+          throw MalformedLineException.INSTANCE;
+        }
+        skipWhitespace();
+      }
+    }
+
+    private void readValue(final int keyStart, final int keyEnd) {
+      if (peek() == 'n') {
+        for (final var b : NULL) {
+          expect(b);
+        }
+        return;
+      }
+      if (peek() == '"') {
+        final var code = readString();
+        if (keyEquals(keyStart, keyEnd, KEY_REQC)) {
+          line.reqcCode(code);
+        } else if (keyEquals(keyStart, keyEnd, KEY_ERR)) {
+          line.errCode(code);
+        }
+        return;
+      }
+      final var value = readLong();
+      if (keyEquals(keyStart, keyEnd, KEY_BKDUR)) {
+        line.bkdur(value);
+      } else if (keyEquals(keyStart, keyEnd, KEY_BLD)) {
+        line.requestBuildMicros(value);
+      } else if (keyEquals(keyStart, keyEnd, KEY_NET)) {
+        line.networkMicros(value);
+      } else if (keyEquals(keyStart, keyEnd, KEY_BUF)) {
+        line.entityBufferMicros(value);
+      } else if (keyEquals(keyStart, keyEnd, KEY_PRS)) {
+        line.parseMicros(value);
+      }
+    }
+
+    /** Read a JSON string and return its dictionary code */
+    private int readString() {
+      expect((byte) '"');
+      final var start = position;
+      var escaped = false;
+      while (true) {
+        final var b = next();
+        if (b == '\\') {
+          escaped = true;
+          next();
+        } else if (b == '"') {
+          break;
+        }
+      }
+      final var stringEnd = position - 1;
+      return escaped
+          ? dictionary.code(unescape(start, stringEnd))
+          : sliceCache.code(start, stringEnd);
+    }
+
+    private String unescape(final int start, final int stringEnd) {
+      final var bytes = new byte[stringEnd - start];
+      buffer.get(start, bytes);
+      final var raw = new String(bytes, StandardCharsets.UTF_8);
+      final var result = new StringBuilder(raw.length());
+      for (var i = 0; i < raw.length(); i++) {
+        final var c = raw.charAt(i);
+        if (c != '\\') {
+          result.append(c);
+          continue;
+        }
+        final var escape = raw.charAt(++i);
+        switch (escape) {
+          case 'n' -> result.append('\n');
+          case 't' -> result.append('\t');
+          case 'r' -> result.append('\r');
+          case 'b' -> result.append('\b');
+          case 'f' -> result.append('\f');
+          case 'u' -> {
+            result.append((char) Integer.parseInt(raw, i + 1, i + 5, 16));
+            i += 4;
+          }
+          default -> result.append(escape);
+        }
+      }
+      return result.toString();
+    }
+
+    private long readLong() {
+      var negative = false;
+      if (peek() == '-') {
+        negative = true;
+        position++;
+      }
+      final var start = position;
+      var value = 0L;
+      while (position < end) {
+        final var b = buffer.get(position);
+        if (b < '0' || b > '9') {
+          break;
+        }
+        value = Math.addExact(Math.multiplyExact(value, 10), b - '0');
+        position++;
+      }
+      if (position == start) {
+        throw MalformedLineException.INSTANCE;
+      }
+      return negative ? -value : value;
+    }
+
+    /** Move to the next occurrence of the given byte within the line and return its position */
+    private int skipTo(final byte value) {
+      while (position < end && buffer.get(position) != value) {
+        position++;
+      }
+      if (position == end) {
+        throw MalformedLineException.INSTANCE;
+      }
+      return position;
+    }
+
+    private void skipWhitespace() {
+      while (position < end) {
+        final var b = buffer.get(position);
+        if (b != ' ' && b != '\t') {
+          return;
+        }
+        position++;
+      }
+    }
+
+    private void expect(final byte expected) {
+      if (next() != expected) {
+        throw MalformedLineException.INSTANCE;
+      }
+    }
+
+    private byte peek() {
+      if (position >= end) {
+        throw MalformedLineException.INSTANCE;
+      }
+      return buffer.get(position);
+    }
+
+    private byte next() {
+      final var b = peek();
+      position++;
+      return b;
+    }
+
+    private boolean keyEquals(final int keyStart, final int keyEnd, final byte[] key) {
+      if (keyEnd - keyStart != key.length) {
+        return false;
+      }
+      for (var i = 0; i < key.length; i++) {
+        if (buffer.get(keyStart + i) != key[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private static byte[] bytes(final String value) {
+      return value.getBytes(StandardCharsets.US_ASCII);
+    }
+  }
+
+  /**
+   * Open addressing hash table from byte slices of the chunk to their dictionary codes, so known
+   * values are looked up without creating a string.
+   */
+  private static final class SliceCache {
+
+    private static final UseCase[] NO_OPERATIONS = new UseCase[0];
+
+    private final ByteBuffer buffer;
+
+    private final StringDictionary dictionary;
+
+    private byte[][] keys = new byte[64][];
+
+    private int[] hashes = new int[64];
+
+    private int[] codes = new int[64];
+
+    private int size;
+
+    /** Operations by dictionary code, null for codes, which are no operation */
+    private UseCase[] operations = NO_OPERATIONS;
+
+    private boolean[] operationResolved = new boolean[0];
+
+    private SliceCache(final ByteBuffer buffer, final StringDictionary dictionary) {
+      this.buffer = buffer;
+      this.dictionary = dictionary;
+    }
+
+    private int code(final int start, final int end) {
+      final var hash = hash(start, end);
+      final var mask = keys.length - 1;
+      var slot = hash & mask;
+      while (keys[slot] != null) {
+        if (hashes[slot] == hash && sliceEquals(keys[slot], start, end)) {
+          return codes[slot];
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      final var key = new byte[end - start];
+      buffer.get(start, key);
+      final var code = dictionary.code(new String(key, StandardCharsets.UTF_8));
+      keys[slot] = key;
+      hashes[slot] = hash;
+      codes[slot] = code;
+      if (++size * 2 > keys.length) {
+        rehash();
+      }
+      return code;
+    }
+
+    private UseCase operation(final int start, final int end) {
+      final var code = code(start, end);
+      if (code >= operations.length) {
+        final var length = Math.max(code + 1, operations.length * 2);
+        operations = Arrays.copyOf(operations, length);
+        operationResolved = Arrays.copyOf(operationResolved, length);
+      }
+      if (!operationResolved[code]) {
+        operations[code] =
+            Arrays.stream(UseCase.values())
+                .filter(useCase -> useCase.value().equals(dictionary.value(code)))
+                .findFirst()
+                .orElse(null);
+        operationResolved[code] = true;
+      }
+      return operations[code];
+    }
+
+    private int hash(final int start, final int end) {
+      var hash = 1;
+      for (var i = start; i < end; i++) {
+        hash = 31 * hash + buffer.get(i);
+      }
+      return hash ^ (hash >>> 16);
+    }
+
+    private boolean sliceEquals(final byte[] key, final int start, final int end) {
+      if (key.length != end - start) {
+        return false;
+      }
+      for (var i = 0; i < key.length; i++) {
+        if (key[i] != buffer.get(start + i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void rehash() {
+      final var oldKeys = keys;
+      final var oldHashes = hashes;
+      final var oldCodes = codes;
+      keys = new byte[oldKeys.length * 2][];
+      hashes = new int[keys.length];
+      codes = new int[keys.length];
+      final var mask = keys.length - 1;
+      for (var i = 0; i < oldKeys.length; i++) {
+        if (oldKeys[i] != null) {
+          var slot = oldHashes[i] & mask;
+          while (keys[slot] != null) {
+            slot = (slot + 1) & mask;
+          }
+          keys[slot] = oldKeys[i];
+          hashes[slot] = oldHashes[i];
+          codes[slot] = oldCodes[i];
+        }
+      }
+    }
+  }
+}
@@ -19,11 +19,17 @@
  * by gematik, find details in the "Readme" file.
  */
 
-package de.gematik.test.ncp.ncpeh.client.dataobject;
+package de.gematik.test.ncp.reporting.perflog;
 
-import java.util.Map;
-import org.springframework.http.HttpMethod;
+/** Receives the lines of a performance log, as parsed by the {@link PerformanceLogParser}. */
+@FunctionalInterface
+public interface PerformanceLogVisitor {
 
-public record HttpRequestDataRecord<S>(
-    HttpMethod method, String address, Map<String, String> headers, S content)
-    implements HttpRequestData<S> {}
+  /**
+   * Visit a line of the performance log. The line object is reused for the next line, so it must
+   * not be kept beyond the call.
+   *
+   * @param line the parsed line
+   */
+  void visit(PerformanceLogLine line);
+}
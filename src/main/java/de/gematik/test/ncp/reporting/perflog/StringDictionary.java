@@ -0,0 +1,75 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Dictionary encoding of the text fields of the performance log, which only take a few distinct
+ * values (status, requesting country, error code). The codes are assigned in the order the values
+ * are seen first and may be used by many threads at once.
+ */
+public final class StringDictionary {
+
+  /** Code of a missing value */
+  public static final int ABSENT = -1;
+
+  private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+
+  private final List<String> values = new CopyOnWriteArrayList<>();
+
+  /**
+   * Get the code of a value, adding the value if it is new.
+   *
+   * @param value the value
+   * @return its code
+   */
+  public int code(final String value) {
+    final var existing = codes.get(value);
+    if (existing != null) {
+      return existing;
+    }
+    synchronized (this) {
+      return codes.computeIfAbsent(
+          value,
+          newValue -> {
+            values.add(newValue);
+            return values.size() - 1;
+          });
+    }
+  }
+
+  /**
+   * @param code a code of this dictionary or {@link #ABSENT}
+   * @return the value of the code, null for {@link #ABSENT}
+   */
+  public String value(final int code) {
+    return code == ABSENT ? null : values.get(code);
+  }
+
+  public int size() {
+    return values.size();
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import lombok.experimental.UtilityClass;
+
+/**
+ * Variable length encoding of numbers: 7 bits per byte, least significant group first, the highest
+ * bit of a byte marks that another byte follows. Signed numbers are zigzag encoded before, so small
+ * negative numbers stay short as well.
+ */
+@UtilityClass
+class Varints {
+
+  static void writeUnsigned(final DataOutput out, final long value) throws IOException {
+    var remaining = value;
+    while ((remaining & ~0x7FL) != 0) {
+      out.writeByte((int) ((remaining & 0x7F) | 0x80));
+      remaining >>>= 7;
+    }
+    out.writeByte((int) remaining);
+  }
+
+  static void writeSigned(final DataOutput out, final long value) throws IOException {
+    writeUnsigned(out, (value << 1) ^ (value >> 63));
+  }
+
+  static long readUnsigned(final ByteBuffer buffer) {
+    var value = 0L;
+    for (var shift = 0; shift < 64; shift += 7) {
+      final var b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("Malformed varint at position " + buffer.position());
+  }
+
+  static long readSigned(final ByteBuffer buffer) {
+    final var encoded = readUnsigned(buffer);
+    return (encoded >>> 1) ^ -(encoded & 1);
+  }
+}
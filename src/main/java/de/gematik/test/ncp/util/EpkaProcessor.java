@@ -21,8 +21,6 @@
 
 package de.gematik.test.ncp.util;
 
-import static de.gematik.test.ncp.util.Utils.supplyOrThrowSneaky;
-
 import de.gematik.test.ncp.data.PersonName;
 import java.net.URL;
 import java.time.LocalDate;
@@ -57,29 +55,19 @@ public class EpkaProcessor extends XmlProcessor<EpkaProcessor> {
   public static final String NAME_PREFIX_XPATH_IN_EPKA =
       "//fhir:Patient/fhir:name/fhir:prefix/@value";
 
-  @Getter(lazy = true)
-  private static final XPathExpression kvnrXpath =
-      supplyOrThrowSneaky(() -> xpathProcessor().compile(KVNR_XPATH_IN_EPKA));
+  // the expressions are thread safe, they borrow compiled expressions from a pool
+  @Getter private static final XPathExpression kvnrXpath = compile(KVNR_XPATH_IN_EPKA);
 
-  @Getter(lazy = true)
-  private static final XPathExpression birthDatePath =
-      supplyOrThrowSneaky(() -> xpathProcessor().compile(BIRTHDATE_XPATH_IN_EPKA));
+  @Getter private static final XPathExpression birthDatePath = compile(BIRTHDATE_XPATH_IN_EPKA);
 
-  @Getter(lazy = true)
-  private static final XPathExpression fullNamePath =
-      supplyOrThrowSneaky(() -> xpathProcessor().compile(FULL_NAME_XPATH_IN_EPKA));
+  @Getter private static final XPathExpression fullNamePath = compile(FULL_NAME_XPATH_IN_EPKA);
 
-  @Getter(lazy = true)
-  private static final XPathExpression lastNamePath =
-      supplyOrThrowSneaky(() -> xpathProcessor().compile(LAST_NAME_XPATH_IN_EPKA));
+  @Getter private static final XPathExpression lastNamePath = compile(LAST_NAME_XPATH_IN_EPKA);
 
-  @Getter(lazy = true)
-  private static final XPathExpression givenNamePath =
-      supplyOrThrowSneaky(() -> xpathProcessor().compile(GIVEN_NAME_XPATH_IN_EPKA));
+  @Getter private static final XPathExpression givenNamePath = compile(GIVEN_NAME_XPATH_IN_EPKA);
 
-  @Getter(lazy = true)
-  private static final XPathExpression namePrefixPath =
-      supplyOrThrowSneaky(() -> xpathProcessor().compile(NAME_PREFIX_XPATH_IN_EPKA));
+  @Getter
+  private static final XPathExpression namePrefixPath = compile(NAME_PREFIX_XPATH_IN_EPKA);
 
   public EpkaProcessor(@NonNull final URL epkaFileUrl) {
     super(epkaFileUrl);
@@ -0,0 +1,353 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import de.gematik.test.ncp.data.PersonName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.Accessors;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Parsed ePKA template, from which the ePKAs of the patients are created without DOM or XPath.<br>
+ * When a template is loaded, the attribute values the {@link EpkaProcessor} updates are located
+ * once, as byte ranges in the template. An ePKA is then created by copying the template bytes and
+ * putting the escaped patient values in place of these ranges. The templates are cached per URL and
+ * never changed after loading, so they can be used by several threads at once.<br>
+ * Templates not encoded in UTF-8 are processed by the {@link EpkaProcessor}.
+ */
+@Slf4j
+@Accessors(fluent = true)
+public final class EpkaTemplate {
+
+  private static final Map<String, EpkaTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+  /** Attribute values of the patient, which are replaced; the same as of the EpkaProcessor */
+  public enum Field {
+    KVNR("identifier", "value"),
+    BIRTH_DATE("birthDate"),
+    FULL_NAME("name", "text"),
+    NAME_PREFIX("name", "prefix"),
+    LAST_NAME("name", "family"),
+    GIVEN_NAME("name", "given");
+
+    /** Path of the element below the Patient element, whose value attribute is replaced */
+    private final List<String> path;
+
+    Field(final String... path) {
+      this.path = List.of(path);
+    }
+  }
+
+  private record Placeholder(Field field, int start, int end) {}
+
+  private final URL url;
+
+  private final byte[] template;
+
+  /** The located attribute values, in the order of their position */
+  private final Placeholder[] placeholders;
+
+  /** False, if the template has to be processed by the EpkaProcessor */
+  @Getter private final boolean spliceable;
+
+  private EpkaTemplate(final URL url, final byte[] template) {
+    this.url = url;
+    this.template = template;
+    final var located = locatePlaceholders(template);
+    this.spliceable = located != null;
+    this.placeholders = spliceable ? located : new Placeholder[0];
+  }
+
+  /**
+   * Get the template of the given URL, loading and parsing it on first use.
+   *
+   * @param url the URL of the template
+   * @return the template
+   */
+  public static EpkaTemplate forUrl(@NonNull final URL url) {
+    return TEMPLATES.computeIfAbsent(url.toExternalForm(), key -> load(url));
+  }
+
+  @SneakyThrows
+  private static EpkaTemplate load(final URL url) {
+    try (final InputStream in = url.openStream()) {
+      final var template = new EpkaTemplate(url, in.readAllBytes());
+      log.debug(
+          "Loaded ePKA template {}, placeholders: {}",
+          url,
+          Arrays.stream(template.placeholders).map(Placeholder::field).toList());
+      return template;
+    }
+  }
+
+  /**
+   * @param field the attribute value of the patient
+   * @return true, if the template contains the attribute value
+   */
+  public boolean contains(@NonNull final Field field) {
+    return Arrays.stream(placeholders).anyMatch(placeholder -> placeholder.field() == field);
+  }
+
+  /**
+   * Create the ePKA of a patient, with the same content as created by the {@link EpkaProcessor}.
+   *
+   * @param kvnr KVNR of the patient
+   * @param birthDate birth date of the patient
+   * @param name name of the patient
+   * @return the ePKA as UTF-8 encoded XML
+   */
+  public byte[] createEpka(
+      @NonNull final String kvnr,
+      @NonNull final LocalDate birthDate,
+      @NonNull final PersonName name) {
+    if (!spliceable) {
+      return new EpkaProcessor(url)
+          .updateBirthDate(birthDate)
+          .updateKvnr(kvnr)
+          .updateName(name)
+          .toXmlString()
+          .getBytes(StandardCharsets.UTF_8);
+    }
+
+    final var values = new EnumMap<Field, byte[]>(Field.class);
+    values.put(Field.KVNR, escaped(kvnr));
+    values.put(Field.BIRTH_DATE, escaped(birthDate.format(DateTimeFormatter.ISO_LOCAL_DATE)));
+    values.put(Field.FULL_NAME, escaped(name.toString()));
+    values.put(Field.NAME_PREFIX, escaped(Objects.requireNonNullElse(name.titles(), "")));
+    values.put(Field.LAST_NAME, escaped(Objects.requireNonNull(name.lastNames())));
+    values.put(Field.GIVEN_NAME, escaped(Objects.requireNonNull(name.givenNames())));
+
+    final var out = new ByteArrayOutputStream(template.length + 256);
+    var position = 0;
+    for (final var placeholder : placeholders) {
+      out.write(template, position, placeholder.start() - position);
+      out.writeBytes(values.get(placeholder.field()));
+      position = placeholder.end();
+    }
+    out.write(template, position, template.length - position);
+    return out.toByteArray();
+  }
+
+  /**
+   * Locate the value attributes of the fields: the first element of each path below a Patient
+   * element with a value attribute, like the XPaths of the EpkaProcessor. StAX determines which
+   * start tag it is, a scan of the bytes where its value attribute is.
+   *
+   * @return the placeholders ordered by position, null if the template isn't UTF-8 encoded
+   */
+  @SneakyThrows
+  private static Placeholder[] locatePlaceholders(final byte[] template) {
+    final var factory = XMLInputFactory.newFactory();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    final var reader = factory.createXMLStreamReader(new ByteArrayInputStream(template));
+    final var encoding = reader.getCharacterEncodingScheme();
+    if (encoding != null && !StandardCharsets.UTF_8.name().equalsIgnoreCase(encoding)) {
+      reader.close();
+      return null;
+    }
+
+    // ordinal of the start tag of each field in the document
+    final var ordinals = new EnumMap<Field, Integer>(Field.class);
+    final var elements = new ArrayList<String>();
+    var ordinal = -1;
+    while (reader.hasNext()) {
+      final var event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        ordinal++;
+        final var inFhirNamespace = XmlProcessor.FHIR_NAMESPACE.equals(reader.getNamespaceURI());
+        elements.add(inFhirNamespace ? reader.getLocalName() : null);
+        if (reader.getAttributeValue(XMLConstants.NULL_NS_URI, "value") != null) {
+          for (final var field : Field.values()) {
+            if (!ordinals.containsKey(field) && isBelowPatient(elements, field.path)) {
+              ordinals.put(field, ordinal);
+            }
+          }
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        elements.removeLast();
+      }
+    }
+    reader.close();
+
+    final var placeholders = new ArrayList<Placeholder>();
+    ordinals.forEach(
+        (field, tag) -> {
+          final var range = valueAttributeOfStartTag(template, tag);
+          placeholders.add(new Placeholder(field, range[0], range[1]));
+        });
+    placeholders.sort(Comparator.comparingInt(Placeholder::start));
+    return placeholders.toArray(Placeholder[]::new);
+  }
+
+  private static boolean isBelowPatient(final List<String> elements, final List<String> path) {
+    final var patientIndex = elements.size() - path.size() - 1;
+    return patientIndex >= 0
+        && "Patient".equals(elements.get(patientIndex))
+        && path.equals(elements.subList(patientIndex + 1, elements.size()));
+  }
+
+  /**
+   * Find the value attribute of the n-th start tag of the document.
+   *
+   * @return start (inclusive) and end (exclusive) of the attribute value
+   */
+  private static int[] valueAttributeOfStartTag(final byte[] xml, final int ordinal) {
+    var count = -1;
+    var i = 0;
+    while (i < xml.length) {
+      if (xml[i] != '<') {
+        i++;
+      } else if (startsWith(xml, i, "<!--")) {
+        i = indexOf(xml, i + 4, "-->") + 3;
+      } else if (startsWith(xml, i, "<![CDATA[")) {
+        i = indexOf(xml, i + 9, "]]>") + 3;
+      } else if (startsWith(xml, i, "<?")) {
+        i = indexOf(xml, i + 2, "?>") + 2;
+      } else if (startsWith(xml, i, "<!") || startsWith(xml, i, "</")) {
+        i = indexOf(xml, i + 2, ">") + 1;
+      } else if (++count == ordinal) {
+        return valueAttribute(xml, i);
+      } else {
+        i = endOfTag(xml, i);
+      }
+    }
+    throw new IllegalStateException("Start tag " + ordinal + " not found in ePKA template");
+  }
+
+  /** Find the value attribute in the start tag beginning at the given position */
+  private static int[] valueAttribute(final byte[] xml, final int tagStart) {
+    // skip the element name
+    var i = tagStart + 1;
+    while (!isWhitespace(xml[i]) && xml[i] != '>' && xml[i] != '/') {
+      i++;
+    }
+    while (true) {
+      while (isWhitespace(xml[i])) {
+        i++;
+      }
+      if (xml[i] == '>' || xml[i] == '/') {
+        throw new IllegalStateException("value attribute not found in ePKA template");
+      }
+      final var nameStart = i;
+      while (xml[i] != '=' && !isWhitespace(xml[i])) {
+        i++;
+      }
+      final var name = new String(xml, nameStart, i - nameStart, StandardCharsets.UTF_8);
+      while (xml[i] != '"' && xml[i] != '\'') {
+        i++;
+      }
+      final var quote = xml[i];
+      final var valueStart = i + 1;
+      i = valueStart;
+      while (xml[i] != quote) {
+        i++;
+      }
+      if ("value".equals(name)) {
+        return new int[] {valueStart, i};
+      }
+      i++;
+    }
+  }
+
+  /** Position behind the tag beginning at the given position, respecting quoted values */
+  private static int endOfTag(final byte[] xml, final int tagStart) {
+    byte quote = 0;
+    for (var i = tagStart + 1; i < xml.length; i++) {
+      if (quote != 0) {
+        if (xml[i] == quote) {
+          quote = 0;
+        }
+      } else if (xml[i] == '"' || xml[i] == '\'') {
+        quote = xml[i];
+      } else if (xml[i] == '>') {
+        return i + 1;
+      }
+    }
+    return xml.length;
+  }
+
+  private static boolean startsWith(final byte[] xml, final int position, final String prefix) {
+    if (position + prefix.length() > xml.length) {
+      return false;
+    }
+    for (var i = 0; i < prefix.length(); i++) {
+      if (xml[position + i] != prefix.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int indexOf(final byte[] xml, final int from, final String text) {
+    for (var i = from; i <= xml.length - text.length(); i++) {
+      if (startsWith(xml, i, text)) {
+        return i;
+      }
+    }
+    return xml.length;
+  }
+
+  private static boolean isWhitespace(final byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+
+  /** The value escaped for an attribute value in double or single quotes, UTF-8 encoded */
+  private static byte[] escaped(final String value) {
+    final var result = new StringBuilder(value.length() + 16);
+    for (var i = 0; i < value.length(); i++) {
+      final var c = value.charAt(i);
+      switch (c) {
+        case '&' -> result.append("&amp;");
+        case '<' -> result.append("&lt;");
+        case '>' -> result.append("&gt;");
+        case '"' -> result.append("&quot;");
+        case '\'' -> result.append("&apos;");
+        case '\t' -> result.append("&#9;");
+        case '\n' -> result.append("&#10;");
+        case '\r' -> result.append("&#13;");
+        default -> result.append(c);
+      }
+    }
+    return result.toString().getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import ihe.iti.xds_b._2007.ProvideAndRegisterDocumentSetRequestType;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetRequestType;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryRequest;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+import oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryResponseType;
+import org.hl7.v3.ClinicalDocument;
+import org.hl7.v3.PRPAIN201305UV02;
+import org.hl7.v3.PRPAIN201306UV02;
+
+/**
+ * Registry for {@link JAXBContext} instances, one per target class.<br>
+ * Creating a JAXBContext introspects the complete model reachable from the target class, which is
+ * expensive for the HL7v3, ebXML and CDA models. The contexts are thread safe and therefore created
+ * only once and shared. {@link Unmarshaller} instances are not thread safe, so they are borrowed
+ * from a small bounded pool per class for the time of one unmarshalling. The pool works the same
+ * for platform and virtual threads and doesn't keep unmarshallers alive per thread.
+ */
+@Slf4j
+@UtilityClass
+public class JaxbContextRegistry {
+
+  /** The model classes, which are unmarshalled by the test suite while talking to the NCPeH. */
+  public static final List<Class<?>> NCPEH_MODEL_CLASSES =
+      List.of(
+          PRPAIN201305UV02.class,
+          PRPAIN201306UV02.class,
+          AdhocQueryRequest.class,
+          AdhocQueryResponse.class,
+          RetrieveDocumentSetRequestType.class,
+          RetrieveDocumentSetResponseType.class,
+          ProvideAndRegisterDocumentSetRequestType.class,
+          RegistryResponseType.class,
+          ClinicalDocument.class);
+
+  private static final Map<Class<?>, JAXBContext> CONTEXTS = new ConcurrentHashMap<>();
+
+  private static final Map<Class<?>, ObjectPool<Unmarshaller>> UNMARSHALLERS =
+      new ConcurrentHashMap<>();
+
+  /** Function working with a borrowed {@link Unmarshaller} */
+  @FunctionalInterface
+  public interface UnmarshallerFunction<R> {
+    R apply(Unmarshaller unmarshaller) throws JAXBException;
+  }
+
+  /**
+   * Get the {@link JAXBContext} for the given class. The context is created on first request.
+   *
+   * @param objectType class for which the context is requested
+   * @return the shared context for the class
+   */
+  public static JAXBContext getContext(@NonNull final Class<?> objectType) {
+    return CONTEXTS.computeIfAbsent(objectType, JaxbContextRegistry::newContext);
+  }
+
+  /**
+   * Run the function with an {@link Unmarshaller} for the given class. The unmarshaller is borrowed
+   * from the pool of the class, or created if none is idle, and returned afterwards. It must not be
+   * used outside the function. An unmarshaller, which failed, is dropped instead of returned.
+   *
+   * @param objectType class for which the unmarshaller is requested
+   * @param function function using the unmarshaller
+   * @return the result of the function
+   * @throws JAXBException if the function fails to unmarshal
+   */
+  public static <R> R withUnmarshaller(
+      @NonNull final Class<?> objectType, @NonNull final UnmarshallerFunction<R> function)
+      throws JAXBException {
+    return UNMARSHALLERS
+        .computeIfAbsent(
+            objectType,
+            type ->
+                new ObjectPool<>(
+                    () -> Utils.supplyOrThrowSneaky(() -> getContext(type).createUnmarshaller())))
+        .apply(function::apply);
+  }
+
+  /**
+   * @param objectType class to check
+   * @return number of idle unmarshallers in the pool of the class
+   */
+  static int idleUnmarshallers(@NonNull final Class<?> objectType) {
+    final var pool = UNMARSHALLERS.get(objectType);
+    return pool == null ? 0 : pool.idle();
+  }
+
+  /**
+   * Create the contexts for all {@link #NCPEH_MODEL_CLASSES} upfront, so that the first parsed
+   * response does not pay for it.
+   */
+  public static void warmUp() {
+    warmUp(NCPEH_MODEL_CLASSES);
+  }
+
+  /**
+   * Create the contexts for the given classes upfront.
+   *
+   * @param objectTypes classes for which the contexts shall be created
+   */
+  public static void warmUp(@NonNull final Collection<Class<?>> objectTypes) {
+    final var start = System.currentTimeMillis();
+    objectTypes.parallelStream().forEach(JaxbContextRegistry::getContext);
+    log.info(
+        "Warmed up {} JAXB contexts in {} ms",
+        objectTypes.size(),
+        System.currentTimeMillis() - start);
+  }
+
+  /**
+   * Check whether a context was already created for the given class.
+   *
+   * @param objectType class to check
+   * @return true, if a context exists, false otherwise
+   */
+  public static boolean isWarm(@NonNull final Class<?> objectType) {
+    return CONTEXTS.containsKey(objectType);
+  }
+
+  @SneakyThrows
+  private static JAXBContext newContext(final Class<?> objectType) {
+    log.debug("Creating JAXB context for {}", objectType.getName());
+    return JAXBContext.newInstance(objectType);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import lombok.NonNull;
+
+/**
+ * Small bounded pool for objects, which are expensive to create, but not thread safe, like JAXB
+ * unmarshallers or JAXP parsers. An object is borrowed for the time of one function call and
+ * handed back afterwards, so it is never used by two threads at once. If no object is idle, a new
+ * one is created; at most {@code maxIdle} objects are kept. Unlike a {@link ThreadLocal}, the pool
+ * works the same for platform and virtual threads and doesn't keep objects alive per thread.
+ *
+ * @param <T> type of the pooled objects
+ */
+public final class ObjectPool<T> {
+
+  /** Default maximum number of idle objects */
+  static final int DEFAULT_MAX_IDLE = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+  private final int maxIdle;
+
+  private final Supplier<T> factory;
+
+  private final Queue<T> idleObjects = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger idle = new AtomicInteger();
+
+  /** Function working with a borrowed object */
+  @FunctionalInterface
+  public interface PooledFunction<T, R, E extends Exception> {
+    R apply(T object) throws E;
+  }
+
+  /**
+   * @param factory creates the objects of the pool
+   */
+  public ObjectPool(@NonNull final Supplier<T> factory) {
+    this(DEFAULT_MAX_IDLE, factory);
+  }
+
+  /**
+   * @param maxIdle maximum number of idle objects kept
+   * @param factory creates the objects of the pool
+   */
+  public ObjectPool(final int maxIdle, @NonNull final Supplier<T> factory) {
+    if (maxIdle < 1) {
+      throw new IllegalArgumentException("At least one idle object must be kept: " + maxIdle);
+    }
+    this.maxIdle = maxIdle;
+    this.factory = factory;
+  }
+
+  /**
+   * Run the function with an object of the pool. The object must not be used outside the function.
+   * An object, for which the function failed, is dropped instead of handed back, as its state is
+   * unknown.
+   *
+   * @param function function using the object
+   * @return the result of the function
+   * @throws E if the function fails
+   */
+  public <R, E extends Exception> R apply(@NonNull final PooledFunction<T, R, E> function)
+      throws E {
+    final var object = borrow();
+    final var result = function.apply(object);
+    giveBack(object);
+    return result;
+  }
+
+  /**
+   * @return number of idle objects
+   */
+  int idle() {
+    return idle.get();
+  }
+
+  private T borrow() {
+    final var object = idleObjects.poll();
+    if (object != null) {
+      idle.decrementAndGet();
+      return object;
+    }
+    return factory.get();
+  }
+
+  private void giveBack(final T object) {
+    if (idle.incrementAndGet() <= maxIdle) {
+      idleObjects.offer(object);
+    } else {
+      idle.decrementAndGet();
+    }
+  }
+}
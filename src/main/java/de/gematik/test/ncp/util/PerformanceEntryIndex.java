@@ -0,0 +1,297 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import de.gematik.test.ncp.reporting.model.Pair;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Index of the entries of a DWH performance report for matching them with the entries of the
+ * performance log of the test suite. The entries are grouped by operation, status and requesting
+ * country and sorted by timestamp within each group, so the candidates of an entry are found by a
+ * binary search for the start of its delta window.
+ *
+ * <p>First fit takes the earliest unmatched candidate; skipping matched candidates uses a
+ * path-compressed "next unmatched" link, so matching n entries against m DWH entries takes
+ * O((n+m)·log m). The optimal matching uses that, on a time line, a matching with minimal total
+ * delta never crosses: if a<sub>1</sub> &lt; a<sub>2</sub> are matched, so are b<sub>1</sub> &lt;
+ * b<sub>2</sub>. Per group it is therefore found by a dynamic program over the entries in time
+ * order, which only looks at the candidates within the delta window of every entry. Its time and
+ * memory grow with the sum of the window sizes, so it is limited to {@link #MAX_OPTIMAL_CELLS}
+ * candidates per group; a group with denser windows is matched first fit in time order instead.
+ */
+@Slf4j
+class PerformanceEntryIndex {
+
+  /** Maximal sum of the window sizes of one group, for which the optimal matching is computed */
+  static final long MAX_OPTIMAL_CELLS = 1L << 22;
+
+  private static final long UNREACHABLE = Long.MAX_VALUE;
+
+  private final Map<MatchKey, Group> groups;
+
+  PerformanceEntryIndex(final List<NcpehPerformanceReportEntry> dwhEntries) {
+    this.groups =
+        dwhEntries.stream()
+            .collect(Collectors.groupingBy(MatchKey::of))
+            .entrySet()
+            .stream()
+            .collect(
+                Collectors.toMap(
+                    Map.Entry::getKey, groupEntry -> new Group(groupEntry.getValue())));
+  }
+
+  /**
+   * Match every entry with the earliest candidate, which is not matched yet.
+   *
+   * @param entries entries to match, in the order they are to be matched in
+   * @param acceptableDelta maximal difference of the timestamps in milliseconds
+   * @return pairs of entry and DWH entry in the order of the given entries
+   * @throws NoSuchElementException for the first entry without a free candidate
+   */
+  List<Pair<NcpehPerformanceReportEntry, NcpehPerformanceReportEntry>> matchFirstFit(
+      final List<NcpehPerformanceReportEntry> entries, final long acceptableDelta) {
+    final var pairs =
+        new ArrayList<Pair<NcpehPerformanceReportEntry, NcpehPerformanceReportEntry>>(
+            entries.size());
+    for (final var entry : entries) {
+      final var match =
+          Optional.ofNullable(groups.get(MatchKey.of(entry)))
+              .flatMap(group -> group.takeFirstFree(entry.timestamp(), acceptableDelta))
+              .orElseThrow(() -> noMatch(entry));
+      pairs.add(new Pair<>(entry, match));
+    }
+    return pairs;
+  }
+
+  /**
+   * Match the entries such that the sum of the differences of the timestamps is minimal. Groups
+   * whose delta windows together hold more than {@link #MAX_OPTIMAL_CELLS} candidates are matched
+   * first fit in time order.
+   *
+   * @param entries entries to match
+   * @param acceptableDelta maximal difference of the timestamps in milliseconds
+   * @return pairs of entry and DWH entry in the order of the given entries
+   * @throws NoSuchElementException for an entry, if no matching for all entries exists
+   */
+  List<Pair<NcpehPerformanceReportEntry, NcpehPerformanceReportEntry>> matchOptimal(
+      final List<NcpehPerformanceReportEntry> entries, final long acceptableDelta) {
+    final var matches = new NcpehPerformanceReportEntry[entries.size()];
+    IntStream.range(0, entries.size())
+        .boxed()
+        .collect(Collectors.groupingBy(i -> MatchKey.of(entries.get(i))))
+        .forEach(
+            (key, indices) -> {
+              final var group = groups.get(key);
+              if (group == null) {
+                throw noMatch(entries.get(indices.getFirst()));
+              }
+              group.matchOptimal(entries, indices, acceptableDelta, matches);
+            });
+    return IntStream.range(0, entries.size())
+        .mapToObj(i -> new Pair<>(entries.get(i), matches[i]))
+        .toList();
+  }
+
+  static NoSuchElementException noMatch(final NcpehPerformanceReportEntry entry) {
+    return new NoSuchElementException(
+        "No matching entry found for entry: " + entry + " in DWH entries!");
+  }
+
+  private record MatchKey(UseCase operation, String status, String reqc) {
+
+    static MatchKey of(final NcpehPerformanceReportEntry entry) {
+      return new MatchKey(
+          entry.operation(),
+          entry.status(),
+          Optional.ofNullable(entry.message()).map(NcpehPerformanceMessage::reqc).orElse(null));
+    }
+  }
+
+  /** DWH entries of one match key, sorted by timestamp */
+  private static final class Group {
+
+    private final NcpehPerformanceReportEntry[] entries;
+
+    private final long[] timestamps;
+
+    /** Index of the next unmatched entry at or after each index, compressed on lookup */
+    private final int[] nextFree;
+
+    private Group(final List<NcpehPerformanceReportEntry> groupEntries) {
+      this.entries =
+          groupEntries.stream()
+              .sorted(Comparator.comparingLong(NcpehPerformanceReportEntry::timestamp))
+              .toArray(NcpehPerformanceReportEntry[]::new);
+      this.timestamps =
+          Arrays.stream(entries).mapToLong(NcpehPerformanceReportEntry::timestamp).toArray();
+      this.nextFree = IntStream.rangeClosed(0, entries.length).toArray();
+    }
+
+    private Optional<NcpehPerformanceReportEntry> takeFirstFree(
+        final long timestamp, final long acceptableDelta) {
+      final var candidate = findFree(lowerBound(timestamp - acceptableDelta));
+      if (candidate >= entries.length || timestamps[candidate] > timestamp + acceptableDelta) {
+        return Optional.empty();
+      }
+      nextFree[candidate] = candidate + 1;
+      return Optional.of(entries[candidate]);
+    }
+
+    private int findFree(final int index) {
+      var root = index;
+      while (nextFree[root] != root) {
+        root = nextFree[root];
+      }
+      var current = index;
+      while (nextFree[current] != root) {
+        final var next = nextFree[current];
+        nextFree[current] = root;
+        current = next;
+      }
+      return root;
+    }
+
+    /**
+     * Dynamic program over the given entries in time order: cost[j] of a row is the minimal total
+     * delta of matching the entries up to the current one, with the current one matched to the
+     * DWH entry j of its window; the previous entry must then be matched to a DWH entry before j.
+     */
+    private void matchOptimal(
+        final List<NcpehPerformanceReportEntry> allEntries,
+        final List<Integer> indices,
+        final long acceptableDelta,
+        final NcpehPerformanceReportEntry[] matches) {
+      final var sorted =
+          indices.stream()
+              .sorted(Comparator.comparingLong(i -> allEntries.get(i).timestamp()))
+              .mapToInt(Integer::intValue)
+              .toArray();
+      final var windowStart = new int[sorted.length];
+      final var windowEnd = new int[sorted.length];
+      var cells = 0L;
+      for (var row = 0; row < sorted.length; row++) {
+        final var timestamp = allEntries.get(sorted[row]).timestamp();
+        windowStart[row] = lowerBound(timestamp - acceptableDelta);
+        windowEnd[row] = Math.max(upperBound(timestamp + acceptableDelta), windowStart[row]);
+        cells += windowEnd[row] - windowStart[row];
+      }
+      if (cells > MAX_OPTIMAL_CELLS) {
+        log.warn(
+            "Delta windows of {} entries hold {} candidates, matching them first fit",
+            sorted.length,
+            cells);
+        for (final var index : sorted) {
+          final var entry = allEntries.get(index);
+          matches[index] =
+              takeFirstFree(entry.timestamp(), acceptableDelta).orElseThrow(() -> noMatch(entry));
+        }
+        return;
+      }
+
+      final var predecessors = new int[sorted.length][];
+      var previousCost = new long[0];
+
+      for (var row = 0; row < sorted.length; row++) {
+        final var timestamp = allEntries.get(sorted[row]).timestamp();
+        final var cost = new long[windowEnd[row] - windowStart[row]];
+        predecessors[row] = new int[cost.length];
+
+        // running minimum over the previous row's DWH entries before j
+        var previousColumn = 0;
+        var bestPrevious = row == 0 ? 0 : UNREACHABLE;
+        var bestPreviousIndex = -1;
+        var reachable = false;
+        for (var column = 0; column < cost.length; column++) {
+          final var dwhIndex = windowStart[row] + column;
+          if (row > 0) {
+            while (previousColumn < previousCost.length
+                && windowStart[row - 1] + previousColumn < dwhIndex) {
+              if (previousCost[previousColumn] < bestPrevious) {
+                bestPrevious = previousCost[previousColumn];
+                bestPreviousIndex = windowStart[row - 1] + previousColumn;
+              }
+              previousColumn++;
+            }
+          }
+          cost[column] =
+              bestPrevious == UNREACHABLE
+                  ? UNREACHABLE
+                  : bestPrevious + Math.abs(timestamps[dwhIndex] - timestamp);
+          predecessors[row][column] = bestPreviousIndex;
+          reachable |= cost[column] != UNREACHABLE;
+        }
+        if (!reachable) {
+          throw noMatch(allEntries.get(sorted[row]));
+        }
+        previousCost = cost;
+      }
+
+      // walk back from the cheapest match of the last entry
+      var column = 0;
+      for (var candidate = 1; candidate < previousCost.length; candidate++) {
+        if (previousCost[candidate] < previousCost[column]) {
+          column = candidate;
+        }
+      }
+      for (var row = sorted.length - 1; row >= 0; row--) {
+        final var dwhIndex = windowStart[row] + column;
+        matches[sorted[row]] = entries[dwhIndex];
+        if (row > 0) {
+          column = predecessors[row][column] - windowStart[row - 1];
+        }
+      }
+    }
+
+    /** Index of the first entry with a timestamp not below the given one */
+    private int lowerBound(final long timestamp) {
+      var low = 0;
+      var high = timestamps.length;
+      while (low < high) {
+        final var mid = (low + high) >>> 1;
+        if (timestamps[mid] < timestamp) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /** Index of the first entry with a timestamp above the given one */
+    private int upperBound(final long timestamp) {
+      return lowerBound(timestamp == Long.MAX_VALUE ? timestamp : timestamp + 1);
+    }
+  }
+}
@@ -23,14 +23,16 @@ package de.gematik.test.ncp.util;
 
 import static de.gematik.test.ncp.data.Testdata.TESTDATA_BASEKEY;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import de.gematik.test.ncp.reporting.Environment;
-import de.gematik.test.ncp.reporting.UseCase;
-import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
+import de.gematik.test.ncp.reporting.MatchingMode;
+import de.gematik.test.ncp.reporting.PerformanceLogManifest;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportDWHResponseEntry;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
 import de.gematik.test.ncp.reporting.model.Pair;
+import de.gematik.test.ncp.reporting.perflog.BinaryPerformanceLog;
+import de.gematik.test.ncp.reporting.perflog.BinaryPerformanceLogWriter;
+import de.gematik.test.ncp.reporting.perflog.PerformanceLogParser;
 import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -38,15 +40,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.Comparator;
-import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.stream.Collector;
 import java.util.stream.Stream;
 import lombok.SneakyThrows;
 import lombok.experimental.UtilityClass;
@@ -61,6 +59,11 @@ public class ReportingUtils {
 
   public static final String NCPEH_SIMULATION_PERFORMANCE_LOG_DEFAULT_FILENAME =
       "target/reporting/performance.log";
+
+  public static final String BINARY_PERFORMANCE_LOG_KEY = TESTDATA_BASEKEY + ".reporting.binaryLog";
+
+  public static final String BINARY_PERFORMANCE_LOG_SUFFIX = ".bin";
+
   public static final String CSV_SEPARATOR = ";";
 
   public static final String DWH_GET_PERFORMANCE_REPORT_RESPONSE_BODY =
@@ -114,9 +117,10 @@ public class ReportingUtils {
   }
 
   /**
-   * Finds the performance log file for the given test case ID in the reporting folder. Searches for
-   * regular files containing the test case ID in their file name. Returns the file with the latest
-   * name (lexicographically).
+   * Finds the performance log file for the given test case ID in the reporting folder. The {@link
+   * PerformanceLogManifest} of the folder is asked first; only if it knows no matching file, the
+   * folder is searched for regular files containing the test case ID in their file name. Returns
+   * the file with the latest name (lexicographically).
    *
    * @param testCaseId the ID of the test case
    * @return an Optional containing the path to the performance log file, or an empty Optional if no
@@ -125,9 +129,13 @@ public class ReportingUtils {
   @SneakyThrows
   public static Optional<Path> getPerformanceLogFile(final String testCaseId) {
     return Optional.ofNullable(testCaseId)
-        .map(
+        .flatMap(
             caseId -> {
               final var reportingFolder = getReportingFolder();
+              final var indexed = PerformanceLogManifest.forFolder(reportingFolder).find(caseId);
+              if (indexed.isPresent()) {
+                return indexed;
+              }
 
               try (final Stream<Path> files =
                   Files.find(
@@ -141,60 +149,94 @@ public class ReportingUtils {
                 log.error("Error while searching for performance log file", e);
               }
               return Optional.<Path>empty();
-            })
-        .orElse(Optional.empty());
+            });
   }
 
-  @SneakyThrows
-  private Stream<String> readFileLines(final Path performanceLogFile) {
-    log.debug("Reading performance log file: {}", performanceLogFile);
-    return Files.lines(performanceLogFile);
+  /**
+   * Finds the scenario performance logs of the reporting folder with calls started in the given
+   * time range, using the {@link PerformanceLogManifest} of the folder.
+   *
+   * @param from start of the time range, inclusive
+   * @param to end of the time range, inclusive
+   * @return the paths of the log files, ordered by their first call
+   */
+  public static List<Path> getPerformanceLogFiles(final Instant from, final Instant to) {
+    final var reportingFolder = getReportingFolder();
+    return PerformanceLogManifest.forFolder(reportingFolder)
+        .overlapping(from.toEpochMilli(), to.toEpochMilli())
+        .stream()
+        .map(entry -> reportingFolder.resolve(entry.fileName()))
+        .toList();
   }
 
-  @SneakyThrows
+  /**
+   * Read the performance log file. The file is parsed in parallel chunks by the {@link
+   * PerformanceLogParser}; lines, which can't be parsed, are skipped.
+   *
+   * @param performanceLogFile the performance log file
+   * @return the performance report, empty if the file doesn't exist
+   */
   public static NcpehPerformanceReport readPerformanceLogFile(
       final Optional<Path> performanceLogFile) {
-    return performanceLogFile.filter(Files::isRegularFile).stream()
-        .flatMap(ReportingUtils::readFileLines)
-        .map(ReportingUtils::parsePerformanceLogLine)
-        .filter(Objects::nonNull)
-        .collect(
-            Collector.of(
-                NcpehPerformanceReport::new,
-                NcpehPerformanceReport::addEntry,
-                (left, right) -> {
-                  left.getEntries().addAll(right.getEntries());
-                  return left;
-                }));
+    return performanceLogFile
+        .filter(Files::isRegularFile)
+        .map(
+            file -> {
+              log.debug("Reading performance log file: {}", file);
+              return new PerformanceLogParser().readColumns(file).toReport();
+            })
+        .orElseGet(NcpehPerformanceReport::new);
   }
 
-  private static NcpehPerformanceReportEntry parsePerformanceLogLine(final String line) {
-    log.debug("Parsing performance log line: {}", line);
-    if (line.isBlank()) {
-      return null;
-    }
-    final var parts = line.split(CSV_SEPARATOR);
-    if (parts.length != 5) {
-      return null;
+  /**
+   * @return true, if the performance log shall also be written in the binary format at the end of
+   *     the test run
+   */
+  public static boolean isBinaryPerformanceLogEnabled() {
+    return Boolean.parseBoolean(
+        TigerGlobalConfiguration.readString(BINARY_PERFORMANCE_LOG_KEY, "false"));
+  }
+
+  /**
+   * Convert the performance log file into the binary format of the {@link BinaryPerformanceLog}.
+   * The binary file is written next to the performance log file, with the suffix {@value
+   * #BINARY_PERFORMANCE_LOG_SUFFIX} appended to its name.
+   *
+   * @param performanceLogFile the performance log file
+   * @return the path of the binary file
+   */
+  public static Path convertToBinaryPerformanceLog(final Path performanceLogFile) {
+    final var binaryFile =
+        performanceLogFile.resolveSibling(
+            performanceLogFile.getFileName() + BINARY_PERFORMANCE_LOG_SUFFIX);
+    final var records = BinaryPerformanceLogWriter.convert(performanceLogFile, binaryFile);
+    log.debug("Wrote {} records of {} to {}", records, performanceLogFile, binaryFile);
+    return binaryFile;
+  }
+
+  /**
+   * Read the entries of a binary performance log, which were started in the given time range. Only
+   * the blocks of the file covering the time range are read.
+   *
+   * @param binaryLogFile the binary performance log
+   * @param from start of the time range, inclusive
+   * @param to end of the time range, inclusive
+   * @return the performance report, empty if the file doesn't exist
+   */
+  @SneakyThrows
+  public static NcpehPerformanceReport readBinaryPerformanceLog(
+      final Path binaryLogFile, final Instant from, final Instant to) {
+    if (!Files.isRegularFile(binaryLogFile)) {
+      return new NcpehPerformanceReport();
     }
-    try {
-      return new NcpehPerformanceReportEntry()
-          .timestamp(Long.parseLong(parts[0]))
-          .duration(Long.parseLong(parts[1]))
-          .operation(UseCase.fromValue(parts[2]))
-          .status(parts[3])
-          .message(
-              TigerGlobalConfiguration.getObjectMapper()
-                  .readValue(parts[4], NcpehPerformanceMessage.class));
-    } catch (final JsonProcessingException e) {
-      log.error("Error while parsing performance log line", e);
+    try (final var binaryLog = BinaryPerformanceLog.open(binaryLogFile)) {
+      return binaryLog.readRange(from.toEpochMilli(), to.toEpochMilli());
     }
-    return null;
   }
 
   /**
    * Matches performance report entries from two different reports based on a given acceptable time
-   * delta.
+   * delta, taking for every entry the earliest DWH entry, which is not matched yet.
    *
    * @param performanceReport the first performance report containing the entries to be matched
    * @param dwhPerformanceReport the second performance report containing the entries to be matched
@@ -207,48 +249,39 @@ public class ReportingUtils {
           final NcpehPerformanceReport performanceReport,
           final NcpehPerformanceReport dwhPerformanceReport,
           final int acceptableDelta) {
-    // Hint: there is a risk, that in the same time exists more as one pair
-    // It can happen if similar scenarios executed in the same time
-    // for now implemented simple solution: use first found pair
-
-    final var akku = new HashSet<NcpehPerformanceReportEntry>();
-    return performanceReport.getEntries().stream()
-        .map(entry -> findPair(entry, dwhPerformanceReport.getEntries(), acceptableDelta, akku))
-        .toList();
+    return matchPerformanceReportEntries(
+        performanceReport, dwhPerformanceReport, acceptableDelta, MatchingMode.FIRST_FIT);
   }
 
-  static Pair<NcpehPerformanceReportEntry, NcpehPerformanceReportEntry> findPair(
-      final NcpehPerformanceReportEntry entry,
-      final List<NcpehPerformanceReportEntry> dwhEntries,
-      final int acceptableDelta,
-      final Set<NcpehPerformanceReportEntry> akku) {
-    // for each expected PerformanceUsecase
-    //    start-time of expected PerformanceUsecase == reported start-time +/- acceptable delta
-    //    operation == operation
-    //    status == status
-    //    message.reqc == message.reqc
-    // in sequence of the expectations
-    // Error, if there is no correlation between imported report(s) and data of imported testcase
-    // found
+  /**
+   * Matches performance report entries from two different reports based on a given acceptable time
+   * delta. The DWH entries are indexed by operation, status and requesting country and sorted by
+   * timestamp, so large reports are matched in O((n+m)·log m).
+   *
+   * @param performanceReport the first performance report containing the entries to be matched
+   * @param dwhPerformanceReport the second performance report containing the entries to be matched
+   *     against
+   * @param acceptableDelta the acceptable time delta in milliseconds for matching entries
+   * @param matchingMode whether to take the first fitting or the overall closest DWH entries
+   * @return a list of pairs of matched performance report entries, in the order of the entries of
+   *     the first report
+   * @throws NoSuchElementException if an entry has no matching DWH entry
+   */
+  public static List<Pair<NcpehPerformanceReportEntry, NcpehPerformanceReportEntry>>
+      matchPerformanceReportEntries(
+          final NcpehPerformanceReport performanceReport,
+          final NcpehPerformanceReport dwhPerformanceReport,
+          final int acceptableDelta,
+          final MatchingMode matchingMode) {
+    // Hint: there is a risk, that in the same time exists more as one pair
+    // It can happen if similar scenarios executed in the same time
+    // FIRST_FIT uses the earliest free pair, OPTIMAL minimizes the sum of the time deltas
 
-    return dwhEntries.stream()
-        .filter(
-            dwhEntry ->
-                Math.abs(entry.timestamp() - dwhEntry.timestamp()) <= acceptableDelta
-                    && entry.operation().equals(dwhEntry.operation())
-                    && entry.status().equals(dwhEntry.status())
-                    && entry.message().reqc().equals(dwhEntry.message().reqc())
-                    && !akku.contains(dwhEntry))
-        .findFirst()
-        .map(
-            dwhEntry -> {
-              akku.add(dwhEntry);
-              return new Pair<>(entry, dwhEntry);
-            })
-        .orElseThrow(
-            () ->
-                new NoSuchElementException(
-                    "No matching entry found for entry: " + entry + " in DWH entries!"));
+    final var index = new PerformanceEntryIndex(dwhPerformanceReport.getEntries());
+    return switch (matchingMode) {
+      case FIRST_FIT -> index.matchFirstFit(performanceReport.getEntries(), acceptableDelta);
+      case OPTIMAL -> index.matchOptimal(performanceReport.getEntries(), acceptableDelta);
+    };
   }
 
   /**
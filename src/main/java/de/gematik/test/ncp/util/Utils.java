@@ -25,7 +25,6 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import de.gematik.test.ncp.GeneralFactory;
 import de.gematik.test.tiger.common.config.TigerConfigurationException;
 import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
-import jakarta.xml.bind.JAXBContext;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
@@ -163,16 +162,15 @@ public class Utils {
   @SneakyThrows
   public static <T> T unmarshalXml(
       @NonNull final Class<T> objectType, final InputStream inputStream) {
-    final var jaxbUnmarshaller = JAXBContext.newInstance(objectType).createUnmarshaller();
-    return jaxbUnmarshaller
-        .unmarshal(xmlInputFactory().createXMLStreamReader(inputStream), objectType)
-        .getValue();
+    final var reader = xmlInputFactory().createXMLStreamReader(inputStream);
+    return JaxbContextRegistry.withUnmarshaller(
+        objectType, unmarshaller -> unmarshaller.unmarshal(reader, objectType).getValue());
   }
 
   @SneakyThrows
   public static <T> T unmarshalXml(@NonNull final Class<T> objectType, final Document document) {
-    final var jaxbUnmarshaller = JAXBContext.newInstance(objectType).createUnmarshaller();
-    return jaxbUnmarshaller.unmarshal(document, objectType).getValue();
+    return JaxbContextRegistry.withUnmarshaller(
+        objectType, unmarshaller -> unmarshaller.unmarshal(document, objectType).getValue());
   }
 
   /**
@@ -24,8 +24,8 @@ import static de.gematik.test.ncp.util.Utils.supplyOrThrowSneaky;
 
 import java.io.StringWriter;
 import java.net.URL;
-import java.util.Objects;
 import java.util.Optional;
+import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.transform.Transformer;
@@ -35,8 +35,12 @@ import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathConstants;
 import javax.xml.xpath.XPathExpression;
+import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
+import lombok.Getter;
 import lombok.NonNull;
+import lombok.SneakyThrows;
+import lombok.experimental.Accessors;
 import org.apache.commons.io.input.XmlStreamReader;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
@@ -44,30 +48,63 @@ import org.xml.sax.InputSource;
 
 /**
  * Class to process XML file, using XPath. As it is abstract it can only be used if extended by a
- * concrete implementation
+ * concrete implementation.<br>
+ * The JAXP objects used for parsing, XPath evaluation and serialization aren't thread safe, so they
+ * are borrowed from small bounded {@link ObjectPool}s for the time of one operation. An
+ * XmlProcessor itself is meant to be used by one thread, but different XmlProcessors can be used in
+ * parallel, e.g. to create ePKAs on virtual threads.
  *
  * @param <T> Actual class extending this class
  */
 public class XmlProcessor<T extends XmlProcessor<T>> {
-  // The Sonar warning can be ignored, as the created Getter method serializes all calls
-  //  and therefore is thread safe.
-  @lombok.Generated private static final Object $LOCK = new Object[0];
-  private static final java.util.concurrent.atomic.AtomicReference<Object> documentBuilder =
-      new java.util.concurrent.atomic.AtomicReference<>();
-  private static final java.util.concurrent.atomic.AtomicReference<Object> xpathProcessor =
-      new java.util.concurrent.atomic.AtomicReference<>();
-  private static final java.util.concurrent.atomic.AtomicReference<Object> transformer =
-      new java.util.concurrent.atomic.AtomicReference<>();
+
+  public static final String FHIR_NAMESPACE = "http://hl7.org/fhir";
+
+  private static final ObjectPool<DocumentBuilder> documentBuilders =
+      new ObjectPool<>(
+          () ->
+              supplyOrThrowSneaky(
+                  () -> {
+                    var dbf = DocumentBuilderFactory.newInstance();
+                    dbf.setNamespaceAware(true);
+                    return dbf.newDocumentBuilder();
+                  }));
+
+  private static final ObjectPool<XPath> xpathProcessors =
+      new ObjectPool<>(XmlProcessor::newXpathProcessor);
+
+  private static final ObjectPool<Transformer> transformers =
+      new ObjectPool<>(
+          () -> supplyOrThrowSneaky(() -> TransformerFactory.newInstance().newTransformer()));
+
   private final URL xmlFileUrl;
-  private final java.util.concurrent.atomic.AtomicReference<Object> xmlDocument =
-      new java.util.concurrent.atomic.AtomicReference<>();
 
+  @Getter(lazy = true)
+  @Accessors(fluent = true)
+  private final Document xmlDocument = parse(xmlFileUrl);
+
+  public XmlProcessor(final URL xmlFileUrl) {
+    this.xmlFileUrl = xmlFileUrl;
+  }
+
+  /**
+   * Compile an XPath expression into a thread safe {@link XPathExpression}. The compiled
+   * expressions aren't thread safe, so every evaluation borrows one from a pool of the expression.
+   *
+   * @param expression the XPath expression, which may use the prefix fhir
+   * @return the thread safe expression
+   */
+  protected static XPathExpression compile(@NonNull final String expression) {
+    final ObjectPool<XPathExpression> compiled =
+        new ObjectPool<>(() -> supplyOrThrowSneaky(() -> compileOnce(expression)));
+    // compile once right away, so an invalid expression fails here and not on first use
+    compiled.apply(xpath -> xpath);
+    return new PooledXPathExpression(compiled);
+  }
+
+  @SneakyThrows
   public Node retrieveNode(@NonNull final XPathExpression xpath) {
-    try {
-      return (Node) xpath.evaluate(xmlDocument(), XPathConstants.NODE);
-    } catch (final java.lang.Throwable $ex) {
-      throw lombok.Lombok.sneakyThrow($ex);
-    }
+    return (Node) xpath.evaluate(xmlDocument(), XPathConstants.NODE);
   }
 
   @SuppressWarnings("unchecked")
@@ -81,115 +118,78 @@ public class XmlProcessor<T extends XmlProcessor<T>> {
    *
    * @return {@link String} the XML as String.
    */
+  @SneakyThrows
   public String toXmlString() {
-    try {
-      final var writer = new StringWriter();
-      Objects.requireNonNull(transformer())
-          .transform(new DOMSource(xmlDocument()), new StreamResult(writer));
-      return writer.toString();
-    } catch (final java.lang.Throwable $ex) {
-      throw lombok.Lombok.sneakyThrow($ex);
-    }
+    final var writer = new StringWriter();
+    transformers.apply(
+        transformer -> {
+          transformer.reset();
+          transformer.transform(new DOMSource(xmlDocument()), new StreamResult(writer));
+          return writer;
+        });
+    return writer.toString();
   }
 
-  @lombok.Generated
-  public XmlProcessor(final URL xmlFileUrl) {
-    this.xmlFileUrl = xmlFileUrl;
+  @SneakyThrows
+  private static Document parse(final URL xmlFileUrl) {
+    return documentBuilders.apply(
+        documentBuilder -> {
+          documentBuilder.reset();
+          return documentBuilder.parse(new InputSource(new XmlStreamReader(xmlFileUrl)));
+        });
   }
 
-  @lombok.Generated
-  protected static DocumentBuilder documentBuilder() {
-    Object value = XmlProcessor.documentBuilder.get();
-    if (value == null) {
-      synchronized (XmlProcessor.documentBuilder) {
-        value = XmlProcessor.documentBuilder.get();
-        if (value == null) {
-          final DocumentBuilder actualValue =
-              supplyOrThrowSneaky(
-                  () -> {
-                    var dbf = DocumentBuilderFactory.newInstance();
-                    dbf.setNamespaceAware(true);
-                    return dbf.newDocumentBuilder();
-                  });
-          value = actualValue == null ? XmlProcessor.documentBuilder : actualValue;
-          XmlProcessor.documentBuilder.set(value);
-        }
-      }
-    }
-    return (DocumentBuilder) (value == XmlProcessor.documentBuilder ? null : value);
+  private static XPathExpression compileOnce(final String expression)
+      throws XPathExpressionException {
+    return xpathProcessors.apply(xpath -> xpath.compile(expression));
   }
 
-  @lombok.Generated
-  protected static XPath xpathProcessor() {
-    synchronized (XmlProcessor.$LOCK) {
-      Object value = XmlProcessor.xpathProcessor.get();
-      if (value == null) {
-        synchronized (XmlProcessor.xpathProcessor) {
-          value = XmlProcessor.xpathProcessor.get();
-          if (value == null) {
-            final XPath actualValue = XPathFactory.newInstance().newXPath();
-            actualValue.setNamespaceContext(
-                new javax.xml.namespace.NamespaceContext() {
-                  @Override
-                  public String getNamespaceURI(final String prefix) {
-                    return "fhir".equals(prefix)
-                        ? "http://hl7.org/fhir"
-                        : javax.xml.XMLConstants.NULL_NS_URI;
-                  }
-
-                  @Override
-                  public String getPrefix(final String uri) {
-                    return null;
-                  }
-
-                  @Override
-                  public java.util.Iterator<String> getPrefixes(final String uri) {
-                    return null;
-                  }
-                });
-            value = actualValue;
-            XmlProcessor.xpathProcessor.set(value);
+  private static XPath newXpathProcessor() {
+    final XPath processor = XPathFactory.newInstance().newXPath();
+    processor.setNamespaceContext(
+        new javax.xml.namespace.NamespaceContext() {
+          @Override
+          public String getNamespaceURI(final String prefix) {
+            return "fhir".equals(prefix) ? FHIR_NAMESPACE : javax.xml.XMLConstants.NULL_NS_URI;
           }
-        }
-      }
-      return (XPath) (value == XmlProcessor.xpathProcessor ? null : value);
-    }
+
+          @Override
+          public String getPrefix(final String uri) {
+            return null;
+          }
+
+          @Override
+          public java.util.Iterator<String> getPrefixes(final String uri) {
+            return null;
+          }
+        });
+    return processor;
   }
 
-  @lombok.Generated
-  protected static Transformer transformer() {
-    Object value = XmlProcessor.transformer.get();
-    if (value == null) {
-      synchronized (XmlProcessor.transformer) {
-        value = XmlProcessor.transformer.get();
-        if (value == null) {
-          final Transformer actualValue =
-              supplyOrThrowSneaky(() -> TransformerFactory.newInstance().newTransformer());
-          value = actualValue == null ? XmlProcessor.transformer : actualValue;
-          XmlProcessor.transformer.set(value);
-        }
-      }
+  /** Thread safe {@link XPathExpression}, evaluating with compiled expressions of a pool */
+  private record PooledXPathExpression(ObjectPool<XPathExpression> compiled)
+      implements XPathExpression {
+
+    @Override
+    public Object evaluate(final Object item, final QName returnType)
+        throws XPathExpressionException {
+      return compiled.apply(expression -> expression.evaluate(item, returnType));
     }
-    return (Transformer) (value == XmlProcessor.transformer ? null : value);
-  }
 
-  @lombok.Generated
-  public Document xmlDocument() {
-    Object value = this.xmlDocument.get();
-    if (value == null) {
-      synchronized (this.xmlDocument) {
-        value = this.xmlDocument.get();
-        if (value == null) {
-          final Document actualValue =
-              supplyOrThrowSneaky(
-                  () ->
-                      Objects.requireNonNull(documentBuilder())
-                          .parse(new InputSource(new XmlStreamReader(xmlFileUrl))));
-          value = actualValue == null ? this.xmlDocument : actualValue;
-          this.xmlDocument.set(value);
-        }
-      }
+    @Override
+    public String evaluate(final Object item) throws XPathExpressionException {
+      return compiled.apply(expression -> expression.evaluate(item));
+    }
+
+    @Override
+    public Object evaluate(final InputSource source, final QName returnType)
+        throws XPathExpressionException {
+      return compiled.apply(expression -> expression.evaluate(source, returnType));
+    }
+
+    @Override
+    public String evaluate(final InputSource source) throws XPathExpressionException {
+      return compiled.apply(expression -> expression.evaluate(source));
     }
-    return (Document) (value == this.xmlDocument ? null : value);
   }
 }
@@ -21,6 +21,8 @@
 
 package de.gematik.test.ncp.dwh.impl;
 
+import static de.gematik.test.ncp.dwh.impl.DwhServiceImpl.DWH_REPORT_PARALLELISM_KEY;
+import static de.gematik.test.ncp.dwh.impl.DwhServiceImpl.DWH_REPORT_WINDOW_MINUTES_KEY;
 import static de.gematik.test.ncp.dwh.impl.DwhServiceImpl.DWH_URL_ACTIVE_KEY;
 import static de.gematik.test.ncp.utils.TestUtils.loadFromJsonResource;
 import static de.gematik.test.ncp.utils.TestUtils.mapper;
@@ -31,15 +33,36 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.core.JsonParseException;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
 import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
 import io.restassured.http.ContentType;
 import io.restassured.response.Response;
 import io.restassured.response.ResponseBody;
 import io.restassured.specification.RequestSpecification;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import net.serenitybdd.rest.SerenityRest;
@@ -50,16 +73,25 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
 
 @Slf4j
 class DwhServiceImplTest {
 
+  private static final DateTimeFormatter DWH_TIMESTAMP_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX").withZone(ZoneOffset.UTC);
+
   @Mock private RequestSpecification requestSpecification;
 
   @Mock private Response mockResponse;
 
   @Mock private ResponseBody<?> responseBody;
 
+  @Mock private HttpClient httpClient;
+
+  @Mock private HttpResponse<InputStream> httpResponse;
+
   private MockedStatic<SerenityRest> mockedSerenityRest;
 
   private AutoCloseable closeable;
@@ -69,20 +101,17 @@ class DwhServiceImplTest {
     closeable = MockitoAnnotations.openMocks(this);
     mockedSerenityRest = Mockito.mockStatic(SerenityRest.class);
     when(requestSpecification.baseUri(anyString())).thenReturn(requestSpecification);
-    when(requestSpecification.basePath(anyString())).thenReturn(requestSpecification);
     when(requestSpecification.accept(ContentType.JSON)).thenReturn(requestSpecification);
-    when(requestSpecification.contentType(ContentType.JSON)).thenReturn(requestSpecification);
     when(requestSpecification.header(anyString(), any())).thenReturn(requestSpecification);
-    when(requestSpecification.queryParams(
-            anyString(), any(), anyString(), any(), anyString(), any()))
-        .thenReturn(requestSpecification);
     when(requestSpecification.formParam(anyString(), anyString()))
         .thenReturn(
             requestSpecification, requestSpecification, requestSpecification, requestSpecification);
     when(SerenityRest.given()).thenReturn(requestSpecification);
-    when(requestSpecification.get()).thenReturn(mockResponse);
     when(requestSpecification.post()).thenReturn(mockResponse);
     when(mockResponse.getBody()).thenReturn(responseBody);
+    when(httpResponse.statusCode()).thenReturn(200);
+    // the report tests expect the whole range to be fetched with one request
+    TigerGlobalConfiguration.putValue(DWH_REPORT_WINDOW_MINUTES_KEY, 0);
   }
 
   @SneakyThrows
@@ -100,13 +129,14 @@ class DwhServiceImplTest {
     // Arrange
     TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, false);
     final var responce = readResourceFile(this.getClass(), "dwh_response.json");
-    when(responseBody.asString()).thenReturn(responce);
+    respondWith(stream(responce));
 
     // Act
     final var testee =
         assertDoesNotThrow(
             () ->
-                DwhServiceImpl.getInstance().getPerformanceReport(1739554790120L, 1739599790120L));
+                new DwhServiceImpl(httpClient)
+                    .getPerformanceReport(1739554790120L, 1739599790120L));
 
     log.info(mapper.writeValueAsString(testee));
 
@@ -120,12 +150,54 @@ class DwhServiceImplTest {
   void getPerformanceReportTestThrowException() {
     // Arrange
     TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, false);
-    when(responseBody.asString()).thenReturn("invalid json");
+    respondWith(stream("invalid json"));
+    final var service = new DwhServiceImpl(httpClient);
 
     // Act & Assert
     assertThrows(
         JsonParseException.class,
-        () -> DwhServiceImpl.getInstance().getPerformanceReport(1739554790120L, 1739599790120L));
+        () -> service.getPerformanceReport(1739554790120L, 1739599790120L));
+  }
+
+  @Test
+  void getPerformanceReportSkipsObjectsAndArraysInKnownFields() {
+    // Arrange
+    TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, false);
+    respondWith(
+        stream(
+            "[{\"timestamp\":\"2025-02-14T10:30:00.000Z\",\"reqc\":{\"code\":[\"NL\"]},"
+                + "\"usecase\":\"NCPeH.UC_1\",\"err\":[{\"code\":1}],\"bkdur\":15},"
+                + dwhEntry("2025-02-14T10:31:00.000Z")
+                + "]"));
+
+    // Act
+    final var testee =
+        new DwhServiceImpl(httpClient).getPerformanceReport(1739554790120L, 1739599790120L);
+
+    // Assert
+    assertThat(testee.getEntries()).hasSize(2);
+    assertEquals(
+        new NcpehPerformanceMessage(null, null, 15), testee.getEntries().getFirst().message());
+    assertEquals(
+        new NcpehPerformanceMessage("NL", null, 15), testee.getEntries().get(1).message());
+  }
+
+  @Test
+  void getPerformanceReportThrowsExceptionOnErrorStatus() {
+    // Arrange
+    TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, false);
+    respondWith(stream("{\"error\":\"unauthorized\"}"));
+    when(httpResponse.statusCode()).thenReturn(401);
+    final var service = new DwhServiceImpl(httpClient);
+
+    // Act
+    final var exception =
+        assertThrows(
+            IllegalStateException.class,
+            () -> service.getPerformanceReport(1739554790120L, 1739599790120L));
+
+    // Assert
+    assertThat(exception.getMessage()).endsWith("failed with status 401");
   }
 
   @SneakyThrows
@@ -133,13 +205,14 @@ class DwhServiceImplTest {
   void getPerformanceReportTestEmptyResponse() {
     // Arrange
     TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, false);
-    when(responseBody.asString()).thenReturn("[]");
+    respondWith(stream("[]"));
 
     // Act
     final var testee =
         assertDoesNotThrow(
             () ->
-                DwhServiceImpl.getInstance().getPerformanceReport(1739554790120L, 1739599790120L));
+                new DwhServiceImpl(httpClient)
+                    .getPerformanceReport(1739554790120L, 1739599790120L));
 
     log.info(mapper.writeValueAsString(testee));
 
@@ -158,10 +231,48 @@ class DwhServiceImplTest {
     when(spyService.getClientSecret()).thenReturn("client_secret");
 
     // Act
-    final String token = assertDoesNotThrow(spyService::fetchToken);
+    final var token = assertDoesNotThrow(spyService::fetchToken);
+
+    // Assert
+    assertEquals("valid_token", token.accessToken());
+  }
+
+  @Test
+  void fetchTokenHonorsExpiresIn() {
+    // Arrange
+    when(responseBody.asString())
+        .thenReturn("{\"access_token\":\"valid_token\",\"expires_in\":3599}");
+    final var spyService = Mockito.spy(new DwhServiceImpl());
+    when(spyService.getClientId()).thenReturn("client_id");
+    when(spyService.getClientSecret()).thenReturn("client_secret");
+    final var before = Instant.now();
+
+    // Act
+    final var token = assertDoesNotThrow(spyService::fetchToken);
+
+    // Assert
+    assertThat(token.expiresAt())
+        .isBetween(before.plusSeconds(3599), Instant.now().plusSeconds(3599));
+  }
+
+  @Test
+  void getTokenFetchesTokenOnlyOnce() {
+    // Arrange
+    TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, true);
+    final var spyService = Mockito.spy(new DwhServiceImpl());
+    // the token is fetched by the refresh thread, which doesn't see the static mock of the test
+    doReturn(new DwhToken("valid_token", Instant.now().plusSeconds(3599)))
+        .when(spyService)
+        .fetchToken();
+
+    // Act
+    final var first = spyService.getToken();
+    final var second = spyService.getToken();
 
     // Assert
-    assertEquals("valid_token", token);
+    assertEquals("valid_token", first);
+    assertEquals("valid_token", second);
+    verify(spyService, times(1)).fetchToken();
   }
 
   @Test
@@ -191,4 +302,136 @@ class DwhServiceImplTest {
     // Assert
     assertEquals("ClientSecret is not set", exception.getMessage());
   }
+
+  @Test
+  void splitIntoWindowsCoversTheRangeWithoutOverlap() {
+    // Act
+    final var testee = DwhServiceImpl.splitIntoWindows(1000, 3500, 1000);
+
+    // Assert
+    assertThat(testee)
+        .containsExactly(
+            new DwhServiceImpl.TimeWindow(1000, 1999),
+            new DwhServiceImpl.TimeWindow(2000, 2999),
+            new DwhServiceImpl.TimeWindow(3000, 3500));
+    assertThat(DwhServiceImpl.splitIntoWindows(1000, 2000, 1000))
+        .containsExactly(new DwhServiceImpl.TimeWindow(1000, 2000));
+    assertThat(DwhServiceImpl.splitIntoWindows(1000, 9000, 0))
+        .containsExactly(new DwhServiceImpl.TimeWindow(1000, 9000));
+  }
+
+  @Test
+  void getPerformanceReportFetchesWindowsAndMergesThemInTimestampOrder() {
+    // Arrange
+    TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, false);
+    TigerGlobalConfiguration.putValue(DWH_REPORT_WINDOW_MINUTES_KEY, 60);
+    TigerGlobalConfiguration.putValue(DWH_REPORT_PARALLELISM_KEY, 1);
+    respondWith(
+        stream("[" + dwhEntry("2025-02-14T10:30:00.000Z") + "]"),
+        stream(
+            "["
+                + dwhEntry("2025-02-14T11:50:00.000Z")
+                + ","
+                + dwhEntry("2025-02-14T11:10:00.000Z")
+                + "]"),
+        stream("[]"));
+    final var start = Instant.parse("2025-02-14T10:00:00.000Z").toEpochMilli();
+
+    // Act
+    final var testee =
+        new DwhServiceImpl(httpClient)
+            .getPerformanceReport(start, start + TimeUnit.HOURS.toMillis(3) - 1);
+
+    // Assert
+    verify(httpClient, times(3)).send(any(), any());
+    assertThat(testee.getEntries())
+        .extracting(NcpehPerformanceReportEntry::timestamp)
+        .containsExactly(
+            Instant.parse("2025-02-14T10:30:00.000Z").toEpochMilli(),
+            Instant.parse("2025-02-14T11:10:00.000Z").toEpochMilli(),
+            Instant.parse("2025-02-14T11:50:00.000Z").toEpochMilli());
+    assertEquals(
+        new NcpehPerformanceMessage("NL", null, 15), testee.getEntries().getFirst().message());
+  }
+
+  @SneakyThrows
+  @Test
+  void getPerformanceReportFetchesWindowsWithBoundedParallelism() {
+    // Arrange
+    TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, false);
+    TigerGlobalConfiguration.putValue(DWH_REPORT_WINDOW_MINUTES_KEY, 1);
+    TigerGlobalConfiguration.putValue(DWH_REPORT_PARALLELISM_KEY, 3);
+    final var start = Instant.parse("2025-02-14T10:00:00.000Z");
+    final var running = new AtomicInteger();
+    final var maxRunning = new AtomicInteger();
+    final var requestedWindows = new ConcurrentLinkedQueue<String>();
+    doAnswer(
+            invocation -> {
+              final HttpRequest request = invocation.getArgument(0);
+              final var from =
+                  UriComponentsBuilder.fromUri(request.uri())
+                      .build()
+                      .getQueryParams()
+                      .getFirst("from");
+              final var fromInstant = Instant.parse(UriUtils.decode(from, StandardCharsets.UTF_8));
+              requestedWindows.add(fromInstant.toString());
+              maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+              // the later windows answer first
+              Thread.sleep(2L * (10 - Duration.between(start, fromInstant).toMinutes()));
+              running.decrementAndGet();
+              final HttpResponse<InputStream> response = mock();
+              when(response.statusCode()).thenReturn(200);
+              final var timestamp = DWH_TIMESTAMP_FORMAT.format(fromInstant.plusSeconds(30));
+              when(response.body()).thenReturn(stream("[" + dwhEntry(timestamp) + "]"));
+              return response;
+            })
+        .when(httpClient)
+        .send(any(), any());
+
+    // Act
+    final var testee =
+        new DwhServiceImpl(httpClient)
+            .getPerformanceReport(
+                start.toEpochMilli(), start.plus(Duration.ofMinutes(10)).toEpochMilli() - 1);
+
+    // Assert
+    verify(httpClient, times(10)).send(any(), any());
+    assertThat(requestedWindows).doesNotHaveDuplicates().hasSize(10);
+    assertThat(maxRunning.get()).isBetween(1, 3);
+    assertThat(testee.getEntries())
+        .extracting(NcpehPerformanceReportEntry::timestamp)
+        .isSortedAccordingTo(Comparator.naturalOrder())
+        .hasSize(10)
+        .startsWith(start.plusSeconds(30).toEpochMilli());
+  }
+
+  @Test
+  void closeInstanceReplacesTheInstance() {
+    // Arrange
+    final var closed = DwhServiceImpl.getInstance();
+
+    // Act
+    DwhServiceImpl.closeInstance();
+
+    // Assert
+    assertThat(DwhServiceImpl.getInstance()).isNotSameAs(closed);
+    DwhServiceImpl.closeInstance();
+  }
+
+  @SneakyThrows
+  private void respondWith(final InputStream body, final InputStream... moreBodies) {
+    doReturn(httpResponse).when(httpClient).send(any(), any());
+    when(httpResponse.body()).thenReturn(body, moreBodies);
+  }
+
+  private static String dwhEntry(final String timestamp) {
+    return String.format(
+        "{\"bu\":\"PU\",\"timestamp\":\"%s\",\"duration\":16,\"usecase\":\"NCPeH.UC_1\","
+            + "\"statuscode\":\"200\",\"reqc\":\"NL\",\"err\":null,\"bkdur\":15}",
+        timestamp);
+  }
+
+  private static InputStream stream(final String body) {
+    return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+  }
 }
@@ -0,0 +1,271 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.dwh.impl;
+
+import static de.gematik.test.ncp.utils.TestUtils.mapper;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DwhTokenManagerTest {
+
+  /** Stand-in for the token endpoint, answering with expires_in and a counting access token */
+  private HttpServer tokenEndpoint;
+
+  private final AtomicInteger requests = new AtomicInteger();
+
+  private final AtomicInteger failuresLeft = new AtomicInteger();
+
+  private volatile long expiresIn = 3600;
+
+  private volatile long responseDelayMillis;
+
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+
+  private DwhTokenManager testee;
+
+  private Clock clock;
+
+  @BeforeEach
+  @SneakyThrows
+  void setUp() {
+    tokenEndpoint = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    tokenEndpoint.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    tokenEndpoint.createContext(
+        "/token",
+        exchange -> {
+          final var request = requests.incrementAndGet();
+          sleep(responseDelayMillis);
+          final var failed = failuresLeft.getAndDecrement() > 0;
+          final var body =
+              failed
+                  ? "{\"error\":\"temporarily_unavailable\"}"
+                  : String.format(
+                      "{\"access_token\":\"token-%d\",\"expires_in\":%d}", request, expiresIn);
+          final var bytes = body.getBytes(StandardCharsets.UTF_8);
+          exchange.sendResponseHeaders(failed ? 503 : 200, bytes.length);
+          try (final var out = exchange.getResponseBody()) {
+            out.write(bytes);
+          }
+        });
+    tokenEndpoint.start();
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (testee != null) {
+      testee.close();
+    }
+    tokenEndpoint.stop(0);
+  }
+
+  @Test
+  void tokenIsCachedUntilItIsAboutToExpire() {
+    // Arrange
+    testee = manager(Clock.systemUTC(), Duration.ofSeconds(60), 1);
+
+    // Act
+    final var first = testee.getToken();
+    final var second = testee.getToken();
+
+    // Assert
+    assertEquals("token-1", first);
+    assertEquals("token-1", second);
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  @SneakyThrows
+  void concurrentCallsAreCoalescedIntoOneRequest() {
+    // Arrange
+    responseDelayMillis = 200;
+    testee = manager(Clock.systemUTC(), Duration.ofSeconds(60), 1);
+    final var futures = new ArrayList<Future<String>>();
+
+    // Act
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (var i = 0; i < 20; i++) {
+        futures.add(executor.submit((Callable<String>) testee::getToken));
+      }
+    }
+
+    // Assert
+    for (final var future : futures) {
+      assertEquals("token-1", future.get());
+    }
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  void expiredTokenIsFetchedAgain() {
+    // Arrange
+    expiresIn = 120;
+    final var now = new AtomicReference<>(Instant.now());
+    testee = manager(clock(now), Duration.ofSeconds(10), 1);
+    assertEquals("token-1", testee.getToken());
+
+    // Act
+    now.set(now.get().plusSeconds(121));
+    final var token = testee.getToken();
+
+    // Assert
+    assertEquals("token-2", token);
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  @SneakyThrows
+  void tokenAboutToExpireIsReturnedWhileRefreshing() {
+    // Arrange
+    expiresIn = 120;
+    final var now = new AtomicReference<>(Instant.now());
+    testee = manager(clock(now), Duration.ofSeconds(30), 1);
+    assertEquals("token-1", testee.getToken());
+
+    // Act
+    now.set(now.get().plusSeconds(100));
+    final var token = testee.getToken();
+
+    // Assert
+    assertEquals("token-1", token);
+    final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (!"token-2".equals(testee.getToken()) && System.nanoTime() < deadline) {
+      sleep(10);
+    }
+    assertEquals("token-2", testee.getToken());
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  void tokenIsRefreshedInTheBackgroundBeforeItExpires() {
+    // Arrange
+    expiresIn = 2;
+    testee = manager(Clock.systemUTC(), Duration.ofMillis(1500), 1);
+
+    // Act
+    testee.getToken();
+
+    // Assert
+    final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (requests.get() < 2 && System.nanoTime() < deadline) {
+      sleep(50);
+    }
+    assertTrue(requests.get() >= 2, "token was not refreshed in the background");
+  }
+
+  @Test
+  void failedRequestsAreRetried() {
+    // Arrange
+    failuresLeft.set(2);
+    testee = manager(Clock.systemUTC(), Duration.ofSeconds(60), 3);
+
+    // Act
+    final var token = testee.getToken();
+
+    // Assert
+    assertEquals("token-3", token);
+    assertEquals(3, requests.get());
+  }
+
+  @Test
+  void refreshFailsAfterMaxAttempts() {
+    // Arrange
+    failuresLeft.set(10);
+    testee = manager(Clock.systemUTC(), Duration.ofSeconds(60), 3);
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class, testee::getToken);
+    assertEquals(3, requests.get());
+  }
+
+  private DwhTokenManager manager(
+      final Clock clock, final Duration refreshAhead, final int maxAttempts) {
+    this.clock = clock;
+    return new DwhTokenManager(
+        this::fetchToken, clock, refreshAhead, maxAttempts, Duration.ofMillis(10));
+  }
+
+  @SneakyThrows
+  private DwhToken fetchToken() {
+    final var requestedAt = clock.instant();
+    final var response =
+        httpClient.send(
+            HttpRequest.newBuilder(
+                    URI.create(
+                        "http://localhost:" + tokenEndpoint.getAddress().getPort() + "/token"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString("grant_type=client_credentials"))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+    if (response.statusCode() != 200) {
+      throw new IllegalStateException("Token endpoint answered " + response.statusCode());
+    }
+    return DwhToken.fromResponse(mapper.readTree(response.body()), requestedAt);
+  }
+
+  private static Clock clock(final AtomicReference<Instant> now) {
+    return new Clock() {
+      @Override
+      public ZoneId getZone() {
+        return ZoneOffset.UTC;
+      }
+
+      @Override
+      public Clock withZone(final ZoneId zone) {
+        return this;
+      }
+
+      @Override
+      public Instant instant() {
+        return now.get();
+      }
+    };
+  }
+
+  @SneakyThrows
+  private static void sleep(final long millis) {
+    Thread.sleep(millis);
+  }
+}
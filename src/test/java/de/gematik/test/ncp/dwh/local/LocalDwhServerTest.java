@@ -0,0 +1,233 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.dwh.local;
+
+import static de.gematik.test.ncp.dwh.impl.DwhServiceImpl.DWH_URL_ACTIVE_KEY;
+import static de.gematik.test.ncp.utils.TestUtils.mapper;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.doReturn;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.gematik.test.ncp.dwh.impl.DwhServiceImpl;
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import de.gematik.test.ncp.util.ReportingUtils;
+import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class LocalDwhServerTest {
+
+  private static final long START = Instant.parse("2025-02-14T10:00:00.000Z").toEpochMilli();
+
+  private static final DateTimeFormatter TIMESTAMP_FORMAT =
+      DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSX").withZone(ZoneId.of("UTC"));
+
+  private final HttpClient httpClient = HttpClient.newHttpClient();
+
+  private LocalDwhServer testee;
+
+  @AfterEach
+  void tearDown() {
+    if (testee != null) {
+      testee.close();
+    }
+    TigerGlobalConfiguration.reset();
+  }
+
+  @Test
+  @SneakyThrows
+  void tokenEndpointIssuesTokensWithExpiry() {
+    // Arrange
+    testee =
+        new LocalDwhServer(
+            report(1),
+            LocalDwhServer.Settings.builder().tokenLifetime(Duration.ofMinutes(10)).build());
+
+    // Act
+    final var response =
+        httpClient.send(
+            HttpRequest.newBuilder(URI.create(testee.getTokenUrl()))
+                .POST(HttpRequest.BodyPublishers.ofString("grant_type=client_credentials"))
+                .build(),
+            HttpResponse.BodyHandlers.ofString());
+
+    // Assert
+    assertEquals(200, response.statusCode());
+    final var token = mapper.readTree(response.body());
+    assertThat(token.get("access_token").asText()).isNotBlank();
+    assertEquals(600, token.get("expires_in").asLong());
+    assertEquals(1, testee.getTokenRequests().get());
+  }
+
+  @Test
+  void reportContainsSkewedReportEntriesAndSyntheticEntriesInTimestampOrder() {
+    // Arrange
+    testee =
+        new LocalDwhServer(
+            report(3),
+            LocalDwhServer.Settings.builder()
+                .clockSkew(Duration.ofMillis(100))
+                .volumeMultiplier(1000)
+                .build());
+
+    // Act
+    final var entries = getReport(START - 3_600_000, START + 3_600_000, null);
+
+    // Assert
+    assertEquals(3003, entries.size());
+    assertEquals(3003, testee.getEntryCount());
+    final var timestamps = new ArrayList<Instant>();
+    entries.forEach(entry -> timestamps.add(Instant.parse(entry.get("timestamp").asText())));
+    assertThat(timestamps).isSorted();
+    assertThat(entries)
+        .filteredOn(entry -> "DE".equals(entry.get("reqc").asText()))
+        .extracting(entry -> Instant.parse(entry.get("timestamp").asText()).toEpochMilli())
+        .containsExactly(START + 100, START + 1100, START + 2100);
+  }
+
+  @Test
+  void reportIsLimitedToTheRequestedRangeAndTheMaximumEntries() {
+    // Arrange
+    testee =
+        new LocalDwhServer(
+            report(10),
+            LocalDwhServer.Settings.builder()
+                .volumeMultiplier(100)
+                .maxEntriesPerResponse(5)
+                .build());
+
+    // Act & Assert
+    assertEquals(5, getReport(START - 3_600_000, START + 3_600_000, null).size());
+    assertThat(getReport(START + 1000, START + 1000, null))
+        .extracting(entry -> entry.get("reqc").asText())
+        .contains("DE");
+    assertEquals(0, getReport(START + 3_600_000, START + 7_200_000, null).size());
+  }
+
+  @Test
+  @SneakyThrows
+  void reportRequiresIssuedTokenIfConfigured() {
+    // Arrange
+    testee =
+        new LocalDwhServer(
+            report(1), LocalDwhServer.Settings.builder().tokenRequired(true).build());
+
+    // Act
+    final var response = send(START, START + 1000, "unknown");
+
+    // Assert
+    assertEquals(401, response.statusCode());
+  }
+
+  @Test
+  void dwhServiceFetchesAndMatchesAProductionSizedReport() {
+    // Arrange
+    final var report = report(500);
+    testee =
+        new LocalDwhServer(
+            report,
+            LocalDwhServer.Settings.builder()
+                .clockSkew(Duration.ofMillis(40))
+                .durationJitterMillis(2)
+                .volumeMultiplier(400)
+                .responseLatency(Duration.ofMillis(20))
+                .build());
+    TigerGlobalConfiguration.putValue(DWH_URL_ACTIVE_KEY, false);
+    TigerGlobalConfiguration.putValue("infrastructure.dwh.report.windowMinutes", 1);
+    final var dwhService = Mockito.spy(new DwhServiceImpl());
+    doReturn(testee.getBaseUrl()).when(dwhService).getBaseUrl();
+
+    // Act
+    final var dwhReport = dwhService.getPerformanceReport(START - 600_000, START + 1_200_000);
+    final var pairs = ReportingUtils.matchPerformanceReportEntries(report, dwhReport, 300);
+
+    // Assert
+    assertEquals(testee.getEntryCount(), dwhReport.getEntries().size());
+    assertEquals(500, pairs.size());
+    assertThat(testee.getReportRequests().get()).isGreaterThan(1);
+  }
+
+  /** Report of the test suite, one call per second from Germany */
+  private static NcpehPerformanceReport report(final int size) {
+    final var report = new NcpehPerformanceReport();
+    IntStream.range(0, size)
+        .mapToObj(
+            i ->
+                new NcpehPerformanceReportEntry()
+                    .timestamp(START + i * 1000L)
+                    .duration(100L + i % 50)
+                    .operation(UseCase.values()[i % UseCase.values().length])
+                    .status("200")
+                    .message(new NcpehPerformanceMessage("DE", null, 90L + i % 50)))
+        .forEach(report::addEntry);
+    return report;
+  }
+
+  @SneakyThrows
+  private ArrayList<JsonNode> getReport(final long from, final long until, final String token) {
+    final var response = send(from, until, token);
+    assertEquals(200, response.statusCode());
+    final var entries = new ArrayList<JsonNode>();
+    mapper.readTree(response.body()).forEach(entries::add);
+    return entries;
+  }
+
+  @SneakyThrows
+  private HttpResponse<String> send(final long from, final long until, final String token) {
+    final var uri =
+        URI.create(
+            testee.getBaseUrl()
+                + LocalDwhServer.REPORT_PATH
+                + "?from="
+                + encode(Instant.ofEpochMilli(from))
+                + "&until="
+                + encode(Instant.ofEpochMilli(until))
+                + "&bu=PU");
+    final var request = HttpRequest.newBuilder(uri).GET();
+    if (token != null) {
+      request.header("Authorization", "Bearer " + token);
+    }
+    return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static String encode(final Instant instant) {
+    return URLEncoder.encode(TIMESTAMP_FORMAT.format(instant), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.glue;
+
+import de.gematik.test.ncp.dwh.impl.DwhServiceImpl;
+import de.gematik.test.ncp.ncpeh.NcpehProvider;
+import de.gematik.test.ncp.util.JaxbContextRegistry;
+import io.cucumber.java.AfterAll;
+import io.cucumber.java.BeforeAll;
+import lombok.extern.slf4j.Slf4j;
+
+/** Hooks, which run once for the whole test suite instead of once per scenario. */
+@Slf4j
+public class SuiteHooks {
+
+  @BeforeAll
+  public static void warmUpJaxbContexts() {
+    log.debug("Warming up JAXB contexts of the NCPeH model classes");
+    JaxbContextRegistry.warmUp();
+  }
+
+  @AfterAll
+  public static void writeLatencyPercentiles() {
+    log.debug("Writing the latency percentiles of the test run");
+    NcpehProvider.getInstance().getNcpehContext().endTestRun();
+  }
+
+  @AfterAll
+  public static void closeDwhService() {
+    log.debug("Stopping the token refresh of the DWH service");
+    DwhServiceImpl.closeInstance();
+  }
+}
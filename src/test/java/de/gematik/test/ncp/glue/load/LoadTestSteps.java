@@ -0,0 +1,50 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.glue.load;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import de.gematik.test.ncp.load.LoadDriver;
+import de.gematik.test.ncp.load.LoadResult;
+import de.gematik.test.ncp.ncpeh.NcpehProvider;
+import io.cucumber.java.de.Dann;
+import io.cucumber.java.de.Wenn;
+import lombok.extern.slf4j.Slf4j;
+import net.serenitybdd.core.Serenity;
+
+@Slf4j
+public class LoadTestSteps {
+
+  private LoadResult result;
+
+  @Wenn("das konfigurierte Lastprofil gegen den NCPeH-FD gefahren wird")
+  public void runLoadProfile() {
+    result = LoadDriver.fromConfiguration(NcpehProvider.getConcurrentNcpehService()).run();
+    Serenity.recordReportData().withTitle("Lastprofil").andContents(result.describe());
+  }
+
+  @Dann("halten alle Anwendungsfälle die konfigurierten Latenz-Vorgaben ein")
+  public void verifySla() {
+    assertThat(result).as("Lastprofil wurde nicht gefahren").isNotNull();
+    assertThat(result.passed()).as(result.describe()).isTrue();
+  }
+}
@@ -248,6 +248,7 @@ public class ActorsInitializationSteps {
 
   @After(TAG_FILTER_PSA_ALL)
   public void tearDown() {
+    NcpehProvider.getInstance().getNcpehContext().endScenario();
     log.debug("Tear down the stage");
     OnStage.drawTheCurtain();
   }
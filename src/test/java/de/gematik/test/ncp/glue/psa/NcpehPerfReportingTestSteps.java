@@ -28,6 +28,7 @@ import static net.serenitybdd.screenplay.GivenWhenThen.then;
 import static net.serenitybdd.screenplay.GivenWhenThen.when;
 
 import de.gematik.test.ncp.reporting.ErrorCode;
+import de.gematik.test.ncp.reporting.MatchingMode;
 import de.gematik.test.ncp.reporting.UseCase;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePerformanceReportData;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePerformanceReportTechData;
@@ -70,6 +71,7 @@ public class NcpehPerfReportingTestSteps {
 
   private static final String DWH_URL_ACTIVE_KEY = "tiger.servers.dwhUrl.active";
   private static final String DWH_ACCEPTABLE_DELTA_KEY = "testdata.reporting.acceptableDelta";
+  private static final String DWH_MATCHING_MODE_KEY = "testdata.reporting.matchingMode";
   private static final String PERFORMANCE_USE_CASES_KEY_COUNTRY = "country";
   private static final String PERFORMANCE_USE_CASES_KEY_PERFORMANCE_USECASES =
       "PerformanceUsecases";
@@ -77,6 +79,10 @@ public class NcpehPerfReportingTestSteps {
   private static final String PERFORMANCE_USE_CASES_KEY_EHDSI_ERRORCODES = "ehdsiErrorcodes";
   private final Optional<Integer> acceptableDelta =
       TigerGlobalConfiguration.readIntegerOptional(DWH_ACCEPTABLE_DELTA_KEY);
+  private final MatchingMode matchingMode =
+      MatchingMode.valueOf(
+          TigerGlobalConfiguration.readString(
+              DWH_MATCHING_MODE_KEY, MatchingMode.FIRST_FIT.name()));
 
   @AllArgsConstructor
   @Getter
@@ -302,7 +308,8 @@ public class NcpehPerfReportingTestSteps {
     // check whether the message field contains the expected requesting country
 
     OnStage.theActorInTheSpotlight()
-        .attemptsTo(MatchPerformanceReports.withAcceptableDelta(acceptableDelta.orElse(0)));
+        .attemptsTo(
+            MatchPerformanceReports.withAcceptableDelta(acceptableDelta.orElse(0), matchingMode));
   }
 
   @Und("^das Statusfeld enthält je erwartetem Eintrag einen Statuscode der Form ([1-5]xx)$")
@@ -0,0 +1,58 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.EnumMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class LoadConfigurationTest {
+
+  @Test
+  void setFlowsRejectsNegativeWeightsTest() {
+    // Arrange
+    final var configuration = new LoadConfiguration();
+    final var flows = Map.of(LoadFlow.PSA_LEVEL_3, 2, LoadFlow.EPED, -1);
+
+    // Act / Assert
+    assertThrows(IllegalArgumentException.class, () -> configuration.setFlows(flows));
+  }
+
+  @Test
+  void totalFlowWeightIgnoresMissingAndNegativeWeightsTest() {
+    // Arrange
+    final var configuration = new LoadConfiguration();
+    configuration.setFlows(new EnumMap<>(Map.of(LoadFlow.PSA_LEVEL_3, 2, LoadFlow.EPED, 3)));
+    // the map of the configuration may still be changed afterwards
+    configuration.getFlows().put(LoadFlow.EPED, -3);
+    configuration.getFlows().put(LoadFlow.PSA_LEVEL_1, null);
+
+    // Act
+    final var testee = configuration.totalFlowWeight();
+
+    // Assert
+    assertEquals(2, testee);
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.load;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.test.ncp.data.Patient;
+import de.gematik.test.ncp.data.Practitioner;
+import de.gematik.test.ncp.ncpeh.NcpehService;
+import de.gematik.test.ncp.ncpeh.PatientSummaryLevel;
+import de.gematik.test.ncp.ncpeh.client.dataobject.FindDocumentsResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.IdentifyPatientResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
+import de.gematik.test.ncp.reporting.UseCase;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class LoadDriverTest {
+
+  @Test
+  void expectedArrivalsIntegratesTheRampsTest() {
+    // Arrange
+    final var configuration = configuration(10, 2);
+
+    // Act / Assert
+    assertEquals(0, LoadDriver.expectedArrivals(configuration, 0), 1e-9);
+    assertEquals(10, LoadDriver.expectedArrivals(configuration, 2), 1e-9);
+    assertEquals(30, LoadDriver.expectedArrivals(configuration, 4), 1e-9);
+    assertEquals(40, LoadDriver.expectedArrivals(configuration, 6), 1e-9);
+    assertEquals(40, LoadDriver.expectedArrivals(configuration, 60), 1e-9);
+  }
+
+  @Test
+  void runRecordsAllUseCasesOfTheFlowTest() {
+    // Arrange
+    final var configuration = configuration(200, 0.2);
+    configuration.setSla(
+        List.of(
+            new SlaThreshold(UseCase.NCPEH_UC_1, 99, 60_000),
+            new SlaThreshold(UseCase.NCPEH_UC_3, 50, 0)));
+    final var ncpehService = mock(NcpehService.class);
+    when(ncpehService.isConcurrent()).thenReturn(true);
+    final var found = mock(FindDocumentsResponseDTO.class);
+    when(ncpehService.identifyPatient(any(), any(), any(), any(), any(), any()))
+        .thenReturn(mock(IdentifyPatientResponseDTO.class));
+    when(ncpehService.findDocuments(any(), any(), any(), anyString(), any(), any()))
+        .thenReturn(found);
+    when(ncpehService.retrievePatientSummary(
+            any(), any(), any(), any(), any(), any(), any(PatientSummaryLevel.class)))
+        .thenAnswer(
+            invocation -> {
+              Thread.sleep(2);
+              return mock(RetrieveDocumentsResponseDTO.class);
+            });
+    final var tested =
+        new LoadDriver(
+            ncpehService, configuration, List.of(mock(Patient.class)), practitioners());
+
+    // Act
+    final var result = tested.run();
+
+    // Assert
+    assertTrue(result.startedUsers() > 0);
+    assertEquals(0, result.rejectedArrivals());
+    assertEquals(result.startedUsers(), tested.getRecorder().successCount(UseCase.NCPEH_UC_1));
+    assertEquals(result.startedUsers(), tested.getRecorder().successCount(UseCase.NCPEH_UC_3));
+    assertEquals(0, tested.getRecorder().successCount(UseCase.NCPEH_UC_4));
+    assertTrue(result.verdicts().getFirst().passed());
+    assertFalse(result.verdicts().get(1).passed());
+    assertFalse(result.passed());
+  }
+
+  @Test
+  void runFailsWithoutFlowsTest() {
+    // Arrange
+    final var configuration = configuration(1, 0.1);
+    configuration.setFlows(Map.of());
+    final var ncpehService = mock(NcpehService.class);
+    when(ncpehService.isConcurrent()).thenReturn(true);
+    final var tested =
+        new LoadDriver(ncpehService, configuration, List.of(mock(Patient.class)), practitioners());
+
+    // Act / Assert
+    assertThrows(IllegalArgumentException.class, tested::run);
+  }
+
+  @Test
+  void runFailsWithOnlyZeroWeightsTest() {
+    // Arrange
+    final var configuration = configuration(1, 0.1);
+    configuration.setFlows(Map.of(LoadFlow.PSA_LEVEL_3, 0, LoadFlow.EPED, 0));
+    final var ncpehService = mock(NcpehService.class);
+    when(ncpehService.isConcurrent()).thenReturn(true);
+    final var tested =
+        new LoadDriver(ncpehService, configuration, List.of(mock(Patient.class)), practitioners());
+
+    // Act / Assert
+    assertThrows(IllegalArgumentException.class, tested::run);
+    verify(ncpehService, never()).identifyPatient(any(), any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void runFailsWithServiceNotConfiguredForConcurrentUseTest() {
+    // Arrange
+    final var ncpehService = mock(NcpehService.class);
+    final var tested =
+        new LoadDriver(
+            ncpehService, configuration(1, 0.1), List.of(mock(Patient.class)), practitioners());
+
+    // Act / Assert
+    assertThrows(IllegalStateException.class, tested::run);
+    verify(ncpehService, never()).identifyPatient(any(), any(), any(), any(), any(), any());
+  }
+
+  private static LoadConfiguration configuration(final double rate, final double phaseSeconds) {
+    final var configuration = new LoadConfiguration();
+    configuration.setArrivalRatePerSecond(rate);
+    configuration.setRampUpSeconds(phaseSeconds);
+    configuration.setSteadySeconds(phaseSeconds);
+    configuration.setRampDownSeconds(phaseSeconds);
+    configuration.setFlows(Map.of(LoadFlow.PSA_LEVEL_3, 1));
+    return configuration;
+  }
+
+  private static List<Practitioner> practitioners() {
+    final var practitioner = mock(Practitioner.class);
+    when(practitioner.profileName()).thenReturn("default");
+    return List.of(practitioner);
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import de.gematik.test.ncp.data.Patient;
+import de.gematik.test.ncp.data.PatientAccessData;
+import de.gematik.test.ncp.ncpeh.NcpehException;
+import de.gematik.test.ncp.ncpeh.NcpehService;
+import de.gematik.test.ncp.ncpeh.PatientSummaryLevel;
+import de.gematik.test.ncp.ncpeh.client.dataobject.FindDocumentsResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.IdentifyPatientResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class AsyncNcpehClientImplTest {
+
+  private static final String PROFILE = "default";
+  private static final String COUNTRY = "DENMARK";
+  private static final String AUTHORITY = "1.2.276.0.76.4.298";
+  private static final String CLASS_CODE = "('60591-5^^2.16.840.1.113883.6.1')";
+
+  private final NcpehService delegate = concurrentDelegate();
+  private final PatientAccessData patientAccessData = mock(PatientAccessData.class);
+  private final Patient patient = mock(Patient.class);
+  private final AsyncNcpehClientImpl testee = new AsyncNcpehClientImpl(delegate);
+
+  @AfterEach
+  void tearDown() {
+    testee.close();
+  }
+
+  @Test
+  void constructorRejectsNonConcurrentDelegate() {
+    // Arrange
+    final var nonConcurrent = mock(NcpehService.class);
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class, () -> new AsyncNcpehClientImpl(nonConcurrent));
+  }
+
+  @Test
+  void identifyPatientRunsOnVirtualThread() throws Exception {
+    // Arrange
+    final var expected = mock(IdentifyPatientResponseDTO.class);
+    final var virtual = new AtomicBoolean();
+    when(delegate.identifyPatient(patientAccessData, PROFILE, COUNTRY, AUTHORITY, null, patient))
+        .thenAnswer(
+            invocation -> {
+              virtual.set(Thread.currentThread().isVirtual());
+              return expected;
+            });
+
+    // Act
+    final var result =
+        testee
+            .identifyPatient(patientAccessData, PROFILE, COUNTRY, AUTHORITY, null, patient)
+            .get(10, TimeUnit.SECONDS);
+
+    // Assert
+    assertSame(expected, result);
+    assertTrue(virtual.get());
+  }
+
+  @Test
+  void exceptionOfDelegateCompletesFutureExceptionally() {
+    // Arrange
+    final var exception = new NcpehException("findDocuments operation did not run successfully");
+    when(delegate.findDocuments(any(), any(), any(), any(), any(), any())).thenThrow(exception);
+
+    // Act
+    final var future =
+        testee.findDocuments(patientAccessData, PROFILE, COUNTRY, CLASS_CODE, null, null);
+
+    // Assert
+    final var thrown = assertThrows(ExecutionException.class, future::get);
+    assertInstanceOf(NcpehException.class, thrown.getCause());
+  }
+
+  @Test
+  void identifyFindAndRetrievePatientSummaryChainsTheUseCases() throws Exception {
+    // Arrange
+    final var identified = mock(IdentifyPatientResponseDTO.class);
+    final var found = mock(FindDocumentsResponseDTO.class);
+    final var retrieved = mock(RetrieveDocumentsResponseDTO.class);
+    final var metadata = new AdhocQueryResponse();
+    when(found.ncpehFdResponseContent()).thenReturn(metadata);
+    when(delegate.identifyPatient(patientAccessData, PROFILE, COUNTRY, AUTHORITY, null, patient))
+        .thenReturn(identified);
+    when(delegate.findDocuments(patientAccessData, PROFILE, COUNTRY, CLASS_CODE, null, null))
+        .thenReturn(found);
+    when(delegate.retrievePatientSummary(
+            eq(patientAccessData),
+            eq(patient),
+            eq(PROFILE),
+            eq(COUNTRY),
+            eq(metadata),
+            isNull(),
+            eq(PatientSummaryLevel.LEVEL_3)))
+        .thenReturn(retrieved);
+
+    // Act
+    final var result =
+        testee
+            .identifyFindAndRetrievePatientSummary(
+                patientAccessData,
+                patient,
+                PROFILE,
+                COUNTRY,
+                AUTHORITY,
+                CLASS_CODE,
+                PatientSummaryLevel.LEVEL_3)
+            .get(10, TimeUnit.SECONDS);
+
+    // Assert
+    assertSame(identified, result.identifyPatient());
+    assertSame(found, result.findDocuments());
+    assertSame(retrieved, result.retrievePatientSummary());
+    assertEquals(3, result.responses().size());
+    final var order = inOrder(delegate);
+    order
+        .verify(delegate)
+        .identifyPatient(patientAccessData, PROFILE, COUNTRY, AUTHORITY, null, patient);
+    order
+        .verify(delegate)
+        .findDocuments(patientAccessData, PROFILE, COUNTRY, CLASS_CODE, null, null);
+    order
+        .verify(delegate)
+        .retrievePatientSummary(
+            patientAccessData,
+            patient,
+            PROFILE,
+            COUNTRY,
+            metadata,
+            null,
+            PatientSummaryLevel.LEVEL_3);
+    result.close();
+    verify(retrieved).close();
+  }
+
+  @Test
+  void chainStopsAfterFailingStep() {
+    // Arrange
+    when(delegate.identifyPatient(patientAccessData, PROFILE, COUNTRY, AUTHORITY, null, patient))
+        .thenThrow(new NcpehException("identifyPatient failed"));
+
+    // Act
+    final var future =
+        testee.identifyFindAndRetrievePatientSummary(
+            patientAccessData, patient, PROFILE, COUNTRY, AUTHORITY, CLASS_CODE);
+
+    // Assert
+    assertThrows(ExecutionException.class, future::get);
+    final var order = inOrder(delegate);
+    order
+        .verify(delegate)
+        .identifyPatient(patientAccessData, PROFILE, COUNTRY, AUTHORITY, null, patient);
+    order.verifyNoMoreInteractions();
+  }
+
+  private static NcpehService concurrentDelegate() {
+    final var service = mock(NcpehService.class);
+    when(service.isConcurrent()).thenReturn(true);
+    return service;
+  }
+}
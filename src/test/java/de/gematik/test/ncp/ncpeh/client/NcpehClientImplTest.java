@@ -53,6 +53,7 @@ import de.gematik.test.ncp.data.PatientImpl;
 import de.gematik.test.ncp.data.PersonName;
 import de.gematik.test.ncp.ncpeh.NcpehException;
 import de.gematik.test.ncp.ncpeh.NcpehProvider;
+import de.gematik.test.ncp.reporting.RequestBuildTimer;
 import de.gematik.test.ncp.util.Utils;
 import de.gematik.test.ncp.utils.TestUtils;
 import jakarta.ws.rs.core.MultivaluedHashMap;
@@ -60,10 +61,20 @@ import jakarta.ws.rs.core.MultivaluedMap;
 import jakarta.ws.rs.core.Response;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
 import org.apache.cxf.jaxrs.client.Client;
 import org.junit.jupiter.api.BeforeEach;
@@ -598,4 +609,116 @@ class NcpehClientImplTest {
     headers.put(REQUEST_HEADER_RESPONSE_FILE, List.of(NCPEH_HEADER_VALUE));
     verify((Client) clientProxy).headers(headers);
   }
+
+  @Test
+  void concurrentCallsUseTheirOwnHeaders() throws Exception {
+    // Arrange
+    final var threadCount = 16;
+    final var callsPerThread = 25;
+    final var comData =
+        TestUtils.loadFromJsonResource(
+            SimulatorCommunicationData.class, this.getClass(), IDENTIFY_PATIENT_RESPONSE_FILE_NAME);
+    final var expectedHeader = new ThreadLocal<String>();
+    final var mismatches = new ConcurrentLinkedQueue<String>();
+    // the pool keeps only a bounded number of idle proxies, so more may be created on demand
+    final var createdProxies = new AtomicInteger();
+    final Supplier<NcpehSimulatorApi> proxyFactory =
+        () -> {
+          createdProxies.incrementAndGet();
+          final var proxy =
+              mock(NcpehSimulatorApi.class, withSettings().extraInterfaces(Client.class));
+          final var proxyHeaders = new AtomicReference<MultivaluedMap<String, String>>();
+          when(((Client) proxy).reset()).thenReturn((Client) proxy);
+          when(((Client) proxy).headers(any()))
+              .thenAnswer(
+                  invocation -> {
+                    proxyHeaders.set(invocation.getArgument(0));
+                    // give other threads the chance to interfere
+                    Thread.yield();
+                    return proxy;
+                  });
+          when(proxy.identifyPatient(any()))
+              .thenAnswer(
+                  invocation -> {
+                    final var sent = proxyHeaders.get().getFirst(REQUEST_HEADER_RESPONSE_FILE);
+                    if (!expectedHeader.get().equals(sent)) {
+                      mismatches.add(expectedHeader.get() + " != " + sent);
+                    }
+                    return Response.ok().entity(comData).build();
+                  });
+          return proxy;
+        };
+    final var concurrentClient =
+        NcpehClientImpl.builder().config(config).clientProxyFactory(proxyFactory).build();
+    final var startSignal = new CountDownLatch(1);
+    final var results = new ArrayList<Future<?>>();
+
+    // Act
+    try (final var executor = Executors.newFixedThreadPool(threadCount)) {
+      for (var t = 0; t < threadCount; t++) {
+        final var threadNo = t;
+        results.add(
+            executor.submit(
+                () -> {
+                  startSignal.await();
+                  for (var c = 0; c < callsPerThread; c++) {
+                    expectedHeader.set("thread-" + threadNo + "-call-" + c);
+                    concurrentClient.identifyPatient(
+                        PATIENT_ACCESS_DATA,
+                        "default",
+                        COUNTRY,
+                        OID_AC_EPKA_ASSIGNING_AUTHORITY,
+                        expectedHeader.get(),
+                        PATIENT);
+                  }
+                  return null;
+                }));
+      }
+      startSignal.countDown();
+      for (final var result : results) {
+        result.get(60, TimeUnit.SECONDS);
+      }
+    }
+
+    // Assert
+    assertTrue(concurrentClient.isConcurrent());
+    assertTrue(mismatches.isEmpty(), "Headers of other calls were sent: " + mismatches);
+    assertTrue(createdProxies.get() < threadCount * callsPerThread, "Proxies are not reused");
+  }
+
+  @Test
+  void proxyCreationIsNotPartOfTheRequestBuildTime() {
+    // Arrange
+    final var proxyCreationMillis = 200;
+    final var comData =
+        TestUtils.loadFromJsonResource(
+            SimulatorCommunicationData.class, this.getClass(), IDENTIFY_PATIENT_RESPONSE_FILE_NAME);
+    final var buildNanos = new AtomicLong(-1);
+    final var proxy = mock(NcpehSimulatorApi.class, withSettings().extraInterfaces(Client.class));
+    when(((Client) proxy).reset()).thenReturn((Client) proxy);
+    when(proxy.identifyPatient(any()))
+        .thenAnswer(
+            invocation -> {
+              buildNanos.set(RequestBuildTimer.takeRequestBuildNanos());
+              return Response.ok().entity(comData).build();
+            });
+    final Supplier<NcpehSimulatorApi> slowProxyFactory =
+        () -> {
+          try {
+            Thread.sleep(proxyCreationMillis);
+          } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          return proxy;
+        };
+    final var concurrentClient =
+        NcpehClientImpl.builder().config(config).clientProxyFactory(slowProxyFactory).build();
+
+    // Act
+    concurrentClient.identifyPatient(null, NCPEH_HEADER_VALUE, PATIENT);
+
+    // Assert
+    assertTrue(buildNanos.get() >= 0);
+    assertTrue(buildNanos.get() < TimeUnit.MILLISECONDS.toNanos(proxyCreationMillis));
+  }
 }
@@ -166,39 +166,41 @@ class DataUtilsTest {
   @Test
   void readPatientSummaryLvl3Test() {
     // Arrange
-    final var data =
-        TestUtils.loadFromXMLResource(
-            RetrieveDocumentSetResponseType.class,
-            this.getClass(),
-            RETRIEVE_DOCUMENT_SET_RESPONSE_LVL_3_XML_FILE_NAME);
+    try (final var data =
+        retrieveDocumentsResponse(RETRIEVE_DOCUMENT_SET_RESPONSE_LVL_3_XML_FILE_NAME)) {
 
-    // Act
-    final var patientSummary = assertDoesNotThrow(() -> DataUtils.readPatientSummaryLvl3(data));
+      // Act
+      final var patientSummary = assertDoesNotThrow(() -> DataUtils.readPatientSummaryLvl3(data));
 
-    // Assert
-    assertNotNull(patientSummary);
-    assertFalse(patientSummary.getRecordTarget().isEmpty());
+      // Assert
+      assertNotNull(patientSummary);
+      assertFalse(patientSummary.getRecordTarget().isEmpty());
 
-    final var recordTarget = patientSummary.getRecordTarget().getFirst();
-    assertNotNull(recordTarget.getPatientRole());
-    assertNotNull(recordTarget.getPatientRole().getPatient());
-    assertFalse(recordTarget.getPatientRole().getElementId().isEmpty());
+      final var recordTarget = patientSummary.getRecordTarget().getFirst();
+      assertNotNull(recordTarget.getPatientRole());
+      assertNotNull(recordTarget.getPatientRole().getPatient());
+      assertFalse(recordTarget.getPatientRole().getElementId().isEmpty());
+    }
   }
 
   @Test
   void readPatientSummaryLvl1Test() {
     // Arrange
-    final var data =
+    final var expected =
         TestUtils.loadFromXMLResource(
             RetrieveDocumentSetResponseType.class,
             this.getClass(),
             RETRIEVE_DOCUMENT_SET_RESPONSE_LVL_1_XML_FILE_NAME);
+    try (final var data =
+        retrieveDocumentsResponse(RETRIEVE_DOCUMENT_SET_RESPONSE_LVL_1_XML_FILE_NAME)) {
 
-    // Act
-    final var patientSummary = assertDoesNotThrow(() -> DataUtils.readPatientSummaryLvl1(data));
+      // Act
+      final var patientSummary = assertDoesNotThrow(() -> DataUtils.readPatientSummaryLvl1(data));
 
-    // Assert
-    assertNotNull(patientSummary);
+      // Assert
+      assertNotNull(patientSummary);
+      assertArrayEquals(expected.getDocumentResponse().getFirst().getDocument(), patientSummary);
+    }
   }
 
   @Test
@@ -318,6 +320,10 @@ class DataUtilsTest {
 
     // Assert
     assertNcpehInterfaceResponse(testee);
+    assertEquals("626", testee.ncpehFdRequest().headers().getFirst("content-length"));
+    assertEquals(
+        "application/soap+xml;charset=UTF-8, text/xml",
+        testee.ncpehFdResponse().headers().getFirst("Accept"));
 
     final var requestRootQName = new QName("urn:ihe:iti:xds-b:2007", "RetrieveDocumentSetRequest");
     final var expectedRequestContent =
@@ -326,13 +332,31 @@ class DataUtilsTest {
         marshalXml(testee.ncpehFdRequestContent(), requestRootQName),
         CompareMatcher.isSimilarTo(expectedRequestContent).ignoreWhitespace().ignoreComments());
 
+    // the content of the documents is held by the spooled DocumentResponses only
+    final var expectedResponse =
+        TestUtils.loadFromXMLResource(
+            RetrieveDocumentSetResponseType.class,
+            this.getClass(),
+            RETRIEVE_DOCUMENT_SET_RESPONSE_XML_FILE_NAME);
+    try (testee) {
+      assertEquals(
+          expectedResponse.getDocumentResponse().size(), testee.documentResponses().size());
+      for (var i = 0; i < testee.documentResponses().size(); i++) {
+        final var expectedDocumentResponse = expectedResponse.getDocumentResponse().get(i);
+        assertArrayEquals(
+            expectedDocumentResponse.getDocument(),
+            testee.documentResponses().get(i).document().toByteArray());
+        expectedDocumentResponse.setDocument(null);
+      }
+    }
+
     final var responseRootQName =
         new QName("urn:ihe:iti:xds-b:2007", "RetrieveDocumentSetResponse");
-    final var expectedResponseContent =
-        TestUtils.readResourceFile(this.getClass(), RETRIEVE_DOCUMENT_SET_RESPONSE_XML_FILE_NAME);
     assertThat(
         marshalXml(testee.ncpehFdResponseContent(), responseRootQName),
-        CompareMatcher.isSimilarTo(expectedResponseContent).ignoreWhitespace().ignoreComments());
+        CompareMatcher.isSimilarTo(marshalXml(expectedResponse, responseRootQName))
+            .ignoreWhitespace()
+            .ignoreComments());
   }
 
   @Test
@@ -386,6 +410,14 @@ class DataUtilsTest {
         CompareMatcher.isSimilarTo(expected).ignoreWhitespace().ignoreComments());
   }
 
+  /** Create a retrieveDocuments response, which spools the documents of the given body content */
+  private RetrieveDocumentsResponseDTO retrieveDocumentsResponse(final String bodyContentFileName) {
+    final var spooledResponse =
+        DocumentSpooler.spoolRetrieveDocumentSetResponse(
+            TestUtils.soapEnvelope(getClass(), bodyContentFileName));
+    return new RetrieveDocumentsResponseDTO(HttpStatus.OK, null, null, () -> spooledResponse);
+  }
+
   private void assertNcpehInterfaceResponse(
       final NcpehInterfaceResponse<?, ?> ncpehInterfaceResponse) {
     assertNotNull(ncpehInterfaceResponse);
@@ -0,0 +1,165 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.gematik.test.ncp.ncpeh.PatientSummaryLevel;
+import de.gematik.test.ncp.util.ClinicalDocumentInformationProvider;
+import de.gematik.test.ncp.util.Utils;
+import de.gematik.test.ncp.utils.TestUtils;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.function.Supplier;
+import lombok.SneakyThrows;
+import org.hl7.v3.ClinicalDocument;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DocumentSpoolerTest {
+
+  private static final String RETRIEVE_DOCUMENT_SET_RESPONSE_XML_FILE_NAME =
+      "RetrieveDocumentSetResponse.xml";
+  private static final String PRESCRIPTION_CDA1_XML_FILE_NAME =
+      "/de/gematik/test/ncp/util/Prescription_CDA1.xml";
+
+  @TempDir Path tempDir;
+
+  @Test
+  void spoolRetrieveDocumentSetResponse_equalsUnmarshalledResponse() {
+    // Arrange
+    final var message =
+        TestUtils.soapEnvelope(getClass(), RETRIEVE_DOCUMENT_SET_RESPONSE_XML_FILE_NAME);
+    final var expected =
+        TestUtils.loadFromXMLResource(
+            RetrieveDocumentSetResponseType.class,
+            this.getClass(),
+            RETRIEVE_DOCUMENT_SET_RESPONSE_XML_FILE_NAME);
+
+    // Act
+    try (final var result =
+        DocumentSpooler.spoolRetrieveDocumentSetResponse(message, spoolingFactory())) {
+
+      // Assert
+      assertEquals(
+          expected.getRegistryResponse().getStatus(),
+          result.response().getRegistryResponse().getStatus());
+      final var documentResponses = result.documentResponses();
+      assertEquals(expected.getDocumentResponse().size(), documentResponses.size());
+      assertEquals(
+          expected.getDocumentResponse().size(), result.response().getDocumentResponse().size());
+      for (var i = 0; i < documentResponses.size(); i++) {
+        final var expectedResponse = expected.getDocumentResponse().get(i);
+        final var metadata = result.response().getDocumentResponse().get(i);
+        assertEquals(expectedResponse.getDocumentUniqueId(), metadata.getDocumentUniqueId());
+        assertEquals(expectedResponse.getRepositoryUniqueId(), metadata.getRepositoryUniqueId());
+        assertNull(metadata.getDocument());
+
+        final var response = documentResponses.get(i);
+        assertEquals(expectedResponse.getRepositoryUniqueId(), response.repositoryUniqueId());
+        assertEquals(expectedResponse.getDocumentUniqueId(), response.documentUniqueId());
+        assertEquals(expectedResponse.getMimeType(), response.mimeType());
+        assertTrue(response.document().isSpooled());
+        assertArrayEquals(expectedResponse.getDocument(), response.document().toByteArray());
+      }
+    }
+  }
+
+  @Test
+  void spoolRetrieveDocumentSetResponse_readClinicalDocumentOnDemand() {
+    // Arrange
+    final var message =
+        TestUtils.soapEnvelope(getClass(), RETRIEVE_DOCUMENT_SET_RESPONSE_XML_FILE_NAME);
+    try (final var response =
+        DocumentSpooler.spoolRetrieveDocumentSetResponse(message, spoolingFactory())) {
+
+      // Act
+      final var document =
+          DataUtils.readPatientSummaryDocument(
+              response.documentResponses(), PatientSummaryLevel.LEVEL_3);
+
+      // Assert
+      assertNotNull(document);
+      assertThat(document.readClinicalDocument())
+          .usingRecursiveComparison()
+          .isEqualTo(Utils.unmarshalXml(ClinicalDocument.class, document.toByteArray()));
+    }
+  }
+
+  @Test
+  void spoolRetrieveDocumentSetResponse_close_deletesDocuments() {
+    // Arrange
+    final var message =
+        TestUtils.soapEnvelope(getClass(), RETRIEVE_DOCUMENT_SET_RESPONSE_XML_FILE_NAME);
+    final var response =
+        DocumentSpooler.spoolRetrieveDocumentSetResponse(message, spoolingFactory());
+
+    // Act
+    response.close();
+
+    // Assert
+    assertThat(tempDir).isEmptyDirectory();
+    assertThrows(
+        IllegalStateException.class,
+        () -> response.documentResponses().getFirst().document().openStream());
+  }
+
+  @SneakyThrows
+  @Test
+  void spoolNonXmlBody_decodesPayload() {
+    // Arrange
+    final byte[] cdaContent;
+    try (final var in = getClass().getResourceAsStream(PRESCRIPTION_CDA1_XML_FILE_NAME)) {
+      cdaContent = Objects.requireNonNull(in).readAllBytes();
+    }
+    final var cda = new SpooledDocument(Integer.MAX_VALUE, tempDir);
+    try (final var out = cda.writer()) {
+      out.write(cdaContent);
+    }
+    final var expected =
+        Base64.getMimeDecoder()
+            .decode(
+                ClinicalDocumentInformationProvider.getB64PdfPayload(
+                    Utils.unmarshalXml(ClinicalDocument.class, cdaContent)));
+
+    // Act
+    final var result = DocumentSpooler.spoolNonXmlBody(cda, spoolingFactory());
+
+    // Assert
+    assertTrue(result.isPresent());
+    assertArrayEquals(expected, result.get().toByteArray());
+    result.get().close();
+  }
+
+  /** Spool everything larger than a few bytes, to have the files written in the tests */
+  private Supplier<SpooledDocument> spoolingFactory() {
+    return () -> new SpooledDocument(16, tempDir);
+  }
+}
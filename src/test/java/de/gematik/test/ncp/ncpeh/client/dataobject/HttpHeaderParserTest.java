@@ -0,0 +1,101 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class HttpHeaderParserTest {
+
+  @Test
+  void parse_simulatorFormat() {
+    // Arrange
+    final var headers =
+        ("[Accept:\"text/xml, application/soap+xml;charset=UTF-8\", "
+                + "Content-Type:\"application/soap+xml;charset=UTF-8\", Content-Length:\"626\"]")
+            .getBytes(UTF_8);
+
+    // Act
+    final var result = HttpHeaderParser.parse(headers);
+
+    // Assert
+    assertEquals(3, result.size());
+    assertEquals(List.of("text/xml, application/soap+xml;charset=UTF-8"), result.get("Accept"));
+    assertEquals("application/soap+xml;charset=UTF-8", result.getFirst("Content-Type"));
+    assertEquals("626", result.getFirst("Content-Length"));
+  }
+
+  @Test
+  void parse_namesAreCaseInsensitive() {
+    // Arrange
+    final var headers = "[content-type:\"text/xml\"]".getBytes(UTF_8);
+
+    // Act
+    final var result = HttpHeaderParser.parse(headers);
+
+    // Assert
+    assertEquals("text/xml", result.getFirst("Content-Type"));
+    assertEquals("text/xml", result.getFirst("CONTENT-TYPE"));
+  }
+
+  @Test
+  void parse_severalValuesAndQuotesWithinValue() {
+    // Arrange
+    final var headers = "[Vary:\"Origin\", \"Accept\", ETag:\"\"33a64df5\"\"]".getBytes(UTF_8);
+
+    // Act
+    final var result = HttpHeaderParser.parse(headers);
+
+    // Assert
+    assertEquals(List.of("Origin", "Accept"), result.get("Vary"));
+    assertEquals(List.of("\"33a64df5\""), result.get("ETag"));
+  }
+
+  @Test
+  void parse_headerLines() {
+    // Arrange
+    final var headers =
+        "Host: example.org\r\nDate: Mon, 01 Jan 2024 10:00:00 GMT\r\nX-Name: Gräfin\r\n"
+            .getBytes(UTF_8);
+
+    // Act
+    final var result = HttpHeaderParser.parse(headers);
+
+    // Assert
+    assertEquals("example.org", result.getFirst("Host"));
+    assertEquals("Mon, 01 Jan 2024 10:00:00 GMT", result.getFirst("Date"));
+    assertEquals("Gräfin", result.getFirst("X-Name"));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"", "[]", "  [ ]  "})
+  void parse_noHeaders_returnsEmpty(final String headers) {
+    // Act & Assert
+    assertTrue(HttpHeaderParser.parse(headers.getBytes(UTF_8)).isEmpty());
+  }
+}
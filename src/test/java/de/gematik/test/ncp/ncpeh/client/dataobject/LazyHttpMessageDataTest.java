@@ -0,0 +1,150 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+class LazyHttpMessageDataTest {
+
+  @Test
+  void request_parsesOnFirstAccessOnly() {
+    // Arrange
+    final var headerCalls = new AtomicInteger();
+    final var contentCalls = new AtomicInteger();
+    final var content = new Object();
+    final MultiValueMap<String, String> headers =
+        new LinkedMultiValueMap<>(Map.of("Content-Type", List.of("text/xml")));
+
+    // Act
+    final var testee =
+        new LazyHttpRequestData<>(
+            HttpMethod.POST,
+            "/ncpeh",
+            counting(headerCalls, headers),
+            counting(contentCalls, content));
+
+    // Assert
+    assertEquals(0, headerCalls.get());
+    assertEquals(0, contentCalls.get());
+    assertEquals(HttpMethod.POST, testee.method());
+    assertEquals("/ncpeh", testee.address());
+
+    assertSame(content, testee.content());
+    assertSame(content, testee.content());
+    assertEquals(1, contentCalls.get());
+    assertEquals(0, headerCalls.get());
+
+    assertSame(headers, testee.headers());
+    testee.headers();
+    assertEquals(1, headerCalls.get());
+  }
+
+  @Test
+  void response_nullContentIsParsedOnce() {
+    // Arrange
+    final var contentCalls = new AtomicInteger();
+    final var testee =
+        new LazyHttpResponseData<>(
+            HttpStatus.OK, LinkedMultiValueMap::new, counting(contentCalls, null));
+
+    // Act
+    final var first = testee.content();
+    final var second = testee.content();
+
+    // Assert
+    assertNull(first);
+    assertNull(second);
+    assertEquals(1, contentCalls.get());
+    assertEquals(HttpStatus.OK, testee.status());
+  }
+
+  @Test
+  void request_equalsAndHashCodeUseParsedValues() {
+    // Arrange
+    final var testee =
+        new LazyHttpRequestData<>(
+            HttpMethod.POST, "/ncpeh", () -> headers("text/xml"), () -> "content");
+    final var same =
+        new LazyHttpRequestData<>(
+            HttpMethod.POST, "/ncpeh", () -> headers("text/xml"), () -> "content");
+    final var otherHeaders =
+        new LazyHttpRequestData<>(
+            HttpMethod.POST, "/ncpeh", () -> headers("application/xml"), () -> "content");
+    final var otherAddress =
+        new LazyHttpRequestData<>(
+            HttpMethod.POST, "/other", () -> headers("text/xml"), () -> "content");
+
+    // Act & Assert
+    assertEquals(testee, same);
+    assertEquals(testee.hashCode(), same.hashCode());
+    assertNotEquals(testee, otherHeaders);
+    assertNotEquals(testee, otherAddress);
+  }
+
+  @Test
+  void response_equalsAndToStringUseParsedValues() {
+    // Arrange
+    final var testee =
+        new LazyHttpResponseData<>(HttpStatus.OK, () -> headers("text/xml"), () -> "content");
+    final var same =
+        new LazyHttpResponseData<>(HttpStatus.OK, () -> headers("text/xml"), () -> "content");
+    final var otherStatus =
+        new LazyHttpResponseData<>(
+            HttpStatus.BAD_REQUEST, () -> headers("text/xml"), () -> "content");
+
+    // Act
+    final var result = testee.toString();
+
+    // Assert
+    assertEquals(testee, same);
+    assertEquals(testee.hashCode(), same.hashCode());
+    assertNotEquals(testee, otherStatus);
+    assertTrue(result.contains("status=200 OK"), result);
+    assertTrue(result.contains("content=content"), result);
+    assertTrue(result.contains("text/xml"), result);
+  }
+
+  private static MultiValueMap<String, String> headers(final String contentType) {
+    return new LinkedMultiValueMap<>(Map.of("Content-Type", List.of(contentType)));
+  }
+
+  private static <T> Supplier<T> counting(final AtomicInteger calls, final T value) {
+    return () -> {
+      calls.incrementAndGet();
+      return value;
+    };
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.gematik.ncpeh.api.response.SimulatorCommunicationData;
+import de.gematik.test.ncp.utils.TestUtils;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
+import jakarta.ws.rs.core.Response;
+import org.hl7.v3.PRPAIN201305UV02;
+import org.hl7.v3.PRPAIN201306UV02;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.http.HttpStatus;
+
+class ResponseParseContextTest {
+
+  private static final String IDENTIFY_PATIENT_RESPONSE_FILE_NAME = "identifyPatientResponse.json";
+
+  private Response createResponse(final String fileName) {
+    return Response.ok(
+            TestUtils.loadFromJsonResource(
+                SimulatorCommunicationData.class, this.getClass(), fileName))
+        .build();
+  }
+
+  @Test
+  void ofReadsEntityOnlyOnce() {
+    // Arrange
+    final var response = spy(createResponse(IDENTIFY_PATIENT_RESPONSE_FILE_NAME));
+
+    // Act
+    final var first = ResponseParseContext.of(response);
+    final var second = ResponseParseContext.of(response);
+
+    // Assert
+    assertSame(first, second);
+    assertEquals(HttpStatus.OK, first.status());
+    verify(response, times(1)).readEntity(SimulatorCommunicationData.class);
+  }
+
+  @Test
+  void bodiesAreParsedOnce() {
+    // Arrange
+    final var testee =
+        ResponseParseContext.of(createResponse(IDENTIFY_PATIENT_RESPONSE_FILE_NAME));
+
+    // Act
+    final var request = testee.requestBody(PRPAIN201305UV02.class);
+    final var response = testee.responseBody(PRPAIN201306UV02.class);
+
+    // Assert
+    assertSame(request, testee.requestBody(PRPAIN201305UV02.class));
+    assertSame(response, testee.responseBody(PRPAIN201306UV02.class));
+  }
+
+  @Test
+  void retrieveDocumentSetResponseIsReadOnceBySpooling() {
+    // Arrange
+    final var testee = ResponseParseContext.of(createResponse("retrieveDocumentResponse.json"));
+
+    // Act
+    final var body = testee.responseBody(RetrieveDocumentSetResponseType.class);
+
+    // Assert
+    try (final var spooled = testee.retrieveDocumentSetResponse()) {
+      assertSame(spooled.response(), body);
+      assertEquals(body.getDocumentResponse().size(), spooled.documentResponses().size());
+      assertTrue(body.getDocumentResponse().stream().allMatch(dr -> dr.getDocument() == null));
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "identifyPatientResponse.json, org.hl7.v3.PRPAIN201306UV02",
+    "findDocumentResponse.json, oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse",
+    "retrieveDocumentResponse.json, ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType",
+    "provideAndRegisterDocumentSetResponse.json, "
+        + "oasis.names.tc.ebxml_regrep.xsd.rs._3.RegistryResponseType"
+  })
+  void responseBodyTypeIsDeterminedByRootElement(final String fileName, final Class<?> expected) {
+    // Arrange
+    final var testee = ResponseParseContext.of(createResponse(fileName));
+
+    // Act
+    final var result = testee.responseBodyType();
+
+    // Assert
+    assertTrue(result.isPresent());
+    assertEquals(expected, result.get());
+  }
+}
@@ -21,10 +21,19 @@
 
 package de.gematik.test.ncp.ncpeh.client.dataobject;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import de.gematik.test.ncp.util.Utils;
+import de.gematik.test.ncp.utils.TestUtils;
+import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType;
 import jakarta.xml.soap.SOAPException;
+import java.util.Optional;
+import javax.xml.namespace.QName;
 import org.junit.jupiter.api.Test;
 import org.w3c.dom.Document;
 
@@ -61,4 +70,131 @@ class SoapUtilsTest {
     // Act & Assert
     assertThrows(SOAPException.class, () -> SoapUtils.extractBodyAsDocument(data));
   }
+
+  @Test
+  void readBodyRootElementName_skipsHeader() {
+    // Arrange
+    final byte[] data =
+        "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Header><a>b</a></soap:Header><soap:Body><t:test xmlns:t=\"urn:test\">data</t:test></soap:Body></soap:Envelope>"
+            .getBytes();
+
+    // Act
+    final var result = SoapUtils.readBodyRootElementName(data);
+
+    // Assert
+    assertEquals(Optional.of(new QName("urn:test", "test")), result);
+  }
+
+  @Test
+  void readBodyRootElementName_emptyBody_returnsEmpty() {
+    // Arrange
+    final byte[] data =
+        "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body/></soap:Envelope>"
+            .getBytes();
+
+    // Act & Assert
+    assertEquals(Optional.empty(), SoapUtils.readBodyRootElementName(data));
+  }
+
+  @Test
+  void readBodyRootElementName_invalidData_returnsEmpty() {
+    // Arrange
+    final byte[] data = "invalid data".getBytes();
+
+    // Act & Assert
+    assertEquals(Optional.empty(), SoapUtils.readBodyRootElementName(data));
+  }
+
+  @Test
+  void unmarshalBodyContent_equalsSaajResult() {
+    // Arrange
+    final var data = TestUtils.soapEnvelope(getClass(), "RetrieveDocumentSetResponse.xml");
+    final var expected =
+        Utils.unmarshalXml(
+            RetrieveDocumentSetResponseType.class, SoapUtils.extractBodyAsDocument(data));
+
+    // Act
+    final var result = SoapUtils.unmarshalBodyContent(data, RetrieveDocumentSetResponseType.class);
+
+    // Assert
+    assertTrue(result.isPresent());
+    assertThat(result.get()).usingRecursiveComparison().isEqualTo(expected);
+  }
+
+  @Test
+  void unmarshalBodyContent_multipart_returnsEmpty() {
+    // Arrange
+    final byte[] data =
+        ("--uuid:6b62cda9\r\nContent-Type: application/xop+xml\r\n\r\n"
+                + new String(
+                    TestUtils.soapEnvelope(getClass(), "RetrieveDocumentSetResponse_020.xml"),
+                    UTF_8)
+                + "\r\n--uuid:6b62cda9--")
+            .getBytes(UTF_8);
+
+    // Act & Assert
+    assertEquals(
+        Optional.empty(),
+        SoapUtils.unmarshalBodyContent(data, RetrieveDocumentSetResponseType.class));
+  }
+
+  @Test
+  void unmarshalBodyContent_emptyBody_returnsEmpty() {
+    // Arrange
+    final byte[] data =
+        "<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body/></soap:Envelope>"
+            .getBytes();
+
+    // Act & Assert
+    assertEquals(
+        Optional.empty(),
+        SoapUtils.unmarshalBodyContent(data, RetrieveDocumentSetResponseType.class));
+  }
+
+  @Test
+  void readRegistryResponse_readsErrorsOfRetrieveDocumentSetResponse() {
+    // Arrange
+    final var data = TestUtils.soapEnvelope(getClass(), "RetrieveDocumentSetResponse_020.xml");
+
+    // Act
+    final var result = SoapUtils.readRegistryResponse(data);
+
+    // Assert
+    assertTrue(result.isPresent());
+    assertEquals(
+        "urn:oasis:names:tc:ebxml-regrep:ResponseStatusType:Failure", result.get().getStatus());
+    assertThat(DataUtils.readRegistryErrorCodesFromRegistryResponse(result.get()))
+        .containsExactly("ERROR_GENERIC_DOCUMENT_MISSING");
+  }
+
+  @Test
+  void readRegistryResponse_stopsBeforeTheDocuments() {
+    // Arrange
+    // the documents after the RegistryResponse are not even well-formed
+    final byte[] data =
+        ("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\"><soap:Body>"
+                + "<ns3:RetrieveDocumentSetResponse xmlns:ns3=\"urn:ihe:iti:xds-b:2007\""
+                + " xmlns:rs=\"urn:oasis:names:tc:ebxml-regrep:xsd:rs:3.0\">"
+                + "<rs:RegistryResponse"
+                + " status=\"urn:oasis:names:tc:ebxml-regrep:ResponseStatusType:Success\"/>"
+                + "<ns3:DocumentResponse><ns3:Document>broken</ns3:Documen>")
+            .getBytes(UTF_8);
+
+    // Act
+    final var result = SoapUtils.readRegistryResponse(data);
+
+    // Assert
+    assertTrue(result.isPresent());
+    assertEquals(
+        "urn:oasis:names:tc:ebxml-regrep:ResponseStatusType:Success", result.get().getStatus());
+  }
+
+  @Test
+  void readRegistryResponse_withoutRegistryResponse_returnsEmpty() {
+    // Arrange
+    final var data = TestUtils.soapEnvelope(getClass(), "AdhocQueryResponse_010.xml");
+
+    // Act & Assert
+    assertEquals(Optional.empty(), SoapUtils.readRegistryResponse(data));
+  }
 }
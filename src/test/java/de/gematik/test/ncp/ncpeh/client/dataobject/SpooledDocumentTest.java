@@ -0,0 +1,131 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ncpeh.client.dataobject;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpooledDocumentTest {
+
+  private static final byte[] CONTENT = "0123456789abcdefghij".getBytes(UTF_8);
+
+  @TempDir Path tempDir;
+
+  @Test
+  void smallDocument_staysInMemory() {
+    // Arrange
+    final var document = new SpooledDocument(1024, tempDir);
+
+    // Act
+    write(document, CONTENT);
+
+    // Assert
+    assertFalse(document.isSpooled());
+    assertEquals(CONTENT.length, document.size());
+    assertArrayEquals(CONTENT, document.toByteArray());
+    assertEquals(CONTENT.length, document.asByteBuffer().remaining());
+  }
+
+  @SneakyThrows
+  @Test
+  void largeDocument_isSpooledAndDeletedOnClose() {
+    // Arrange
+    final var document = new SpooledDocument(8, tempDir);
+
+    // Act
+    write(document, CONTENT);
+
+    // Assert
+    assertTrue(document.isSpooled());
+    assertEquals(CONTENT.length, document.size());
+    try (final var in = document.openStream()) {
+      assertArrayEquals(CONTENT, in.readAllBytes());
+    }
+    final var buffer = document.asByteBuffer();
+    assertTrue(buffer.isReadOnly());
+    final var mapped = new byte[buffer.remaining()];
+    buffer.get(mapped);
+    assertArrayEquals(CONTENT, mapped);
+    try (final var files = Files.list(tempDir)) {
+      assertThat(files).hasSize(1);
+    }
+
+    document.close();
+    try (final var files = Files.list(tempDir)) {
+      assertThat(files).isEmpty();
+    }
+  }
+
+  @Test
+  void openStream_afterClose_throws() {
+    // Arrange
+    final var document = new SpooledDocument(8, tempDir);
+    write(document, CONTENT);
+
+    // Act
+    document.close();
+    document.close();
+
+    // Assert
+    assertThrows(IllegalStateException.class, document::openStream);
+    assertThrows(IllegalStateException.class, document::asByteBuffer);
+  }
+
+  @Test
+  void openStream_beforeWritten_throws() {
+    // Arrange
+    final var document = new SpooledDocument(8, tempDir);
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class, document::openStream);
+  }
+
+  @Test
+  void writer_twice_throws() {
+    // Arrange
+    final var document = new SpooledDocument(8, tempDir);
+    write(document, CONTENT);
+
+    // Act & Assert
+    assertThrows(IllegalStateException.class, document::writer);
+  }
+
+  @SneakyThrows
+  private static void write(final SpooledDocument document, final byte[] content) {
+    try (final var out = document.writer()) {
+      // in two parts, to cross the spool threshold in the middle of the content
+      out.write(content, 0, 5);
+      out.write(content, 5, content.length - 5);
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ps;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import de.gematik.test.ncp.data.PatientImpl;
+import de.gematik.test.ncp.data.PersonName;
+import de.gematik.test.ncp.ps.AktenkontoSeeder.Account;
+import de.gematik.test.ncp.ps.AktenkontoSeeder.Stage;
+import de.gematik.test.ncp.ps.epaps.PrimarySystemServiceMockImpl;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class AktenkontoSeederTest {
+
+  private static final String TELEMATIK_ID = "1-883110000163990";
+
+  private static List<Account> accounts(final int count, final int documentsPerAccount) {
+    return IntStream.range(0, count)
+        .mapToObj(
+            i ->
+                new Account(
+                    "X%09d".formatted(i),
+                    IntStream.range(0, documentsPerAccount)
+                        .mapToObj(d -> ("epka" + i + "-" + d).getBytes(StandardCharsets.UTF_8))
+                        .toList()))
+        .toList();
+  }
+
+  @Test
+  void seed() {
+    // Arrange
+    final var seeder =
+        AktenkontoSeeder.builder()
+            .primarySystem(PrimarySystemServiceMockImpl.instance())
+            .telematikId(TELEMATIK_ID)
+            .build();
+
+    // Act
+    final var report = seeder.seed(accounts(20, 2));
+
+    // Assert
+    assertTrue(report.failures().isEmpty());
+    assertEquals(20, report.documentTitles().size());
+    assertEquals(List.of("mockTitle", "mockTitle"), report.documentTitles().get("X000000003"));
+    assertEquals(20, report.statistics().get(Stage.AUTHORIZE).succeeded());
+    assertEquals(20, report.statistics().get(Stage.CLEAN_UP).succeeded());
+    assertEquals(0, report.statistics().get(Stage.CREATE).succeeded());
+    assertEquals(40, report.statistics().get(Stage.SIGN).succeeded());
+    assertEquals(20, report.statistics().get(Stage.UPLOAD).succeeded());
+    assertTrue(report.statistics().get(Stage.UPLOAD).throughput() > 0);
+  }
+
+  @Test
+  void seedPatients() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+    final var seeder =
+        AktenkontoSeeder.builder()
+            .primarySystem(primarySystem)
+            .telematikId(TELEMATIK_ID)
+            .replaceExisting(false)
+            .sign(false)
+            .build();
+    final var patient =
+        new PatientImpl(
+            PersonName.fromString("Dr. John Doedeldie"), "X190471029", LocalDate.of(1987, 11, 23));
+
+    // Act
+    final var report = seeder.seedPatients(List.of(patient));
+
+    // Assert
+    assertTrue(report.failures().isEmpty());
+    assertEquals(List.of("mockTitle"), report.documentTitles().get(patient.kvnr()));
+    assertEquals(1, report.statistics().get(Stage.CREATE).succeeded());
+    assertEquals(0, report.statistics().get(Stage.SIGN).succeeded());
+    verify(primarySystem, never()).findEpka(anyString());
+    verify(primarySystem).putDocuments(eq(patient.kvnr()), any(), anyList());
+  }
+
+  @Test
+  void seedReportsFailures() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+    doThrow(new PsException("Card not available", "signDocument"))
+        .when(primarySystem)
+        .signDocument(eq("epka2-0".getBytes(StandardCharsets.UTF_8)), anyBoolean(), anyString());
+    final var seeder =
+        AktenkontoSeeder.builder().primarySystem(primarySystem).telematikId(TELEMATIK_ID).build();
+
+    // Act
+    final var report = seeder.seed(accounts(5, 1));
+
+    // Assert
+    assertEquals(1, report.failures().size());
+    final var failure = report.failures().getFirst();
+    assertEquals("X000000002", failure.kvnr());
+    assertEquals(Stage.SIGN, failure.stage());
+    assertInstanceOf(PsException.class, failure.cause());
+    assertFalse(report.documentTitles().containsKey("X000000002"));
+    assertEquals(1, report.statistics().get(Stage.SIGN).failed());
+    assertEquals(4, report.statistics().get(Stage.UPLOAD).succeeded());
+    verify(primarySystem, never()).putDocuments(eq("X000000002"), any(), anyList());
+  }
+
+  @Test
+  void seedBoundsConcurrencyPerStage() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+    final var active = new AtomicInteger();
+    final var maxActive = new AtomicInteger();
+    doAnswer(
+            invocation -> {
+              maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+              Thread.sleep(10);
+              active.decrementAndGet();
+              return invocation.getArgument(0);
+            })
+        .when(primarySystem)
+        .signDocument(any(), anyBoolean(), anyString());
+    final var seeder =
+        AktenkontoSeeder.builder()
+            .primarySystem(primarySystem)
+            .telematikId(TELEMATIK_ID)
+            .signConcurrency(3)
+            .build();
+
+    // Act
+    final var report = seeder.seed(accounts(30, 1));
+
+    // Assert
+    assertTrue(report.failures().isEmpty());
+    assertTrue(maxActive.get() <= 3, "More than 3 concurrent signatures: " + maxActive.get());
+    assertTrue(maxActive.get() > 1, "Signatures were not run in parallel");
+  }
+}
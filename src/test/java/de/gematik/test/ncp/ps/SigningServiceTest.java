@@ -0,0 +1,237 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ps;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import de.gematik.test.ncp.ps.epaps.PrimarySystemServiceMockImpl;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class SigningServiceTest {
+
+  private static byte[] document(final String content) {
+    return content.getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  void signAll() {
+    // Arrange
+    final var primarySystem = PrimarySystemServiceMockImpl.instance();
+    final var documents = List.of(document("epka1"), document("epka2"), document("epka3"));
+
+    // Act
+    final List<byte[]> signatures;
+    try (final var service = new SigningService(primarySystem, 2)) {
+      signatures =
+          service.signAll(documents, true, "RSA_ECC").stream()
+              .map(CompletableFuture::join)
+              .toList();
+    }
+
+    // Assert
+    for (var i = 0; i < documents.size(); i++) {
+      assertArrayEquals(primarySystem.signDocument(documents.get(i)), signatures.get(i));
+    }
+  }
+
+  @Test
+  void signDeduplicatesIdenticalDocuments() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+    final var release = new CountDownLatch(1);
+    doAnswer(
+            invocation -> {
+              release.await();
+              return invocation.callRealMethod();
+            })
+        .when(primarySystem)
+        .signDocument(any(), anyBoolean(), anyString());
+
+    // Act
+    final SigningService.AlgorithmStatistics statistics;
+    final CompletableFuture<byte[]> first;
+    final CompletableFuture<byte[]> second;
+    final CompletableFuture<byte[]> otherAlgorithm;
+    try (final var service = new SigningService(primarySystem, 2)) {
+      first = service.sign(document("epka"));
+      second = service.sign(document("epka"));
+      otherAlgorithm = service.sign(document("epka"), true, "ECC");
+      release.countDown();
+      otherAlgorithm.join();
+      first.join();
+      statistics = service.statistics().get(SigningService.DEFAULT_SIGNATURE_ALGORITHM);
+    }
+
+    // Assert
+    assertSame(first, second);
+    assertNotSame(first, otherAlgorithm);
+    verify(primarySystem, times(2)).signDocument(any(), anyBoolean(), anyString());
+    assertEquals(1, statistics.signed());
+    assertEquals(1, statistics.deduplicated());
+  }
+
+  @Test
+  void signFailureCanBeRetried() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+    doThrow(new PsException("Card not available", "signDocument"))
+        .doCallRealMethod()
+        .when(primarySystem)
+        .signDocument(any(), anyBoolean(), anyString());
+
+    // Act
+    final SigningService.AlgorithmStatistics statistics;
+    final CompletableFuture<byte[]> failed;
+    final CompletableFuture<byte[]> retried;
+    try (final var service = new SigningService(primarySystem, 1)) {
+      failed = service.sign(document("epka"));
+      assertThrows(ExecutionException.class, failed::get);
+      retried = service.sign(document("epka"));
+      retried.join();
+      statistics = service.statistics().get(SigningService.DEFAULT_SIGNATURE_ALGORITHM);
+    }
+
+    // Assert
+    assertNotSame(failed, retried);
+    assertTrue(retried.isDone() && !retried.isCompletedExceptionally());
+    assertEquals(1, statistics.failed());
+    assertEquals(1, statistics.signed());
+  }
+
+  @Test
+  void signDoesNotKeepCompletedSignatures() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+
+    // Act
+    final CompletableFuture<byte[]> first;
+    final CompletableFuture<byte[]> second;
+    try (final var service = new SigningService(primarySystem, 1)) {
+      first = service.sign(document("epka"));
+      first.join();
+      second = service.sign(document("epka"));
+      second.join();
+    }
+
+    // Assert
+    assertNotSame(first, second);
+    verify(primarySystem, times(2)).signDocument(any(), anyBoolean(), anyString());
+  }
+
+  @Test
+  void signCompletesExceptionallyOnError() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+    doThrow(new AssertionError("Konnektor gone"))
+        .when(primarySystem)
+        .signDocument(any(), anyBoolean(), anyString());
+
+    // Act
+    final SigningService.AlgorithmStatistics statistics;
+    final CompletableFuture<byte[]> failed;
+    try (final var service = new SigningService(primarySystem, 1)) {
+      failed = service.sign(document("epka"));
+      final var exception = assertThrows(ExecutionException.class, failed::get);
+      assertInstanceOf(AssertionError.class, exception.getCause());
+      statistics = service.statistics().get(SigningService.DEFAULT_SIGNATURE_ALGORITHM);
+    }
+
+    // Assert
+    assertEquals(1, statistics.failed());
+  }
+
+  @Test
+  void signAfterCloseFails() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+    final var service = new SigningService(primarySystem, 1);
+    service.close();
+
+    // Act
+    final var first = service.sign(document("epka"));
+    final var second = service.sign(document("epka"));
+
+    // Assert
+    final var exception = assertThrows(ExecutionException.class, first::get);
+    assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    assertNotSame(first, second);
+    assertTrue(second.isCompletedExceptionally());
+    verify(primarySystem, never()).signDocument(any(), anyBoolean(), anyString());
+  }
+
+  @Test
+  void signBoundsWorkers() {
+    // Arrange
+    final var primarySystem = spy(PrimarySystemServiceMockImpl.instance());
+    final var active = new AtomicInteger();
+    final var maxActive = new AtomicInteger();
+    doAnswer(
+            invocation -> {
+              maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+              Thread.sleep(10);
+              active.decrementAndGet();
+              return invocation.getArgument(0);
+            })
+        .when(primarySystem)
+        .signDocument(any(), anyBoolean(), anyString());
+    final var documents = IntStream.range(0, 20).mapToObj(i -> document("epka" + i)).toList();
+
+    // Act
+    final SigningService.AlgorithmStatistics statistics;
+    try (final var service = new SigningService(primarySystem, 3)) {
+      service.signAll(documents, false, "ECC").forEach(CompletableFuture::join);
+      statistics = service.statistics().get("ECC");
+    }
+
+    // Assert
+    assertTrue(maxActive.get() <= 3, "More than 3 concurrent signatures: " + maxActive.get());
+    assertTrue(maxActive.get() > 1, "Signatures were not run in parallel");
+    assertEquals(20, statistics.signed());
+    assertTrue(statistics.max().compareTo(statistics.average()) >= 0);
+  }
+
+  @Test
+  void constructorRejectsNoWorkers() {
+    // Arrange
+    final var primarySystem = PrimarySystemServiceMockImpl.instance();
+
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> new SigningService(primarySystem, 0));
+  }
+}
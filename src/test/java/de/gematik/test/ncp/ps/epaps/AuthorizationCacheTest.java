@@ -0,0 +1,121 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.ps.epaps;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AuthorizationCacheTest {
+
+  private static final String TELEMATIK_ID = "1-883110000163990";
+  private static final String KVNR = "X110987654";
+  private static final Instant NOW = Instant.parse("2026-03-01T10:00:00Z");
+
+  private final Clock clock = mock(Clock.class);
+
+  @BeforeEach
+  void init() {
+    when(clock.instant()).thenReturn(NOW);
+  }
+
+  @Test
+  void isAuthorizedWithinTimeToLive() {
+    // Arrange
+    final var cache = new AuthorizationCache(Duration.ofMinutes(5), clock);
+    cache.authorized(TELEMATIK_ID, KVNR);
+
+    // Act
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(4)));
+    final var authorized = cache.isAuthorized(TELEMATIK_ID, KVNR);
+    final var otherLe = cache.isAuthorized("1-2", KVNR);
+
+    // Assert
+    assertTrue(authorized);
+    assertFalse(otherLe);
+  }
+
+  @Test
+  void isAuthorizedExpires() {
+    // Arrange
+    final var cache = new AuthorizationCache(Duration.ofMinutes(5), clock);
+    cache.authorized(TELEMATIK_ID, KVNR);
+
+    // Act
+    when(clock.instant()).thenReturn(NOW.plus(Duration.ofMinutes(5)));
+    final var authorized = cache.isAuthorized(TELEMATIK_ID, KVNR);
+
+    // Assert
+    assertFalse(authorized);
+  }
+
+  @Test
+  void disabledWithZeroTimeToLive() {
+    // Arrange
+    final var cache = new AuthorizationCache(Duration.ZERO, clock);
+
+    // Act
+    cache.authorized(TELEMATIK_ID, KVNR);
+
+    // Assert
+    assertFalse(cache.isAuthorized(TELEMATIK_ID, KVNR));
+  }
+
+  @Test
+  void evict() {
+    // Arrange
+    final var cache = new AuthorizationCache(Duration.ofMinutes(5), clock);
+    cache.authorized(TELEMATIK_ID, KVNR);
+    cache.authorized("1-2", KVNR);
+    cache.authorized(TELEMATIK_ID, "X000000001");
+
+    // Act
+    cache.evict(TELEMATIK_ID, "X000000001");
+    final var afterEvict = cache.isAuthorized(TELEMATIK_ID, "X000000001");
+    cache.evictKvnr(KVNR);
+    final var afterEvictKvnr =
+        cache.isAuthorized(TELEMATIK_ID, KVNR) || cache.isAuthorized("1-2", KVNR);
+
+    // Assert
+    assertFalse(afterEvict);
+    assertFalse(afterEvictKvnr);
+  }
+
+  @Test
+  void clear() {
+    // Arrange
+    final var cache = new AuthorizationCache(Duration.ofMinutes(5), clock);
+    cache.authorized(TELEMATIK_ID, KVNR);
+
+    // Act
+    cache.clear();
+
+    // Assert
+    assertFalse(cache.isAuthorized(TELEMATIK_ID, KVNR));
+  }
+}
@@ -58,6 +58,7 @@ import de.gematik.test.ncp.ps.PsException;
 import de.gematik.test.ncp.ps.PsProvider;
 import de.gematik.test.ncp.ps.epaps.data.PsTestdata;
 import de.gematik.test.ncp.utils.TestUtils;
+import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
 import java.nio.charset.StandardCharsets;
 import java.util.IllegalFormatException;
 import java.util.List;
@@ -107,6 +108,96 @@ class EpaPrimarySystemServiceImplTest {
         "Method EpaPsInterfaceImpl.authorizeLeForKvnr threw an exception");
   }
 
+  @Test
+  void testAuthorizeLeForKvnrReusesAuthorization() {
+    // Arrange
+    TigerGlobalConfiguration.putValue(
+        EpaPrimarySystemServiceImpl.AUTHORIZATION_CACHE_SECONDS_KEY, "300");
+    final var loginLogoutApi = Mockito.mock(LoginLogoutApi.class);
+    when(loginLogoutApi.login(eq(TELEMATIK_ID), any(), any()))
+        .thenReturn(new LoginResponseDTO().success(true));
+    final var entitlementApi = Mockito.mock(EntitlementApi.class);
+    when(entitlementApi.postEntitlement(any(), any()))
+        .thenReturn(new PostEntitlementResponseDTO().success(true));
+    final var service =
+        EpaPrimarySystemServiceImpl.builder()
+            .config(config)
+            .loginLogoutProxy(loginLogoutApi)
+            .entitlementProxy(entitlementApi)
+            .build();
+
+    // Act
+    service.authorizeLeForKvnr(TELEMATIK_ID, KVNR);
+    service.authorizeLeForKvnr(TELEMATIK_ID, KVNR);
+    service.evictAuthorization(TELEMATIK_ID, KVNR);
+    service.authorizeLeForKvnr(TELEMATIK_ID, KVNR);
+    service.evictAuthorizations(KVNR);
+    service.authorizeLeForKvnr(TELEMATIK_ID, KVNR);
+
+    // Assert
+    verify(loginLogoutApi, Mockito.times(3)).login(TELEMATIK_ID, KVNR, null);
+    verify(entitlementApi, Mockito.times(3)).postEntitlement(eq(KVNR), any());
+    TigerGlobalConfiguration.reset();
+  }
+
+  @Test
+  void testAuthorizeLeForKvnrDoesNotReuseAuthorizationByDefault() {
+    // Arrange
+    TigerGlobalConfiguration.reset();
+    final var loginLogoutApi = Mockito.mock(LoginLogoutApi.class);
+    when(loginLogoutApi.login(eq(TELEMATIK_ID), any(), any()))
+        .thenReturn(new LoginResponseDTO().success(true));
+    final var entitlementApi = Mockito.mock(EntitlementApi.class);
+    when(entitlementApi.postEntitlement(any(), any()))
+        .thenReturn(new PostEntitlementResponseDTO().success(true));
+    final var service =
+        EpaPrimarySystemServiceImpl.builder()
+            .config(config)
+            .loginLogoutProxy(loginLogoutApi)
+            .entitlementProxy(entitlementApi)
+            .build();
+
+    // Act
+    service.authorizeLeForKvnr(TELEMATIK_ID, KVNR);
+    service.authorizeLeForKvnr(TELEMATIK_ID, KVNR);
+
+    // Assert
+    verify(loginLogoutApi, Mockito.times(2)).login(TELEMATIK_ID, KVNR, null);
+  }
+
+  @Test
+  void testAuthorizeLeForKvnrAfterPsError() {
+    // Arrange
+    TigerGlobalConfiguration.putValue(
+        EpaPrimarySystemServiceImpl.AUTHORIZATION_CACHE_SECONDS_KEY, "300");
+    final var loginLogoutApi = Mockito.mock(LoginLogoutApi.class);
+    when(loginLogoutApi.login(eq(TELEMATIK_ID), any(), any()))
+        .thenReturn(new LoginResponseDTO().success(true));
+    final var entitlementApi = Mockito.mock(EntitlementApi.class);
+    when(entitlementApi.postEntitlement(any(), any()))
+        .thenReturn(new PostEntitlementResponseDTO().success(true));
+    final var documentsApi = Mockito.mock(DocumentsApi.class);
+    when(documentsApi.putDocuments(anyString(), any(PutDocumentsRequestDTO.class)))
+        .thenReturn(new ResponseDTO().success(false).statusMessage("No session"));
+    final var service =
+        EpaPrimarySystemServiceImpl.builder()
+            .config(config)
+            .loginLogoutProxy(loginLogoutApi)
+            .entitlementProxy(entitlementApi)
+            .documentsProxy(documentsApi)
+            .build();
+    final var epka = "epka".getBytes(StandardCharsets.UTF_8);
+    service.authorizeLeForKvnr(TELEMATIK_ID, KVNR);
+
+    // Act
+    assertThrows(PsException.class, () -> service.putDocument(KVNR, PRACTICE, epka));
+    service.authorizeLeForKvnr(TELEMATIK_ID, KVNR);
+
+    // Assert
+    verify(loginLogoutApi, Mockito.times(2)).login(TELEMATIK_ID, KVNR, null);
+    TigerGlobalConfiguration.reset();
+  }
+
   @Test
   void testAuthorizeLeForKvnrSuccessIsFalse() {
     // Arrange
@@ -222,6 +313,39 @@ class EpaPrimarySystemServiceImplTest {
         "Document title does not have the expected value");
   }
 
+  @Test
+  void testPutDocuments() {
+    // Arrange
+    final var documentsApi = Mockito.mock(DocumentsApi.class);
+    final AtomicReference<PutDocumentsRequestDTO> capturedRequest = new AtomicReference<>();
+    when(documentsApi.putDocuments(anyString(), any(PutDocumentsRequestDTO.class)))
+        .thenAnswer(
+            invocation -> {
+              capturedRequest.set(invocation.getArgument(1));
+              return STD_DOCUMENT_RESPONSE;
+            });
+    final var service =
+        EpaPrimarySystemServiceImpl.builder().config(config).documentsProxy(documentsApi).build();
+    final var epkas =
+        List.of(
+            "epka1".getBytes(StandardCharsets.UTF_8), "epka2".getBytes(StandardCharsets.UTF_8));
+
+    // Act
+    final var testResult =
+        assertDoesNotThrow(
+            () -> service.putDocuments(KVNR, PRACTICE, epkas),
+            "Method EpaPsInterfaceImpl.putDocuments threw an exception");
+
+    // Assert
+    verify(documentsApi, Mockito.times(1)).putDocuments(eq(KVNR), any());
+    assertEquals(
+        capturedRequest.get().getDocumentSets().stream()
+            .map(doc -> doc.getDocumentMetadata().getTitle())
+            .toList(),
+        testResult,
+        "Document titles do not have the expected values");
+  }
+
   @Test
   void testPutDocumentFail() {
     // Arrange
@@ -34,6 +34,7 @@ import de.gematik.test.ncp.utils.TestUtils;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
@@ -135,4 +136,25 @@ class PsTestdataTest {
         .ignoringFieldsMatchingRegexes(".*\\.title")
         .isEqualTo(expected);
   }
+
+  @Test
+  @SneakyThrows
+  void createPutDocumentsRequestForEPKAsTest() {
+    // Arrange
+    final var practice =
+        TestUtils.loadFromJsonResource(PracticeImpl.class, this.getClass(), "practice_1.json");
+    final var epkas =
+        List.of(
+            "epka1".getBytes(StandardCharsets.UTF_8), "epka2".getBytes(StandardCharsets.UTF_8));
+
+    // Act
+    final var testee = PsTestdata.createPutDocumentsRequestForEPKAs("kvnr", practice, epkas);
+
+    // Assert
+    assertEquals("kvnr", testee.getKvnr());
+    assertEquals(2, testee.getDocumentSets().size());
+    assertArrayEquals(epkas.get(0), testee.getDocumentSets().get(0).getDocumentData());
+    assertArrayEquals(epkas.get(1), testee.getDocumentSets().get(1).getDocumentData());
+    assertNotNull(testee.getDocumentSets().get(1).getDocumentMetadata().getTitle());
+  }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class LatencyHistogramTest {
+
+  @ParameterizedTest
+  @ValueSource(longs = {0, 1, 127, 128, 255, 256, 1_000, 123_456, 4_000_000, 3_600_000_000L})
+  void bucketContainsValueWithinOnePercentTest(final long micros) {
+    // Act
+    final var upperBound = LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(micros));
+
+    // Assert
+    assertTrue(upperBound >= micros);
+    assertTrue(upperBound - micros <= micros / 100);
+  }
+
+  @Test
+  void bucketIndexIsMonotonicTest() {
+    // Arrange
+    var previous = LatencyHistogram.bucketIndex(0);
+
+    for (long micros = 1; micros < 1 << 20; micros++) {
+      // Act
+      final var index = LatencyHistogram.bucketIndex(micros);
+
+      // Assert
+      assertTrue(index == previous || index == previous + 1, "Gap at " + micros);
+      previous = index;
+    }
+  }
+
+  @Test
+  void percentilesTest() {
+    // Arrange
+    final var tested = new LatencyHistogram();
+    IntStream.rangeClosed(1, 1000).forEach(ms -> tested.record(ms, TimeUnit.MILLISECONDS));
+
+    // Act / Assert
+    assertEquals(1000, tested.count());
+    assertEquals(1_000_000, tested.maxMicros());
+    assertEquals(500_500, tested.meanMicros(), 1e-6);
+    assertEquals(500_000, tested.percentileMicros(50), 5_000);
+    assertEquals(990_000, tested.percentileMicros(99), 9_900);
+    assertEquals(1_000_000, tested.percentileMicros(100));
+  }
+
+  @Test
+  void emptyHistogramTest() {
+    // Arrange
+    final var tested = new LatencyHistogram();
+
+    // Act / Assert
+    assertEquals(0, tested.count());
+    assertEquals(0, tested.percentileMicros(99.9));
+    assertEquals(0, tested.meanMicros());
+    assertThrows(IllegalArgumentException.class, () -> tested.percentileMicros(101));
+  }
+
+  @Test
+  void valuesOutOfRangeAreClampedTest() {
+    // Arrange
+    final var tested = new LatencyHistogram();
+
+    // Act
+    tested.recordMicros(-5);
+    tested.record(2, TimeUnit.DAYS);
+
+    // Assert
+    assertEquals(0, tested.percentileMicros(50));
+    assertEquals(LatencyHistogram.MAX_TRACKABLE_MICROS, tested.maxMicros());
+    assertEquals(LatencyHistogram.MAX_TRACKABLE_MICROS, tested.percentileMicros(100));
+  }
+
+  @Test
+  void addMergesAndCopyIsIndependentTest() {
+    // Arrange
+    final var first = new LatencyHistogram();
+    final var second = new LatencyHistogram();
+    first.recordMicros(10);
+    second.recordMicros(20_000);
+
+    // Act
+    final var copy = first.copy().add(second);
+    first.recordMicros(30);
+
+    // Assert
+    assertEquals(2, copy.count());
+    assertEquals(20_000, copy.maxMicros());
+    assertEquals(10, copy.percentileMicros(50));
+    assertEquals(2, first.count());
+  }
+
+  @Test
+  void concurrentRecordingLosesNoValuesTest() {
+    // Arrange
+    final var tested = new LatencyHistogram();
+
+    // Act
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      IntStream.range(0, 100)
+          .forEach(
+              task ->
+                  executor.execute(
+                      () -> IntStream.range(0, 1000).forEach(i -> tested.recordMicros(i * 10L))));
+    }
+
+    // Assert
+    assertEquals(100_000, tested.count());
+    assertEquals(9_990, tested.maxMicros());
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.gematik.ncpeh.api.common.EuCountryCode;
+import de.gematik.test.ncp.reporting.model.LatencyPercentiles;
+import jakarta.ws.rs.core.Response.Status.Family;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LatencyHistogramsTest {
+
+  private static final LatencyKey UC_1_NL_OK =
+      new LatencyKey(UseCase.NCPEH_UC_1, EuCountryCode.NETHERLANDS, Family.SUCCESSFUL);
+
+  private static final LatencyKey UC_1_NL_ERROR =
+      new LatencyKey(UseCase.NCPEH_UC_1, EuCountryCode.NETHERLANDS, Family.SERVER_ERROR);
+
+  private static final LatencyKey UC_2_UNKNOWN =
+      new LatencyKey(UseCase.NCPEH_UC_2, null, Family.OTHER);
+
+  private final LatencyHistograms tested = new LatencyHistograms();
+
+  @Test
+  void recordsPerKeyTest() {
+    // Act
+    tested.record(UC_1_NL_OK, 100, TimeUnit.MILLISECONDS);
+    tested.record(UC_1_NL_OK, 200, TimeUnit.MILLISECONDS);
+    tested.record(UC_1_NL_ERROR, 5, TimeUnit.SECONDS);
+    tested.record(UC_2_UNKNOWN, 1, TimeUnit.MILLISECONDS);
+
+    // Assert
+    final var snapshot = tested.snapshot();
+    assertEquals(3, snapshot.size());
+    assertEquals(2, snapshot.get(UC_1_NL_OK).count());
+    assertEquals(3, tested.merged(UseCase.NCPEH_UC_1).count());
+    assertEquals(5_000_000, tested.merged(UseCase.NCPEH_UC_1).maxMicros());
+  }
+
+  @Test
+  void snapshotIsNotAffectedByFurtherRecordingsTest() {
+    // Arrange
+    tested.record(UC_1_NL_OK, 100, TimeUnit.MILLISECONDS);
+    final var snapshot = tested.snapshot();
+
+    // Act
+    tested.record(UC_1_NL_OK, 100, TimeUnit.MILLISECONDS);
+    tested.reset();
+
+    // Assert
+    assertEquals(1, snapshot.get(UC_1_NL_OK).count());
+    assertTrue(tested.isEmpty());
+  }
+
+  @Test
+  void percentilesAreOrderedTest() {
+    // Arrange
+    tested.record(UC_2_UNKNOWN, 1, TimeUnit.MILLISECONDS);
+    tested.record(UC_1_NL_ERROR, 5, TimeUnit.SECONDS);
+    tested.record(UC_1_NL_OK, 100, TimeUnit.MILLISECONDS);
+
+    // Act
+    final var testee = tested.percentiles();
+
+    // Assert
+    assertEquals(
+        List.of(
+            new LatencyPercentiles(
+                "NCPeH.UC_1", "NL", "SUCCESSFUL", 1, 100_000, 100_000, 100_000, 100_000, 100_000),
+            new LatencyPercentiles(
+                "NCPeH.UC_1",
+                "NL",
+                "SERVER_ERROR",
+                1,
+                5_000_000,
+                5_000_000,
+                5_000_000,
+                5_000_000,
+                5_000_000),
+            new LatencyPercentiles(
+                "NCPeH.UC_2", "", "OTHER", 1, 1_000, 1_000, 1_000, 1_000, 1_000)),
+        testee);
+  }
+
+  @SneakyThrows
+  @Test
+  void writePercentilesTest(@TempDir final Path tempDir) {
+    // Arrange
+    final var path = tempDir.resolve("latency.csv");
+    tested.record(UC_1_NL_OK, 100, TimeUnit.MILLISECONDS);
+
+    // Act
+    tested.writePercentiles(path);
+
+    // Assert
+    assertEquals(
+        List.of(
+            LatencyPercentiles.CSV_HEADER,
+            "NCPeH.UC_1;NL;SUCCESSFUL;1;100000;100000;100000;100000;100000"),
+        Files.readAllLines(path));
+  }
+}
@@ -26,8 +26,20 @@ import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import de.gematik.ncpeh.api.common.EuCountryCode;
 import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
+import jakarta.ws.rs.core.Response.Status.Family;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -92,4 +104,113 @@ class NcpehContextTest {
     // Assert
     assertTrue(testee.map(name -> name.matches(expectedPattern)).orElse(false));
   }
+
+  @SneakyThrows
+  @Test
+  void endScenarioWritesLatencyPercentilesAndResetsScenarioLatencies(@TempDir final Path tempDir) {
+    // Arrange
+    TigerGlobalConfiguration.putValue(
+        "testdata.reporting.fileName", tempDir.resolve("performance.log").toString());
+    final var context = new NcpehContext();
+    context.setScenarioName("Latency Scenario");
+    final var key = new LatencyKey(UseCase.NCPEH_UC_2, EuCountryCode.AUSTRIA, Family.SUCCESSFUL);
+    context.recordLatency(key, 3_000_000);
+
+    // Act
+    context.endScenario();
+    context.endTestRun();
+
+    // Assert
+    try (final var files = Files.list(tempDir)) {
+      final var scenarioCsv =
+          files
+              .filter(path -> path.toString().endsWith("-Latency_Scenario-latency.csv"))
+              .findFirst();
+      assertTrue(scenarioCsv.isPresent());
+      assertEquals(
+          "NCPeH.UC_2;AT;SUCCESSFUL;1;3000;3000;3000;3000;3000",
+          Files.readAllLines(scenarioCsv.get()).get(1));
+    }
+    assertTrue(Files.exists(tempDir.resolve("performance-latency.csv")));
+    assertTrue(context.getScenarioLatencyHistograms().isEmpty());
+    assertEquals(1, context.getLatencyHistograms().snapshot().get(key).count());
+    TigerGlobalConfiguration.reset();
+  }
+
+  @Test
+  void scenarioLogIsIndexedInTheManifest(@TempDir final Path tempDir) {
+    // Arrange
+    TigerGlobalConfiguration.putValue(
+        "testdata.reporting.fileName", tempDir.resolve("performance.log").toString());
+    final var context = new NcpehContext();
+    context.setScenarioName("TC_42 Manifest Scenario");
+    final var fileName = context.getScenarioFileName().orElseThrow();
+    assertTrue(context.getManifest().get(fileName).isPresent());
+
+    // Act
+    context.recordScenarioLogEntry(2000, UseCase.NCPEH_UC_1);
+    context.recordScenarioLogEntry(1000, UseCase.NCPEH_UC_3);
+    context.endScenario();
+
+    // Assert
+    final var entry = new PerformanceLogManifest(tempDir).get(fileName).orElseThrow();
+    assertEquals(1000, entry.firstTimestamp());
+    assertEquals(2000, entry.lastTimestamp());
+    assertEquals(2, entry.entryCount());
+    TigerGlobalConfiguration.reset();
+  }
+
+  @SneakyThrows
+  @Test
+  void parallelScenariosWriteTheirOwnLogs(@TempDir final Path tempDir) {
+    // Arrange
+    TigerGlobalConfiguration.putValue(
+        "testdata.reporting.fileName", tempDir.resolve("performance.log").toString());
+    final var context = new NcpehContext();
+    final var bothRunning = new CyclicBarrier(2);
+    final var key = new LatencyKey(UseCase.NCPEH_UC_1, EuCountryCode.AUSTRIA, Family.SUCCESSFUL);
+
+    // Act
+    final var fileNames = new ConcurrentHashMap<String, String>();
+    try (final var executor = Executors.newFixedThreadPool(2)) {
+      final var scenarios =
+          List.of("First Scenario", "Second Scenario").stream()
+              .map(
+                  name ->
+                      executor.submit(
+                          () -> {
+                            context.setScenarioName(name);
+                            bothRunning.await(10, TimeUnit.SECONDS);
+                            fileNames.put(name, context.getScenarioFileName().orElseThrow());
+                            context
+                                .getPerformanceLogWriter()
+                                .write(name, List.of(context.getScenarioFilePath().orElseThrow()));
+                            context.recordScenarioLogEntry(1000, UseCase.NCPEH_UC_1);
+                            context.recordLatency(key, 1_000_000);
+                            bothRunning.await(10, TimeUnit.SECONDS);
+                            context.endScenario();
+                            return null;
+                          }))
+              .toList();
+      for (final var scenario : scenarios) {
+        scenario.get(20, TimeUnit.SECONDS);
+      }
+    }
+
+    // Assert
+    assertEquals(2, Set.copyOf(fileNames.values()).size());
+    final var manifest = new PerformanceLogManifest(tempDir);
+    for (final var scenario : fileNames.entrySet()) {
+      final var logFile = tempDir.resolve(scenario.getValue());
+      assertEquals(List.of(scenario.getKey()), Files.readAllLines(logFile));
+      assertEquals(1, manifest.get(scenario.getValue()).orElseThrow().entryCount());
+      final var latencyCsv =
+          tempDir.resolve(scenario.getValue().replace("-perf.log", "-latency.csv"));
+      assertEquals(
+          "NCPeH.UC_1;AT;SUCCESSFUL;1;1000;1000;1000;1000;1000",
+          Files.readAllLines(latencyCsv).get(1));
+    }
+    assertEquals(2, context.getLatencyHistograms().snapshot().get(key).count());
+    TigerGlobalConfiguration.reset();
+  }
 }
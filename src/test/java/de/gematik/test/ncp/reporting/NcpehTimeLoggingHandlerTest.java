@@ -26,12 +26,16 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.withSettings;
 
 import de.gematik.ncpeh.api.NcpehSimulatorApi;
+import de.gematik.ncpeh.api.common.EuCountryCode;
 import de.gematik.ncpeh.api.request.FindDocumentsRequest;
 import de.gematik.ncpeh.api.request.IdentifyPatientRequest;
 import de.gematik.ncpeh.api.request.RetrieveDocumentRequest;
@@ -39,11 +43,14 @@ import de.gematik.ncpeh.api.response.SimulatorCommunicationData;
 import de.gematik.test.ncp.GeneralFactory;
 import de.gematik.test.ncp.utils.TestUtils;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.Status.Family;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import lombok.SneakyThrows;
 import org.apache.cxf.jaxrs.client.Client;
 import org.junit.jupiter.api.AfterEach;
@@ -54,6 +61,9 @@ import org.junit.jupiter.params.provider.CsvSource;
 
 class NcpehTimeLoggingHandlerTest {
 
+  private static final NcpehCallTiming TIMING =
+      new NcpehCallTiming(1000, 0, TimeUnit.MILLISECONDS.toNanos(100), 0, 0);
+
   private final ByteArrayOutputStream outContent = new ByteArrayOutputStream();
   private final PrintStream originalOut = System.out;
   private final NcpehSimulatorApi service =
@@ -63,15 +73,20 @@ class NcpehTimeLoggingHandlerTest {
   private final NcpehTimeLoggingHandler handlerSpy =
       spy(new NcpehTimeLoggingHandler(service, ncpehContextSpy));
   private final Response responseOkSpy = spy(Response.ok().build());
+  private final PerformanceLogWriter writer =
+      new PerformanceLogWriter(
+          16, 4, Duration.ofMillis(10), PerformanceLogWriter.BackPressurePolicy.BLOCK);
 
   @BeforeEach
   public void setUp() {
     // Redirect System.out to capture output for testing
     System.setOut(new PrintStream(outContent));
+    doReturn(writer).when(ncpehContextSpy).getPerformanceLogWriter();
   }
 
   @AfterEach
   void tearDown() {
+    writer.close();
     // Restore the original System.out
     System.setOut(originalOut);
   }
@@ -113,13 +128,13 @@ class NcpehTimeLoggingHandlerTest {
   @ParameterizedTest
   @CsvSource(
       value = {
-        "1000# 100# identifyPatient# IdentifyPatientRequest.json# identifyPatientResponse.json# 1000;100;NCPeH.UC_1;200;{\"reqc\":\"NL\",\"bkdur\":100}",
-        "1000# 101# identifyPatient# IdentifyPatientRequest.json# identifyPatientResponse_010.json# 1000;101;NCPeH.UC_1;404;{\"reqc\":\"NL\",\"err\":\"ERROR_PI_NO_MATCH\",\"bkdur\":101}",
-        "2000# 200# findDocuments# FindDocumentsRequest.json# findDocumentResponse.json# 2000;200;NCPeH.UC_2;200;{\"reqc\":\"IT\",\"bkdur\":200}",
-        "2000# 201# findDocuments# # findDocumentResponse_010.json# 2000;201;NCPeH.UC_2;405;{\"err\":\"ERROR_GENERIC_DOCUMENT_MISSING\",\"bkdur\":201}",
-        "3000# 300# retrieveDocument# RetrieveDocumentRequest_xml.json# retrieveDocumentResponse.json# 3000;300;NCPeH.UC_3;200;{\"reqc\":\"CY\",\"bkdur\":300}",
-        "3001# 301# retrieveDocument# RetrieveDocumentRequest_pdf.json# retrieveDocumentResponse.json# 3001;301;NCPeH.UC_4;200;{\"reqc\":\"ES\",\"bkdur\":301}",
-        "3001# 301# retrieveDocument# RetrieveDocumentRequest_pdf.json# retrieveDocumentResponse_020.json# 3001;301;NCPeH.UC_4;200;{\"reqc\":\"ES\",\"err\":\"ERROR_GENERIC_DOCUMENT_MISSING\",\"bkdur\":301}"
+        "1000# 100# identifyPatient# IdentifyPatientRequest.json# identifyPatientResponse.json# 1000;100;NCPeH.UC_1;200;{\"reqc\":\"NL\",\"bkdur\":100,\"bld\":7,\"net\":100000,\"buf\":2,\"prs\":3}",
+        "1000# 101# identifyPatient# IdentifyPatientRequest.json# identifyPatientResponse_010.json# 1000;101;NCPeH.UC_1;404;{\"reqc\":\"NL\",\"err\":\"ERROR_PI_NO_MATCH\",\"bkdur\":101,\"bld\":7,\"net\":101000,\"buf\":2,\"prs\":3}",
+        "2000# 200# findDocuments# FindDocumentsRequest.json# findDocumentResponse.json# 2000;200;NCPeH.UC_2;200;{\"reqc\":\"IT\",\"bkdur\":200,\"bld\":7,\"net\":200000,\"buf\":2,\"prs\":3}",
+        "2000# 201# findDocuments# # findDocumentResponse_010.json# 2000;201;NCPeH.UC_2;405;{\"err\":\"ERROR_GENERIC_DOCUMENT_MISSING\",\"bkdur\":201,\"bld\":7,\"net\":201000,\"buf\":2,\"prs\":3}",
+        "3000# 300# retrieveDocument# RetrieveDocumentRequest_xml.json# retrieveDocumentResponse.json# 3000;300;NCPeH.UC_3;200;{\"reqc\":\"CY\",\"bkdur\":300,\"bld\":7,\"net\":300000,\"buf\":2,\"prs\":3}",
+        "3001# 301# retrieveDocument# RetrieveDocumentRequest_pdf.json# retrieveDocumentResponse.json# 3001;301;NCPeH.UC_4;200;{\"reqc\":\"ES\",\"bkdur\":301,\"bld\":7,\"net\":301000,\"buf\":2,\"prs\":3}",
+        "3001# 301# retrieveDocument# RetrieveDocumentRequest_pdf.json# retrieveDocumentResponse_020.json# 3001;301;NCPeH.UC_4;200;{\"reqc\":\"ES\",\"err\":\"ERROR_GENERIC_DOCUMENT_MISSING\",\"bkdur\":301,\"bld\":7,\"net\":301000,\"buf\":2,\"prs\":3}"
       },
       delimiter = '#')
   void testGetPerformanceData(
@@ -159,7 +174,16 @@ class NcpehTimeLoggingHandlerTest {
     // Act
     final var testee =
         handlerSpy
-            .getPerformanceData(timestamp, duration, methodName, args, responseSpy)
+            .getPerformanceData(
+                new NcpehCallTiming(
+                    timestamp,
+                    7_000,
+                    TimeUnit.MILLISECONDS.toNanos(duration),
+                    2_000,
+                    3_000),
+                methodName,
+                args,
+                responseSpy)
             .orElse("");
 
     // Assert
@@ -178,11 +202,12 @@ class NcpehTimeLoggingHandlerTest {
     final var args = new Object[] {};
     when(responseOkSpy.bufferEntity()).thenReturn(true);
     final var data = "test data";
-    when(handlerSpy.getPerformanceData(anyLong(), anyLong(), anyString(), any(), any()))
+    when(handlerSpy.getPerformanceData(any(), anyString(), any(), any()))
         .thenReturn(Optional.of(data));
 
     // Act
-    handlerSpy.writePerformanceFiles(100, "identifyPatient", args, responseOkSpy);
+    handlerSpy.writePerformanceFiles(TIMING, "identifyPatient", args, responseOkSpy);
+    writer.close();
 
     // Assert
     assertTrue(Files.exists(filePath));
@@ -193,6 +218,26 @@ class NcpehTimeLoggingHandlerTest {
     Files.delete(filePath);
   }
 
+  @Test
+  void writePerformanceFilesCountsOnlyAcceptedLinesForTheManifest() {
+    // Arrange
+    final var args = new Object[] {};
+    when(handlerSpy.getPerformanceData(any(), anyString(), any(), any()))
+        .thenReturn(Optional.of("test data"));
+    when(ncpehContextSpy.getFileName()).thenReturn("perftest.log");
+    final var scenarioSpy = spy(new NcpehContext.Scenario(null, null));
+    when(ncpehContextSpy.getScenario()).thenReturn(scenarioSpy);
+    writer.close();
+
+    // Act
+    handlerSpy.writePerformanceFiles(TIMING, "identifyPatient", args, responseOkSpy);
+
+    // Assert
+    verify(scenarioSpy, never()).recordLogEntry(anyLong(), any());
+    assertEquals(1, writer.getDroppedLines());
+    assertFalse(Files.exists(Paths.get(ncpehContextSpy.getFileName())));
+  }
+
   @SneakyThrows
   @Test
   void writePerformanceFileCreatesScenarioFilesIfPresent() {
@@ -204,13 +249,15 @@ class NcpehTimeLoggingHandlerTest {
     final var args = new Object[] {};
     when(responseOkSpy.bufferEntity()).thenReturn(true);
     final var data = "test data";
-    when(handlerSpy.getPerformanceData(anyLong(), anyLong(), anyString(), any(), any()))
+    when(handlerSpy.getPerformanceData(any(), anyString(), any(), any()))
         .thenReturn(Optional.of(data));
     when(ncpehContextSpy.getFileName()).thenReturn("perftest.log");
-    when(ncpehContextSpy.getScenarioFileName()).thenReturn(Optional.of("scenario.log"));
+    when(ncpehContextSpy.getScenario())
+        .thenReturn(new NcpehContext.Scenario("scenario.log", scenarioFilePath));
 
     // Act
-    handlerSpy.writePerformanceFiles(100, "identifyPatient", args, responseOkSpy);
+    handlerSpy.writePerformanceFiles(TIMING, "identifyPatient", args, responseOkSpy);
+    writer.close();
 
     // Assert
     assertTrue(Files.exists(scenarioFilePath));
@@ -227,12 +274,13 @@ class NcpehTimeLoggingHandlerTest {
     // Arrange
     final var args = new Object[] {};
     when(responseOkSpy.bufferEntity()).thenReturn(true);
-    when(handlerSpy.getPerformanceData(anyLong(), anyLong(), anyString(), any(), any()))
+    when(handlerSpy.getPerformanceData(any(), anyString(), any(), any()))
         .thenReturn(Optional.empty());
     when(ncpehContextSpy.getFileName()).thenReturn("perftest.log");
 
     // Act
-    handlerSpy.writePerformanceFiles(100, "identifyPatient", args, responseOkSpy);
+    handlerSpy.writePerformanceFiles(TIMING, "identifyPatient", args, responseOkSpy);
+    writer.close();
 
     // Assert
     final var filePath = Paths.get(ncpehContextSpy.getFileName());
@@ -240,4 +288,98 @@ class NcpehTimeLoggingHandlerTest {
     assertTrue(
         outContent.toString().contains("No performance data found for method identifyPatient"));
   }
+
+  @ParameterizedTest
+  @CsvSource({
+    "identifyPatientResponse.json, SUCCESSFUL",
+    "identifyPatientResponse_010.json, CLIENT_ERROR"
+  })
+  void recordLatencyRecordsUseCaseCountryAndStatusFamily(
+      final String responseData, final Family expectedFamily) {
+    // Arrange
+    final var args =
+        new Object[] {
+          loadFromJsonResource(
+              IdentifyPatientRequest.class, this.getClass(), "IdentifyPatientRequest.json")
+        };
+    final var responseSpy =
+        spy(
+            Response.ok(
+                    loadFromJsonResource(
+                        SimulatorCommunicationData.class, this.getClass(), responseData))
+                .build());
+    when(responseSpy.bufferEntity()).thenReturn(true);
+
+    // Act
+    handlerSpy.recordLatency(2_500_000, "identifyPatient", args, responseSpy);
+
+    // Assert
+    final var expectedKey =
+        new LatencyKey(UseCase.NCPEH_UC_1, EuCountryCode.NETHERLANDS, expectedFamily);
+    final var histogram =
+        ncpehContextSpy.getScenarioLatencyHistograms().snapshot().get(expectedKey);
+    assertNotNull(histogram);
+    assertEquals(1, histogram.count());
+    assertEquals(2_500, histogram.maxMicros());
+    assertEquals(1, ncpehContextSpy.getLatencyHistograms().snapshot().get(expectedKey).count());
+  }
+
+  @Test
+  void recordLatencyIgnoresCallsWithoutResponse() {
+    // Act
+    handlerSpy.recordLatency(1_000, "identifyPatient", new Object[] {}, null);
+    handlerSpy.recordLatency(1_000, "unknownOperation", new Object[] {}, responseOkSpy);
+
+    // Assert
+    assertTrue(ncpehContextSpy.getLatencyHistograms().isEmpty());
+  }
+
+  @Test
+  void measureResponseHandlingTimesBufferingAndParsing() {
+    // Arrange
+    final var responseSpy =
+        spy(
+            Response.ok(
+                    loadFromJsonResource(
+                        SimulatorCommunicationData.class,
+                        this.getClass(),
+                        "identifyPatientResponse_010.json"))
+                .build());
+    when(responseSpy.bufferEntity()).thenReturn(true);
+
+    // Act
+    final var testee = handlerSpy.measureResponseHandling(1000, 5, 2_000_000, responseSpy);
+
+    // Assert
+    assertEquals(1000, testee.startEpochMillis());
+    assertEquals(5, testee.requestBuildNanos());
+    assertEquals(2_000_000, testee.networkNanos());
+    assertEquals(2, testee.durationMillis());
+    assertTrue(testee.entityBufferNanos() > 0);
+    assertTrue(testee.parseNanos() > 0);
+  }
+
+  @Test
+  void measureResponseHandlingWithoutResponse() {
+    // Act
+    final var testee = handlerSpy.measureResponseHandling(1000, 0, 1_000, null);
+
+    // Assert
+    assertEquals(0, testee.entityBufferNanos());
+    assertEquals(0, testee.parseNanos());
+  }
+
+  @Test
+  void invokeTakesOverRequestBuildTime() {
+    // Arrange
+    final var proxyService =
+        GeneralFactory.createNcpehTimeLoggingProxy(service, null, NcpehSimulatorApi.class);
+    RequestBuildTimer.requestBuilt(System.nanoTime());
+
+    // Act
+    proxyService.identifyPatient(null);
+
+    // Assert
+    assertEquals(0, RequestBuildTimer.takeRequestBuildNanos());
+  }
 }
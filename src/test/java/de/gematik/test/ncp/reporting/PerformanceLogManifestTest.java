@@ -0,0 +1,127 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.gematik.test.ncp.reporting.PerformanceLogManifest.Entry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PerformanceLogManifestTest {
+
+  @TempDir private Path tempDir;
+
+  @Test
+  @SneakyThrows
+  void findReturnsLatestExistingIndexedFile() {
+    // Arrange
+    final var testee = new PerformanceLogManifest(tempDir);
+    for (final var fileName :
+        new String[] {"1000-TC_1-perf.log", "2000-TC_1-perf.log", "3000-TC_1-perf.log"}) {
+      testee.put(new Entry(fileName, 0, 0, Map.of()));
+    }
+    Files.createFile(tempDir.resolve("1000-TC_1-perf.log"));
+    Files.createFile(tempDir.resolve("2000-TC_1-perf.log"));
+
+    // Act & Assert
+    assertEquals(tempDir.resolve("2000-TC_1-perf.log"), testee.find("TC_1").orElseThrow());
+    assertTrue(testee.find("TC_2").isEmpty());
+  }
+
+  @Test
+  void overlappingReturnsEntriesWithCallsInTheRange() {
+    // Arrange
+    final var testee = new PerformanceLogManifest(tempDir);
+    testee.put(new Entry("a", 100, 200, Map.of(UseCase.NCPEH_UC_1, 3L)));
+    testee.put(new Entry("b", 150, 400, Map.of(UseCase.NCPEH_UC_2, 1L)));
+    testee.put(new Entry("c", 500, 600, Map.of(UseCase.NCPEH_UC_3, 2L)));
+    testee.put(new Entry("d", 0, 0, Map.of()));
+
+    // Act & Assert
+    assertThat(testee.overlapping(180, 450)).extracting(Entry::fileName).containsExactly("a", "b");
+    assertThat(testee.overlapping(0, 99)).isEmpty();
+  }
+
+  @Test
+  void manifestIsReadFromTheFileWithTheLatestEntryPerLogFile() {
+    // Arrange
+    final var writer = new PerformanceLogManifest(tempDir);
+    writer.put(new Entry("a", 0, 0, Map.of()));
+    writer.put(new Entry("a", 100, 200, Map.of(UseCase.NCPEH_UC_1, 2L)));
+    writer.put(new Entry("b", 300, 300, Map.of(UseCase.NCPEH_UC_4, 1L)));
+
+    // Act
+    final var testee = new PerformanceLogManifest(tempDir);
+
+    // Assert
+    final var entry = testee.get("a").orElseThrow();
+    assertEquals(100, entry.firstTimestamp());
+    assertEquals(200, entry.lastTimestamp());
+    assertEquals(2, entry.entryCount());
+    assertEquals(Map.of(UseCase.NCPEH_UC_4, 1L), testee.get("b").orElseThrow().entryCounts());
+  }
+
+  @Test
+  @SneakyThrows
+  void linesAppendedByOthersArePickedUp() {
+    // Arrange
+    final var testee = new PerformanceLogManifest(tempDir);
+    testee.put(new Entry("a", 100, 200, Map.of(UseCase.NCPEH_UC_1, 2L)));
+    assertTrue(testee.get("b").isEmpty());
+
+    // Act
+    new PerformanceLogManifest(tempDir).put(new Entry("b", 300, 300, Map.of()));
+    Files.writeString(
+        tempDir.resolve(PerformanceLogManifest.MANIFEST_FILE_NAME),
+        "{\"fileName\":\"c\"",
+        StandardOpenOption.APPEND);
+
+    // Assert
+    assertTrue(testee.get("b").isPresent());
+    assertTrue(testee.get("c").isEmpty());
+  }
+
+  @Test
+  void summaryCountsCallsPerUseCase() {
+    // Arrange
+    final var testee = new PerformanceLogManifest.Summary("x-perf.log");
+    assertEquals(new Entry("x-perf.log", 0, 0, Map.of()), testee.toEntry());
+
+    // Act
+    testee.record(300, UseCase.NCPEH_UC_1);
+    testee.record(100, UseCase.NCPEH_UC_1);
+    testee.record(200, UseCase.NCPEH_UC_3);
+
+    // Assert
+    assertEquals(
+        new Entry("x-perf.log", 100, 300, Map.of(UseCase.NCPEH_UC_1, 2L, UseCase.NCPEH_UC_3, 1L)),
+        testee.toEntry());
+  }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import de.gematik.test.ncp.reporting.PerformanceLogWriter.BackPressurePolicy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class PerformanceLogWriterTest {
+
+  @TempDir private Path tempDir;
+
+  @SneakyThrows
+  @Test
+  void writeAppendsLinesToAllTargets() {
+    // Arrange
+    final var global = tempDir.resolve("reporting/performance.log");
+    final var scenario = tempDir.resolve("reporting/scenario-perf.log");
+
+    // Act
+    try (final var writer =
+        new PerformanceLogWriter(8, 2, Duration.ofMillis(5), BackPressurePolicy.BLOCK)) {
+      assertTrue(writer.write("line 1", List.of(global, scenario)));
+      assertTrue(writer.write("line 2", List.of(global)));
+      writer.flush();
+
+      // Assert
+      assertEquals(List.of("line 1", "line 2"), Files.readAllLines(global));
+      assertEquals(List.of("line 1"), Files.readAllLines(scenario));
+    }
+  }
+
+  @SneakyThrows
+  @Test
+  void writeFromManyThreadsKeepsAllLines() {
+    // Arrange
+    final var global = tempDir.resolve("performance.log");
+    final var lineCount = 1000;
+
+    // Act
+    try (final var writer =
+            new PerformanceLogWriter(16, 8, Duration.ofMillis(5), BackPressurePolicy.BLOCK);
+        final var executor = Executors.newFixedThreadPool(8)) {
+      CompletableFuture.allOf(
+              IntStream.range(0, lineCount)
+                  .mapToObj(
+                      i ->
+                          CompletableFuture.runAsync(
+                              () -> writer.write("line " + i, List.of(global)), executor))
+                  .toArray(CompletableFuture[]::new))
+          .join();
+      writer.close();
+
+      // Assert
+      assertEquals(lineCount, Files.readAllLines(global).size());
+      assertEquals(0, writer.getDroppedLines());
+    }
+  }
+
+  @SneakyThrows
+  @Test
+  void releaseClosesFileAndReopensOnNextWrite() {
+    // Arrange
+    final var scenario = tempDir.resolve("scenario-perf.log");
+
+    try (final var writer =
+        new PerformanceLogWriter(8, 4, Duration.ofMillis(5), BackPressurePolicy.BLOCK)) {
+      writer.write("line 1", List.of(scenario));
+
+      // Act
+      writer.release(scenario);
+      Files.delete(scenario);
+      writer.write("line 2", List.of(scenario));
+      writer.flush();
+
+      // Assert
+      assertEquals(List.of("line 2"), Files.readAllLines(scenario));
+    }
+  }
+
+  @Test
+  void writeAfterCloseIsDropped() {
+    // Arrange
+    final var writer =
+        new PerformanceLogWriter(8, 4, Duration.ofMillis(5), BackPressurePolicy.COUNT_DROPS);
+    writer.close();
+
+    // Act
+    final var accepted = writer.write("line", List.of(tempDir.resolve("performance.log")));
+
+    // Assert
+    assertFalse(accepted);
+    assertEquals(1, writer.getDroppedLines());
+    assertFalse(Files.exists(tempDir.resolve("performance.log")));
+  }
+
+  @SneakyThrows
+  @Test
+  void writeRacingWithCloseIsWrittenOrCountedAsDropped() {
+    // Arrange
+    final var global = tempDir.resolve("performance.log");
+    final var lineCount = 2000;
+    final var accepted = new AtomicInteger();
+    final var writer =
+        new PerformanceLogWriter(16, 8, Duration.ofMillis(5), BackPressurePolicy.BLOCK);
+
+    // Act
+    try (final var executor = Executors.newFixedThreadPool(8)) {
+      final var writes =
+          IntStream.range(0, lineCount)
+              .mapToObj(
+                  i ->
+                      CompletableFuture.runAsync(
+                          () -> {
+                            if (writer.write("line " + i, List.of(global))) {
+                              accepted.incrementAndGet();
+                            }
+                          },
+                          executor))
+              .toArray(CompletableFuture[]::new);
+      writer.close();
+      CompletableFuture.allOf(writes).join();
+    }
+
+    // Assert
+    final var written = Files.exists(global) ? Files.readAllLines(global).size() : 0;
+    assertEquals(accepted.get(), written);
+    assertEquals(lineCount - accepted.get(), writer.getDroppedLines());
+  }
+
+  @Test
+  void closeRightAfterBatchReturns() {
+    // Arrange
+    final var global = tempDir.resolve("performance.log");
+
+    // Act & Assert
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(30),
+        () -> {
+          // the flusher finishes a batch while close() runs, in various interleavings
+          for (var i = 0; i < 200; i++) {
+            final var writer =
+                new PerformanceLogWriter(4, 1, Duration.ZERO, BackPressurePolicy.BLOCK);
+            writer.write("line " + i, List.of(global));
+            writer.close();
+          }
+        });
+    assertEquals(200, assertDoesNotThrow(() -> Files.readAllLines(global)).size());
+  }
+
+  @Test
+  void flushAndReleaseAfterCloseReturn() {
+    // Arrange
+    final var global = tempDir.resolve("performance.log");
+    final var writer =
+        new PerformanceLogWriter(8, 4, Duration.ofMillis(5), BackPressurePolicy.BLOCK);
+    writer.write("line", List.of(global));
+    writer.close();
+
+    // Act & Assert
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(5),
+        () -> {
+          writer.flush();
+          writer.release(global);
+          writer.close();
+        });
+    assertEquals(List.of("line"), assertDoesNotThrow(() -> Files.readAllLines(global)));
+  }
+
+  @Test
+  void constructorRejectsInvalidCapacity() {
+    final var interval = Duration.ofMillis(5);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new PerformanceLogWriter(0, 4, interval, BackPressurePolicy.DROP));
+  }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class BinaryPerformanceLogTest {
+
+  private static final long START = 1_700_000_000_000L;
+
+  @TempDir private Path tempDir;
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 7, BinaryPerformanceLogWriter.DEFAULT_BLOCK_SIZE})
+  void writtenLogContainsAllEntries(final int blockSize) {
+    // Arrange
+    final var columns = new PerformanceLogParser().readColumns(csv(lines(500, false)));
+    final var binaryFile = tempDir.resolve("perf.bin");
+
+    // Act
+    BinaryPerformanceLogWriter.write(columns, binaryFile, blockSize);
+
+    // Assert
+    try (final var testee = BinaryPerformanceLog.open(binaryFile)) {
+      assertEquals(500, testee.recordCount());
+      assertEquals(columns.toReport(), testee.readRange(Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+  }
+
+  @Test
+  void convertWritesEntriesInTheOrderOfTheirTimestamps() {
+    // Arrange
+    final var csvFile = csv(lines(300, true));
+    final var binaryFile = tempDir.resolve("perf.bin");
+    final var expected =
+        new PerformanceLogParser()
+            .readColumns(csvFile).toReport().getEntries().stream()
+                .sorted(Comparator.comparing(NcpehPerformanceReportEntry::timestamp))
+                .toList();
+
+    // Act
+    final var records = BinaryPerformanceLogWriter.convert(csvFile, binaryFile);
+
+    // Assert
+    assertEquals(300, records);
+    try (final var testee = BinaryPerformanceLog.open(binaryFile)) {
+      final List<NcpehPerformanceReportEntry> entries = new ArrayList<>();
+      assertEquals(300, testee.forEach(line -> entries.add(line.toEntry())));
+      assertEquals(expected, entries);
+    }
+  }
+
+  @Test
+  void forEachInRangeVisitsOnlyEntriesInTheRange() {
+    // Arrange
+    final var columns = new PerformanceLogParser().readColumns(csv(lines(1000, false)));
+    final var binaryFile = tempDir.resolve("perf.bin");
+    BinaryPerformanceLogWriter.write(columns, binaryFile, 16);
+    final List<Long> timestamps = new ArrayList<>();
+
+    // Act
+    final long visited;
+    try (final var testee = BinaryPerformanceLog.open(binaryFile)) {
+      visited =
+          testee.forEachInRange(START + 100, START + 149, line -> timestamps.add(line.timestamp()));
+    }
+
+    // Assert
+    assertEquals(50, visited);
+    assertThat(timestamps)
+        .containsExactlyElementsOf(IntStream.range(100, 150).mapToObj(i -> START + i).toList());
+  }
+
+  @Test
+  void forEachInRangeOutsideOfTheLogVisitsNothing() {
+    // Arrange
+    final var columns = new PerformanceLogParser().readColumns(csv(lines(100, false)));
+    final var binaryFile = tempDir.resolve("perf.bin");
+    BinaryPerformanceLogWriter.write(columns, binaryFile, 16);
+
+    // Act & Assert
+    try (final var testee = BinaryPerformanceLog.open(binaryFile)) {
+      assertEquals(0, testee.forEachInRange(START + 100, START + 200, line -> {}));
+      assertEquals(0, testee.forEachInRange(0, START - 1, line -> {}));
+    }
+  }
+
+  @Test
+  void emptyLogCanBeRead() {
+    // Arrange
+    final var binaryFile = tempDir.resolve("perf.bin");
+
+    // Act
+    BinaryPerformanceLogWriter.convert(csv(List.of()), binaryFile);
+
+    // Assert
+    try (final var testee = BinaryPerformanceLog.open(binaryFile)) {
+      assertEquals(0, testee.recordCount());
+      assertEquals(0, testee.forEach(line -> {}));
+    }
+  }
+
+  @Test
+  @SneakyThrows
+  void openRejectsOtherFiles() {
+    // Arrange
+    final var file = csv(lines(10, false));
+
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> BinaryPerformanceLog.open(file));
+  }
+
+  @Test
+  @SneakyThrows
+  void varintsRoundTrip() {
+    // Arrange
+    final long[] values = {0, 1, -1, 63, -64, 64, 127, 128, 300, Long.MAX_VALUE, Long.MIN_VALUE};
+    final var bytes = new ByteArrayOutputStream();
+    final var out = new DataOutputStream(bytes);
+
+    // Act
+    for (final var value : values) {
+      Varints.writeSigned(out, value);
+      Varints.writeUnsigned(out, value);
+    }
+
+    // Assert
+    final var buffer = ByteBuffer.wrap(bytes.toByteArray());
+    for (final var value : values) {
+      assertEquals(value, Varints.readSigned(buffer));
+      assertEquals(value, Varints.readUnsigned(buffer));
+    }
+    assertEquals(0, buffer.remaining());
+  }
+
+  /** Lines of a performance log, every third with the phases of the call and every fifth failed */
+  private static List<String> lines(final int count, final boolean shuffled) {
+    return IntStream.range(0, count)
+        .map(i -> shuffled ? (i * 7919) % count : i)
+        .mapToObj(
+            i ->
+                String.format(
+                    "%d;%d;NCPeH.UC_%d;%s;{\"reqc\":\"%s\",%s\"bkdur\":%d%s}",
+                    START + i,
+                    i % 300,
+                    i % 4 + 1,
+                    i % 5 == 0 ? "500" : "200",
+                    i % 2 == 0 ? "NL" : "AT",
+                    i % 5 == 0 ? "\"err\":\"ERROR_PS_GENERIC\"," : "",
+                    i % 250,
+                    i % 3 == 0 ? ",\"bld\":12,\"net\":" + i * 1000 + ",\"buf\":3,\"prs\":45" : ""))
+        .toList();
+  }
+
+  @SneakyThrows
+  private Path csv(final List<String> lines) {
+    final var file = Files.createTempFile(tempDir, "perf", ".log");
+    Files.writeString(file, String.join("\n", lines));
+    return file;
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.reporting.perflog;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PerformanceLogParserTest {
+
+  @TempDir private Path tempDir;
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 50, 333, PerformanceLogParser.DEFAULT_CHUNK_SIZE})
+  void readColumnsReadsAllLinesInOrder(final int chunkSize) {
+    // Arrange
+    final var lines =
+        IntStream.range(0, 1000)
+            .mapToObj(
+                i ->
+                    String.format(
+                        "%d;%d;NCPeH.UC_%d;%s;{\"reqc\":\"%s\",\"bkdur\":%d}",
+                        1_700_000_000_000L + i,
+                        i % 300,
+                        i % 4 + 1,
+                        i % 5 == 0 ? "404" : "200",
+                        i % 3 == 0 ? "NL" : "AT",
+                        i % 250))
+            .toList();
+    final var file = write(lines);
+
+    // Act
+    final var testee = new PerformanceLogParser(chunkSize).readColumns(file);
+
+    // Assert
+    assertEquals(1000, testee.size());
+    for (var row = 0; row < testee.size(); row++) {
+      assertEquals(1_700_000_000_000L + row, testee.timestamp(row));
+      assertEquals(row % 300, testee.duration(row));
+      assertEquals(UseCase.values()[row % 4], testee.operation(row));
+      assertEquals(row % 5 == 0 ? "404" : "200", testee.status(row));
+      assertEquals(row % 3 == 0 ? "NL" : "AT", testee.reqc(row));
+      assertNull(testee.err(row));
+      assertEquals(row % 250, testee.bkdur(row));
+    }
+    // 404, 200, NL, AT and the 4 operations
+    assertEquals(8, testee.dictionary().size());
+  }
+
+  @Test
+  void malformedLinesAreSkipped() {
+    // Arrange
+    final var file =
+        write(
+            List.of(
+                "invalid line",
+                "1;2;NCPeH.UC_1;200;",
+                "1;2;NCPeH.UC_9;200;{\"reqc\":\"NL\",\"bkdur\":1}",
+                "99999999999999999999;2;NCPeH.UC_1;200;{\"reqc\":\"NL\",\"bkdur\":1}",
+                "1;2;NCPeH.UC_1;200;{\"reqc\":\"NL\",\"bkdur\":1",
+                "1;2;NCPeH.UC_1;200;{\"reqc\":\"NL\",\"bkdur\":1} trailing",
+                "",
+                "3;4;NCPeH.UC_2;200;{\"reqc\":\"NL\",\"bkdur\":4}"));
+
+    final var originalOut = System.out;
+    final var outContent = new ByteArrayOutputStream();
+    System.setOut(new PrintStream(outContent));
+
+    // Act
+    final List<NcpehPerformanceReportEntry> testee;
+    try {
+      testee = new PerformanceLogParser().readColumns(file).toReport().getEntries();
+    } finally {
+      System.setOut(originalOut);
+    }
+
+    // Assert
+    assertThat(testee).hasSize(1);
+    assertEquals(3, testee.getFirst().timestamp());
+    assertThat(outContent.toString())
+        .contains("Skipped 6 malformed lines of chunk")
+        .contains("the first at offset 0: invalid line");
+  }
+
+  @Test
+  void messageFieldsAreReadLikeJson() {
+    // Arrange
+    final var file =
+        write(
+            List.of(
+                "10;20;NCPeH.UC_3;500;{ \"reqc\" : \"E\\u0053\", \"err\":\"ERROR_\\\"X\\\"\","
+                    + " \"unknown\":7, \"bkdur\":18, \"bld\":5, \"net\":18000, \"buf\":30,"
+                    + " \"prs\":40 }\r",
+                "11;21;NCPeH.UC_4;200;{\"reqc\":null,\"bkdur\":-1}",
+                "12;22;NCPeH.UC_1;200;{}"));
+
+    // Act
+    final var testee = new PerformanceLogParser().readColumns(file).toReport().getEntries();
+
+    // Assert
+    assertThat(testee)
+        .containsExactly(
+            entry(
+                10,
+                20,
+                UseCase.NCPEH_UC_3,
+                "500",
+                new NcpehPerformanceMessage("ES", "ERROR_\"X\"", 18, 5L, 18_000L, 30L, 40L)),
+            entry(11, 21, UseCase.NCPEH_UC_4, "200", new NcpehPerformanceMessage(null, null, -1)),
+            entry(12, 22, UseCase.NCPEH_UC_1, "200", new NcpehPerformanceMessage(null, null, 0)));
+  }
+
+  @Test
+  void forEachVisitsLinesSequentially() {
+    // Arrange
+    final var file =
+        write(
+            List.of(
+                "1;2;NCPeH.UC_1;200;{\"reqc\":\"NL\",\"bkdur\":1}",
+                "2;2;NCPeH.UC_2;200;{\"reqc\":\"NL\",\"bkdur\":1}",
+                "3;2;NCPeH.UC_3;200;{\"reqc\":\"NL\",\"bkdur\":1}"));
+    final var timestamps = new ArrayList<Long>();
+
+    // Act
+    final var testee =
+        new PerformanceLogParser(10).forEach(file, line -> timestamps.add(line.timestamp()));
+
+    // Assert
+    assertEquals(3, testee);
+    assertEquals(List.of(1L, 2L, 3L), timestamps);
+  }
+
+  @Test
+  void forEachParallelUsesOneVisitorPerChunk() {
+    // Arrange
+    final var lines =
+        IntStream.range(0, 500)
+            .mapToObj(i -> i + ";1;NCPeH.UC_2;200;{\"reqc\":\"NL\",\"bkdur\":1}")
+            .toList();
+    final var file = write(lines);
+
+    // Act
+    final var testee =
+        new PerformanceLogParser(1000).forEachParallel(file, PerformanceLogColumns.Builder::new);
+
+    // Assert
+    assertThat(testee).hasSizeGreaterThan(1);
+    final var timestamps =
+        PerformanceLogColumns.of(new StringDictionary(), testee).timestamps();
+    assertThat(timestamps).containsExactly(IntStream.range(0, 500).asLongStream().toArray());
+  }
+
+  @SneakyThrows
+  @Test
+  void splitEndsChunksAfterLineBreaks() {
+    // Arrange
+    final var file = write(List.of("a".repeat(10), "b".repeat(5000), "c", "d".repeat(7)));
+
+    // Act
+    final List<PerformanceLogParser.Chunk> testee;
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      testee = new PerformanceLogParser(3).split(channel);
+    }
+
+    // Assert
+    final var content = Files.readString(file);
+    assertThat(
+            testee.stream()
+                .map(chunk -> content.substring((int) chunk.start(), (int) chunk.end()))
+                .collect(Collectors.toList()))
+        .containsExactly("a".repeat(10) + "\n", "b".repeat(5000) + "\n", "c\n" + "d".repeat(7));
+  }
+
+  @SneakyThrows
+  private Path write(final List<String> lines) {
+    final var file = Files.createTempFile(tempDir, "perf", ".log");
+    Files.writeString(file, String.join("\n", lines));
+    return file;
+  }
+
+  private static NcpehPerformanceReportEntry entry(
+      final long timestamp,
+      final long duration,
+      final UseCase operation,
+      final String status,
+      final NcpehPerformanceMessage message) {
+    return new NcpehPerformanceReportEntry()
+        .timestamp(timestamp)
+        .duration(duration)
+        .operation(operation)
+        .status(status)
+        .message(message);
+  }
+}
@@ -22,13 +22,19 @@
 package de.gematik.test.ncp.screenplay.abilities;
 
 import de.gematik.test.ncp.data.record.PatientRecord;
+import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import net.serenitybdd.screenplay.Ability;
 import net.serenitybdd.screenplay.Actor;
+import net.serenitybdd.screenplay.HasTeardown;
 
-/** Ability to manage patient data records. */
-public class ManagePatientRecords implements Ability {
+/**
+ * Ability to manage patient data records. The retrieved documents held by the records are deleted
+ * at the end of the scenario.
+ */
+public class ManagePatientRecords implements Ability, HasTeardown {
   private final Map<Actor, PatientRecord> patientRecords = new HashMap<>();
 
   /**
@@ -38,7 +44,10 @@ public class ManagePatientRecords implements Ability {
    * @param record the patient record to add
    */
   public void addRecord(final Actor actor, final PatientRecord record) {
-    patientRecords.put(actor, record);
+    final var replaced = patientRecords.put(actor, record);
+    if (replaced != null && replaced != record) {
+      closeRetrievedDocuments(replaced);
+    }
   }
 
   /**
@@ -51,6 +60,17 @@ public class ManagePatientRecords implements Ability {
     return patientRecords.get(actor);
   }
 
+  @Override
+  public void tearDown() {
+    patientRecords.values().forEach(ManagePatientRecords::closeRetrievedDocuments);
+    patientRecords.clear();
+  }
+
+  private static void closeRetrievedDocuments(final PatientRecord record) {
+    Optional.ofNullable(record.getRetrievePrescriptionsResponse())
+        .ifPresent(RetrieveDocumentsResponseDTO::close);
+  }
+
   /** Factory method to create the ability with no existing patient records. */
   public static ManagePatientRecords startingWithNoExistingRecords() {
     return new ManagePatientRecords();
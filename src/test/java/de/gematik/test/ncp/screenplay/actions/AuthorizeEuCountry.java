@@ -23,6 +23,7 @@ package de.gematik.test.ncp.screenplay.actions;
 
 import de.gematik.ncpeh.api.common.EuCountryCode;
 import de.gematik.test.ncp.glue.UseCaseScope;
+import de.gematik.test.ncp.ps.PsProvider;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePatientData;
 import de.gematik.test.ncp.screenplay.abilities.UseErpFdv;
 import de.gematik.test.ncp.screenplay.abilities.UseFdv;
@@ -65,6 +66,8 @@ public class AuthorizeEuCountry implements Performable {
     var fdv = actor.usingAbilityTo(UseFdv.class);
     var response = fdv.authorizeEuCountry(patientData.kvnr(), country).orElseThrow();
     patientData.accessCode(response.getAccesscode());
+    // the access to the Aktenkonto changed, so reused authorizations at the PS are outdated
+    PsProvider.getPrimarySystemService().evictAuthorizations(patientData.kvnr());
   }
 
   private <T extends Actor> void authorizeEped(final T actor) {
@@ -21,6 +21,7 @@
 
 package de.gematik.test.ncp.screenplay.actions;
 
+import de.gematik.test.ncp.reporting.MatchingMode;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePerformanceReportData;
 import de.gematik.test.ncp.util.ReportingUtils;
 import lombok.AllArgsConstructor;
@@ -33,6 +34,8 @@ public class MatchPerformanceReports implements Performable {
 
   private final int acceptableDelta;
 
+  private final MatchingMode matchingMode;
+
   @Override
   public <T extends Actor> void performAs(final T actor) {
     // Match functionality
@@ -57,10 +60,17 @@ public class MatchPerformanceReports implements Performable {
         ReportingUtils.matchPerformanceReportEntries(
             reportsData.getPerformanceReport(),
             reportsData.getDwhPerformanceReport(),
-            acceptableDelta));
+            acceptableDelta,
+            matchingMode));
   }
 
   public static MatchPerformanceReports withAcceptableDelta(final int acceptableDelta) {
-    return Instrumented.instanceOf(MatchPerformanceReports.class).withProperties(acceptableDelta);
+    return withAcceptableDelta(acceptableDelta, MatchingMode.FIRST_FIT);
+  }
+
+  public static MatchPerformanceReports withAcceptableDelta(
+      final int acceptableDelta, final MatchingMode matchingMode) {
+    return Instrumented.instanceOf(MatchPerformanceReports.class)
+        .withProperties(acceptableDelta, matchingMode);
   }
 }
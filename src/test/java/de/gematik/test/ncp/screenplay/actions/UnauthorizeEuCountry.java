@@ -21,6 +21,7 @@
 
 package de.gematik.test.ncp.screenplay.actions;
 
+import de.gematik.test.ncp.ps.PsProvider;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePatientData;
 import de.gematik.test.ncp.screenplay.abilities.UseFdv;
 import de.gematik.test.ncp.screenplay.questions.AuthorizationIsActive;
@@ -42,6 +43,8 @@ public class UnauthorizeEuCountry implements Performable {
     if (Boolean.TRUE.equals(actor.asksFor(AuthorizationIsActive.forCountry(country)))) {
       final var fdv = actor.usingAbilityTo(UseFdv.class);
       fdv.deleteEntitlementNcpeh(patientData.kvnr());
+      // the access to the Aktenkonto changed, so reused authorizations at the PS are outdated
+      PsProvider.getPrimarySystemService().evictAuthorizations(patientData.kvnr());
     }
     patientData.accessCode(null);
   }
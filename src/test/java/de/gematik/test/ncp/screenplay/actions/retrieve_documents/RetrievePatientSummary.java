@@ -27,7 +27,6 @@ import de.gematik.test.ncp.data.PatientImpl;
 import de.gematik.test.ncp.glue.psa.UCHeaders;
 import de.gematik.test.ncp.ncpeh.PatientSummaryLevel;
 import de.gematik.test.ncp.ncpeh.client.dataobject.DataUtils;
-import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
 import de.gematik.test.ncp.screenplay.abilities.ManagePatientRecords;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePatientAccessData;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePatientData;
@@ -73,14 +72,15 @@ public class RetrievePatientSummary implements Performable {
             patientSummaryLevel);
 
     patientData.setPatientSummaryDO(patientSummary);
-    Optional.ofNullable(patientSummary)
-        .map(RetrieveDocumentsResponseDTO::ncpehFdResponseContent)
-        .map(DataUtils::readPatientSummaryLvl1)
-        .ifPresent(patientData::setPatientSummaryLvl1);
-    Optional.ofNullable(patientSummary)
-        .map(RetrieveDocumentsResponseDTO::ncpehFdResponseContent)
-        .map(DataUtils::readPatientSummaryLvl3)
-        .ifPresent(patientData::setPatientSummaryLvl3);
+    if (patientSummary != null) {
+      // the spooled documents are not needed anymore, once the patient summaries are read
+      try (patientSummary) {
+        Optional.ofNullable(DataUtils.readPatientSummaryLvl1(patientSummary))
+            .ifPresent(patientData::setPatientSummaryLvl1);
+        Optional.ofNullable(DataUtils.readPatientSummaryLvl3(patientSummary))
+            .ifPresent(patientData::setPatientSummaryLvl3);
+      }
+    }
   }
 
   public static RetrievePatientSummary ofLevel(final PatientSummaryLevel... patientSummaryLevel) {
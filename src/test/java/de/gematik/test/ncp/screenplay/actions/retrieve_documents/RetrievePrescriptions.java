@@ -31,7 +31,8 @@ import de.gematik.test.ncp.data.PatientImpl;
 import de.gematik.test.ncp.erezept.impl.ErpFdvMockImpl;
 import de.gematik.test.ncp.gen.erp.fdv.model.Prescription.StatusEnum;
 import de.gematik.test.ncp.glue.psa.UCHeaders;
-import de.gematik.test.ncp.ncpeh.client.dataobject.DataUtils;
+import de.gematik.test.ncp.ncpeh.client.dataobject.RetrieveDocumentsResponseDTO;
+import de.gematik.test.ncp.ncpeh.client.dataobject.SpooledDocumentResponse;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePatientAccessData;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePatientData;
 import de.gematik.test.ncp.screenplay.abilities.ProvidePractitionerData;
@@ -40,12 +41,12 @@ import de.gematik.test.ncp.screenplay.abilities.UseErpFdv;
 import de.gematik.test.ncp.screenplay.abilities.UseNcpeh;
 import de.gematik.test.ncp.screenplay.questions.practitioner.CurrentPatient;
 import de.gematik.test.ncp.util.PrescriptionUtils;
-import ihe.iti.xds_b._2007.RetrieveDocumentSetResponseType.DocumentResponse;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 import lombok.NoArgsConstructor;
@@ -111,15 +112,19 @@ public class RetrievePrescriptions implements Performable {
             ncpeh.getNcpehMockControlRequestHeaders().get(UCHeaders.UC11),
             getMedicationByPrescriptionId(targetDocuments));
 
+    // the spooled documents of the previous response are replaced, the new ones are kept for
+    // the verification of the prescriptions and closed with the patient records
+    Optional.ofNullable(patientRecord.getRetrievePrescriptionsResponse())
+        .ifPresent(RetrieveDocumentsResponseDTO::close);
     patientRecord.setRetrievePrescriptionsResponse(response);
 
     if (response != null) {
       var documentsByUid =
-          response.ncpehFdResponseContent().getDocumentResponse().stream()
+          response.documentResponses().stream()
               .collect(
                   Collectors.toMap(
-                      DocumentResponse::getDocumentUniqueId,
-                      dr -> DataUtils.readClinicalDocument(dr.getDocument())));
+                      SpooledDocumentResponse::documentUniqueId,
+                      dr -> dr.document().readClinicalDocument()));
 
       patientRecord.setPrescriptionsByDocumentId(documentsByUid);
       updateFdvMock(patient, documentsByUid.keySet());
@@ -23,23 +23,22 @@ package de.gematik.test.ncp.screenplay.actions.testactor;
 
 import de.gematik.test.ncp.data.PrescriptionCdaLevel;
 import de.gematik.test.ncp.data.record.PatientRecord;
-import de.gematik.test.ncp.util.ClinicalDocumentInformationProvider;
+import de.gematik.test.ncp.ncpeh.client.dataobject.DocumentSpooler;
+import de.gematik.test.ncp.ncpeh.client.dataobject.SpooledDocument;
+import de.gematik.test.ncp.ncpeh.client.dataobject.SpooledDocumentResponse;
 import de.gematik.test.tiger.common.web.TigerBrowserUtil;
 import de.gematik.test.tiger.lib.TigerDirector;
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Base64;
-import java.util.Map.Entry;
+import java.nio.file.StandardCopyOption;
 import java.util.Objects;
 import lombok.NoArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import net.serenitybdd.annotations.Step;
 import net.serenitybdd.screenplay.Actor;
 import net.serenitybdd.screenplay.Performable;
-import org.hl7.v3.ClinicalDocument;
 
 /** Action to manually verify retrieved CDA1 prescription documents */
 @RequiredArgsConstructor
@@ -52,21 +51,27 @@ public class VerifyRetrievedCda1Prescriptions implements Performable {
   @Override
   public <T extends Actor> void performAs(final T actor) {
     var documents =
-        Objects.requireNonNull(patientRecord).getPrescriptionsByDocumentId().entrySet().stream()
-            .filter(entry -> PrescriptionCdaLevel.LEVEL_1.appliesTo(entry.getKey()))
-            .map(Entry::getValue)
+        Objects.requireNonNull(patientRecord)
+            .getRetrievePrescriptionsResponse()
+            .documentResponses()
+            .stream()
+            .filter(dr -> PrescriptionCdaLevel.LEVEL_1.appliesTo(dr.documentUniqueId()))
+            .map(SpooledDocumentResponse::document)
             .toList();
 
-    for (ClinicalDocument document : documents) {
-      String b64 =
-          Objects.requireNonNull(
-              ClinicalDocumentInformationProvider.getB64PdfPayload(document),
-              "No Base64 PDF payload found in the clinical document");
-      byte[] pdf = Base64.getDecoder().decode(b64.getBytes(StandardCharsets.UTF_8));
-
-      try {
+    for (SpooledDocument document : documents) {
+      // decode the PDF from the spooled CDA, without unmarshalling the whole document
+      var pdf =
+          DocumentSpooler.spoolNonXmlBody(document)
+              .orElseThrow(
+                  () ->
+                      new IllegalStateException(
+                          "No Base64 PDF payload found in the clinical document"));
+      try (pdf) {
         Path path = Files.createTempFile(null, ".pdf");
-        Files.write(path, pdf);
+        try (var in = pdf.openStream()) {
+          Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+        }
         TigerBrowserUtil.openUrlInBrowser(path.toString(), "CDA Level 1 Prescription Document");
         TigerDirector.pauseExecutionAndFailIfDesired(
             "The prescription document will open automatically. Please check the PDF content and decide if it satisfies the requirements.",
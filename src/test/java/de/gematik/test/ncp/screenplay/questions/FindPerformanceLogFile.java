@@ -21,6 +21,7 @@
 
 package de.gematik.test.ncp.screenplay.questions;
 
+import de.gematik.test.ncp.ncpeh.NcpehProvider;
 import de.gematik.test.ncp.util.ReportingUtils;
 import java.nio.file.Path;
 import java.util.Optional;
@@ -38,6 +39,8 @@ public class FindPerformanceLogFile implements Question<Optional<Path>> {
 
   @Override
   public Optional<Path> answeredBy(final Actor actor) {
+    // the performance logs are written asynchronously, make sure everything is on disk
+    NcpehProvider.getInstance().getNcpehContext().getPerformanceLogWriter().flush();
     return ReportingUtils.getPerformanceLogFile(testCaseId);
   }
 
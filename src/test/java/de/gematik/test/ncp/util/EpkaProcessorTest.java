@@ -25,8 +25,14 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import de.gematik.test.ncp.data.PersonName;
 import de.gematik.test.ncp.data.Testdata;
+import java.net.URL;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -89,4 +95,39 @@ class EpkaProcessorTest {
     assertEquals(
         newName.lastNames(), processor.retrieveNode(EpkaProcessor.lastNamePath()).getNodeValue());
   }
+
+  @SneakyThrows
+  @Test
+  void createEpkasConcurrently() {
+    // Arrange
+    final var url = ResourceUtils.getURL(Testdata.instance().getDefaultEpkaTemplatePath());
+    final var count = 200;
+    final var expected = IntStream.range(0, count).mapToObj(i -> createEpka(url, i)).toList();
+
+    // Act
+    final List<String> parallel =
+        IntStream.range(0, count).parallel().mapToObj(i -> createEpka(url, i)).toList();
+    final List<Future<String>> virtual;
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      virtual =
+          executor.invokeAll(
+              IntStream.range(0, count)
+                  .<Callable<String>>mapToObj(i -> () -> createEpka(url, i))
+                  .toList());
+    }
+
+    // Assert
+    assertEquals(expected, parallel);
+    for (var i = 0; i < count; i++) {
+      assertEquals(expected.get(i), virtual.get(i).get());
+    }
+  }
+
+  private static String createEpka(final URL url, final int index) {
+    return new EpkaProcessor(url)
+        .updateKvnr("X%09d".formatted(index))
+        .updateBirthDate(LocalDate.of(1950, 1, 1).plusDays(index))
+        .updateName(PersonName.fromString("Dr. Given%d Family%d".formatted(index, index)))
+        .toXmlString();
+  }
 }
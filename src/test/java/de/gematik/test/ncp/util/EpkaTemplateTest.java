@@ -0,0 +1,115 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import de.gematik.test.ncp.data.PersonName;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import javax.xml.parsers.DocumentBuilderFactory;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.util.ResourceUtils;
+import org.w3c.dom.Document;
+
+class EpkaTemplateTest {
+
+  private static final String KVNR = "X987654321";
+
+  private static final LocalDate BIRTH_DATE = LocalDate.of(1961, 2, 3);
+
+  @SneakyThrows
+  @ParameterizedTest
+  @ValueSource(
+      strings = {
+        "classpath:testdata/epka_mio_default.xml",
+        "classpath:testdata/epka_defect_011.xml",
+        "classpath:testdata/epka_defect_012.xml",
+        "classpath:testdata/epka_defect_020.xml"
+      })
+  void createEpkaEqualsEpkaProcessor(final String templatePath) {
+    // Arrange
+    final var url = ResourceUtils.getURL(templatePath);
+    final var name =
+        PersonName.fromString(
+            "Prof. Freifrau Sybille Gertrud von Oberammergau und Niederrheindings");
+    final var expected =
+        new EpkaProcessor(url)
+            .updateBirthDate(BIRTH_DATE)
+            .updateKvnr(KVNR)
+            .updateName(name)
+            .toXmlString()
+            .getBytes(StandardCharsets.UTF_8);
+
+    // Act
+    final var actual = EpkaTemplate.forUrl(url).createEpka(KVNR, BIRTH_DATE, name);
+
+    // Assert
+    assertTrue(EpkaTemplate.forUrl(url).spliceable());
+    assertTrue(parse(expected).isEqualNode(parse(actual)));
+  }
+
+  @SneakyThrows
+  @Test
+  void createEpkaEscapesValues() {
+    // Arrange
+    final var url = ResourceUtils.getURL("classpath:testdata/epka_mio_default.xml");
+    final var name = PersonName.fromString("Dr. Anna-Lena \"Ann\" <M&M> O'Neill");
+
+    // Act
+    final var epka = parse(EpkaTemplate.forUrl(url).createEpka(KVNR, BIRTH_DATE, name));
+
+    // Assert
+    assertEquals(name.toString(), EpkaProcessor.fullNamePath().evaluate(epka));
+    assertEquals(name.lastNames(), EpkaProcessor.lastNamePath().evaluate(epka));
+    assertEquals(KVNR, EpkaProcessor.kvnrXpath().evaluate(epka));
+  }
+
+  @SneakyThrows
+  @Test
+  void forUrlCachesTemplate() {
+    // Arrange
+    final var url = ResourceUtils.getURL("classpath:testdata/epka_mio_default.xml");
+
+    // Act
+    final var first = EpkaTemplate.forUrl(url);
+    final var second = EpkaTemplate.forUrl(ResourceUtils.getURL(url.toExternalForm()));
+
+    // Assert
+    assertSame(first, second);
+    assertTrue(first.contains(EpkaTemplate.Field.KVNR));
+    assertTrue(first.contains(EpkaTemplate.Field.BIRTH_DATE));
+  }
+
+  @SneakyThrows
+  private static Document parse(final byte[] xml) {
+    final var factory = DocumentBuilderFactory.newInstance();
+    factory.setNamespaceAware(true);
+    final var document = factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml));
+    document.normalizeDocument();
+    return document;
+  }
+}
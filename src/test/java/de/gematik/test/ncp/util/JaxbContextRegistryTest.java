@@ -0,0 +1,172 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import jakarta.xml.bind.JAXBException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import lombok.SneakyThrows;
+import oasis.names.tc.ebxml_regrep.xsd.query._3.AdhocQueryResponse;
+import org.hl7.v3.ClinicalDocument;
+import org.hl7.v3.PRPAIN201305UV02;
+import org.junit.jupiter.api.Test;
+
+class JaxbContextRegistryTest {
+
+  @Test
+  void getContextReturnsSameInstance() {
+    // Arrange & Act
+    final var first = JaxbContextRegistry.getContext(AdhocQueryResponse.class);
+    final var second = JaxbContextRegistry.getContext(AdhocQueryResponse.class);
+
+    // Assert
+    assertNotNull(first);
+    assertSame(first, second);
+  }
+
+  @Test
+  void warmUpCreatesContexts() {
+    // Arrange & Act
+    assertDoesNotThrow(() -> JaxbContextRegistry.warmUp());
+
+    // Assert
+    assertTrue(
+        JaxbContextRegistry.NCPEH_MODEL_CLASSES.stream().allMatch(JaxbContextRegistry::isWarm));
+  }
+
+  @SneakyThrows
+  @Test
+  void withUnmarshallerReusesReturnedUnmarshaller() {
+    // Arrange
+    final var idleBefore = JaxbContextRegistry.idleUnmarshallers(ClinicalDocument.class);
+    JaxbContextRegistry.withUnmarshaller(ClinicalDocument.class, unmarshaller -> unmarshaller);
+    final var idleAfterFirst = JaxbContextRegistry.idleUnmarshallers(ClinicalDocument.class);
+
+    // Act
+    JaxbContextRegistry.withUnmarshaller(ClinicalDocument.class, unmarshaller -> unmarshaller);
+
+    // Assert
+    // sequential calls borrow an idle unmarshaller and return it, the pool doesn't grow
+    assertEquals(Math.max(idleBefore, 1), idleAfterFirst);
+    assertEquals(idleAfterFirst, JaxbContextRegistry.idleUnmarshallers(ClinicalDocument.class));
+  }
+
+  @SneakyThrows
+  @Test
+  void withUnmarshallerNestedUsesDistinctUnmarshallers() {
+    // Act
+    final var pair =
+        JaxbContextRegistry.withUnmarshaller(
+            ClinicalDocument.class,
+            outer ->
+                List.of(
+                    outer,
+                    JaxbContextRegistry.withUnmarshaller(
+                        ClinicalDocument.class, inner -> inner)));
+
+    // Assert
+    assertNotSame(pair.get(0), pair.get(1));
+  }
+
+  @Test
+  void withUnmarshallerFailingUnmarshallerIsDropped() {
+    // Arrange
+    final var idleBefore = JaxbContextRegistry.idleUnmarshallers(PRPAIN201305UV02.class);
+
+    // Act
+    assertThrows(
+        JAXBException.class,
+        () ->
+            JaxbContextRegistry.withUnmarshaller(
+                PRPAIN201305UV02.class,
+                unmarshaller -> {
+                  throw new JAXBException("test");
+                }));
+
+    // Assert
+    assertEquals(idleBefore, JaxbContextRegistry.idleUnmarshallers(PRPAIN201305UV02.class));
+  }
+
+  @SneakyThrows
+  @Test
+  void idleUnmarshallersAreBounded() {
+    // Arrange
+    final var threads = ObjectPool.DEFAULT_MAX_IDLE * 3;
+    final var xml =
+        Objects.requireNonNull(getClass().getResourceAsStream("AdhocQueryResponse.xml"))
+            .readAllBytes();
+
+    // Act
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      IntStream.range(0, threads)
+          .mapToObj(
+              i ->
+                  CompletableFuture.runAsync(
+                      () -> Utils.unmarshalXml(AdhocQueryResponse.class, xml), executor))
+          .toList()
+          .forEach(CompletableFuture::join);
+    }
+
+    // Assert
+    assertTrue(
+        JaxbContextRegistry.idleUnmarshallers(AdhocQueryResponse.class)
+            <= ObjectPool.DEFAULT_MAX_IDLE);
+  }
+
+  @SneakyThrows
+  @Test
+  void unmarshalXmlIsThreadSafe() {
+    // Arrange
+    final var xml =
+        Objects.requireNonNull(getClass().getResourceAsStream("AdhocQueryResponse.xml"))
+            .readAllBytes();
+
+    try (final var executor = Executors.newFixedThreadPool(8)) {
+      // Act
+      final List<CompletableFuture<AdhocQueryResponse>> futures =
+          IntStream.range(0, 32)
+              .mapToObj(
+                  i ->
+                      CompletableFuture.supplyAsync(
+                          () -> Utils.unmarshalXml(AdhocQueryResponse.class, xml), executor))
+              .toList();
+
+      // Assert
+      final var expected = Utils.unmarshalXml(AdhocQueryResponse.class, xml).getStatus();
+      for (final var future : futures) {
+        assertNotNull(future.get());
+        assertEquals(expected, future.get().getStatus());
+      }
+    }
+  }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ObjectPoolTest {
+
+  @Test
+  void applyReusesIdleObject() {
+    // Arrange
+    final var pool = new ObjectPool<>(Object::new);
+    final var first = pool.apply(object -> object);
+
+    // Act
+    final var second = pool.apply(object -> object);
+
+    // Assert
+    assertSame(first, second);
+    assertEquals(1, pool.idle());
+  }
+
+  @Test
+  void applyCreatesObjectForNestedCall() {
+    // Arrange
+    final var pool = new ObjectPool<>(Object::new);
+
+    // Act
+    final var objects = pool.apply(outer -> new Object[] {outer, pool.apply(inner -> inner)});
+
+    // Assert
+    assertNotSame(objects[0], objects[1]);
+    assertEquals(2, pool.idle());
+  }
+
+  @Test
+  void applyDropsObjectOfFailedFunction() {
+    // Arrange
+    final var pool = new ObjectPool<>(Object::new);
+    final var failed = new Object[1];
+
+    // Act
+    assertThrows(
+        IOException.class,
+        () ->
+            pool.apply(
+                object -> {
+                  failed[0] = object;
+                  throw new IOException("failed");
+                }));
+
+    // Assert
+    assertEquals(0, pool.idle());
+    assertNotSame(failed[0], pool.apply(object -> object));
+  }
+
+  @Test
+  void idleObjectsAreBounded() {
+    // Arrange
+    final var maxIdle = 2;
+    final var created = new AtomicInteger();
+    final var pool = new ObjectPool<>(maxIdle, created::incrementAndGet);
+
+    // Act
+    try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      IntStream.range(0, 100)
+          .forEach(
+              i ->
+                  executor.submit(
+                      () ->
+                          pool.apply(
+                              object -> {
+                                Thread.sleep(5);
+                                return object;
+                              })));
+    }
+
+    // Assert
+    assertEquals(maxIdle, pool.idle());
+  }
+
+  @Test
+  void constructorRejectsPoolWithoutIdleObjects() {
+    // Act & Assert
+    assertThrows(IllegalArgumentException.class, () -> new ObjectPool<>(0, Object::new));
+  }
+}
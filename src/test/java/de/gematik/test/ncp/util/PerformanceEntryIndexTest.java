@@ -0,0 +1,185 @@
+/*
+ * Copyright (Change Date see Readme), gematik GmbH
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ******
+ *
+ * For additional notes and disclaimer from gematik and in case of changes
+ * by gematik, find details in the "Readme" file.
+ */
+
+package de.gematik.test.ncp.util;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import de.gematik.test.ncp.reporting.UseCase;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceMessage;
+import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
+import de.gematik.test.ncp.reporting.model.Pair;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class PerformanceEntryIndexTest {
+
+  @Test
+  void firstFitTakesEarliestFreeCandidate() {
+    // Arrange
+    final var dwhEntries = List.of(entry(140), entry(60), entry(150, "404"));
+    final var tested = new PerformanceEntryIndex(dwhEntries);
+
+    // Act
+    final var testee = tested.matchFirstFit(List.of(entry(150), entry(145)), 100);
+
+    // Assert
+    assertEquals(60, testee.getFirst().value().timestamp());
+    assertEquals(140, testee.get(1).value().timestamp());
+  }
+
+  @Test
+  void optimalTakesClosestCandidates() {
+    // Arrange
+    final var tested = new PerformanceEntryIndex(List.of(entry(60), entry(140)));
+
+    // Act
+    final var testee = tested.matchOptimal(List.of(entry(150)), 100);
+
+    // Assert
+    assertEquals(140, testee.getFirst().value().timestamp());
+  }
+
+  @Test
+  void optimalMatchesWhereFirstFitFails() {
+    // Arrange
+    final var entries = List.of(entry(200), entry(90));
+    final var dwhEntries = List.of(entry(100), entry(250));
+
+    // Act
+    final var exception =
+        assertThrows(
+            NoSuchElementException.class,
+            () -> new PerformanceEntryIndex(dwhEntries).matchFirstFit(entries, 120));
+    final var testee = new PerformanceEntryIndex(dwhEntries).matchOptimal(entries, 120);
+
+    // Assert
+    assertThat(exception.getMessage()).contains("timestamp=90");
+    assertEquals(250, testee.getFirst().value().timestamp());
+    assertEquals(100, testee.get(1).value().timestamp());
+  }
+
+  @Test
+  void optimalFailsIfNoCompleteMatchingExists() {
+    // Arrange
+    final var tested = new PerformanceEntryIndex(List.of(entry(100), entry(300)));
+
+    // Act / Assert
+    assertThrows(
+        NoSuchElementException.class,
+        () -> tested.matchOptimal(List.of(entry(90), entry(95), entry(310)), 50));
+    final var otherStatus = List.of(entry(100, "500"));
+    assertThrows(NoSuchElementException.class, () -> tested.matchOptimal(otherStatus, 50));
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {true, false})
+  void matchesLargeReportsQuickly(final boolean optimal) {
+    // Arrange
+    final var random = new Random(42);
+    final var entries = new ArrayList<NcpehPerformanceReportEntry>();
+    final var dwhEntries = new ArrayList<NcpehPerformanceReportEntry>();
+    LongStream.range(0, 200_000)
+        .forEach(
+            i -> {
+              final var status = i % 7 == 0 ? "404" : "200";
+              entries.add(entry(i * 20, status));
+              dwhEntries.add(entry(i * 20 + random.nextInt(-40, 41), status));
+            });
+    Collections.shuffle(dwhEntries, random);
+
+    // Act
+    final var testee =
+        assertTimeoutPreemptively(
+            Duration.ofSeconds(10),
+            () -> {
+              final var index = new PerformanceEntryIndex(dwhEntries);
+              return optimal ? index.matchOptimal(entries, 50) : index.matchFirstFit(entries, 50);
+            });
+
+    // Assert
+    assertEquals(entries.size(), testee.size());
+    final var used = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (var i = 0; i < testee.size(); i++) {
+      final Pair<NcpehPerformanceReportEntry, NcpehPerformanceReportEntry> pair = testee.get(i);
+      assertThat(pair.key()).isSameAs(entries.get(i));
+      assertEquals(pair.key().status(), pair.value().status());
+      assertThat(Math.abs(pair.key().timestamp() - pair.value().timestamp()))
+          .isLessThanOrEqualTo(50);
+      assertThat(used.add(pair.value())).isTrue();
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1_500, 5_000})
+  void optimalMatchesDenseWindowsQuickly(final int size) {
+    // Arrange
+    // every DWH entry is a candidate of every entry, so the windows hold size² candidates
+    final var entries = LongStream.range(0, size).mapToObj(i -> entry(1_000_000 + i)).toList();
+    final var dwhEntries =
+        LongStream.range(0, size).mapToObj(i -> entry(1_000_000 + size - i)).toList();
+
+    // Act
+    final var testee =
+        assertTimeoutPreemptively(
+            Duration.ofSeconds(10),
+            () -> new PerformanceEntryIndex(dwhEntries).matchOptimal(entries, 2L * size));
+
+    // Assert
+    assertEquals(size, testee.size());
+    final var used = Collections.newSetFromMap(new IdentityHashMap<>());
+    for (var i = 0; i < testee.size(); i++) {
+      final Pair<NcpehPerformanceReportEntry, NcpehPerformanceReportEntry> pair = testee.get(i);
+      assertThat(pair.key()).isSameAs(entries.get(i));
+      assertThat(used.add(pair.value())).isTrue();
+    }
+    if ((long) size * size <= PerformanceEntryIndex.MAX_OPTIMAL_CELLS) {
+      // the optimal matching pairs the entries in time order, here each one shifted by one
+      assertThat(testee)
+          .allSatisfy(pair -> assertEquals(pair.key().timestamp() + 1, pair.value().timestamp()));
+    }
+  }
+
+  private static NcpehPerformanceReportEntry entry(final long timestamp) {
+    return entry(timestamp, "200");
+  }
+
+  private static NcpehPerformanceReportEntry entry(final long timestamp, final String status) {
+    return new NcpehPerformanceReportEntry()
+        .timestamp(timestamp)
+        .duration(10L)
+        .operation(UseCase.NCPEH_UC_1)
+        .status(status)
+        .message(new NcpehPerformanceMessage("NL", null, 5));
+  }
+}
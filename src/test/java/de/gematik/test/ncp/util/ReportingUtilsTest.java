@@ -31,6 +31,7 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import de.gematik.test.ncp.reporting.MatchingMode;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReport;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportDWHResponseEntry;
 import de.gematik.test.ncp.reporting.model.NcpehPerformanceReportEntry;
@@ -38,7 +39,6 @@ import de.gematik.test.ncp.utils.TestUtils;
 import de.gematik.test.tiger.common.config.TigerGlobalConfiguration;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashSet;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -240,24 +240,26 @@ class ReportingUtilsTest {
     "11-Success-ReportEntity.json, 300",
     "12-SuccessWithTimeShiftOf150-ReportEntity.json, 250"
   })
-  void findPairMatchesEntriesCorrectly(final String input, final int acceptableDelta) {
+  void matchPerformanceReportEntriesMatchesSingleEntryCorrectly(
+      final String input, final int acceptableDelta) {
     // Arrange
     final var dwhReport =
         TestUtils.loadFromJsonResource(NcpehPerformanceReport.class, this.getClass(), "dwh.json");
     final var entry =
         TestUtils.loadFromJsonResource(NcpehPerformanceReportEntry.class, this.getClass(), input);
+    final var performanceReport = reportOf(entry);
 
     // Act
     final var testee =
         assertDoesNotThrow(
             () ->
-                ReportingUtils.findPair(
-                    entry, dwhReport.getEntries(), acceptableDelta, new HashSet<>()));
+                ReportingUtils.matchPerformanceReportEntries(
+                    performanceReport, dwhReport, acceptableDelta));
 
     // Assert
-    assertThat(testee).isNotNull();
-    assertThat(testee.key()).isEqualTo(entry);
-    assertThat(testee.value()).isEqualTo(dwhReport.getEntries().get(1));
+    assertThat(testee).hasSize(1);
+    assertThat(testee.getFirst().key()).isEqualTo(entry);
+    assertThat(testee.getFirst().value()).isEqualTo(dwhReport.getEntries().get(1));
   }
 
   @ParameterizedTest
@@ -267,20 +269,22 @@ class ReportingUtilsTest {
     "14-WrongStatus-ReportEntity.json, 300",
     "15-WrongCountry-ReportEntity.json, 300",
   })
-  void findPairThrowsExceptionOnMismatch(final String input, final int acceptableDelta) {
+  void matchPerformanceReportEntriesThrowsExceptionOnSingleEntryMismatch(
+      final String input, final int acceptableDelta) {
     // Arrange
-    final var dwhEntries =
-        TestUtils.loadFromJsonResource(NcpehPerformanceReport.class, this.getClass(), "dwh.json")
-            .getEntries();
+    final var dwhReport =
+        TestUtils.loadFromJsonResource(NcpehPerformanceReport.class, this.getClass(), "dwh.json");
     final var entry =
         TestUtils.loadFromJsonResource(NcpehPerformanceReportEntry.class, this.getClass(), input);
-    final var akku = new HashSet<NcpehPerformanceReportEntry>();
+    final var performanceReport = reportOf(entry);
 
     // Act
     final var exception =
         assertThrows(
             NoSuchElementException.class,
-            () -> ReportingUtils.findPair(entry, dwhEntries, acceptableDelta, akku));
+            () ->
+                ReportingUtils.matchPerformanceReportEntries(
+                    performanceReport, dwhReport, acceptableDelta));
 
     // Assert
     assertEquals(
@@ -288,28 +292,31 @@ class ReportingUtilsTest {
   }
 
   @Test
-  void findPairThrowsExceptionOnDuplicateMatch() {
+  void matchPerformanceReportEntriesThrowsExceptionOnDuplicateMatch() {
     // Arrange
-    final var dwhEntries =
-        TestUtils.loadFromJsonResource(NcpehPerformanceReport.class, this.getClass(), "dwh.json")
-            .getEntries();
+    final var dwhReport =
+        TestUtils.loadFromJsonResource(NcpehPerformanceReport.class, this.getClass(), "dwh.json");
     final var entry =
         TestUtils.loadFromJsonResource(
             NcpehPerformanceReportEntry.class,
             this.getClass(),
             "12-SuccessWithTimeShiftOf150-ReportEntity.json");
-    final var akku = new HashSet<NcpehPerformanceReportEntry>();
-    akku.add(dwhEntries.get(1));
+    // both entries only match the second DWH entry, which can be matched once
+    final var performanceReport =
+        reportOf(
+            TestUtils.loadFromJsonResource(
+                NcpehPerformanceReportEntry.class, this.getClass(), "11-Success-ReportEntity.json"),
+            entry);
 
     // Act
     final var exception =
         assertThrows(
             NoSuchElementException.class,
-            () -> ReportingUtils.findPair(entry, dwhEntries, 300, akku));
+            () -> ReportingUtils.matchPerformanceReportEntries(performanceReport, dwhReport, 300));
 
     // Assert
     assertEquals(
-        "No matching entry found for entry: NcpehPerformanceReportEntry(timestamp=1739554789870, duration=22, operation=NCPeH.UC_2, status=200, message=NcpehPerformanceMessage[reqc=NL, err=null, bkdur=22]) in DWH entries!",
+        "No matching entry found for entry: NcpehPerformanceReportEntry(timestamp=1739554789870, duration=22, operation=NCPeH.UC_2, status=200, message=NcpehPerformanceMessage[reqc=NL, err=null, bkdur=22, bld=null, net=null, buf=null, prs=null]) in DWH entries!",
         exception.getMessage());
   }
 
@@ -338,6 +345,33 @@ class ReportingUtilsTest {
     assertThat(testee).isNotNull().hasSize(expected);
   }
 
+  @ParameterizedTest
+  @CsvSource({
+    "21-Success-Report.json, 100, 3",
+    "21-SuccessWithTimeShiftOf100-Report.json, 100, 3",
+    "22-Success2Entry-Report.json, 100, 2"
+  })
+  void matchPerformanceReportsOptimalIdentifiesCorrespondingReports(
+      final String input, final int acceptableDelta, final int expected) {
+    // Arrange
+    final var performanceReport =
+        TestUtils.loadFromJsonResource(NcpehPerformanceReport.class, this.getClass(), input);
+    final var dwhPReport =
+        TestUtils.loadFromJsonResource(NcpehPerformanceReport.class, this.getClass(), "dwh.json");
+
+    // Act
+    final var testee =
+        assertDoesNotThrow(
+            () ->
+                ReportingUtils.matchPerformanceReportEntries(
+                    performanceReport, dwhPReport, acceptableDelta, MatchingMode.OPTIMAL));
+
+    // Assert
+    assertThat(testee).hasSize(expected);
+    assertThat(testee)
+        .allSatisfy(pair -> assertEquals(pair.key().operation(), pair.value().operation()));
+  }
+
   @ParameterizedTest
   @CsvSource({
     "21-SuccessWithTimeShiftOf100-Report.json, 99, 0",
@@ -445,4 +479,12 @@ class ReportingUtilsTest {
     assertThat(testee).isNotNull();
     assertThat(testee).usingRecursiveComparison().isEqualTo(expectedReportEntry);
   }
+
+  private static NcpehPerformanceReport reportOf(final NcpehPerformanceReportEntry... entries) {
+    final var report = new NcpehPerformanceReport();
+    for (final var entry : entries) {
+      report.addEntry(entry);
+    }
+    return report;
+  }
 }
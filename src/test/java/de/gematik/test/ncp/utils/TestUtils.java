@@ -26,8 +26,8 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import de.gematik.test.ncp.util.JaxbContextRegistry;
 import de.gematik.test.ncp.util.Utils;
-import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBElement;
 import jakarta.xml.bind.Marshaller;
 import jakarta.xml.bind.annotation.XmlRootElement;
@@ -103,6 +103,27 @@ public class TestUtils {
         StandardCharsets.UTF_8);
   }
 
+  /**
+   * Wraps the content of an XML resource file, without XML declaration and comments, in the body
+   * of a SOAP envelope.
+   *
+   * @param <T> the type of the class
+   * @param loader the class used to load the resource
+   * @param bodyContentFileName the name of the resource file with the body content
+   * @return the SOAP message as UTF-8 bytes
+   */
+  public static <T> byte[] soapEnvelope(final Class<T> loader, final String bodyContentFileName) {
+    final var content =
+        readResourceFile(loader, bodyContentFileName)
+            .replaceAll("(?s)<\\?xml.*?\\?>", "")
+            .replaceAll("(?s)<!--.*?-->", "");
+    return ("<soap:Envelope xmlns:soap=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+            + "<soap:Header/><soap:Body>"
+            + content
+            + "</soap:Body></soap:Envelope>")
+        .getBytes(StandardCharsets.UTF_8);
+  }
+
   public static <T> String marshalXml(@NonNull final T obj) {
     return marshalXml(obj, null);
   }
@@ -110,7 +131,7 @@ public class TestUtils {
   @SuppressWarnings("unchecked")
   @SneakyThrows
   public static <T> String marshalXml(@NonNull final T obj, final QName rootQName) {
-    final var marshaller = JAXBContext.newInstance(obj.getClass()).createMarshaller();
+    final var marshaller = JaxbContextRegistry.getContext(obj.getClass()).createMarshaller();
     marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
     final StringWriter writer = new StringWriter();
 
@@ -0,0 +1,35 @@
+#
+# Copyright 2024-2025 gematik GmbH
+#
+# Licensed under the Apache License, Version 2.0 (the "License");
+# you may not use this file except in compliance with the License.
+# You may obtain a copy of the License at
+#
+#     http://www.apache.org/licenses/LICENSE-2.0
+#
+# Unless required by applicable law or agreed to in writing, software
+# distributed under the License is distributed on an "AS IS" BASIS,
+# WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+# See the License for the specific language governing permissions and
+# limitations under the License.
+#
+# ******
+#
+# For additional notes and disclaimer from gematik and in case of changes by gematik find details in the "Readme" file.
+#
+
+#language: de
+#noinspection NonAsciiCharacters,SpellCheckingInspection
+@PRODUKT:NCPeH_FD
+@LOAD
+@Ignore
+Funktionalität: NCPeH Lasttest
+  Erzeugt Last auf dem NCPeH-FD (bzw. dem ncpeh-simulation-mock) mit den Abläufen
+  identifyPatient -> findDocuments -> retrieveDocument (PS-A Level 1 und 3) und retrieveDocuments (ePeD).
+  Das Lastprofil (Ankunftsrate, Ramp-Up, Steady, Ramp-Down, Gewichtung der Abläufe) und die
+  Latenz-Vorgaben je Anwendungsfall werden unter testdata.load in tiger/testdata.yaml konfiguriert.
+  Nicht Teil der regulären Läufe, Start mit -Dcucumber.filter.tags=@LOAD
+
+  Szenario: Lastprofil gegen den NCPeH-FD fahren
+    Wenn das konfigurierte Lastprofil gegen den NCPeH-FD gefahren wird
+    Dann halten alle Anwendungsfälle die konfigurierten Latenz-Vorgaben ein